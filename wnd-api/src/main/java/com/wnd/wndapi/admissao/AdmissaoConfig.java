@@ -0,0 +1,81 @@
+package com.wnd.wndapi.admissao;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Liga o controle de admissão (ControleAdmissaoFiltro) em /api/*.
+ *
+ * Os limites de cada compartimento vêm de wnd.admissao.leitura.*,
+ * wnd.admissao.escrita.* e wnd.admissao.lote.* (ver application.properties).
+ * Desligar com
+ * wnd.admissao.habilitado=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "wnd.admissao.habilitado", havingValue = "true", matchIfMissing = true)
+public class AdmissaoConfig {
+
+    @Bean
+    FilterRegistrationBean<ControleAdmissaoFiltro> controleAdmissaoFiltro(
+            MeterRegistry registry,
+            @Value("${wnd.admissao.tolerancia-latencia:2.0}") double tolerancia,
+            @Value("${wnd.admissao.retry-after-s:1}") int retryAfterSegundos,
+            @Value("${wnd.admissao.leitura.limite-inicial:50}") int leituraInicial,
+            @Value("${wnd.admissao.leitura.limite-minimo:10}") int leituraMinimo,
+            @Value("${wnd.admissao.leitura.limite-maximo:200}") int leituraMaximo,
+            @Value("${wnd.admissao.leitura.fila-maxima:100}") int leituraFila,
+            @Value("${wnd.admissao.leitura.espera-maxima-ms:200}") long leituraEspera,
+            @Value("${wnd.admissao.escrita.limite-inicial:10}") int escritaInicial,
+            @Value("${wnd.admissao.escrita.limite-minimo:2}") int escritaMinimo,
+            @Value("${wnd.admissao.escrita.limite-maximo:40}") int escritaMaximo,
+            @Value("${wnd.admissao.escrita.fila-maxima:20}") int escritaFila,
+            @Value("${wnd.admissao.escrita.espera-maxima-ms:50}") long escritaEspera,
+            @Value("${wnd.admissao.lote.limite:2}") int loteLimite,
+            @Value("${wnd.admissao.lote.fila-maxima:2}") int loteFila,
+            @Value("${wnd.admissao.lote.espera-maxima-ms:1000}") long loteEspera) {
+
+        Compartimento leitura = new Compartimento("leitura",
+                new LimiteAdaptativo(leituraInicial, leituraMinimo, leituraMaximo, tolerancia),
+                leituraFila, leituraEspera);
+        Compartimento escrita = new Compartimento("escrita",
+                new LimiteAdaptativo(escritaInicial, escritaMinimo, escritaMaximo, tolerancia),
+                escritaFila, escritaEspera);
+        // Vagas fixas (mínimo = máximo): a duração de uma importação depende do
+        // tamanho do arquivo, não da carga, então a latência não diz nada aqui
+        Compartimento lote = new Compartimento("lote",
+                new LimiteAdaptativo(loteLimite, loteLimite, loteLimite, tolerancia),
+                loteFila, loteEspera);
+        for (Compartimento compartimento : new Compartimento[]{leitura, escrita, lote}) {
+            medidor(registry, "wnd.admissao.limite", "Vagas atuais (limite adaptativo)",
+                    compartimento, Compartimento::limite);
+            medidor(registry, "wnd.admissao.ativas", "Requisições admitidas em andamento",
+                    compartimento, Compartimento::emAndamento);
+            medidor(registry, "wnd.admissao.esperando", "Requisições esperando vaga agora",
+                    compartimento, Compartimento::esperando);
+        }
+
+        FilterRegistrationBean<ControleAdmissaoFiltro> registro = new FilterRegistrationBean<>(
+                new ControleAdmissaoFiltro(leitura, escrita, lote, retryAfterSegundos, registry));
+        registro.addUrlPatterns("/api/*");
+        // Depois do filtro de observação HTTP (a recusa aparece em http.server.requests)
+        // e antes dos outros (MetricasRequisicaoFiltro só mede o que foi admitido)
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registro;
+    }
+
+    private static void medidor(MeterRegistry registry, String nome, String descricao,
+                                Compartimento compartimento, ToIntFunction<Compartimento> valor) {
+        Gauge.builder(nome, compartimento, c -> valor.applyAsInt(c))
+                .description(descricao)
+                .tag("tipo", compartimento.nome())
+                .register(registry);
+    }
+}
@@ -0,0 +1,128 @@
+package com.wnd.wndapi.admissao;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Vagas de um tipo de requisição (leituras ou escritas), separadas para que
+ * uma enxurrada de escritas não ocupe as vagas das leituras da tela.
+ *
+ * Sem vaga livre, a requisição espera numa fila CURTA e por pouco tempo
+ * (esperaMaxima): fila cheia ou espera esgotada = recusada na hora, em vez de
+ * ficar parada no Tomcat/Hikari até o cliente desistir.
+ *
+ * O número de vagas é o LimiteAdaptativo, recalculado com a latência de cada
+ * requisição que termina.
+ */
+final class Compartimento {
+
+    enum Recusa {
+        FILA_CHEIA,
+        ESPERA_ESGOTADA
+    }
+
+    private final String nome;
+    private final LimiteAdaptativo limite;
+    private final int filaMaxima;
+    private final long esperaMaximaNanos;
+
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition vagaLiberada = trava.newCondition();
+    private int emAndamento;
+    private int esperando;
+
+    Compartimento(String nome, LimiteAdaptativo limite, int filaMaxima, long esperaMaximaMs) {
+        this.nome = nome;
+        this.limite = limite;
+        this.filaMaxima = filaMaxima;
+        this.esperaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+    }
+
+    /**
+     * Resultado de pedir uma vaga: entrou (com quantas havia em andamento) ou o motivo da recusa.
+     * semVaga = não entrou direto; filaAoChegar = quantas já esperavam quando ela chegou.
+     */
+    record Entrada(boolean admitida, boolean semVaga, int emAndamento, int filaAoChegar, Recusa recusa) {
+    }
+
+    Entrada entrar() {
+        trava.lock();
+        try {
+            if (emAndamento < limite.atual()) {
+                return admitir(false, 0);
+            }
+            int fila = esperando;
+            if (fila >= filaMaxima) {
+                return new Entrada(false, true, emAndamento, fila, Recusa.FILA_CHEIA);
+            }
+            esperando++;
+            try {
+                long restante = esperaMaximaNanos;
+                while (emAndamento >= limite.atual()) {
+                    if (restante <= 0) {
+                        return new Entrada(false, true, emAndamento, fila, Recusa.ESPERA_ESGOTADA);
+                    }
+                    restante = vagaLiberada.awaitNanos(restante);
+                }
+                return admitir(true, fila);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Entrada(false, true, emAndamento, fila, Recusa.ESPERA_ESGOTADA);
+            } finally {
+                esperando--;
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private Entrada admitir(boolean semVaga, int filaAoChegar) {
+        emAndamento++;
+        return new Entrada(true, semVaga, emAndamento, filaAoChegar, null);
+    }
+
+    // Requisição admitida terminou: libera a vaga e alimenta o limite com o tempo dela
+    void sair(Entrada entrada, long duracaoNanos) {
+        trava.lock();
+        try {
+            emAndamento--;
+            limite.registrar(duracaoNanos, entrada.emAndamento());
+            // O limite pode ter subido: acorda quem couber
+            vagaLiberada.signalAll();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    String nome() {
+        return nome;
+    }
+
+    int limite() {
+        trava.lock();
+        try {
+            return limite.atual();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    int emAndamento() {
+        trava.lock();
+        try {
+            return emAndamento;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    int esperando() {
+        trava.lock();
+        try {
+            return esperando;
+        } finally {
+            trava.unlock();
+        }
+    }
+}
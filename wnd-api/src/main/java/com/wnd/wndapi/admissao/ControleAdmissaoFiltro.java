@@ -0,0 +1,140 @@
+package com.wnd.wndapi.admissao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Controle de admissão na frente do ProdutoController (/api/*).
+ *
+ * Cada requisição precisa de uma vaga no seu compartimento:
+ *  - leituras (GET/HEAD/OPTIONS, e o POST /api/produtos/batch, que só consulta)
+ *    → compartimento "leitura"
+ *  - escritas (POST/PUT/PATCH/DELETE) → compartimento "escrita", com menos vagas
+ *  - importação e ajustes em massa (POST /api/produtos/importar e /ajustes)
+ *    → compartimento "lote", com poucas vagas fixas. Uma importação ocupa a
+ *    vaga por segundos; na média de latência da "escrita" ela derrubaria o
+ *    limite e inflaria a latência normal, escondendo a contenção de verdade
+ *
+ * Sem vaga (depois da espera curta do Compartimento), responde na hora:
+ *  - escrita/lote → 429 Too Many Requests: quem está mandando escritas demais deve esperar
+ *  - leitura → 503 Service Unavailable: a API está sobrecarregada
+ * Os dois com Retry-After e o corpo de erro de sempre ({"erros": {...}}).
+ *
+ * Só a parte síncrona da requisição ocupa a vaga: no export e no feed SSE o
+ * Controller retorna logo e o resto segue em modo assíncrono (fora do filtro).
+ *
+ * Métricas (tag "tipo" = leitura | escrita | lote):
+ *  - wnd.admissao.recusadas (tag "motivo" = fila_cheia | espera_esgotada)
+ *  - wnd.admissao.fila → quantas já esperavam quando cada requisição chegou sem vaga
+ *  - wnd.admissao.limite, wnd.admissao.ativas, wnd.admissao.esperando (gauges, em AdmissaoConfig)
+ */
+class ControleAdmissaoFiltro extends OncePerRequestFilter {
+
+    private final Controle leitura;
+    private final Controle escrita;
+    private final Controle lote;
+    private final String retryAfterSegundos;
+
+    // O compartimento com o que é preciso para medir e recusar nele.
+    // O corpo fica pronto: recusar precisa ser barato.
+    private record Controle(Compartimento compartimento, Map<Compartimento.Recusa, Counter> recusadas,
+                            DistributionSummary fila, HttpStatus statusRecusa, byte[] corpoRecusa) {
+    }
+
+    ControleAdmissaoFiltro(Compartimento leitura, Compartimento escrita, Compartimento lote,
+                           int retryAfterSegundos, MeterRegistry registry) {
+        this.retryAfterSegundos = String.valueOf(retryAfterSegundos);
+        this.leitura = controle(registry, leitura, HttpStatus.SERVICE_UNAVAILABLE,
+                "A API está sobrecarregada. Tente de novo em " + retryAfterSegundos + " s.");
+        this.escrita = controle(registry, escrita, HttpStatus.TOO_MANY_REQUESTS,
+                "Muitas alterações ao mesmo tempo. Tente de novo em " + retryAfterSegundos + " s.");
+        this.lote = controle(registry, lote, HttpStatus.TOO_MANY_REQUESTS,
+                "Já há importações/ajustes em massa em andamento. Tente de novo em " + retryAfterSegundos + " s.");
+    }
+
+    private static Controle controle(MeterRegistry registry, Compartimento compartimento,
+                                     HttpStatus statusRecusa, String mensagem) {
+        Map<Compartimento.Recusa, Counter> recusadas = new EnumMap<>(Compartimento.Recusa.class);
+        for (Compartimento.Recusa motivo : Compartimento.Recusa.values()) {
+            recusadas.put(motivo, contadorRecusas(registry, compartimento, motivo));
+        }
+        return new Controle(compartimento, recusadas, resumoFila(registry, compartimento),
+                statusRecusa, corpo(mensagem));
+    }
+
+    private static Counter contadorRecusas(MeterRegistry registry, Compartimento compartimento,
+                                           Compartimento.Recusa motivo) {
+        return Counter.builder("wnd.admissao.recusadas")
+                .description("Requisições recusadas pelo controle de admissão (429/503)")
+                .tag("tipo", compartimento.nome())
+                .tag("motivo", motivo.name().toLowerCase())
+                .register(registry);
+    }
+
+    private static DistributionSummary resumoFila(MeterRegistry registry, Compartimento compartimento) {
+        return DistributionSummary.builder("wnd.admissao.fila")
+                .description("Requisições já esperando vaga quando uma nova chegou sem vaga")
+                .tag("tipo", compartimento.nome())
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    private static byte[] corpo(String mensagem) {
+        return ("{\"erros\":{\"Admissão\":\"" + mensagem + "\"}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String uri = request.getRequestURI();
+        Controle controle = switch (request.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> leitura;
+            // Lista de ids no corpo, mas é uma consulta como o GET /batch
+            case "POST" -> uri.endsWith("/api/produtos/batch") ? leitura
+                    : uri.endsWith("/api/produtos/importar") || uri.endsWith("/api/produtos/ajustes") ? lote
+                    : escrita;
+            default -> escrita;
+        };
+        Compartimento compartimento = controle.compartimento();
+
+        Compartimento.Entrada entrada = compartimento.entrar();
+        if (entrada.semVaga()) {
+            controle.fila().record(entrada.filaAoChegar());
+        }
+        if (!entrada.admitida()) {
+            controle.recusadas().get(entrada.recusa()).increment();
+            recusar(response, controle);
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            compartimento.sair(entrada, System.nanoTime() - inicio);
+        }
+    }
+
+    private void recusar(HttpServletResponse response, Controle controle) throws IOException {
+        byte[] corpo = controle.corpoRecusa();
+        response.setStatus(controle.statusRecusa().value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSegundos);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(corpo.length);
+        response.getOutputStream().write(corpo);
+    }
+}
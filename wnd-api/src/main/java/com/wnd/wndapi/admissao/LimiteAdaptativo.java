@@ -0,0 +1,95 @@
+package com.wnd.wndapi.admissao;
+
+/**
+ * Quantas requisições de um tipo podem estar em andamento ao mesmo tempo,
+ * ajustado pela latência observada (algoritmo "gradiente", como o do
+ * concurrency-limits da Netflix).
+ *
+ * Guarda duas médias da latência das requisições que terminaram:
+ *  - longa: média lenta (muitas amostras), a latência "normal" da API
+ *  - curta: média da última janela de amostras
+ *
+ * No fim de cada janela: gradiente = tolerancia × longa / curta, entre 0,5 e 1.
+ *  - latência atual dentro do normal → gradiente 1: o limite cresce devagar
+ *    (+ raiz do limite, a "folga" para descobrir se cabe mais)
+ *  - latência subindo (fila no banco, contenção de escrita no H2) → gradiente < 1:
+ *    o limite cai na mesma proporção, antes de a fila virar segundos
+ *
+ * Só cresce se o limite estava sendo usado (mais da metade ocupado): com
+ * pouco movimento a latência não diz nada sobre quanto a API aguenta.
+ *
+ * Não é thread-safe: o Compartimento chama sob a própria trava.
+ */
+final class LimiteAdaptativo {
+
+    // Peso de cada janela na média longa (~ as últimas 20 janelas)
+    private static final double PESO_MEDIA_LONGA = 0.05;
+    // Quanto do novo valor entra no limite a cada janela (evita oscilar)
+    private static final double SUAVIZACAO = 0.2;
+
+    private final int minimo;
+    private final int maximo;
+    private final double tolerancia;
+
+    private double limite;
+    private double rttLongoNanos;
+
+    // Janela atual
+    private long somaRttNanos;
+    private int amostras;
+    private int maximoEmAndamento;
+
+    LimiteAdaptativo(int inicial, int minimo, int maximo, double tolerancia) {
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.tolerancia = tolerancia;
+        this.limite = Math.clamp(inicial, minimo, maximo);
+    }
+
+    int atual() {
+        return (int) limite;
+    }
+
+    /**
+     * Uma requisição terminou.
+     *
+     * @param rttNanos     tempo dela (sem contar a espera na fila de admissão)
+     * @param emAndamento  quantas estavam em andamento quando ela entrou
+     */
+    void registrar(long rttNanos, int emAndamento) {
+        somaRttNanos += rttNanos;
+        amostras++;
+        maximoEmAndamento = Math.max(maximoEmAndamento, emAndamento);
+        // Janela com pelo menos 10 amostras e que cresce com o limite
+        if (amostras < Math.max(10, (int) limite)) {
+            return;
+        }
+
+        double rttCurto = (double) somaRttNanos / amostras;
+        if (rttLongoNanos == 0) {
+            rttLongoNanos = rttCurto;
+        } else {
+            rttLongoNanos += (rttCurto - rttLongoNanos) * PESO_MEDIA_LONGA;
+        }
+        // Se a média longa subiu muito acima da atual (um pico que já passou),
+        // ela desce mais rápido, senão o limite demoraria a voltar
+        if (rttLongoNanos > 2 * rttCurto) {
+            rttLongoNanos *= 0.95;
+        }
+
+        double gradiente = Math.clamp(tolerancia * rttLongoNanos / rttCurto, 0.5, 1.0);
+        double novo;
+        if (gradiente < 1.0) {
+            novo = limite * gradiente;              // latência subiu: reduz na mesma proporção
+        } else if (maximoEmAndamento >= limite / 2) {
+            novo = limite + Math.sqrt(limite);      // normal e em uso: experimenta um pouco mais
+        } else {
+            novo = limite;                          // ocioso: nada a aprender
+        }
+        limite = Math.clamp(limite * (1 - SUAVIZACAO) + novo * SUAVIZACAO, minimo, maximo);
+
+        somaRttNanos = 0;
+        amostras = 0;
+        maximoEmAndamento = 0;
+    }
+}
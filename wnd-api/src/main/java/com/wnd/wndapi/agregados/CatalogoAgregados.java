@@ -0,0 +1,369 @@
+package com.wnd.wndapi.agregados;
+
+import com.wnd.wndapi.dto.ResumoCatalogo;
+import com.wnd.wndapi.evento.ProdutoAlteradoEvento;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.ProdutoRepository;
+import com.wnd.wndapi.repository.ProdutoRepositoryCustom.TotaisFabricante;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Totais do catálogo mantidos em memória (GET /api/produtos/agregados).
+ *
+ * Em vez de somar a tabela inteira a cada pedido, guardamos acumuladores:
+ *  - quantidade de produtos, estoque total e valor do inventário (preço × estoque)
+ *  - os mesmos três números por fabricante
+ *  - quantos produtos caem em cada faixa de preço (histograma)
+ *
+ * Cada cadastro/alteração/exclusão do ProdutoService publica um
+ * ProdutoAlteradoEvento; aqui o evento vira um "delta" (tira o produto
+ * anterior, soma o atual) aplicado só depois do commit.
+ *
+ * De tempos em tempos (wnd.agregados.reconciliacao-ms) os números são
+ * recalculados no banco e, se tiverem divergido, substituídos.
+ */
+@Component
+public class CatalogoAgregados {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoAgregados.class);
+
+    //   ===   FAIXAS DE PREÇO DO HISTOGRAMA   ===
+    //
+    // Limites entre as faixas: [0, 10), [10, 50), [50, 100), [100, 500), [500, 1000), [1000, ∞)
+    static final List<BigDecimal> LIMITES_FAIXAS = List.of(
+            new BigDecimal("10"), new BigDecimal("50"), new BigDecimal("100"),
+            new BigDecimal("500"), new BigDecimal("1000"));
+
+    // Intervalo entre tentativas da carga inicial (banco ocupado, importação rodando...)
+    private static final long ESPERA_CARGA_MS = 1000;
+
+    //   ===   ESTADO (protegido por "synchronized (this)")   ===
+    private Totais geral = new Totais();
+    private Map<String, Totais> porFabricante = new HashMap<>();
+    private long[] porFaixa = new long[LIMITES_FAIXAS.size() + 1];
+    private Instant ultimaReconciliacao;
+
+    // Transações que já publicaram eventos mas ainda não terminaram.
+    // Enquanto houver alguma, o banco e a memória podem estar legitimamente
+    // diferentes, e a reconciliação não pode substituir os números.
+    private int pendentes;
+    // Aumenta a cada delta aplicado: a reconciliação só grava o que leu do
+    // banco se nada tiver mudado entre o início e o fim da consulta.
+    private long geracao;
+
+    // Resposta pronta para o GET; montada de novo só depois de uma mudança.
+    private volatile ResumoCatalogo resumo;
+    private volatile boolean pronto;
+
+    private final ProdutoRepository produtoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+
+    public CatalogoAgregados(ProdutoRepository produtoRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.produtoRepository = produtoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+    }
+
+
+    //   ===   LEITURA (usada pelo Controller)   ===
+    //
+    // Não toca no banco: devolve a resposta já montada. Enquanto a carga
+    // inicial não termina, lança IllegalStateException (o Controller responde 503).
+    public ResumoCatalogo resumo() {
+        if (!pronto) {
+            throw new IllegalStateException("Agregados ainda carregando.");
+        }
+        ResumoCatalogo atual = resumo;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (this) {
+            if (resumo == null) {
+                resumo = montarResumo();
+            }
+            return resumo;
+        }
+    }
+
+
+    //   ===   DELTAS: cada alteração do catálogo   ===
+    //
+    // @EventListener comum (e não @TransactionalEventListener) porque precisamos
+    // saber JÁ no momento da publicação que existe uma transação em andamento
+    // (ver "pendentes"). O delta em si só é aplicado depois do commit; se a
+    // transação for desfeita, é descartado.
+    //
+    // Os eventos de uma mesma transação (a importação publica um por produto)
+    // são juntados e aplicados de uma vez só.
+    @EventListener
+    public void aoAlterarProduto(ProdutoAlteradoEvento evento) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            aplicar(List.of(evento), true);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<ProdutoAlteradoEvento> daTransacao =
+                (List<ProdutoAlteradoEvento>) TransactionSynchronizationManager.getResource(this);
+        if (daTransacao == null) {
+            daTransacao = new ArrayList<>();
+            synchronized (this) {
+                pendentes++;
+            }
+            TransactionSynchronizationManager.bindResource(this, daTransacao);
+            TransactionSynchronizationManager.registerSynchronization(new DeltasDaTransacao(daTransacao));
+        }
+        daTransacao.add(evento);
+    }
+
+    private synchronized void aplicar(List<ProdutoAlteradoEvento> eventos, boolean confirmados) {
+        if (confirmados) {
+            for (ProdutoAlteradoEvento evento : eventos) {
+                if (evento.anterior() != null) {
+                    somar(evento.anterior(), -1);
+                }
+                if (evento.atual() != null) {
+                    somar(evento.atual(), 1);
+                }
+            }
+            resumo = null;
+        }
+        geracao++;
+    }
+
+    // sinal = 1 soma o produto nos totais, sinal = -1 tira
+    private void somar(Produto produto, int sinal) {
+        long estoque = produto.getQuantidadeEstoque() == null ? 0 : produto.getQuantidadeEstoque();
+        BigDecimal valor = produto.getPreco() == null
+                ? BigDecimal.ZERO
+                : produto.getPreco().multiply(BigDecimal.valueOf(estoque));
+
+        geral.somar(sinal, sinal * estoque, sinal > 0 ? valor : valor.negate());
+
+        Totais doFabricante = porFabricante.computeIfAbsent(produto.getFabricante(), f -> new Totais());
+        doFabricante.somar(sinal, sinal * estoque, sinal > 0 ? valor : valor.negate());
+        if (doFabricante.produtos == 0) {
+            porFabricante.remove(produto.getFabricante());
+        }
+
+        if (produto.getPreco() != null) {
+            porFaixa[faixaDo(produto.getPreco())] += sinal;
+        }
+    }
+
+    static int faixaDo(BigDecimal preco) {
+        int faixa = 0;
+        while (faixa < LIMITES_FAIXAS.size() && preco.compareTo(LIMITES_FAIXAS.get(faixa)) >= 0) {
+            faixa++;
+        }
+        return faixa;
+    }
+
+    // Guarda os eventos de uma transação até ela terminar.
+    // suspend/resume: se um REQUIRES_NEW abrir outra transação no meio,
+    // os eventos dela não se misturam com os desta.
+    private final class DeltasDaTransacao implements TransactionSynchronization {
+
+        private final List<ProdutoAlteradoEvento> eventos;
+
+        DeltasDaTransacao(List<ProdutoAlteradoEvento> eventos) {
+            this.eventos = eventos;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CatalogoAgregados.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(CatalogoAgregados.this, eventos);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CatalogoAgregados.this);
+            synchronized (CatalogoAgregados.this) {
+                try {
+                    aplicar(eventos, status == STATUS_COMMITTED);
+                } finally {
+                    pendentes--;
+                }
+            }
+        }
+    }
+
+
+    //   ===   CARGA INICIAL   ===
+    //
+    // Roda em segundo plano na subida e insiste até conseguir uma leitura
+    // consistente do banco (ver reconciliar()).
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciarCarga() {
+        executor.execute(() -> {
+            while (!pronto) {
+                try {
+                    if (reconciliar()) {
+                        pronto = true;
+                        log.info("Agregados do catálogo carregados: {} produtos", geral.produtos);
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Falha ao carregar os agregados do catálogo; tentando de novo", e);
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(ESPERA_CARGA_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        });
+    }
+
+
+    //   ===   RECONCILIAÇÃO PERIÓDICA COM O BANCO   ===
+    //
+    // Pega qualquer divergência (alteração feita direto no banco, evento
+    // perdido...). Se o catálogo mudou durante a consulta, deixa para a próxima.
+    @Scheduled(fixedDelayString = "${wnd.agregados.reconciliacao-ms:300000}",
+            initialDelayString = "${wnd.agregados.reconciliacao-ms:300000}")
+    public void reconciliarPeriodicamente() {
+        if (!pronto) {
+            return;
+        }
+        if (!reconciliar()) {
+            log.debug("Reconciliação dos agregados adiada: catálogo mudou durante a consulta");
+        }
+    }
+
+    // Devolve false se não deu para usar o resultado (transações em andamento).
+    boolean reconciliar() {
+        long geracaoInicial;
+        synchronized (this) {
+            if (pendentes > 0) {
+                return false;
+            }
+            geracaoInicial = geracao;
+        }
+
+        // Uma passada só na tabela (GROUP BY fabricante), fora do lock.
+        // Transação de escrita (e não somente-leitura) de propósito, como em
+        // ListagemPronta.recarregar: com as réplicas ligadas, a soma vem sempre
+        // do primário. Numa réplica atrasada ela não teria alterações que os
+        // deltas já aplicaram, e a "geracao" não percebe isso: os números
+        // certos seriam trocados por velhos (e logados como divergência).
+        List<TotaisFabricante> doBanco = transactionTemplate.execute(
+                status -> produtoRepository.somarPorFabricante(LIMITES_FAIXAS));
+
+        Totais novoGeral = new Totais();
+        Map<String, Totais> novoPorFabricante = new HashMap<>();
+        long[] novoPorFaixa = new long[LIMITES_FAIXAS.size() + 1];
+        for (TotaisFabricante linha : Objects.requireNonNull(doBanco)) {
+            Totais totais = new Totais();
+            totais.somar(linha.produtos(), linha.estoque(), linha.valor());
+            novoPorFabricante.put(linha.fabricante(), totais);
+            novoGeral.somar(linha.produtos(), linha.estoque(), linha.valor());
+            for (int i = 0; i < novoPorFaixa.length; i++) {
+                novoPorFaixa[i] += linha.porFaixa()[i];
+            }
+        }
+
+        synchronized (this) {
+            // Alguma transação começou a publicar ou terminou durante a consulta:
+            // não dá para saber se o banco lido já tinha ou não a mudança dela.
+            if (pendentes > 0 || geracao != geracaoInicial) {
+                return false;
+            }
+            if (pronto && divergem(novoGeral, novoPorFabricante, novoPorFaixa)) {
+                log.warn("Agregados do catálogo divergiam do banco e foram corrigidos "
+                                + "(memória: {} produtos / banco: {} produtos)",
+                        geral.produtos, novoGeral.produtos);
+            }
+            geral = novoGeral;
+            porFabricante = novoPorFabricante;
+            porFaixa = novoPorFaixa;
+            ultimaReconciliacao = Instant.now();
+            resumo = null;
+            return true;
+        }
+    }
+
+    private boolean divergem(Totais outroGeral, Map<String, Totais> outroPorFabricante, long[] outroPorFaixa) {
+        if (!geral.mesmoQue(outroGeral)
+                || !Arrays.equals(porFaixa, outroPorFaixa)
+                || porFabricante.size() != outroPorFabricante.size()) {
+            return true;
+        }
+        for (Map.Entry<String, Totais> entrada : porFabricante.entrySet()) {
+            Totais outro = outroPorFabricante.get(entrada.getKey());
+            if (outro == null || !entrada.getValue().mesmoQue(outro)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    //   ===   MONTAGEM DA RESPOSTA   ===
+    private ResumoCatalogo montarResumo() {
+        List<ResumoCatalogo.Fabricante> fabricantes = new ArrayList<>(porFabricante.size());
+        porFabricante.forEach((nome, totais) -> fabricantes.add(
+                new ResumoCatalogo.Fabricante(nome, totais.produtos, totais.estoque, totais.valor)));
+        fabricantes.sort(Comparator.comparing(ResumoCatalogo.Fabricante::fabricante));
+
+        List<ResumoCatalogo.FaixaPreco> faixas = new ArrayList<>(porFaixa.length);
+        for (int i = 0; i < porFaixa.length; i++) {
+            BigDecimal de = i == 0 ? BigDecimal.ZERO : LIMITES_FAIXAS.get(i - 1);
+            BigDecimal ate = i < LIMITES_FAIXAS.size() ? LIMITES_FAIXAS.get(i) : null;
+            faixas.add(new ResumoCatalogo.FaixaPreco(de, ate, porFaixa[i]));
+        }
+
+        return new ResumoCatalogo(geral.produtos, geral.estoque, geral.valor,
+                List.copyOf(fabricantes), List.copyOf(faixas), ultimaReconciliacao);
+    }
+
+    // Os três acumuladores de um grupo (catálogo inteiro ou um fabricante).
+    private static final class Totais {
+        long produtos;
+        long estoque;
+        BigDecimal valor = BigDecimal.ZERO;
+
+        void somar(long produtos, long estoque, BigDecimal valor) {
+            this.produtos += produtos;
+            this.estoque += estoque;
+            this.valor = this.valor.add(valor);
+        }
+
+        // compareTo e não equals: 10.0 e 10.00 são o mesmo valor
+        boolean mesmoQue(Totais outro) {
+            return produtos == outro.produtos
+                    && estoque == outro.estoque
+                    && valor.compareTo(outro.valor) == 0;
+        }
+    }
+}
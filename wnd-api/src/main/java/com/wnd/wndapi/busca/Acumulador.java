@@ -0,0 +1,59 @@
+package com.wnd.wndapi.busca;
+
+import java.util.Arrays;
+
+/**
+ * Área de trabalho de UMA busca: pontuação e termos encontrados por documento.
+ *
+ * Usa arrays do tamanho do índice (acesso direto pelo número do documento,
+ * sem hash) e guarda a lista dos documentos tocados, para zerar só eles no
+ * final. Os acumuladores são reaproveitados entre buscas (ver
+ * IndiceBuscaProdutos), então o custo de alocar os arrays grandes é pago
+ * uma vez só.
+ */
+final class Acumulador {
+
+    float[] pontuacoes = new float[0];
+    int[] mascaras = new int[0];
+    int[] tocados = new int[16];
+    int totalTocados;
+
+    // Garante espaço para todos os documentos existentes no índice.
+    void garantirCapacidade(int documentos) {
+        if (pontuacoes.length < documentos) {
+            int capacidade = Math.max(documentos, pontuacoes.length + (pontuacoes.length >> 1));
+            pontuacoes = Arrays.copyOf(pontuacoes, capacidade);
+            mascaras = Arrays.copyOf(mascaras, capacidade);
+        }
+    }
+
+    // Primeiro termo da consulta: cria o candidato (ou soma, se já existe).
+    void inserirOuSomar(int documento, float pontuacao, int bitTermo) {
+        if (mascaras[documento] == 0) {
+            if (totalTocados == tocados.length) {
+                tocados = Arrays.copyOf(tocados, totalTocados * 2);
+            }
+            tocados[totalTocados++] = documento;
+        }
+        pontuacoes[documento] += pontuacao;
+        mascaras[documento] |= bitTermo;
+    }
+
+    // Demais termos: só soma em quem já é candidato (interseção / AND).
+    void somarSeExistir(int documento, float pontuacao, int bitTermo) {
+        if (mascaras[documento] != 0) {
+            pontuacoes[documento] += pontuacao;
+            mascaras[documento] |= bitTermo;
+        }
+    }
+
+    // Zera só as posições usadas, deixando o acumulador pronto para a próxima busca.
+    void limpar() {
+        for (int i = 0; i < totalTocados; i++) {
+            int documento = tocados[i];
+            pontuacoes[documento] = 0;
+            mascaras[documento] = 0;
+        }
+        totalTocados = 0;
+    }
+}
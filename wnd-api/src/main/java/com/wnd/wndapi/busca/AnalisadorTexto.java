@@ -0,0 +1,57 @@
+package com.wnd.wndapi.busca;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Quebra textos em termos para o índice de busca.
+ *
+ * Regras (pensadas para português):
+ *  - tudo minúsculo
+ *  - sem acentos ("Café" → "cafe", "Ação" → "acao")
+ *  - separa por qualquer coisa que não seja letra ou número
+ *  - ignora palavras muito comuns ("de", "da", "com"...)
+ *
+ * O mesmo analisador é usado para indexar os produtos e para ler a consulta,
+ * assim "CAFÉ" na busca encontra "cafe" no índice.
+ */
+final class AnalisadorTexto {
+
+    // Palavras que aparecem em quase todo texto e não ajudam a achar nada
+    private static final Set<String> PALAVRAS_IGNORADAS = Set.of(
+            "a", "o", "as", "os", "e", "de", "da", "do", "das", "dos",
+            "em", "na", "no", "nas", "nos", "um", "uma", "com", "para", "por", "que");
+
+    private AnalisadorTexto() {
+    }
+
+    static List<String> termos(String texto) {
+        List<String> termos = new ArrayList<>();
+        if (texto == null || texto.isEmpty()) {
+            return termos;
+        }
+
+        // NFD separa a letra do acento ("é" → "e" + "´"); depois removemos os acentos (\p{M})
+        String normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean letraOuNumero = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (letraOuNumero && inicio < 0) {
+                inicio = i;
+            } else if (!letraOuNumero && inicio >= 0) {
+                String termo = normalizado.substring(inicio, i);
+                if (!PALAVRAS_IGNORADAS.contains(termo)) {
+                    termos.add(termo);
+                }
+                inicio = -1;
+            }
+        }
+        return termos;
+    }
+}
@@ -0,0 +1,466 @@
+package com.wnd.wndapi.busca;
+
+import com.wnd.wndapi.evento.ProdutoAlteradoEvento;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.ProdutoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido em memória para a busca textual de produtos
+ * (GET /api/produtos/search?q=...).
+ *
+ * Para cada termo (ver {@link AnalisadorTexto}) guardamos a lista de produtos
+ * onde ele aparece em nome, fabricante ou descrição. A busca:
+ *  - exige todos os termos da consulta (AND)
+ *  - aceita prefixos: "cafe" encontra "cafeteira" (com peso menor que o termo exato)
+ *  - ordena por relevância: peso do campo (nome > fabricante > descrição)
+ *    multiplicado pela raridade do termo (IDF)
+ *
+ * O índice é montado na subida da aplicação (lendo o catálogo em streaming)
+ * e depois mantido em dia pelos eventos de criação/alteração/exclusão do
+ * ProdutoService — a busca nunca faz LIKE '%x%' no banco.
+ */
+@Component
+public class IndiceBuscaProdutos {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceBuscaProdutos.class);
+
+    //   ===   PESOS DA RELEVÂNCIA   ===
+    private static final float PESO_NOME = 3f;
+    private static final float PESO_FABRICANTE = 2f;
+    private static final float PESO_DESCRICAO = 1f;
+    // Termo encontrado só por prefixo vale menos que o termo exato
+    private static final float FATOR_PREFIXO = 0.5f;
+
+    //   ===   LIMITES DA CONSULTA   ===
+    // Prefixos com menos de 2 letras expandiriam para o vocabulário inteiro
+    private static final int TAMANHO_MINIMO_PREFIXO = 2;
+    // Termos considerados por consulta (o resto é ignorado)
+    private static final int MAXIMO_TERMOS_CONSULTA = 16;
+    // Documentos lidos do banco por vez na carga inicial
+    private static final int LOTE_CARGA = 10_000;
+    // Espera entre as tentativas da carga inicial, se ela falhar
+    private static final long ESPERA_CARGA_MS = 1000;
+    // Compacta quando há pelo menos isso de documentos excluídos (e 25% do índice)
+    private static final int MINIMO_EXCLUIDOS_COMPACTACAO = 10_000;
+
+    //   ===   ESTRUTURA DO ÍNDICE   ===
+    //
+    // Cada produto indexado recebe um número de documento interno (int).
+    // Quando o produto muda, o documento antigo é marcado como excluído e
+    // um novo é criado; de tempos em tempos o índice é compactado e os
+    // documentos vivos são renumerados (0..n-1), então os arrays por número
+    // de documento acompanham o catálogo, não o histórico de alterações.
+    private final TreeMap<String, ListaPostagens> termos = new TreeMap<>();
+    private final Map<Long, Integer> documentoPorId = new HashMap<>();
+    private long[] idPorDocumento = new long[1024];
+    private int proximoDocumento;
+    private final BitSet excluidos = new BitSet();
+    private int totalExcluidos;
+
+    // Muitas buscas ao mesmo tempo (leitura) ou uma alteração por vez (escrita)
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Acumuladores reaproveitados entre buscas (um por busca em andamento)
+    private final Queue<Acumulador> acumuladores = new ConcurrentLinkedQueue<>();
+
+    //   ===   CARGA INICIAL   ===
+    private volatile boolean pronto;
+    // IDs que chegaram por evento durante a carga: a carga não sobrescreve esses
+    private final Set<Long> alteradosDuranteCarga = ConcurrentHashMap.newKeySet();
+
+    private final ProdutoRepository produtoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public IndiceBuscaProdutos(ProdutoRepository produtoRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.produtoRepository = produtoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+    }
+
+
+    //   ===   CARGA INICIAL: roda em segundo plano quando a aplicação sobe   ===
+    //
+    // Enquanto a carga não termina, a busca responde 503 (ver estaPronto()).
+    // Se ela falhar (ex: o banco fora do ar na subida), tenta de novo até
+    // conseguir, como os agregados do catálogo. O que a tentativa anterior já
+    // indexou pode ficar: indexar() troca o documento antigo do mesmo produto.
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciarCarga() {
+        executor.execute(() -> {
+            while (!pronto) {
+                try {
+                    long inicio = System.nanoTime();
+                    long total = carregar();
+                    pronto = true;
+                    alteradosDuranteCarga.clear();
+                    log.info("Índice de busca carregado: {} produtos, {} termos em {} ms",
+                            total, termos.size(), (System.nanoTime() - inicio) / 1_000_000);
+                    return;
+                } catch (RuntimeException e) {
+                    log.warn("Falha ao carregar o índice de busca; tentando de novo", e);
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(ESPERA_CARGA_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        });
+    }
+
+    // Lê o catálogo inteiro e indexa; devolve quantos produtos entraram.
+    long carregar() {
+        List<Produto> lote = new ArrayList<>(LOTE_CARGA);
+        long[] total = {0};
+
+        // Transação de escrita (e não somente-leitura) de propósito: com as
+        // réplicas ligadas, a carga lê do primário. Uma réplica atrasada
+        // deixaria de fora alterações cujos eventos já passaram por aqui.
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Produto> produtos = produtoRepository.streamTodosPorId()) {
+                produtos.forEach(produto -> {
+                    entityManager.detach(produto);
+                    lote.add(produto);
+                    if (lote.size() == LOTE_CARGA) {
+                        total[0] += indexarLoteDaCarga(lote);
+                        lote.clear();
+                    }
+                });
+            }
+        });
+        total[0] += indexarLoteDaCarga(lote);
+        return total[0];
+    }
+
+    private int indexarLoteDaCarga(List<Produto> lote) {
+        lock.writeLock().lock();
+        try {
+            int indexados = 0;
+            for (Produto produto : lote) {
+                if (!alteradosDuranteCarga.contains(produto.getId())) {
+                    indexar(produto);
+                    indexados++;
+                }
+            }
+            return indexados;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean estaPronto() {
+        return pronto;
+    }
+
+
+    //   ===   ATUALIZAÇÃO INCREMENTAL (eventos do ProdutoService)   ===
+    //
+    // @TransactionalEventListener: roda depois do commit (ou na hora, se não
+    // houver transação), então o índice nunca mostra algo que foi desfeito.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvento evento) {
+        // O índice só guarda termos de nome/fabricante/descrição: mudança só de
+        // preço ou estoque (ex: reserva no checkout) não precisa do lock de escrita.
+        if (evento.tipo() == ProdutoAlteradoEvento.Tipo.ATUALIZADO && mesmoTexto(evento.anterior(), evento.atual())) {
+            return;
+        }
+        if (!pronto) {
+            alteradosDuranteCarga.add(evento.id());
+        }
+        lock.writeLock().lock();
+        try {
+            if (evento.tipo() == ProdutoAlteradoEvento.Tipo.EXCLUIDO) {
+                remover(evento.id());
+            } else {
+                indexar(evento.atual());
+            }
+            compactarSeNecessario();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean mesmoTexto(Produto anterior, Produto atual) {
+        return anterior != null && atual != null
+                && Objects.equals(anterior.getNome(), atual.getNome())
+                && Objects.equals(anterior.getFabricante(), atual.getFabricante())
+                && Objects.equals(anterior.getDescricao(), atual.getDescricao());
+    }
+
+    // (chamar com o lock de escrita)
+    private void indexar(Produto produto) {
+        remover(produto.getId());
+
+        // termo → peso somado nos campos do produto
+        Map<String, Float> pesos = new HashMap<>();
+        somarTermos(pesos, produto.getNome(), PESO_NOME);
+        somarTermos(pesos, produto.getFabricante(), PESO_FABRICANTE);
+        somarTermos(pesos, produto.getDescricao(), PESO_DESCRICAO);
+
+        int documento = proximoDocumento++;
+        if (documento == idPorDocumento.length) {
+            idPorDocumento = Arrays.copyOf(idPorDocumento, idPorDocumento.length * 2);
+        }
+        idPorDocumento[documento] = produto.getId();
+        documentoPorId.put(produto.getId(), documento);
+
+        pesos.forEach((termo, peso) ->
+                termos.computeIfAbsent(termo, t -> new ListaPostagens()).adicionar(documento, peso));
+    }
+
+    private static void somarTermos(Map<String, Float> pesos, String texto, float pesoCampo) {
+        for (String termo : AnalisadorTexto.termos(texto)) {
+            pesos.merge(termo, pesoCampo, Float::sum);
+        }
+    }
+
+    // (chamar com o lock de escrita)
+    private void remover(Long id) {
+        Integer documento = documentoPorId.remove(id);
+        if (documento != null) {
+            excluidos.set(documento);
+            totalExcluidos++;
+        }
+    }
+
+    // Compacta quando os documentos excluídos passam de 25% do índice.
+    private void compactarSeNecessario() {
+        if (totalExcluidos < MINIMO_EXCLUIDOS_COMPACTACAO || totalExcluidos < documentoPorId.size() / 4) {
+            return;
+        }
+        compactar();
+    }
+
+    // Tira os documentos excluídos das listas e renumera os vivos em 0..n-1,
+    // na mesma ordem (as listas continuam ordenadas por documento).
+    // (chamar com o lock de escrita)
+    private void compactar() {
+        int[] novoNumero = new int[proximoDocumento];
+        long[] novosIds = new long[Math.max(1024, documentoPorId.size() + (documentoPorId.size() >> 1))];
+        int vivos = 0;
+        for (int documento = 0; documento < proximoDocumento; documento++) {
+            if (excluidos.get(documento)) {
+                novoNumero[documento] = -1;
+            } else {
+                novoNumero[documento] = vivos;
+                novosIds[vivos] = idPorDocumento[documento];
+                documentoPorId.put(idPorDocumento[documento], vivos);
+                vivos++;
+            }
+        }
+        termos.values().removeIf(postagens -> {
+            postagens.renumerar(novoNumero);
+            return postagens.tamanho() == 0;
+        });
+        idPorDocumento = novosIds;
+        proximoDocumento = vivos;
+        excluidos.clear();
+        totalExcluidos = 0;
+        // Os acumuladores guardados têm o tamanho do índice antigo; nenhuma
+        // busca está em andamento (lock de escrita), então é só descartar.
+        acumuladores.clear();
+        log.debug("Índice de busca compactado: {} produtos, {} termos", vivos, termos.size());
+    }
+
+
+    //   ===   BUSCA   ===
+    //
+    // Devolve o total de produtos encontrados e os IDs da página pedida,
+    // em ordem de relevância (empate: menor ID primeiro).
+    public ResultadoIndice buscar(String consulta, int offset, int limite) {
+        List<String> termosConsulta = new ArrayList<>(new LinkedHashSet<>(AnalisadorTexto.termos(consulta)));
+        if (termosConsulta.isEmpty()) {
+            return new ResultadoIndice(0, List.of());
+        }
+        if (termosConsulta.size() > MAXIMO_TERMOS_CONSULTA) {
+            termosConsulta = termosConsulta.subList(0, MAXIMO_TERMOS_CONSULTA);
+        }
+
+        lock.readLock().lock();
+        try {
+            // 1️⃣ Para cada termo da consulta: termo exato + termos com o mesmo prefixo
+            List<List<Map.Entry<ListaPostagens, Float>>> expansoes = new ArrayList<>();
+            List<Integer> ocorrencias = new ArrayList<>();
+            for (String termo : termosConsulta) {
+                List<Map.Entry<ListaPostagens, Float>> listas = expandir(termo);
+                if (listas.isEmpty()) {
+                    // algum termo não existe em produto nenhum → nada combina (AND)
+                    return new ResultadoIndice(0, List.of());
+                }
+                expansoes.add(listas);
+                ocorrencias.add(listas.stream().mapToInt(e -> e.getKey().tamanho()).sum());
+            }
+
+            // 2️⃣ Começa pelo termo mais raro: ele limita o conjunto de candidatos
+            Integer[] ordem = new Integer[expansoes.size()];
+            for (int i = 0; i < ordem.length; i++) {
+                ordem[i] = i;
+            }
+            Arrays.sort(ordem, (a, b) -> Integer.compare(ocorrencias.get(a), ocorrencias.get(b)));
+
+            Acumulador acumulador = acumuladores.poll();
+            if (acumulador == null) {
+                acumulador = new Acumulador();
+            }
+            try {
+                acumulador.garantirCapacidade(proximoDocumento);
+                return ranquear(expansoes, ordem, acumulador, offset, limite);
+            } finally {
+                acumulador.limpar();
+                acumuladores.offer(acumulador);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // (chamar com o lock de leitura)
+    private ResultadoIndice ranquear(List<List<Map.Entry<ListaPostagens, Float>>> expansoes, Integer[] ordem,
+                                     Acumulador acumulador, int offset, int limite) {
+        double vivos = Math.max(1, documentoPorId.size());
+        for (int i = 0; i < ordem.length; i++) {
+            int bit = 1 << i;
+            for (Map.Entry<ListaPostagens, Float> entrada : expansoes.get(ordem[i])) {
+                ListaPostagens postagens = entrada.getKey();
+                float idf = (float) Math.log(1 + vivos / postagens.tamanho());
+                float fator = entrada.getValue() * idf;
+                for (int p = 0; p < postagens.tamanho(); p++) {
+                    int documento = postagens.documento(p);
+                    if (i == 0) {
+                        acumulador.inserirOuSomar(documento, postagens.peso(p) * fator, bit);
+                    } else {
+                        acumulador.somarSeExistir(documento, postagens.peso(p) * fator, bit);
+                    }
+                }
+            }
+        }
+
+        // 3️⃣ Fica só com quem tem TODOS os termos e guarda os melhores (offset + limite)
+        int todosOsTermos = (1 << ordem.length) - 1;
+        int k = offset + limite;
+        PriorityQueue<Acerto> melhores = new PriorityQueue<>(Math.max(1, k));
+        long total = 0;
+        for (int t = 0; t < acumulador.totalTocados; t++) {
+            int documento = acumulador.tocados[t];
+            if (acumulador.mascaras[documento] != todosOsTermos || excluidos.get(documento)) {
+                continue;
+            }
+            total++;
+            float pontuacao = acumulador.pontuacoes[documento];
+            long id = idPorDocumento[documento];
+            if (melhores.size() < k) {
+                melhores.add(new Acerto(pontuacao, id));
+            } else if (k > 0 && melhores.peek().perdePara(pontuacao, id)) {
+                // só cria o objeto quando ele realmente entra entre os melhores
+                melhores.poll();
+                melhores.add(new Acerto(pontuacao, id));
+            }
+        }
+
+        // 4️⃣ Ordena do mais relevante para o menos e recorta a página
+        List<Acerto> ordenados = new ArrayList<>(melhores);
+        ordenados.sort((a, b) -> b.compareTo(a));
+        List<Long> ids = new ArrayList<>(limite);
+        for (int i = offset; i < ordenados.size(); i++) {
+            ids.add(ordenados.get(i).id());
+        }
+        return new ResultadoIndice(total, ids);
+    }
+
+    // Listas de postagens que combinam com o termo, com o fator de cada uma
+    // (1 para o termo exato, FATOR_PREFIXO para os que só começam com ele).
+    // Entram TODOS os termos com o prefixo: cortar a expansão deixaria produtos
+    // de fora e o total errado. O custo é proporcional às ocorrências do
+    // prefixo, limitado por TAMANHO_MINIMO_PREFIXO.
+    private List<Map.Entry<ListaPostagens, Float>> expandir(String termo) {
+        List<Map.Entry<ListaPostagens, Float>> listas = new ArrayList<>();
+        ListaPostagens exato = termos.get(termo);
+        if (exato != null) {
+            listas.add(Map.entry(exato, 1f));
+        }
+        if (termo.length() >= TAMANHO_MINIMO_PREFIXO) {
+            NavigableMap<String, ListaPostagens> comPrefixo =
+                    termos.subMap(termo, false, termo + Character.MAX_VALUE, false);
+            for (ListaPostagens postagens : comPrefixo.values()) {
+                listas.add(Map.entry(postagens, FATOR_PREFIXO));
+            }
+        }
+        return listas;
+    }
+
+
+    //   ===   ESTATÍSTICAS DO ÍNDICE   ===
+    public Map<String, Object> estatisticas() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("pronto", pronto);
+            dados.put("produtos", documentoPorId.size());
+            dados.put("termos", termos.size());
+            dados.put("documentos", proximoDocumento);
+            dados.put("documentosExcluidosPendentes", totalExcluidos);
+            return dados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    //   ===   TIPOS AUXILIARES   ===
+
+    /** Total de produtos encontrados e os IDs da página pedida, já em ordem de relevância. */
+    public record ResultadoIndice(long total, List<Long> ids) {
+    }
+
+    // Um produto encontrado: maior pontuação é melhor; no empate, menor ID vem antes.
+    private record Acerto(float pontuacao, long id) implements Comparable<Acerto> {
+        @Override
+        public int compareTo(Acerto outro) {
+            int porPontuacao = Float.compare(pontuacao, outro.pontuacao);
+            return porPontuacao != 0 ? porPontuacao : Long.compare(outro.id, id);
+        }
+
+        // true se o candidato (pontuacao, id) é melhor que este acerto
+        boolean perdePara(float outraPontuacao, long outroId) {
+            return outraPontuacao > pontuacao || (outraPontuacao == pontuacao && outroId < id);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.wnd.wndapi.busca;
+
+import java.util.Arrays;
+
+/**
+ * Lista de ocorrências ("postings") de um termo: em quais documentos ele
+ * aparece e com qual peso.
+ *
+ * Usa arrays de tipos primitivos (int/float) em vez de coleções de objetos:
+ * com milhões de produtos isso faz muita diferença na memória e no tempo
+ * de percorrer a lista durante a busca.
+ */
+final class ListaPostagens {
+
+    private int[] documentos = new int[2];
+    private float[] pesos = new float[2];
+    private int tamanho;
+
+    void adicionar(int documento, float peso) {
+        if (tamanho == documentos.length) {
+            int novaCapacidade = tamanho + (tamanho >> 1) + 1;
+            documentos = Arrays.copyOf(documentos, novaCapacidade);
+            pesos = Arrays.copyOf(pesos, novaCapacidade);
+        }
+        documentos[tamanho] = documento;
+        pesos[tamanho] = peso;
+        tamanho++;
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    int documento(int posicao) {
+        return documentos[posicao];
+    }
+
+    float peso(int posicao) {
+        return pesos[posicao];
+    }
+
+    // Troca cada documento pelo novo número (novoNumero[documento]) e remove
+    // as ocorrências de documentos excluídos/substituídos (novo número -1).
+    void renumerar(int[] novoNumero) {
+        int destino = 0;
+        for (int i = 0; i < tamanho; i++) {
+            int numero = novoNumero[documentos[i]];
+            if (numero >= 0) {
+                documentos[destino] = numero;
+                pesos[destino] = pesos[i];
+                destino++;
+            }
+        }
+        tamanho = destino;
+        if (documentos.length > tamanho * 2 + 2) {
+            documentos = Arrays.copyOf(documentos, tamanho + 1);
+            pesos = Arrays.copyOf(pesos, tamanho + 1);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.wnd.wndapi.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wnd.wndapi.dto.PaginaProdutos;
+import com.wnd.wndapi.evento.ProdutoAlteradoEvento;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.CampoOrdenacao;
+import com.wnd.wndapi.repository.CursorProduto;
+import com.wnd.wndapi.repository.FiltroProdutos;
+import com.wnd.wndapi.repository.ProdutoRepository;
+import com.wnd.wndapi.service.ProdutoService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A primeira página da listagem (GET /api/produtos sem filtro, ordem por id)
+ * já pronta em bytes.
+ *
+ * É o GET /api/produtos "puro" que as integrações consultam de tempos em
+ * tempos para ver se algo mudou — muito mais vezes do que o catálogo muda.
+ * Em vez de consultar o H2 e passar o Jackson em cada produto a cada GET,
+ * guardamos:
+ *  - a "janela": os primeiros LIMITE_MAXIMO + 1 produtos por id (o +1 diz se
+ *    existe próxima página), lida do banco uma vez
+ *  - para cada ?limit= pedido, o JSON da página já codificado (e em gzip, se
+ *    a compressão estiver ligada), com um ETag; o Controller copia esses bytes
+ *    direto na resposta
+ *
+ * Depois do commit de cada alteração (ProdutoAlteradoEvento), a janela é
+ * corrigida na memória quando dá: produto alterado dentro da janela é trocado,
+ * produto criado/alterado depois do fim dela não muda nada (o caso de uma
+ * importação). No resto (exclusão com a janela cheia, evento fora de ordem),
+ * a janela é descartada e relida do banco na próxima leitura.
+ *
+ * Os bytes ficam fora do heap (ByteBuffer direto, wnd.listagem.fora-do-heap):
+ * não pesam nas coletas do GC e o Tomcat copia direto para o buffer do socket.
+ *
+ * Métrica: wnd.listagem.recargas (quantas vezes a janela foi lida do banco).
+ */
+@Component
+public class ListagemPronta {
+
+    private static final int TAMANHO_JANELA = ProdutoService.LIMITE_MAXIMO + 1;
+
+    /**
+     * Uma página pronta para enviar.
+     *  - json: o PaginaProdutos em JSON
+     *  - gzip: o mesmo JSON comprimido (null se a compressão estiver desligada
+     *          ou a página for pequena demais para valer a pena)
+     *  - etag / etagGzip: um para cada representação (os bytes são diferentes)
+     */
+    public record Pagina(ByteBuffer json, ByteBuffer gzip, String etag, String etagGzip) {
+    }
+
+    // Os produtos da janela, em ordem de id; imutável (uma correção gera outra janela).
+    // As páginas codificadas são preenchidas sob demanda, uma por ?limit=.
+    private record Janela(long geracao, List<Produto> produtos, Map<Integer, Pagina> paginas) {
+
+        Janela(long geracao, List<Produto> produtos) {
+            this(geracao, List.copyOf(produtos), new ConcurrentHashMap<>());
+        }
+
+        boolean cheia() {
+            return produtos.size() == TAMANHO_JANELA;
+        }
+
+        // Id depois do fim da janela cheia: nunca aparece na primeira página
+        boolean depoisDoFim(long id) {
+            return cheia() && id > produtos.get(produtos.size() - 1).getId();
+        }
+
+        int posicao(long id) {
+            int inicio = 0;
+            int fim = produtos.size() - 1;
+            while (inicio <= fim) {
+                int meio = (inicio + fim) >>> 1;
+                long atual = produtos.get(meio).getId();
+                if (atual < id) {
+                    inicio = meio + 1;
+                } else if (atual > id) {
+                    fim = meio - 1;
+                } else {
+                    return meio;
+                }
+            }
+            return -(inicio + 1);
+        }
+    }
+
+    private final ProdutoRepository produtoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean gzip;
+    private final long tamanhoMinimoGzip;
+    private final boolean foraDoHeap;
+    private final Counter recargas;
+
+    // Identifica esta subida: o ETag de antes de um restart não confere mais
+    private final long epoca = System.currentTimeMillis();
+
+    // Só mudam dentro do synchronized: o contador de alterações (mesma ideia do
+    // ProdutoCache.marcarLeitura) e a janela atual (null = reler do banco)
+    private long alteracoes;
+    private volatile Janela janela;
+
+    public ListagemPronta(ProdutoRepository produtoRepository,
+                          TransactionTemplate transactionTemplate,
+                          ObjectMapper objectMapper,
+                          MeterRegistry registry,
+                          @Value("${wnd.listagem.gzip:${server.compression.enabled:false}}") boolean gzip,
+                          @Value("${server.compression.min-response-size:2KB}") DataSize tamanhoMinimoGzip,
+                          @Value("${wnd.listagem.fora-do-heap:true}") boolean foraDoHeap) {
+        this.produtoRepository = produtoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.gzip = gzip;
+        this.tamanhoMinimoGzip = tamanhoMinimoGzip.toBytes();
+        this.foraDoHeap = foraDoHeap;
+        this.recargas = Counter.builder("wnd.listagem.recargas")
+                .description("Vezes que a primeira página pronta da listagem foi relida do banco")
+                .register(registry);
+    }
+
+
+    //   ===   LEITURA (chamado pelo Controller)   ===
+    //
+    // ?limit= ausente ou fora da faixa segue a mesma regra do ProdutoService.
+    public Pagina pagina(Integer limite) {
+        int tamanho = limite == null
+                ? ProdutoService.LIMITE_PADRAO
+                : Math.max(1, Math.min(limite, ProdutoService.LIMITE_MAXIMO));
+        Janela atual = janela;
+        Janela lida = atual == null ? recarregar() : atual;
+        return lida.paginas().computeIfAbsent(tamanho, t -> codificar(lida, t));
+    }
+
+    // Lê a janela do banco. Só guarda se nenhuma alteração chegou durante a
+    // consulta; se chegou, esta leitura usa o que leu (tão atual quanto uma
+    // consulta normal) e a próxima tenta de novo.
+    private Janela recarregar() {
+        long marca;
+        synchronized (this) {
+            marca = alteracoes;
+        }
+        recargas.increment();
+        // Transação de escrita (e não somente-leitura) de propósito: com as
+        // réplicas ligadas, a janela vem sempre do primário, nunca de uma
+        // réplica atrasada que a deixaria velha até a próxima alteração
+        List<Produto> produtos = transactionTemplate.execute(status -> produtoRepository.buscarPagina(
+                CampoOrdenacao.ID, true, null, FiltroProdutos.NENHUM, TAMANHO_JANELA));
+        Janela nova = new Janela(marca, produtos);
+        synchronized (this) {
+            if (alteracoes == marca && janela == null) {
+                janela = nova;
+            }
+        }
+        return nova;
+    }
+
+    private Pagina codificar(Janela janela, int tamanho) {
+        List<Produto> produtos = janela.produtos();
+        PaginaProdutos<Produto> pagina = produtos.size() <= tamanho
+                ? new PaginaProdutos<>(produtos, null)
+                : new PaginaProdutos<>(produtos.subList(0, tamanho),
+                        new CursorProduto(produtos.get(tamanho - 1).getId(), null).codificar());
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(pagina);
+            String etag = "\"lista-" + epoca + "-" + janela.geracao() + "-" + tamanho;
+            if (!gzip || json.length < tamanhoMinimoGzip) {
+                return new Pagina(guardar(json), null, etag + "\"", null);
+            }
+            return new Pagina(guardar(json), guardar(comprimir(json)), etag + "\"", etag + "-gzip\"");
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] comprimir(byte[] json) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream compressor = new GZIPOutputStream(saida)) {
+            compressor.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return saida.toByteArray();
+    }
+
+    // Somente-leitura: cada resposta escreve a partir de um duplicate()
+    private ByteBuffer guardar(byte[] bytes) {
+        ByteBuffer buffer = foraDoHeap ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        return buffer.put(bytes).flip().asReadOnlyBuffer();
+    }
+
+
+    //   ===   ALTERAÇÕES (depois do commit)   ===
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void aoAlterarProduto(ProdutoAlteradoEvento evento) {
+        alteracoes++;
+        Janela atual = janela;
+        if (atual != null) {
+            janela = corrigir(atual, evento);
+        }
+    }
+
+    // Devolve a mesma janela (nada mudou na primeira página), uma janela
+    // corrigida ou null (não dá para saber: reler do banco).
+    private Janela corrigir(Janela atual, ProdutoAlteradoEvento evento) {
+        long id = evento.id();
+        if (atual.depoisDoFim(id)) {
+            return atual;
+        }
+        int posicao = atual.posicao(id);
+        List<Produto> produtos = new ArrayList<>(atual.produtos());
+        switch (evento.tipo()) {
+            case CRIADO -> {
+                if (posicao >= 0) {
+                    return null;
+                }
+                produtos.add(-posicao - 1, evento.atual());
+                if (produtos.size() > TAMANHO_JANELA) {
+                    produtos.remove(TAMANHO_JANELA);
+                }
+            }
+            case ATUALIZADO -> {
+                // Fora da janela mas antes do fim dela: ainda não vimos a criação
+                // (eventos fora de ordem) ou o produto já foi excluído
+                if (posicao < 0) {
+                    return null;
+                }
+                if (produtos.get(posicao).getVersao() >= evento.atual().getVersao()) {
+                    return atual;
+                }
+                produtos.set(posicao, evento.atual());
+            }
+            case EXCLUIDO -> {
+                if (posicao < 0) {
+                    return atual;
+                }
+                // Janela cheia perde o último da próxima página: só o banco sabe quem entra
+                if (atual.cheia()) {
+                    return null;
+                }
+                produtos.remove(posicao);
+            }
+        }
+        return new Janela(alteracoes, produtos);
+    }
+}
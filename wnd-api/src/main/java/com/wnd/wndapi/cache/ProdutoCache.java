@@ -0,0 +1,131 @@
+package com.wnd.wndapi.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.wnd.wndapi.evento.ProdutoAlteradoEvento;
+import com.wnd.wndapi.model.Produto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache em memória dos produtos buscados por ID.
+ *
+ * Fica na frente do ProdutoService.buscarPorId: a tela de edição
+ * (editar-produto.js) abre sempre o mesmo produto várias vezes e não
+ * precisa ir ao H2 em todas elas.
+ *
+ *  - tamanho limitado (wnd.cache.produtos.tamanho-maximo); quando enche,
+ *    o Caffeine remove os produtos menos usados
+ *  - o ID exato é invalidado depois do commit de cada alteração/exclusão
+ *    (escutando o ProdutoAlteradoEvento)
+ *  - guarda também o ETag de cada produto, para responder 304 sem
+ *    consultar o banco nem gerar JSON
+ */
+@Component
+public class ProdutoCache {
+
+    private final Cache<Long, Produto> cache;
+    private final long tamanhoMaximo;
+
+    // Conta as invalidações. Quem carregou um produto do banco só guarda no
+    // cache se nenhuma invalidação aconteceu durante a consulta; assim uma
+    // leitura lenta nunca "ressuscita" uma versão antiga depois de um UPDATE.
+    private final AtomicLong invalidacoes = new AtomicLong();
+
+    public ProdutoCache(@Value("${wnd.cache.produtos.tamanho-maximo:10000}") long tamanhoMaximo) {
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .recordStats()
+                .build();
+    }
+
+
+    //   ===   LEITURA   ===
+
+    // Devolve o produto em cache ou null (conta acerto/falta nas estatísticas).
+    public Produto buscar(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    // Marca o momento antes de ir ao banco (ver guardarSeAtual).
+    public long marcarLeitura() {
+        return invalidacoes.get();
+    }
+
+
+    //   ===   ESCRITA   ===
+
+    // Guarda o produto lido do banco, desde que nada tenha sido invalidado
+    // desde marcarLeitura(). Na dúvida, simplesmente não guarda.
+    //
+    // Primeiro guarda, depois confere: conferir antes deixaria um invalidar()
+    // cair entre a conferência e o put, e a versão antiga ficaria no cache.
+    // Assim, ou a invalidação já contou (e o produto sai aqui mesmo), ou o
+    // cache.invalidate dela ainda vai rodar depois do put.
+    public void guardarSeAtual(Produto produto, long marca) {
+        if (invalidacoes.get() != marca) {
+            return;
+        }
+        cache.put(produto.getId(), produto);
+        if (invalidacoes.get() != marca) {
+            // remove só o que este put guardou (outro pode ter guardado uma versão nova)
+            cache.asMap().remove(produto.getId(), produto);
+        }
+    }
+
+    // Remove um produto do cache.
+    public void invalidar(Long id) {
+        invalidacoes.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    // Depois do commit de uma alteração/exclusão, tira o produto do cache.
+    // (Invalidar antes do commit deixaria outra leitura guardar a versão antiga.)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvento evento) {
+        if (evento.tipo() != ProdutoAlteradoEvento.Tipo.CRIADO) {
+            invalidar(evento.id());
+        }
+    }
+
+
+    //   ===   ETAG   ===
+    //
+    // ETag forte a partir do ID + versão (@Version) do produto. Ex: "15-3".
+    // A versão muda a cada UPDATE, então o ETag muda junto.
+    public static String etag(Produto produto) {
+        return etag(produto.getId(), produto.getVersao());
+    }
+
+    public static String etag(Long id, Long versao) {
+        return "\"" + id + "-" + (versao == null ? 0 : versao) + "\"";
+    }
+
+    // ETag do produto se ele estiver em cache (sem contar nas estatísticas), senão null.
+    public String etagEmCache(Long id) {
+        Produto produto = cache.asMap().get(id);
+        return produto == null ? null : etag(produto);
+    }
+
+
+    //   ===   ESTATÍSTICAS (para dimensionar o cache)   ===
+    public Map<String, Object> estatisticas() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> dados = new LinkedHashMap<>();
+        dados.put("tamanho", cache.estimatedSize());
+        dados.put("tamanhoMaximo", tamanhoMaximo);
+        dados.put("acertos", stats.hitCount());
+        dados.put("faltas", stats.missCount());
+        dados.put("taxaAcerto", stats.hitRate());
+        dados.put("remocoesPorTamanho", stats.evictionCount());
+        dados.put("invalidacoes", invalidacoes.get());
+        return dados;
+    }
+}
@@ -0,0 +1,15 @@
+package com.wnd.wndapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Liga as tarefas periódicas (@Scheduled) da aplicação.
+ *
+ * Hoje: a reconciliação dos agregados do catálogo com o banco
+ * (ver CatalogoAgregados).
+ */
+@Configuration
+@EnableScheduling
+public class AgendamentoConfig {
+}
@@ -0,0 +1,109 @@
+package com.wnd.wndapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simula um banco "lento" (rede ruim, banco sobrecarregado) em cima do H2 local.
+ *
+ * Só existe no perfil "banco-lento": cada comando SQL executado espera
+ * wnd.banco.latencia-simulada-ms antes de ir para o H2, segurando a conexão
+ * do pool durante a espera — como aconteceria com um banco remoto demorando
+ * para responder.
+ *
+ * Usado para comparar threads de plataforma e threads virtuais
+ * (ver ThreadsVirtuaisBenchmarkTests e o perfil "threads-virtuais").
+ */
+@Configuration
+@Profile("banco-lento")
+public class BancoLentoConfig {
+
+    // static: BeanPostProcessor precisa ser criado antes dos outros beans
+    @Bean
+    static BeanPostProcessor atrasarDataSource(@Value("${wnd.banco.latencia-simulada-ms:50}") long latenciaMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nome) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceLento)) {
+                    return new DataSourceLento(dataSource, latenciaMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    //   ===   DATASOURCE → CONEXÃO → COMANDO, CADA UM EMBRULHADO   ===
+    //
+    // A espera fica no execute*() do Statement/PreparedStatement.
+    // É um Thread.sleep comum fora de qualquer "synchronized": numa thread
+    // virtual, ela é desmontada da thread do sistema enquanto espera.
+    static final class DataSourceLento extends DelegatingDataSource {
+
+        private final long latenciaMs;
+
+        DataSourceLento(DataSource alvo, long latenciaMs) {
+            super(alvo);
+            this.latenciaMs = latenciaMs;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return embrulhar(Connection.class, super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String usuario, String senha) throws SQLException {
+            return embrulhar(Connection.class, super.getConnection(usuario, senha));
+        }
+
+        private <T> T embrulhar(Class<T> tipo, T alvo) {
+            InvocationHandler handler = (proxy, metodo, args) -> {
+                if (alvo instanceof Statement && metodo.getName().startsWith("execute")) {
+                    esperar();
+                }
+                Object resultado = invocar(alvo, metodo, args);
+                // Comandos criados pela conexão também passam a ter a espera
+                if (resultado instanceof Statement comando && metodo.getReturnType().isInterface()) {
+                    return embrulhar(comandoTipo(metodo.getReturnType()), comando);
+                }
+                return resultado;
+            };
+            return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, handler));
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Class<Statement> comandoTipo(Class<?> retorno) {
+            return (Class<Statement>) retorno;
+        }
+
+        private void esperar() {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latenciaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static Object invocar(Object alvo, Method metodo, Object[] args) throws Throwable {
+            try {
+                return metodo.invoke(alvo, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
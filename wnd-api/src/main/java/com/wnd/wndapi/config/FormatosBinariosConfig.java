@@ -0,0 +1,40 @@
+package com.wnd.wndapi.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Formatos binários da API, escolhidos pelo cabeçalho Accept (negociação de conteúdo):
+ *
+ *  - Accept: application/cbor              → CBOR
+ *  - Accept: application/x-jackson-smile   → Smile
+ *
+ * Mesmo modelo do JSON (os mesmos campos, os mesmos nomes), só que sem texto:
+ * números e BigDecimal vão em binário e não há aspas, dois-pontos nem escapes
+ * para gerar e ler. Serve para os serviços internos que puxam o catálogo.
+ *
+ * O JSON continua sendo o padrão: sem Accept, ou com Accept: *\/*, a resposta
+ * sai em JSON (o conversor de JSON vem antes destes na lista do Spring MVC).
+ *
+ * Os dois conversores usam o Jackson2ObjectMapperBuilder do Spring Boot, então
+ * as configurações de spring.jackson.* valem igual para JSON, CBOR e Smile.
+ * Eles também leem o corpo de POST/PUT enviado nesses formatos (Content-Type).
+ */
+@Configuration
+public class FormatosBinariosConfig {
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter conversorCbor(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter conversorSmile(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
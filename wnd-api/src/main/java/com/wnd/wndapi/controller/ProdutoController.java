@@ -1,18 +1,62 @@
 package com.wnd.wndapi.controller;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.wnd.wndapi.agregados.CatalogoAgregados;
+import com.wnd.wndapi.cache.ListagemPronta;
+import com.wnd.wndapi.cache.ProdutoCache;
+import com.wnd.wndapi.dto.MovimentacaoEstoque;
+import com.wnd.wndapi.dto.PaginaProdutos;
+import com.wnd.wndapi.dto.PedidoAjuste;
+import com.wnd.wndapi.dto.ProdutoCampos;
+import com.wnd.wndapi.dto.ResultadoBusca;
+import com.wnd.wndapi.dto.ResultadoImportacao;
+import com.wnd.wndapi.dto.SituacaoAjuste;
+import com.wnd.wndapi.feed.FeedProdutos;
 import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.FiltroProdutos;
+import com.wnd.wndapi.service.AjusteEmMassaService;
+import com.wnd.wndapi.service.ProdutoExportacaoService;
+import com.wnd.wndapi.service.ProdutoImportacaoService;
 import com.wnd.wndapi.service.ProdutoService;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Controller responsável pelos endpoints REST relacionados a Produto.
@@ -27,28 +71,222 @@ public class ProdutoController {
     // O Service é quem conversa com o Repository e aplica regras de negócio.
     private final ProdutoService produtoService;
 
+    // Service da exportação do catálogo completo (NDJSON/CSV em streaming).
+    private final ProdutoExportacaoService exportacaoService;
+
+    // Service da importação em massa (array JSON ou NDJSON, gravado em lotes).
+    private final ProdutoImportacaoService importacaoService;
+
+    // Ajustes em massa de preço/estoque, em segundo plano (POST /api/produtos/ajustes).
+    private final AjusteEmMassaService ajusteService;
+
+    // Cache de produtos por ID (só usado aqui para expor as estatísticas).
+    private final ProdutoCache produtoCache;
+
+    // Primeira página da listagem já em bytes (GET /api/produtos sem filtros).
+    private final ListagemPronta listagemPronta;
+
+    // Totais do catálogo mantidos em memória (GET /api/produtos/agregados).
+    private final CatalogoAgregados catalogoAgregados;
+
+    // Feed de alterações em SSE (GET /api/produtos/stream).
+    private final FeedProdutos feedProdutos;
+
+    // Usados no PATCH: ler o JSON parcial e validar só os campos enviados.
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
     /**
-     * Construtor que recebe o ProdutoService.
-     * O Spring injeta automaticamente uma instância de ProdutoService aqui.
+     * Construtor que recebe os services.
+     * O Spring injeta automaticamente as instâncias aqui.
      */
-    public ProdutoController(ProdutoService produtoService) {
-        // Guarda a instância recebida em um atributo da classe para usar nos métodos abaixo
+    public ProdutoController(ProdutoService produtoService,
+                             ProdutoExportacaoService exportacaoService,
+                             ProdutoImportacaoService importacaoService,
+                             AjusteEmMassaService ajusteService,
+                             ProdutoCache produtoCache,
+                             ListagemPronta listagemPronta,
+                             CatalogoAgregados catalogoAgregados,
+                             FeedProdutos feedProdutos,
+                             ObjectMapper objectMapper,
+                             Validator validator) {
+        // Guarda as instâncias recebidas em atributos da classe para usar nos métodos abaixo
         this.produtoService = produtoService;
+        this.exportacaoService = exportacaoService;
+        this.importacaoService = importacaoService;
+        this.ajusteService = ajusteService;
+        this.produtoCache = produtoCache;
+        this.listagemPronta = listagemPronta;
+        this.catalogoAgregados = catalogoAgregados;
+        this.feedProdutos = feedProdutos;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
     }
 
-    /* ========== LISTAR TODOS OS PRODUTOS ========== */
+    /* ========== LISTAR PRODUTOS (PAGINADO) ========== */
 
     /**
-     * Endpoint: GET /api/produtos
-     * Função: devolver a lista de todos os produtos cadastrados no banco.
-     * Usado na tela de listagem (lista-produtos.html).
+     * Endpoint: GET /api/produtos?after={cursor}&limit={n}&sort={campo}&dir={asc|desc}
+     * Função: devolver UMA página da lista de produtos, nunca a tabela inteira.
+     * Usado na tela de listagem (lista-produtos.html), que vai pedindo as próximas páginas.
+     *
+     * Parâmetros (todos opcionais):
+     *  - after: cursor devolvido em "proximoCursor" pela página anterior (ou um ID)
+     *  - limit: quantidade de itens (padrão 20, máximo 100)
+     *  - sort:  id, nome, preco ou fabricante (padrão id)
+     *  - dir:   asc ou desc (padrão asc)
+     *  - fields: só estes campos em cada item, ex: id,nome,preco (o id vem sempre)
+     *
+     * Filtros (opcionais, combinados com AND; limites inclusivos):
+     *  - fabricante: só deste fabricante (nome exato)
+     *  - precoMin / precoMax: faixa de preço
+     *  - estoqueMax: só produtos com até esta quantidade em estoque
      */
     @GetMapping // Quando chega um GET em /api/produtos, este método é chamado
-    public List<Produto> listar() {
-        // Chama o método listarTodos() do ProdutoService.
-        // Lá dentro, o service chama produtoRepository.findAll() para buscar na tabela.
-        return produtoService.listarTodos();
-        // A lista retornada aqui é serializada em JSON automaticamente e enviada para o front.
+    public ResponseEntity<?> listar(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String dir,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String fabricante,
+            @RequestParam(required = false) BigDecimal precoMin,
+            @RequestParam(required = false) BigDecimal precoMax,
+            @RequestParam(required = false) Integer estoqueMax
+    ) {
+        try {
+            FiltroProdutos filtro = new FiltroProdutos(fabricante, precoMin, precoMax, estoqueMax);
+
+            // O service monta a consulta por cursor (keyset) no ProdutoRepository
+            // e devolve os itens + o cursor da próxima página.
+            // Com ?fields=, o SELECT traz só essas colunas (itens sem a entidade Produto).
+            PaginaProdutos<?> pagina = fields == null
+                    ? produtoService.listarPagina(after, limit, sort, dir, filtro)
+                    : produtoService.listarPaginaCampos(after, limit, sort, dir, filtro, fields);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            // Ordenação, direção, cursor ou filtro inválidos → 400 no mesmo formato dos erros de validação.
+            return erroParametro("Paginação", e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint: GET /api/produtos (só ?limit=, ou nenhum parâmetro)
+     * Função: a primeira página sem filtro, que é a mais pedida de todas.
+     *
+     * O Spring escolhe este método em vez do listar() quando a requisição não
+     * tem nenhum outro parâmetro da listagem e aceita JSON (CBOR/Smile continuam
+     * no listar). Nada de consulta nem de Jackson aqui: os bytes já prontos
+     * (ListagemPronta) vão direto para a resposta, em gzip se o cliente aceitar.
+     * Com If-None-Match igual ao ETag atual, responde 304 sem corpo.
+     */
+    @GetMapping(params = {"!after", "!sort", "!dir", "!fields", "!fabricante", "!precoMin", "!precoMax", "!estoqueMax"},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public void listarPrimeiraPagina(@RequestParam(required = false) Integer limit,
+                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                     HttpServletResponse response) throws IOException {
+        ListagemPronta.Pagina pagina = listagemPronta.pagina(limit);
+        boolean comGzip = pagina.gzip() != null && aceitaGzip(acceptEncoding);
+        String etag = comGzip ? pagina.etagGzip() : pagina.etag();
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (etagConfere(ifNoneMatch, etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        ByteBuffer corpo = comGzip ? pagina.gzip() : pagina.json();
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(corpo.remaining());
+        if (comGzip) {
+            // Já comprimido: com o Content-Encoding preenchido o Tomcat não comprime de novo
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        escrever(corpo, response.getOutputStream());
+    }
+
+    /* ========== BUSCA TEXTUAL ========== */
+
+    /**
+     * Endpoint: GET /api/produtos/search?q={texto}&offset={n}&limit={n}
+     * Função: buscar produtos por trechos do nome, da descrição ou do fabricante.
+     *
+     * A busca ignora acentos e maiúsculas, aceita começo de palavra ("cafet")
+     * e devolve os resultados do mais relevante para o menos, paginados.
+     * Quem responde é um índice em memória — nada de LIKE '%x%' no banco.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> buscarTexto(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit
+    ) {
+        try {
+            ResultadoBusca resultado = produtoService.buscarTexto(q, offset, limit);
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            return erroParametro("Busca", e.getMessage());
+        } catch (IllegalStateException e) {
+            // Índice ainda carregando na subida da aplicação → 503, tente de novo em instantes.
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+
+    /* ========== EXPORTAR O CATÁLOGO COMPLETO ========== */
+
+    /**
+     * Endpoint: GET /api/produtos/export?format=ndjson|csv|cbor|smile
+     * Função: gerar o dump completo do catálogo (usado pelos jobs noturnos).
+     *
+     * A resposta é escrita em streaming: cada produto lido do banco já vai
+     * direto para a rede, então a memória não cresce com o tamanho da tabela.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "ndjson") String format) {
+        // Formato desconhecido lança IllegalArgumentException → tratarParametroInvalido devolve 400.
+        // (O tipo de retorno precisa ser ResponseEntity<StreamingResponseBody> para o Spring
+        //  reconhecer o streaming, por isso o erro não é devolvido aqui mesmo.)
+        ProdutoExportacaoService.Formato formato = ProdutoExportacaoService.Formato.doParametro(format);
+
+        // StreamingResponseBody roda depois que o método retorna, escrevendo
+        // direto no OutputStream da resposta (a transação abre lá dentro do service).
+        StreamingResponseBody corpo = saida -> exportacaoService.exportar(formato, saida);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, formato.getContentType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"produtos." + formato.getExtensao() + "\"")
+                .body(corpo);
+    }
+
+    /* ========== ACOMPANHAR ALTERAÇÕES (SSE) ========== */
+
+    /**
+     * Endpoint: GET /api/produtos/stream
+     * Função: manter a conexão aberta e enviar um evento "produto" a cada
+     * criação, alteração ou exclusão ({"tipo": "ATUALIZADO", "id": 5, "produto": {...}}).
+     * Usado na tela de listagem, que atualiza só o card afetado.
+     *
+     * Cliente que não acompanha os eventos é desconectado (ver FeedProdutos);
+     * o EventSource do navegador reconecta sozinho.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> acompanhar() {
+        SseEmitter emitter = feedProdutos.assinar();
+        if (emitter == null) {
+            // Conexões demais abertas → 503; o navegador tenta de novo depois.
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .body(emitter);
     }
 
     /* ========== BUSCAR UM ÚNICO PRODUTO POR ID ========== */
@@ -57,19 +295,55 @@ public class ProdutoController {
      * Endpoint: GET /api/produtos/{id}
      * Função: buscar um produto específico pelo ID.
      * Usado principalmente para preencher o formulário de edição (editar-produto.html).
+     *
+     * Com ?fields=id,nome,preco devolve só esses campos (o id vem sempre).
+     * O ETag é o mesmo do produto completo: o cache do navegador é por URL,
+     * então cada combinação de campos é guardada separada.
+     *
+     * O corpo sai em JSON, CBOR ou Smile conforme o Accept. Por isso a
+     * resposta leva "Vary: Accept" e o ETag de CBOR/Smile leva o formato
+     * ("5-3+cbor"): os bytes são outros, e um cache intermediário não pode
+     * entregar CBOR a quem pediu JSON. O ETag do JSON continua "5-3".
      */
     @GetMapping("/{id}") // {id} é um parâmetro de caminho, ex: /api/produtos/5
-    public ResponseEntity<Produto> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<?> buscarPorId(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields,
+            // ETag que o navegador já tem guardado (GET condicional), se tiver
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
         // @PathVariable vincula o {id} da URL ao parâmetro Long id deste método.
+
+        // fields inválido é 400 mesmo com o ETag conferindo: confere antes do 304.
+        if (fields != null) {
+            try {
+                ProdutoService.camposDoParametro(fields);
+            } catch (IllegalArgumentException e) {
+                return erroParametro("Campos", e.getMessage());
+            }
+        }
+
+        // Formato que o Spring vai escolher para o corpo (null = nenhum serve → 406)
+        MediaType formato = formatoNegociado(accept);
+
+        // GET condicional: se o produto está em cache e o ETag não mudou,
+        // respondemos 304 (Not Modified) sem ir ao banco e sem gerar JSON.
+        String etagEmCache = produtoService.etagEmCache(id);
+        if (etagEmCache != null && etagConfere(ifNoneMatch, etagNoFormato(etagEmCache, formato))) {
+            return naoModificadoNoFormato(etagNoFormato(etagEmCache, formato));
+        }
+
+        if (fields != null) {
+            return buscarCamposPorId(id, fields, ifNoneMatch, formato);
+        }
+
         try {
             // Pede para o service buscar o produto com este ID.
-            // Dentro do service, é chamado produtoRepository.findById(id).
+            // Dentro do service, primeiro olha o cache e depois produtoRepository.findById(id).
             // Se não encontrar, o service lança EntityNotFoundException.
             Produto produto = produtoService.buscarPorId(id);
-
-            // Se chegou aqui, o produto foi encontrado.
-            // ResponseEntity.ok(produto) monta uma resposta HTTP 200 (OK) com o JSON do produto.
-            return ResponseEntity.ok(produto);
+            return produtoNoFormato(produto, ProdutoCache.etag(produto), formato, ifNoneMatch);
         } catch (EntityNotFoundException e) {
             // Se o service não encontrar o produto, cai neste catch.
             // Aqui devolvemos uma resposta HTTP 404 (Not Found) sem corpo.
@@ -77,6 +351,161 @@ public class ProdutoController {
         }
     }
 
+    // GET /api/produtos/{id}?fields=... — mesmo fluxo acima, com o produto parcial.
+    private ResponseEntity<?> buscarCamposPorId(Long id, String fields, String ifNoneMatch, MediaType formato) {
+        try {
+            ProdutoCampos produto = produtoService.buscarCamposPorId(id, fields);
+            return produtoNoFormato(produto.valores(), produto.etag(), formato, ifNoneMatch);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return erroParametro("Campos", e.getMessage());
+        }
+    }
+
+    // 200 com o corpo no formato negociado, ou 304 se o ETag (já com o formato) bate.
+    private ResponseEntity<?> produtoNoFormato(Object corpo, String etag, MediaType formato, String ifNoneMatch) {
+        String etagFormato = etagNoFormato(etag, formato);
+        // Mesmo sem cache, se o ETag bate não precisamos mandar o corpo de novo.
+        if (etagConfere(ifNoneMatch, etagFormato)) {
+            return naoModificadoNoFormato(etagFormato);
+        }
+        // "no-cache" faz o navegador sempre revalidar com If-None-Match antes de reaproveitar.
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .eTag(etagFormato)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT);
+        if (formato != null) {
+            // O mesmo formato do ETag, mesmo que outro conversor também servisse
+            resposta.contentType(formato);
+        }
+        return resposta.body(corpo);
+    }
+
+    private ResponseEntity<?> naoModificadoNoFormato(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .build();
+    }
+
+    /* ========== BUSCAR VÁRIOS PRODUTOS POR ID ========== */
+
+    /**
+     * Endpoint: GET /api/produtos/batch?ids=1,2,3
+     *       ou  POST /api/produtos/batch com o corpo [1, 2, 3] (listas longas)
+     * Função: vários produtos numa requisição só (ex: o serviço de pedidos,
+     * que antes fazia um GET /api/produtos/{id} por produto).
+     *
+     * Responde { "itens": [...], "naoEncontrados": [...] }, os dois na ordem
+     * dos ids pedidos. Id que não existe não é erro: vai para naoEncontrados.
+     * Mais de ProdutoService.IDS_POR_LOTE_MAXIMO ids distintos (a mesma regra
+     * no GET e no POST; id repetido conta uma vez), id inválido ou lista vazia → 400.
+     *
+     * (O "/batch" não conflita com o "/{id}": no Spring, o caminho literal
+     * tem prioridade sobre o que tem variável.)
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<?> buscarPorIds(@RequestParam(defaultValue = "") String ids) {
+        try {
+            return ResponseEntity.ok(produtoService.buscarPorIds(idsDoParametro(ids)));
+        } catch (IllegalArgumentException e) {
+            return erroParametro("Lote", e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> buscarPorIdsNoCorpo(InputStream corpo) throws IOException {
+        try {
+            return ResponseEntity.ok(produtoService.buscarPorIds(idsDoCorpo(corpo)));
+        } catch (IllegalArgumentException e) {
+            return erroParametro("Lote", e.getMessage());
+        }
+    }
+
+    // "1, 2,3" → [1, 2, 3]. A query string já é limitada pelo Tomcat (tamanho
+    // máximo do cabeçalho); o limite de ids é o do service (ids distintos).
+    private static List<Long> idsDoParametro(String ids) {
+        List<Long> lista = new ArrayList<>();
+        for (String parte : ids.split(",")) {
+            String id = parte.trim();
+            if (id.isEmpty()) {
+                continue;
+            }
+            try {
+                lista.add(Long.parseLong(id));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Id inválido: " + id + ".");
+            }
+        }
+        return lista;
+    }
+
+    // [1, 2, 3] lido em streaming: para de ler assim que passa de
+    // IDS_POR_LOTE_MAXIMO ids distintos (o service recusa a lista), então um
+    // corpo enorme nunca é carregado inteiro na memória.
+    private List<Long> idsDoCorpo(InputStream corpo) throws IOException {
+        Set<Long> ids = new LinkedHashSet<>();
+        try (JsonParser leitor = objectMapper.getFactory().createParser(corpo)) {
+            if (leitor.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("O corpo deve ser uma lista de ids, ex: [1, 2, 3].");
+            }
+            JsonToken token;
+            while ((token = leitor.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.VALUE_NUMBER_INT) {
+                    ids.add(leitor.getLongValue());
+                } else if (token == JsonToken.VALUE_NULL) {
+                    ids.add(null);
+                } else if (token == null) {
+                    throw new IllegalArgumentException("Lista de ids incompleta.");
+                } else {
+                    throw new IllegalArgumentException("Id inválido: " + leitor.getText() + ".");
+                }
+                if (ids.size() > ProdutoService.IDS_POR_LOTE_MAXIMO) {
+                    break;
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON inválido: " + e.getOriginalMessage());
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /* ========== ESTATÍSTICAS DO CACHE DE PRODUTOS ========== */
+
+    /**
+     * Endpoint: GET /api/produtos/cache/estatisticas
+     * Função: mostrar acertos, faltas e remoções do cache de produtos por ID,
+     * para ajudar a escolher o tamanho (wnd.cache.produtos.tamanho-maximo).
+     */
+    @GetMapping("/cache/estatisticas")
+    public Map<String, Object> estatisticasCache() {
+        return produtoCache.estatisticas();
+    }
+
+    /* ========== AGREGADOS DO CATÁLOGO (PAINÉIS) ========== */
+
+    /**
+     * Endpoint: GET /api/produtos/agregados
+     * Função: total de produtos, estoque e valor do inventário (preço × estoque),
+     * os mesmos totais por fabricante e a quantidade de produtos por faixa de preço.
+     *
+     * Os números vêm de acumuladores em memória — nenhuma consulta ao banco
+     * por pedido (os painéis podem chamar à vontade).
+     */
+    @GetMapping("/agregados")
+    public ResponseEntity<?> agregados() {
+        try {
+            return ResponseEntity.ok(catalogoAgregados.resumo());
+        } catch (IllegalStateException e) {
+            // Carga inicial ainda em andamento → 503, tente de novo em instantes.
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+
     /* ========== CADASTRAR NOVO PRODUTO ========== */
 
     /**
@@ -108,18 +537,137 @@ public class ProdutoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(salvo);
     }
 
+    /* ========== IMPORTAÇÃO EM MASSA ========== */
+
+    /**
+     * Endpoint: POST /api/produtos/importar
+     * Função: cadastrar muitos produtos de uma vez.
+     *
+     * Aceita:
+     *  - Content-Type: application/json     → array JSON [{...}, {...}]
+     *  - Content-Type: application/x-ndjson → um objeto JSON por linha
+     *
+     * Cada item passa pelas mesmas validações do cadastro. Os válidos são
+     * gravados em lotes (JDBC batch); os inválidos voltam na resposta com a
+     * posição do item, a linha do arquivo onde ele começa e os erros, no
+     * mesmo formato de tratarErrosValidacao:
+     *
+     *   { "importados": 998, "rejeitados": 2,
+     *     "erros": [ { "item": 7, "linha": 7, "erros": { "Preço": "O preço deve ser maior que zero." } } ] }
+     *
+     * JSON com sintaxe quebrada → 400 com o mesmo corpo e mais "interrompida":
+     * tudo antes do item quebrado já foi gravado, e "importados" diz quantos.
+     * Reenviar o arquivo inteiro duplicaria esses produtos.
+     *
+     *   { "importados": 1000, "rejeitados": 0, "erros": [],
+     *     "interrompida": { "item": 1001, "linha": 1002, "mensagem": "Unexpected character..." } }
+     */
+    @PostMapping(value = "/importar", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<Map<String, Object>> importar(InputStream corpo) throws IOException {
+        // O corpo da requisição é lido em streaming pelo service (sem carregar tudo na memória).
+        ResultadoImportacao resultado = importacaoService.importar(corpo);
+
+        // Traduz os nomes dos atributos ("preco" → "Preço") como no cadastro individual.
+        List<Map<String, Object>> erros = new ArrayList<>();
+        for (ResultadoImportacao.ErroItem erroItem : resultado.erros()) {
+            Map<String, String> errosCampos = new LinkedHashMap<>();
+            erroItem.erros().forEach((campo, mensagem) -> errosCampos.put(traduzCampo(campo), mensagem));
+
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("item", erroItem.item());
+            item.put("linha", erroItem.linha());
+            item.put("erros", errosCampos);
+            erros.add(item);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("importados", resultado.importados());
+        body.put("rejeitados", resultado.rejeitados());
+        body.put("erros", erros);
+        if (resultado.interrompida() != null) {
+            body.put("interrompida", resultado.interrompida());
+            return ResponseEntity.badRequest().body(body);
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    /* ========== AJUSTE EM MASSA DE PREÇO / ESTOQUE ========== */
+
+    /**
+     * Endpoint: POST /api/produtos/ajustes
+     * Função: reajustar de uma vez todos os produtos de um filtro, em segundo plano.
+     *
+     *   { "fabricante": "X", "precoPercentual": 7 }        → +7% em todo produto do fabricante X
+     *   { "estoqueMax": 5, "estoqueDelta": 100 }            → +100 no estoque de quem tem até 5
+     *
+     * Responde na hora 202 (Accepted) com o ajuste AGUARDANDO e o header
+     * Location apontando para o progresso (GET /api/produtos/ajustes/{id}).
+     */
+    @PostMapping("/ajustes")
+    public ResponseEntity<?> iniciarAjuste(@RequestBody ObjectNode corpo) {
+        PedidoAjuste pedido;
+        try {
+            pedido = objectMapper.treeToValue(corpo, PedidoAjuste.class);
+        } catch (JsonProcessingException e) {
+            // O próprio PedidoAjuste recusa ajuste vazio/contraditório (IllegalArgumentException)
+            if (e.getCause() instanceof IllegalArgumentException invalido) {
+                return erroParametro("Ajuste", invalido.getMessage());
+            }
+            String campo = e instanceof JsonMappingException mapeamento && !mapeamento.getPath().isEmpty()
+                    ? mapeamento.getPath().get(0).getFieldName() : "json";
+            return erroParametro(traduzCampo(campo), "Valor inválido.");
+        }
+        SituacaoAjuste situacao = ajusteService.iniciar(pedido);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/produtos/ajustes/" + situacao.id()))
+                .body(situacao);
+    }
+
+    /**
+     * Endpoint: GET /api/produtos/ajustes/{id}
+     * Função: progresso do ajuste (estado, total, processados, alterados, ignorados).
+     */
+    @GetMapping("/ajustes/{id}")
+    public ResponseEntity<SituacaoAjuste> situacaoAjuste(@PathVariable long id) {
+        try {
+            return ResponseEntity.ok(ajusteService.situacao(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Endpoint: DELETE /api/produtos/ajustes/{id}
+     * Função: cancelar o ajuste. Para no fim do lote atual; o que já foi
+     * gravado continua gravado. Devolve a situação no momento do pedido.
+     */
+    @DeleteMapping("/ajustes/{id}")
+    public ResponseEntity<SituacaoAjuste> cancelarAjuste(@PathVariable long id) {
+        try {
+            return ResponseEntity.accepted().body(ajusteService.cancelar(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     /* ========== ATUALIZAR UM PRODUTO EXISTENTE ========== */
 
     /**
      * Endpoint: PUT /api/produtos/{id}
      * Função: atualizar um produto já existente com os novos dados enviados em JSON.
      * Usado no formulário de edição (editar-produto.html).
+     *
+     * A versão lida é obrigatória (If-Match ou "versao" no corpo): o PUT troca
+     * o estoque inteiro, e sem versão apagaria uma reserva feita depois da
+     * leitura. Sem ela → 428 (Precondition Required), nada é gravado.
      */
     @PutMapping("/{id}") // Quando chega um PUT em /api/produtos/algumId, esse método é chamado
     public ResponseEntity<?> atualizar(
             @PathVariable Long id,               // ID do produto que será atualizado (vem da URL).
             @Valid @RequestBody Produto produto, // Novos dados do produto, vindos do JSON (com validação).
-            BindingResult bindingResult          // Resultado da validação dos novos dados.
+            BindingResult bindingResult,         // Resultado da validação dos novos dados.
+            // ETag lido no GET /api/produtos/{id}: só atualiza se o produto ainda estiver nessa versão.
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
         // Antes de atualizar, validamos os dados recebidos.
         if (bindingResult.hasErrors()) {
@@ -127,20 +675,160 @@ public class ProdutoController {
             return tratarErrosValidacao(bindingResult);
         }
 
+        // Versão que o cliente leu: If-Match tem prioridade; senão, o campo "versao" do JSON (se veio).
+        Long versaoEsperada = ifMatch != null ? versaoDoEtag(id, ifMatch) : produto.getVersao();
+        if (versaoEsperada == null) {
+            return versaoObrigatoria();
+        }
+
         try {
             // Se os dados são válidos, chamamos o service para fazer a atualização.
-            // O service primeiro busca o produto existente pelo ID.
-            // Se encontrar, copia os novos dados para o objeto existente e salva.
-            // Se não encontrar, lança EntityNotFoundException.
-            Produto atualizado = produtoService.atualizar(id, produto);
+            // O service faz um único UPDATE com os novos dados.
+            // Se nenhuma linha mudar porque o ID não existe, lança EntityNotFoundException.
+            Produto atualizado = produtoService.atualizar(id, produto, versaoEsperada);
 
             // Se chegou aqui, o produto foi atualizado com sucesso.
             // Devolvemos HTTP 200 (OK) com o produto já atualizado no corpo.
-            return ResponseEntity.ok(atualizado);
+            return ResponseEntity.ok()
+                    .eTag(ProdutoCache.etag(atualizado))
+                    .body(atualizado);
         } catch (EntityNotFoundException e) {
             // Se o ID não existir no banco, o service lança a exception e caímos aqui.
             // Nesse caso, devolvemos HTTP 404 (Not Found) para o front tratar como quiser.
             return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            // O produto mudou desde que o cliente o leu (outro PUT, uma reserva de estoque...).
+            // Com If-Match → 412 (Precondition Failed); sem → 409 (Conflict).
+            // Em ambos os casos nada foi gravado: o cliente deve ler de novo e reaplicar.
+            HttpStatus status = ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+            return erro(status, "Versão", "O produto foi alterado por outra operação. Recarregue e tente de novo.");
+        }
+    }
+
+    /* ========== ATUALIZAR SÓ ALGUNS CAMPOS (PATCH) ========== */
+
+    /**
+     * Endpoint: PATCH /api/produtos/{id}
+     * Corpo: JSON Merge Patch (RFC 7386, application/merge-patch+json), ex: { "preco": 19.90 }
+     * Função: alterar só os campos enviados; os outros continuam como estão.
+     *
+     * Só os campos enviados são validados (com as mesmas regras do Produto).
+     * Um campo com null significa "apagar", e todos os campos do produto são
+     * obrigatórios, então null volta 400. "versao" no corpo (ou If-Match)
+     * funciona como no PUT: 409/412 se o produto mudou. Só é obrigatória
+     * (428 sem ela) quando o patch troca o estoque, pelo mesmo motivo do PUT.
+     *
+     * Vira um único UPDATE no banco: 404 quando nenhuma linha é alterada.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> atualizarParcial(
+            @PathVariable Long id,
+            @RequestBody ObjectNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        Map<String, String> erros = new LinkedHashMap<>();
+        Set<String> campos = new LinkedHashSet<>();
+        patch.fieldNames().forEachRemaining(campo -> {
+            if (ProdutoService.CAMPOS_EDITAVEIS.contains(campo)) {
+                campos.add(campo);
+            } else if (!campo.equals("versao") && !campo.equals("id")) {
+                erros.put(campo, "Campo desconhecido.");
+            }
+        });
+        if (patch.hasNonNull("id") && patch.get("id").asLong() != id) {
+            erros.put("ID", "O ID do produto não pode ser alterado.");
+        }
+
+        // JSON → Produto (só os campos enviados importam) e validação campo a campo
+        Produto alteracoes = null;
+        try {
+            alteracoes = objectMapper.treeToValue(patch, Produto.class);
+        } catch (JsonProcessingException e) {
+            String campo = e instanceof JsonMappingException mapeamento && !mapeamento.getPath().isEmpty()
+                    ? mapeamento.getPath().get(0).getFieldName() : "json";
+            erros.put(traduzCampo(campo), "Valor inválido.");
+        }
+        if (alteracoes != null) {
+            for (String campo : campos) {
+                for (ConstraintViolation<Produto> violacao : validator.validateProperty(alteracoes, campo)) {
+                    erros.putIfAbsent(traduzCampo(campo), violacao.getMessage());
+                }
+            }
+        }
+        if (!erros.isEmpty()) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("erros", erros);
+            return ResponseEntity.badRequest().body(body);
+        }
+
+        // Versão que o cliente leu: If-Match tem prioridade; senão, o campo "versao" do JSON (se veio).
+        Long versaoEsperada = ifMatch != null ? versaoDoEtag(id, ifMatch) : alteracoes.getVersao();
+        if (versaoEsperada == null && campos.contains("quantidadeEstoque")) {
+            return versaoObrigatoria();
+        }
+
+        try {
+            // Patch vazio ({}): nada a alterar, devolve o produto como está
+            Produto atualizado = campos.isEmpty()
+                    ? produtoService.buscarPorId(id)
+                    : produtoService.atualizarParcial(id, alteracoes, campos, versaoEsperada);
+            return ResponseEntity.ok()
+                    .eTag(ProdutoCache.etag(atualizado))
+                    .body(atualizado);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            HttpStatus status = ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+            return erro(status, "Versão", "O produto foi alterado por outra operação. Recarregue e tente de novo.");
+        }
+    }
+
+    /* ========== RESERVAR / LIBERAR ESTOQUE (CHECKOUT) ========== */
+
+    /**
+     * Endpoint: POST /api/produtos/{id}/estoque/reservar   corpo: { "quantidade": n }
+     * Função: dar baixa de n unidades no estoque, só se houver n disponíveis.
+     *
+     * A baixa é um único UPDATE condicional no banco, então muitos checkouts
+     * ao mesmo tempo no mesmo produto nunca vendem além do estoque.
+     *
+     * Respostas: 200 com o produto atualizado, 404 se não existir,
+     * 409 se não houver estoque suficiente (nada é alterado).
+     */
+    @PostMapping("/{id}/estoque/reservar")
+    public ResponseEntity<?> reservarEstoque(@PathVariable Long id,
+                                             @Valid @RequestBody MovimentacaoEstoque movimentacao,
+                                             BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return tratarErrosValidacao(bindingResult);
+        }
+        try {
+            Produto produto = produtoService.reservarEstoque(id, movimentacao.quantidade());
+            return ResponseEntity.ok().eTag(ProdutoCache.etag(produto)).body(produto);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return erro(HttpStatus.CONFLICT, "Estoque", e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint: POST /api/produtos/{id}/estoque/liberar   corpo: { "quantidade": n }
+     * Função: devolver ao estoque n unidades reservadas antes
+     * (pedido cancelado, carrinho abandonado...).
+     */
+    @PostMapping("/{id}/estoque/liberar")
+    public ResponseEntity<?> liberarEstoque(@PathVariable Long id,
+                                            @Valid @RequestBody MovimentacaoEstoque movimentacao,
+                                            BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return tratarErrosValidacao(bindingResult);
+        }
+        try {
+            Produto produto = produtoService.liberarEstoque(id, movimentacao.quantidade());
+            return ResponseEntity.ok().eTag(ProdutoCache.etag(produto)).body(produto);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
         }
     }
 
@@ -153,17 +841,14 @@ public class ProdutoController {
      */
     @DeleteMapping("/{id}") // Quando chega um DELETE em /api/produtos/algumId, este método é chamado
     public ResponseEntity<Void> excluir(@PathVariable Long id) {
-        // Antes de tentar excluir, verificamos se esse produto existe no banco.
-        // O service chama produtoRepository.existsById(id) para fazer essa checagem.
-        if (!produtoService.existePorId(id)) {
-            // Se não existir, já respondemos 404 (Not Found) e não tentamos excluir nada.
+        try {
+            // O service executa um único DELETE pelo ID (sem consultar antes se existe).
+            produtoService.excluir(id);
+        } catch (EntityNotFoundException e) {
+            // Nenhuma linha excluída: o produto não existe → 404 (Not Found).
             return ResponseEntity.notFound().build();
         }
 
-        // Se existe, chamamos o service para excluir.
-        // Dentro do service, será chamado produtoRepository.deleteById(id).
-        produtoService.excluir(id);
-
         // Se deu tudo certo, devolvemos HTTP 204 (No Content).
         // 204 indica que a operação foi bem-sucedida, mas não temos conteúdo no corpo da resposta.
         return ResponseEntity.noContent().build();
@@ -204,6 +889,183 @@ public class ProdutoController {
         return ResponseEntity.badRequest().body(body);
     }
 
+    /**
+     * Confere se o cabeçalho If-None-Match contém o ETag atual.
+     * Aceita lista separada por vírgula, "*" e ETags fracos (W/"...").
+     */
+    private boolean etagConfere(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //   ===   FORMATOS DO GET /{id} (ver FormatosBinariosConfig)   ===
+    //
+    // Na ordem dos conversores: com Accept: */* (ou sem Accept) sai JSON.
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    private static final List<MediaType> FORMATOS_PRODUTO =
+            List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE);
+
+    /**
+     * O formato do corpo para este Accept, escolhido como o Spring MVC escolhe:
+     * o tipo aceito mais específico (e de maior q) que algum formato atende.
+     * null se nenhum atende (o Spring responde 406).
+     */
+    private static MediaType formatoNegociado(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> aceitos;
+        try {
+            aceitos = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MimeTypeUtils.sortBySpecificity(aceitos);
+        for (MediaType aceito : aceitos) {
+            if (aceito.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType formato : FORMATOS_PRODUTO) {
+                if (aceito.includes(formato)) {
+                    return formato;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * ETag de um formato: o do JSON fica como está ("5-3"); CBOR e Smile
+     * ganham o subtipo ("5-3+cbor", "5-3+x-jackson-smile").
+     */
+    private static String etagNoFormato(String etag, MediaType formato) {
+        if (formato == null || formato.equals(MediaType.APPLICATION_JSON)) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "+" + formato.getSubtype() + "\"";
+    }
+
+    /**
+     * Accept-Encoding inclui gzip (sem ";q=0")?
+     */
+    private boolean aceitaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String candidato : acceptEncoding.split(",")) {
+            String[] partes = candidato.trim().split(";");
+            if (partes[0].trim().equalsIgnoreCase("gzip")) {
+                return partes.length < 2 || !partes[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copia um ByteBuffer (ListagemPronta) para a resposta. No Tomcat, o
+     * buffer fora do heap vai direto para o buffer de saída, sem passar por
+     * um byte[]; em outro container (ou nos testes), por um canal comum.
+     */
+    private static void escrever(ByteBuffer corpo, OutputStream saida) throws IOException {
+        ByteBuffer leitura = corpo.duplicate();
+        if (saida instanceof CoyoteOutputStream tomcat) {
+            tomcat.write(leitura);
+        } else {
+            WritableByteChannel canal = Channels.newChannel(saida);
+            while (leitura.hasRemaining()) {
+                canal.write(leitura);
+            }
+        }
+    }
+
+    /**
+     * Lê a versão de um ETag no formato "id-versao" (o mesmo gerado no GET;
+     * o de CBOR/Smile vem com "+formato" no fim, que não muda a versão).
+     * "*" vale qualquer versão (null). ETag de outro produto ou em outro formato
+     * devolve -1, que nunca confere → o PUT responde 412.
+     */
+    private Long versaoDoEtag(Long id, String ifMatch) {
+        String valor = ifMatch.trim();
+        if (valor.equals("*")) {
+            return null;
+        }
+        if (valor.startsWith("W/")) {
+            valor = valor.substring(2);
+        }
+        String prefixo = "\"" + id + "-";
+        if (valor.startsWith(prefixo) && valor.endsWith("\"")) {
+            String versao = valor.substring(prefixo.length(), valor.length() - 1);
+            int formato = versao.indexOf('+');
+            try {
+                return Long.parseLong(formato < 0 ? versao : versao.substring(0, formato));
+            } catch (NumberFormatException e) {
+                return -1L;
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * Resposta 304 (Not Modified): sem corpo, só com o ETag.
+     */
+    private <T> ResponseEntity<T> naoModificado(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+
+    /**
+     * Captura IllegalArgumentException lançada pelos endpoints deste Controller
+     * que não conseguem devolver o erro diretamente (ex: exportação em streaming)
+     * e responde 400 no formato padrão de erros.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> tratarParametroInvalido(IllegalArgumentException e) {
+        return erroParametro("Parâmetro", e.getMessage());
+    }
+
+    /**
+     * Monta um 400 (Bad Request) para parâmetros de URL inválidos,
+     * no mesmo formato usado por tratarErrosValidacao: { "erros": { campo: mensagem } }.
+     */
+    private ResponseEntity<Map<String, Object>> erroParametro(String campo, String mensagem) {
+        return erro(HttpStatus.BAD_REQUEST, campo, mensagem);
+    }
+
+    /**
+     * 428 (Precondition Required): PUT/PATCH que troca o estoque sem dizer qual
+     * versão leu sobrescreveria qualquer reserva feita depois da leitura.
+     */
+    private ResponseEntity<Map<String, Object>> versaoObrigatoria() {
+        return erro(HttpStatus.PRECONDITION_REQUIRED, "Versão",
+                "Envie o ETag lido no If-Match (ou \"versao\" no corpo) para alterar o estoque.");
+    }
+
+    /**
+     * Mesmo formato { "erros": { campo: mensagem } }, com outro status
+     * (409 para estoque insuficiente, 409/412 para conflito de versão, 428 sem versão).
+     */
+    private ResponseEntity<Map<String, Object>> erro(HttpStatus status, String campo, String mensagem) {
+        Map<String, String> erros = new LinkedHashMap<>();
+        erros.put(campo, mensagem);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("erros", erros);
+        return ResponseEntity.status(status).body(body);
+    }
+
     /**
      * Traduz o nome do atributo da entidade (nome, descricao, preco...)
      * para um rótulo mais amigável, igual ao que aparece nos labels da tela.
@@ -215,8 +1077,9 @@ public class ProdutoController {
             case "nome" -> "Nome";
             case "descricao" -> "Descrição";
             case "preco" -> "Preço";
-            case "quantidadeEstoque" -> "Quantidade";
+            case "quantidadeEstoque", "quantidade" -> "Quantidade";
             case "fabricante" -> "Fabricante";
+            case "json" -> "JSON";
             // Se o campo não estiver mapeado, devolvemos o próprio nome técnico como fallback.
             default -> field;
         };
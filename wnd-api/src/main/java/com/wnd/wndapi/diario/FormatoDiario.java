@@ -0,0 +1,181 @@
+package com.wnd.wndapi.diario;
+
+import com.wnd.wndapi.model.Produto;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Formato binário dos arquivos do diário e dos snapshots.
+ *
+ * Cada registro:
+ *
+ *   [int tamanho do corpo][int CRC32C do corpo][corpo]
+ *
+ *   corpo = [byte tipo][long id][long versão] + (só no GRAVADO)
+ *           [texto nome][texto descrição][texto fabricante]
+ *           [int escala do preço][short + bytes do preço sem escala][int estoque]
+ *
+ *   texto = [int quantidade de bytes UTF-8 (-1 = null)][bytes]
+ *
+ * O GRAVADO leva o produto inteiro (não só o que mudou): reaplicar um registro
+ * sempre deixa o produto igual ao que foi gravado, então a restauração não
+ * depende do que veio antes dele.
+ *
+ * Um registro cortado no meio (queda durante a escrita) ou com CRC errado
+ * é lido como "fim do arquivo".
+ */
+final class FormatoDiario {
+
+    // Cabeçalho dos arquivos: [int mágico][int versão do formato][long número do segmento]
+    static final int MAGICO_SEGMENTO = 0x574E4444;   // "WNDD"
+    static final int MAGICO_SNAPSHOT = 0x574E4453;   // "WNDS"
+    static final int VERSAO_FORMATO = 1;
+    static final int TAMANHO_CABECALHO = 16;
+
+    static final byte TIPO_GRAVADO = 1;
+    static final byte TIPO_EXCLUIDO = 2;
+
+    private static final int TAMANHO_MOLDURA = 8;
+
+    private FormatoDiario() {
+    }
+
+    /** Um registro lido do diário ou do snapshot (produto é null na exclusão). */
+    record Registro(byte tipo, long id, long versao, Produto produto) {
+    }
+
+
+    //   ===   ESCRITA   ===
+
+    static ByteBuffer cabecalho(int magico, long segmento) {
+        return ByteBuffer.allocate(TAMANHO_CABECALHO)
+                .putInt(magico).putInt(VERSAO_FORMATO).putLong(segmento)
+                .flip();
+    }
+
+    static byte[] gravado(Produto produto) {
+        byte[] nome = utf8(produto.getNome());
+        byte[] descricao = utf8(produto.getDescricao());
+        byte[] fabricante = utf8(produto.getFabricante());
+        byte[] preco = produto.getPreco() == null ? new byte[0] : produto.getPreco().unscaledValue().toByteArray();
+
+        int tamanho = 1 + 8 + 8
+                + 4 + tamanho(nome) + 4 + tamanho(descricao) + 4 + tamanho(fabricante)
+                + 4 + 2 + preco.length + 4;
+        ByteBuffer corpo = ByteBuffer.allocate(TAMANHO_MOLDURA + tamanho).position(TAMANHO_MOLDURA);
+        corpo.put(TIPO_GRAVADO).putLong(produto.getId()).putLong(versao(produto.getVersao()));
+        texto(corpo, nome);
+        texto(corpo, descricao);
+        texto(corpo, fabricante);
+        corpo.putInt(produto.getPreco() == null ? 0 : produto.getPreco().scale())
+                .putShort((short) preco.length).put(preco);
+        corpo.putInt(produto.getQuantidadeEstoque() == null ? 0 : produto.getQuantidadeEstoque());
+        return moldura(corpo, tamanho);
+    }
+
+    static byte[] excluido(long id, Long versao) {
+        int tamanho = 1 + 8 + 8;
+        ByteBuffer corpo = ByteBuffer.allocate(TAMANHO_MOLDURA + tamanho).position(TAMANHO_MOLDURA);
+        corpo.put(TIPO_EXCLUIDO).putLong(id).putLong(versao(versao));
+        return moldura(corpo, tamanho);
+    }
+
+    // Preenche [tamanho][CRC] na frente do corpo
+    private static byte[] moldura(ByteBuffer registro, int tamanho) {
+        CRC32C crc = new CRC32C();
+        crc.update(registro.array(), TAMANHO_MOLDURA, tamanho);
+        registro.putInt(0, tamanho).putInt(4, (int) crc.getValue());
+        return registro.array();
+    }
+
+    // Exclusão sem versão conhecida: vale mais que qualquer gravação do mesmo ID
+    private static long versao(Long versao) {
+        return versao == null ? Long.MAX_VALUE : versao;
+    }
+
+    private static byte[] utf8(String texto) {
+        return texto == null ? null : texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int tamanho(byte[] texto) {
+        return texto == null ? 0 : texto.length;
+    }
+
+    private static void texto(ByteBuffer destino, byte[] texto) {
+        if (texto == null) {
+            destino.putInt(-1);
+        } else {
+            destino.putInt(texto.length).put(texto);
+        }
+    }
+
+
+    //   ===   LEITURA   ===
+
+    // Confere o cabeçalho e devolve o número do segmento gravado nele.
+    static long lerCabecalho(ByteBuffer origem, int magicoEsperado) {
+        if (origem.remaining() < TAMANHO_CABECALHO
+                || origem.getInt() != magicoEsperado
+                || origem.getInt() != VERSAO_FORMATO) {
+            throw new IllegalStateException("Cabeçalho inválido no arquivo do diário.");
+        }
+        return origem.getLong();
+    }
+
+    // Lê o próximo registro a partir da posição atual.
+    // Devolve null (sem sair do lugar) se o registro estiver incompleto ou corrompido.
+    static Registro ler(ByteBuffer origem) {
+        int inicio = origem.position();
+        if (origem.remaining() < TAMANHO_MOLDURA) {
+            return null;
+        }
+        int tamanho = origem.getInt();
+        int crcGravado = origem.getInt();
+        if (tamanho <= 0 || tamanho > origem.remaining()) {
+            origem.position(inicio);
+            return null;
+        }
+        ByteBuffer corpo = origem.slice(origem.position(), tamanho);
+        CRC32C crc = new CRC32C();
+        crc.update(corpo.duplicate());
+        if ((int) crc.getValue() != crcGravado) {
+            origem.position(inicio);
+            return null;
+        }
+        origem.position(origem.position() + tamanho);
+
+        byte tipo = corpo.get();
+        long id = corpo.getLong();
+        long versao = corpo.getLong();
+        if (tipo == TIPO_EXCLUIDO) {
+            return new Registro(tipo, id, versao, null);
+        }
+
+        Produto produto = new Produto();
+        produto.setId(id);
+        produto.setVersao(versao);
+        produto.setNome(texto(corpo));
+        produto.setDescricao(texto(corpo));
+        produto.setFabricante(texto(corpo));
+        int escala = corpo.getInt();
+        byte[] preco = new byte[corpo.getShort()];
+        corpo.get(preco);
+        produto.setPreco(preco.length == 0 ? null : new BigDecimal(new BigInteger(preco), escala));
+        produto.setQuantidadeEstoque(corpo.getInt());
+        return new Registro(tipo, id, versao, produto);
+    }
+
+    private static String texto(ByteBuffer origem) {
+        int tamanho = origem.getInt();
+        if (tamanho < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[tamanho];
+        origem.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,287 @@
+package com.wnd.wndapi.diario;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Escreve os registros no segmento atual do diário, numa thread só.
+ *
+ * Quem altera o catálogo só coloca o registro (já codificado) na fila e segue.
+ * A thread gravadora pega TUDO o que estiver na fila, escreve de uma vez
+ * (FileChannel, escrita "gathering") e faz um único force() para o lote:
+ * enquanto um force() está em andamento, os registros seguintes se acumulam
+ * e vão juntos no próximo (group commit). Além disso, depois do primeiro
+ * registro de um lote a thread espera janelaNanos (wnd.diario.janela-gravacao-ms)
+ * para juntar mais: com muita escrita ao mesmo tempo (ex: importação em massa),
+ * o custo do fsync é dividido entre milhares de registros.
+ *
+ * A fila é limitada: se o disco não acompanhar, quem publica o evento espera.
+ *
+ * Se uma escrita falhar (disco cheio, erro de E/S, ou qualquer exceção), o
+ * diário fica PARADO: nada mais é escrito (um buraco no meio do diário
+ * restauraria um catálogo errado sem ninguém perceber), a falha aparece no
+ * health (ver DiarioProdutos) e os registros seguintes são contados como
+ * perdidos. A thread continua esvaziando a fila — quem altera o catálogo
+ * nunca fica preso — e o encerrar() continua funcionando.
+ *
+ * Quando o segmento passa de tamanhoMaximoSegmento (ou num snapshot), fecha o
+ * arquivo e abre o próximo: diario-0000000000000001.log, ...02.log etc.
+ */
+final class GravadorDiario {
+
+    private static final Logger log = LoggerFactory.getLogger(GravadorDiario.class);
+
+    private static final int CAPACIDADE_FILA = 65_536;
+    private static final int MAXIMO_POR_LOTE = 8_192;
+
+    // Pedidos de controle que passam pela mesma fila (mantêm a ordem com os registros)
+    private record Rotacao(CompletableFuture<Long> novoSegmento) {
+    }
+
+    private record Fim() {
+    }
+
+    // Como o arquivo de cada segmento é aberto (os testes trocam por um canal que falha)
+    @FunctionalInterface
+    interface AbridorCanal {
+        FileChannel abrir(Path arquivo) throws IOException;
+    }
+
+    private static final AbridorCanal ABRIR_NO_FIM = arquivo -> FileChannel.open(arquivo,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+    private final Path diretorio;
+    private final long tamanhoMaximoSegmento;
+    private final long janelaNanos;
+    private final AbridorCanal abridor;
+    private final BlockingQueue<Object> fila = new ArrayBlockingQueue<>(CAPACIDADE_FILA);
+    private final Thread thread;
+
+    // Só a thread gravadora mexe nestes três
+    private FileChannel canal;
+    private long segmento;
+    private long tamanhoSegmento;
+
+    private final AtomicLong registrosRecebidos = new AtomicLong();
+    private final AtomicLong registrosGravados = new AtomicLong();
+    private final AtomicLong sincronizacoes = new AtomicLong();
+
+    // Primeira falha de escrita (null = gravando normalmente)
+    private volatile Exception falha;
+
+    // Continua escrevendo no fim do segmento indicado (criando o arquivo se não existir)
+    GravadorDiario(Path diretorio, long segmento, long tamanhoMaximoSegmento, long janelaNanos) throws IOException {
+        this(diretorio, segmento, tamanhoMaximoSegmento, janelaNanos, ABRIR_NO_FIM);
+    }
+
+    GravadorDiario(Path diretorio, long segmento, long tamanhoMaximoSegmento, long janelaNanos,
+                   AbridorCanal abridor) throws IOException {
+        this.diretorio = diretorio;
+        this.tamanhoMaximoSegmento = tamanhoMaximoSegmento;
+        this.janelaNanos = janelaNanos;
+        this.abridor = abridor;
+        abrir(segmento);
+        this.thread = Thread.ofPlatform().name("diario-gravador").unstarted(this::gravar);
+        this.thread.start();
+    }
+
+    static Path arquivoSegmento(Path diretorio, long segmento) {
+        return diretorio.resolve(String.format("diario-%016d.log", segmento));
+    }
+
+
+    //   ===   CHAMADO POR QUEM ALTERA O CATÁLOGO   ===
+
+    // Com o diário parado, o registro nem entra na fila: já conta como perdido.
+    void enfileirar(byte[] registro) {
+        if (falha != null) {
+            registrosRecebidos.incrementAndGet();
+            return;
+        }
+        colocar(registro);
+    }
+
+    // Fecha o segmento atual e abre o próximo. Completa com o número do novo
+    // segmento quando tudo o que foi enfileirado antes já está no segmento antigo.
+    CompletableFuture<Long> rotacionar() {
+        CompletableFuture<Long> novo = new CompletableFuture<>();
+        colocar(new Rotacao(novo));
+        return novo;
+    }
+
+    // Grava o que falta, fecha o arquivo e para a thread.
+    void encerrar() throws InterruptedException {
+        colocar(new Fim());
+        thread.join();
+    }
+
+    long registrosGravados() {
+        return registrosGravados.get();
+    }
+
+    long sincronizacoes() {
+        return sincronizacoes.get();
+    }
+
+    // A falha que parou o diário, ou null se ele está gravando
+    Exception falha() {
+        return falha;
+    }
+
+    // Registros que não chegaram (nem vão chegar) ao disco por causa da falha
+    long registrosPerdidos() {
+        return falha == null ? 0 : registrosRecebidos.get() - registrosGravados.get();
+    }
+
+    private void colocar(Object item) {
+        try {
+            fila.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido ao gravar no diário", e);
+        }
+    }
+
+
+    //   ===   THREAD GRAVADORA   ===
+
+    private void gravar() {
+        List<Object> lote = new ArrayList<>(MAXIMO_POR_LOTE);
+        List<ByteBuffer> pendentes = new ArrayList<>(MAXIMO_POR_LOTE);
+        while (true) {
+            try {
+                lote.add(fila.take());
+            } catch (InterruptedException e) {
+                // Só o Fim encerra: a interrupção não pode perder registros
+                continue;
+            }
+            if (falha == null && janelaNanos > 0 && fila.size() < MAXIMO_POR_LOTE) {
+                LockSupport.parkNanos(janelaNanos);
+            }
+            fila.drainTo(lote, MAXIMO_POR_LOTE - 1);
+            for (Object item : lote) {
+                if (item instanceof byte[]) {
+                    registrosRecebidos.incrementAndGet();
+                }
+            }
+
+            if (falha == null) {
+                try {
+                    if (escreverLote(lote, pendentes)) {
+                        return;
+                    }
+                    lote.clear();
+                    continue;
+                } catch (IOException | RuntimeException e) {
+                    // Não há como devolver o erro a quem já seguiu em frente:
+                    // o diário para e a falha fica visível no health.
+                    log.error("Falha ao gravar {} registros no diário ({}); o diário parou de gravar",
+                            pendentes.size(), arquivoSegmento(diretorio, segmento), e);
+                    falha = e;
+                    pendentes.clear();
+                }
+            }
+
+            // Diário parado: só esvazia a fila (perdidos = recebidos - gravados)
+            boolean fim = false;
+            for (Object item : lote) {
+                if (item instanceof Rotacao rotacao) {
+                    rotacao.novoSegmento().completeExceptionally(new CompletionException(
+                            "Diário parado por falha de gravação", falha));
+                } else if (item instanceof Fim) {
+                    fim = true;
+                }
+            }
+            lote.clear();
+            if (fim) {
+                fecharDepoisDaFalha();
+                return;
+            }
+        }
+    }
+
+    // Escreve o lote (com as rotações e o Fim no meio dele, na ordem).
+    // Devolve true se o lote tinha o Fim (arquivo fechado, a thread termina).
+    private boolean escreverLote(List<Object> lote, List<ByteBuffer> pendentes) throws IOException {
+        for (Object item : lote) {
+            if (item instanceof byte[] registro) {
+                pendentes.add(ByteBuffer.wrap(registro));
+            } else if (item instanceof Rotacao rotacao) {
+                escrever(pendentes);
+                abrir(segmento + 1);
+                rotacao.novoSegmento().complete(segmento);
+            } else if (item instanceof Fim) {
+                escrever(pendentes);
+                canal.close();
+                return true;
+            }
+        }
+        escrever(pendentes);
+        if (tamanhoSegmento >= tamanhoMaximoSegmento) {
+            abrir(segmento + 1);
+        }
+        return false;
+    }
+
+    private void fecharDepoisDaFalha() {
+        try {
+            canal.close();
+        } catch (IOException e) {
+            log.debug("Erro ao fechar o segmento do diário depois da falha", e);
+        }
+        log.error("Diário encerrado depois de uma falha de gravação: {} registros perdidos", registrosPerdidos());
+    }
+
+    // Uma escrita + um force() para o lote inteiro
+    private void escrever(List<ByteBuffer> pendentes) throws IOException {
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = pendentes.toArray(ByteBuffer[]::new);
+        long restante = 0;
+        for (ByteBuffer buffer : buffers) {
+            restante += buffer.remaining();
+        }
+        long escritos = restante;
+        while (restante > 0) {
+            restante -= canal.write(buffers);
+        }
+        canal.force(false);
+
+        tamanhoSegmento += escritos;
+        registrosGravados.addAndGet(buffers.length);
+        sincronizacoes.incrementAndGet();
+        pendentes.clear();
+    }
+
+    private void abrir(long numero) throws IOException {
+        if (canal != null) {
+            canal.force(true);
+            canal.close();
+        }
+        canal = abridor.abrir(arquivoSegmento(diretorio, numero));
+        if (canal.size() == 0) {
+            ByteBuffer cabecalho = FormatoDiario.cabecalho(FormatoDiario.MAGICO_SEGMENTO, numero);
+            while (cabecalho.hasRemaining()) {
+                canal.write(cabecalho);
+            }
+            canal.force(true);
+        }
+        segmento = numero;
+        tamanhoSegmento = canal.size();
+    }
+}
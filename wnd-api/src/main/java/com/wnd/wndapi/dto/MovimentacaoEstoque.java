@@ -0,0 +1,16 @@
+package com.wnd.wndapi.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Corpo do POST /api/produtos/{id}/estoque/reservar e /liberar.
+ *
+ *   { "quantidade": 2 }
+ */
+public record MovimentacaoEstoque(
+        @NotNull(message = "A quantidade é obrigatória.")
+        @Min(value = 1, message = "A quantidade deve ser maior que zero.")
+        Integer quantidade
+) {
+}
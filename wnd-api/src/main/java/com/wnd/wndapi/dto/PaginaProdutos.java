@@ -0,0 +1,14 @@
+package com.wnd.wndapi.dto;
+
+import java.util.List;
+
+/**
+ * Resposta do GET /api/produtos: uma página da listagem.
+ *
+ *  - itens: produtos desta página (no máximo "limit") — Produto completo ou,
+ *           com ?fields=, um mapa só com os campos pedidos
+ *  - proximoCursor: valor a mandar em ?after= para buscar a próxima página
+ *                   (null quando não há mais produtos)
+ */
+public record PaginaProdutos<T>(List<T> itens, String proximoCursor) {
+}
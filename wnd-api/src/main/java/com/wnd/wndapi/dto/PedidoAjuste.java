@@ -0,0 +1,40 @@
+package com.wnd.wndapi.dto;
+
+import com.wnd.wndapi.repository.FiltroProdutos;
+
+import java.math.BigDecimal;
+
+/**
+ * Pedido de ajuste em massa (POST /api/produtos/ajustes).
+ *
+ * Quais produtos: os mesmos filtros da listagem (fabricante, precoMin,
+ * precoMax, estoqueMax); sem filtro nenhum, o catálogo inteiro.
+ *
+ * O que muda (pelo menos um):
+ *  - precoPercentual: ex. 7 = +7%, -10 = -10% (arredondado em 2 casas)
+ *  - precoValor:      soma ao preço, ex. 5.00 ou -2.50 (não junto com precoPercentual)
+ *  - estoqueDelta:    soma ao estoque, ex. 100 ou -3
+ *
+ * Ex: +7% em todo produto do fabricante X
+ *   { "fabricante": "X", "precoPercentual": 7 }
+ */
+public record PedidoAjuste(String fabricante, BigDecimal precoMin, BigDecimal precoMax, Integer estoqueMax,
+                           BigDecimal precoPercentual, BigDecimal precoValor, Integer estoqueDelta) {
+
+    // Pedido sem ajuste ou com ajuste inválido → IllegalArgumentException (400)
+    public PedidoAjuste {
+        if (precoPercentual == null && precoValor == null && estoqueDelta == null) {
+            throw new IllegalArgumentException("Informe precoPercentual, precoValor ou estoqueDelta.");
+        }
+        if (precoPercentual != null && precoValor != null) {
+            throw new IllegalArgumentException("Use precoPercentual ou precoValor, não os dois.");
+        }
+        if (precoPercentual != null && precoPercentual.compareTo(BigDecimal.valueOf(-100)) <= 0) {
+            throw new IllegalArgumentException("precoPercentual deve ser maior que -100.");
+        }
+    }
+
+    public FiltroProdutos filtro() {
+        return new FiltroProdutos(fabricante, precoMin, precoMax, estoqueMax);
+    }
+}
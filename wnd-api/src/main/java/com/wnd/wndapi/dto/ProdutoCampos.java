@@ -0,0 +1,10 @@
+package com.wnd.wndapi.dto;
+
+import java.util.Map;
+
+/**
+ * Resultado do GET /api/produtos/{id}?fields=...: só os campos pedidos
+ * (na ordem do JSON do Produto) e o ETag da versão atual do produto.
+ */
+public record ProdutoCampos(Map<String, Object> valores, String etag) {
+}
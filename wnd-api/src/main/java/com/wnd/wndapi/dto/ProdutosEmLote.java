@@ -0,0 +1,15 @@
+package com.wnd.wndapi.dto;
+
+import com.wnd.wndapi.model.Produto;
+
+import java.util.List;
+
+/**
+ * Resposta do GET/POST /api/produtos/batch: vários produtos de uma vez.
+ *
+ *  - itens: os produtos encontrados, na ordem dos ids pedidos
+ *           (id repetido no pedido aparece uma vez só)
+ *  - naoEncontrados: ids pedidos que não existem, também na ordem do pedido
+ */
+public record ProdutosEmLote(List<Produto> itens, List<Long> naoEncontrados) {
+}
@@ -0,0 +1,16 @@
+package com.wnd.wndapi.dto;
+
+import com.wnd.wndapi.model.Produto;
+
+import java.util.List;
+
+/**
+ * Resposta do GET /api/produtos/search: uma página da busca textual.
+ *
+ *  - total: quantos produtos combinam com a consulta
+ *  - itens: produtos desta página, do mais relevante para o menos
+ *  - proximoOffset: valor a mandar em ?offset= para a próxima página
+ *                   (null quando não há mais resultados)
+ */
+public record ResultadoBusca(long total, List<Produto> itens, Integer proximoOffset) {
+}
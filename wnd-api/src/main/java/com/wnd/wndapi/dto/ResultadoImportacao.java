@@ -0,0 +1,35 @@
+package com.wnd.wndapi.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado da importação em massa (POST /api/produtos/importar).
+ *
+ *  - importados: quantos produtos foram gravados
+ *  - rejeitados: quantos itens tinham erro (validação ou JSON inválido)
+ *  - erros: detalhe por item (limitado por wnd.importacao.max-erros-reportados)
+ *  - interrompida: onde a leitura parou por JSON com sintaxe quebrada (null se
+ *    o arquivo foi lido até o fim). Tudo antes desse item já foi processado e
+ *    gravado: para continuar, reenvie só a partir dele, senão os produtos
+ *    importados seriam criados de novo (a importação sempre gera IDs novos).
+ */
+public record ResultadoImportacao(long importados, long rejeitados, List<ErroItem> erros, Interrupcao interrompida) {
+
+    /**
+     * Erros de um item da importação.
+     *
+     *  - item:  posição do item no arquivo (1 = primeiro objeto do array / do NDJSON)
+     *  - linha: linha do arquivo onde o item começa (num array JSON formatado,
+     *           vários itens por linha ou um item em várias linhas são comuns)
+     *  - erros: "nome do atributo" → "mensagem", igual às mensagens do @Valid
+     */
+    public record ErroItem(long item, int linha, Map<String, String> erros) {
+    }
+
+    /**
+     * Sintaxe inválida no item "item" (linha "linha"): a leitura parou ali.
+     */
+    public record Interrupcao(long item, int linha, String mensagem) {
+    }
+}
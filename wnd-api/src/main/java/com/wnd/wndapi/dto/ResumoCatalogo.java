@@ -0,0 +1,33 @@
+package com.wnd.wndapi.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Resposta do GET /api/produtos/agregados.
+ *
+ * Totais do catálogo inteiro, os mesmos totais por fabricante e a
+ * distribuição dos produtos por faixa de preço. "valorInventario" é a soma
+ * de preço × quantidade em estoque.
+ *
+ * "ultimaReconciliacao" diz quando os números foram conferidos com o banco
+ * pela última vez (entre uma conferência e outra eles são mantidos em
+ * memória a cada cadastro/alteração/exclusão).
+ */
+public record ResumoCatalogo(
+        long totalProdutos,
+        long estoqueTotal,
+        BigDecimal valorInventario,
+        List<Fabricante> porFabricante,
+        List<FaixaPreco> faixasPreco,
+        Instant ultimaReconciliacao
+) {
+
+    public record Fabricante(String fabricante, long produtos, long estoque, BigDecimal valorInventario) {
+    }
+
+    // "ate" é null na última faixa (sem limite superior). O "ate" não entra na faixa.
+    public record FaixaPreco(BigDecimal de, BigDecimal ate, long produtos) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.wnd.wndapi.dto;
+
+import java.time.Instant;
+
+/**
+ * Progresso de um ajuste em massa (GET /api/produtos/ajustes/{id}).
+ *
+ *  - estado:      AGUARDANDO, EXECUTANDO, CONCLUIDO, CANCELADO ou FALHOU
+ *  - total:       produtos que passavam no filtro quando o ajuste começou
+ *  - processados: produtos do filtro já percorridos
+ *  - alterados:   produtos ajustados (já gravados)
+ *  - ignorados:   produtos que ficariam com preço ou estoque inválido (não mudaram)
+ *  - erro:        motivo da falha (só em FALHOU)
+ *
+ * Cancelado ou com falha, o que já foi gravado fica gravado: cada lote é uma
+ * transação própria.
+ */
+public record SituacaoAjuste(long id, Estado estado, long total, long processados, long alterados,
+                             long ignorados, String erro, Instant criadoEm, Instant iniciadoEm,
+                             Instant concluidoEm) {
+
+    public enum Estado {
+        AGUARDANDO,
+        EXECUTANDO,
+        CONCLUIDO,
+        CANCELADO,
+        FALHOU
+    }
+}
@@ -0,0 +1,38 @@
+package com.wnd.wndapi.evento;
+
+import com.wnd.wndapi.model.Produto;
+
+/**
+ * Evento publicado pelo ProdutoService sempre que um produto é criado,
+ * alterado ou excluído.
+ *
+ * Quem precisa acompanhar o catálogo em memória (índice de busca etc.)
+ * escuta este evento com @TransactionalEventListener, em vez de o
+ * ProdutoService chamar cada um diretamente.
+ *
+ *  - anterior: cópia do produto antes da mudança (null na criação e
+ *              quando o valor antigo não foi lido)
+ *  - atual:    cópia do produto depois da mudança (null na exclusão)
+ */
+public record ProdutoAlteradoEvento(Tipo tipo, Long id, Produto anterior, Produto atual) {
+
+    public enum Tipo {
+        CRIADO,
+        ATUALIZADO,
+        EXCLUIDO
+    }
+
+    public static ProdutoAlteradoEvento criado(Produto atual) {
+        return new ProdutoAlteradoEvento(Tipo.CRIADO, atual.getId(), null, atual.copiar());
+    }
+
+    public static ProdutoAlteradoEvento atualizado(Produto anterior, Produto atual) {
+        return new ProdutoAlteradoEvento(Tipo.ATUALIZADO, atual.getId(),
+                anterior == null ? null : anterior.copiar(), atual.copiar());
+    }
+
+    public static ProdutoAlteradoEvento excluido(Long id, Produto anterior) {
+        return new ProdutoAlteradoEvento(Tipo.EXCLUIDO, id,
+                anterior == null ? null : anterior.copiar(), null);
+    }
+}
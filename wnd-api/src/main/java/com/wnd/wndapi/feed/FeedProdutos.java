@@ -0,0 +1,235 @@
+package com.wnd.wndapi.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wnd.wndapi.evento.ProdutoAlteradoEvento;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feed de alterações do catálogo em Server-Sent Events (GET /api/produtos/stream).
+ *
+ * Cada criação/alteração/exclusão (ProdutoAlteradoEvento, depois do commit)
+ * vira um evento "produto" para todas as abas abertas da listagem, que
+ * atualizam só o card daquele produto em vez de buscar a lista de novo.
+ *
+ * Um cliente lento não pode segurar os outros nem fazer a memória crescer:
+ *  - o evento é convertido para JSON uma vez só, não uma vez por cliente; a
+ *    fila guarda esse texto pronto (Mensagem, imutável) e cada assinante monta
+ *    o seu próprio SseEventBuilder na hora de enviar (o builder do Spring muda
+ *    a cada build(), então não pode ser dividido entre threads)
+ *  - cada assinante tem uma fila própria e limitada (wnd.feed.tamanho-fila);
+ *    quem publica só tenta colocar na fila, nunca espera
+ *  - a escrita na conexão é feita por uma thread virtual do próprio assinante,
+ *    então uma conexão travada só trava a thread dela
+ *  - fila cheia = cliente não está acompanhando: a conexão é encerrada e o
+ *    assinante sai do feed. O EventSource do navegador reconecta sozinho e a
+ *    página recarrega a lista (perdeu eventos, não dá para confiar no que tem)
+ *
+ * Um "ping" periódico (wnd.feed.ping-ms) também passa pela fila: é ele que
+ * descobre conexões mortas mesmo sem alterações no catálogo.
+ */
+@Component
+public class FeedProdutos {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedProdutos.class);
+
+    // Marca de "encerrar" na fila de um assinante
+    private static final Mensagem FIM = new Mensagem(null, null, null, null, null);
+
+    private final ObjectMapper objectMapper;
+    private final int tamanhoFila;
+    private final int maximoAssinantes;
+    private final long tempoMaximoConexaoMs;
+
+    private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final Counter descartados;
+
+    public FeedProdutos(ObjectMapper objectMapper,
+                        MeterRegistry registry,
+                        @Value("${wnd.feed.tamanho-fila:256}") int tamanhoFila,
+                        @Value("${wnd.feed.maximo-assinantes:1000}") int maximoAssinantes,
+                        @Value("${wnd.feed.tempo-maximo-conexao-ms:1800000}") long tempoMaximoConexaoMs) {
+        this.objectMapper = objectMapper;
+        this.tamanhoFila = tamanhoFila;
+        this.maximoAssinantes = maximoAssinantes;
+        this.tempoMaximoConexaoMs = tempoMaximoConexaoMs;
+
+        Gauge.builder("wnd.feed.assinantes", assinantes, Set::size)
+                .description("Conexões abertas em GET /api/produtos/stream")
+                .register(registry);
+        this.descartados = Counter.builder("wnd.feed.descartados")
+                .description("Assinantes desconectados por não acompanharem o feed (fila cheia)")
+                .register(registry);
+    }
+
+
+    //   ===   NOVO ASSINANTE (chamado pelo Controller)   ===
+    //
+    // Devolve null quando já há assinantes demais (o Controller responde 503).
+    public SseEmitter assinar() {
+        if (assinantes.size() >= maximoAssinantes) {
+            return null;
+        }
+        // Depois do tempo máximo o Spring encerra a conexão e o navegador reconecta
+        SseEmitter emitter = new SseEmitter(tempoMaximoConexaoMs);
+        Assinante assinante = new Assinante(emitter, new ArrayBlockingQueue<>(tamanhoFila));
+        assinantes.add(assinante);
+
+        emitter.onCompletion(() -> remover(assinante));
+        emitter.onTimeout(() -> remover(assinante));
+        emitter.onError(erro -> remover(assinante));
+
+        // Primeiro evento: o cliente sabe que está conectado (e a partir de qual ponto)
+        assinante.fila().offer(new Mensagem(null, "conectado", String.valueOf(sequencia.get()), null, null));
+        Thread.ofVirtual().name("feed-sse").start(() -> enviar(assinante));
+        return emitter;
+    }
+
+
+    //   ===   ALTERAÇÃO NO CATÁLOGO → EVENTO PARA TODOS   ===
+    //
+    // Depois do commit (como o cache e o índice de busca). Nunca bloqueia:
+    // quem alterou o produto não espera por nenhum cliente.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvento evento) {
+        if (assinantes.isEmpty()) {
+            return;
+        }
+        Map<String, Object> dados = new LinkedHashMap<>();
+        dados.put("tipo", evento.tipo());
+        dados.put("id", evento.id());
+        dados.put("produto", evento.atual());
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(dados);
+        } catch (JsonProcessingException e) {
+            log.warn("Evento do produto {} não pôde ser convertido para JSON", evento.id(), e);
+            return;
+        }
+        publicar(new Mensagem(String.valueOf(sequencia.incrementAndGet()), "produto", json,
+                MediaType.APPLICATION_JSON, null));
+    }
+
+    // Comentário SSE (": ping"): o navegador ignora, mas a escrita falha se a conexão caiu
+    @Scheduled(fixedRateString = "${wnd.feed.ping-ms:20000}")
+    public void ping() {
+        publicar(new Mensagem(null, null, null, null, "ping"));
+    }
+
+    public int assinantes() {
+        return assinantes.size();
+    }
+
+    // Na parada da aplicação, encerra as conexões abertas.
+    //
+    // No ContextClosedEvent (e não no @PreDestroy): ele vem antes de o Tomcat
+    // parar. Com conexões SSE ainda abertas, a parada do Tomcat fica esperando
+    // por elas e a aplicação demora a sair.
+    @EventListener(ContextClosedEvent.class)
+    public void encerrar() throws InterruptedException {
+        for (Assinante assinante : assinantes) {
+            if (!assinante.fila().offer(FIM)) {
+                assinante.fila().clear();
+                assinante.fila().offer(FIM);
+            }
+        }
+        // Espera (pouco) as threads dos assinantes fecharem as conexões
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!assinantes.isEmpty() && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void publicar(Mensagem evento) {
+        for (Assinante assinante : assinantes) {
+            if (!assinante.fila().offer(evento)) {
+                // Fila cheia: o cliente ficou para trás. Esvazia a fila (libera a
+                // memória já) e manda encerrar; a thread dele fecha a conexão.
+                descartados.increment();
+                assinantes.remove(assinante);
+                assinante.fila().clear();
+                assinante.fila().offer(FIM);
+            }
+        }
+    }
+
+
+    //   ===   THREAD DE CADA ASSINANTE: FILA → CONEXÃO   ===
+
+    private void enviar(Assinante assinante) {
+        try {
+            while (true) {
+                Mensagem evento = assinante.fila().take();
+                if (evento == FIM) {
+                    assinante.emitter().complete();
+                    return;
+                }
+                assinante.emitter().send(evento.builder());
+            }
+        } catch (IOException | RuntimeException e) {
+            // Cliente desconectou, o Spring já encerrou a conexão ou qualquer
+            // outra falha na escrita: encerra, senão a conexão ficaria pendurada
+            // até o tempo máximo sem ninguém enviando nada
+            assinante.emitter().completeWithError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            remover(assinante);
+        }
+    }
+
+    private void remover(Assinante assinante) {
+        if (assinantes.remove(assinante)) {
+            // Acorda a thread dele, se estiver esperando na fila vazia
+            assinante.fila().offer(FIM);
+        }
+    }
+
+    private record Assinante(SseEmitter emitter, BlockingQueue<Mensagem> fila) {
+    }
+
+    // Um evento já pronto (campos null = ausentes). Imutável: a mesma instância
+    // vai para a fila de todos os assinantes.
+    private record Mensagem(String id, String nome, String dados, MediaType tipoDados, String comentario) {
+
+        SseEmitter.SseEventBuilder builder() {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event();
+            if (comentario != null) {
+                builder.comment(comentario);
+            }
+            if (id != null) {
+                builder.id(id);
+            }
+            if (nome != null) {
+                builder.name(nome);
+            }
+            if (dados != null) {
+                builder.data(dados, tipoDados);
+            }
+            return builder;
+        }
+    }
+}
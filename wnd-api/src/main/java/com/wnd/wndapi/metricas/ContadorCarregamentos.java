@@ -0,0 +1,39 @@
+package com.wnd.wndapi.metricas;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Conta as entidades montadas (hidratadas) pelo Hibernate na requisição atual.
+ *
+ * É um Integrator: na subida, registra um ouvinte de POST_LOAD, chamado uma
+ * vez para cada entidade carregada do banco.
+ */
+class ContadorCarregamentos implements Integrator, PostLoadEventListener {
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        sessionFactory.getServiceRegistry()
+                .requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        MetricasRequisicao metricas = MetricasRequisicao.atual();
+        if (metricas != null) {
+            metricas.entidadesCarregadas++;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.wnd.wndapi.metricas;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Ouvinte de sessão do Hibernate: cronometra cada comando JDBC e cada flush
+ * e soma nas métricas da requisição atual.
+ *
+ * O Hibernate cria uma instância por sessão (configurado em MetricasConfig
+ * via "hibernate.session.events.auto"), por isso o construtor sem argumentos.
+ */
+public class ContadorHibernate implements SessionEventListener {
+
+    private long inicioComando;
+    private long inicioFlush;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        inicioComando = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        somarComando();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        inicioComando = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        somarComando();
+    }
+
+    private void somarComando() {
+        MetricasRequisicao metricas = MetricasRequisicao.atual();
+        if (metricas != null) {
+            metricas.comandosSql++;
+            metricas.tempoSqlNanos += System.nanoTime() - inicioComando;
+        }
+    }
+
+    @Override
+    public void flushStart() {
+        inicioFlush = System.nanoTime();
+    }
+
+    @Override
+    public void flushEnd(int entidades, int colecoes) {
+        MetricasRequisicao metricas = MetricasRequisicao.atual();
+        if (metricas != null) {
+            metricas.flushes++;
+            metricas.tempoFlushNanos += System.nanoTime() - inicioFlush;
+        }
+    }
+}
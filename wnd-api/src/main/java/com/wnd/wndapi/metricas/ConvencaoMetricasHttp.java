@@ -0,0 +1,30 @@
+package com.wnd.wndapi.metricas;
+
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Acrescenta ao http.server.requests a tag "handler" com o método do
+ * Controller que atendeu (ex: "ProdutoController.listar").
+ *
+ * As tags padrão (uri, method, status...) continuam as mesmas; a nova tag
+ * deixa os percentis de latência separados por método do Controller.
+ */
+class ConvencaoMetricasHttp extends DefaultServerRequestObservationConvention {
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context).and("handler", handler(context));
+    }
+
+    private static String handler(ServerRequestObservationContext context) {
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod metodo) {
+            return metodo.getBeanType().getSimpleName() + "." + metodo.getMethod().getName();
+        }
+        return "nenhum";
+    }
+}
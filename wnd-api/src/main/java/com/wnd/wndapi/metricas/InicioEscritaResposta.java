@@ -0,0 +1,37 @@
+package com.wnd.wndapi.metricas;
+
+import com.wnd.wndapi.controller.ProdutoController;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Marca o instante em que o Spring vai começar a escrever o corpo da resposta
+ * (JSON). Daí até o fim da requisição é o tempo de serialização + envio,
+ * publicado como wnd.requisicao.json.tempo pelo MetricasRequisicaoFiltro.
+ *
+ * Não altera o corpo: devolve exatamente o que recebeu.
+ */
+@ControllerAdvice(assignableTypes = ProdutoController.class)
+class InicioEscritaResposta implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        MetricasRequisicao metricas = MetricasRequisicao.atual();
+        if (metricas != null) {
+            metricas.inicioEscritaNanos = System.nanoTime();
+        }
+        return body;
+    }
+}
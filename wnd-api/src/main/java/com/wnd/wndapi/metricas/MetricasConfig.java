@@ -0,0 +1,49 @@
+package com.wnd.wndapi.metricas;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+
+import java.util.List;
+
+/**
+ * Liga a instrumentação da API (tudo aparece em /actuator/metrics e /actuator/prometheus):
+ *
+ *  - http.server.requests com a tag "handler" (método do Controller)
+ *  - wnd.requisicao.* → SQL, entidades, flush e JSON de cada requisição
+ *  - os contadores do Hibernate que alimentam essas métricas
+ *
+ * Os timers do ProdutoService (@Timed), as estatísticas globais do Hibernate
+ * (hibernate.*) e o pool de conexões (hikaricp.*) vêm da configuração
+ * automática do Spring Boot (ver application.properties).
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    ServerRequestObservationConvention convencaoMetricasHttp() {
+        return new ConvencaoMetricasHttp();
+    }
+
+    @Bean
+    FilterRegistrationBean<MetricasRequisicaoFiltro> metricasRequisicaoFiltro(MeterRegistry registry) {
+        FilterRegistrationBean<MetricasRequisicaoFiltro> registro =
+                new FilterRegistrationBean<>(new MetricasRequisicaoFiltro(registry));
+        registro.addUrlPatterns("/api/*");
+        return registro;
+    }
+
+    // Registra no Hibernate os contadores de comandos/flush (por sessão) e de entidades carregadas
+    @Bean
+    HibernatePropertiesCustomizer contadoresHibernate() {
+        ContadorCarregamentos carregamentos = new ContadorCarregamentos();
+        return propriedades -> {
+            propriedades.put("hibernate.session.events.auto", ContadorHibernate.class.getName());
+            propriedades.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(carregamentos));
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.wnd.wndapi.metricas;
+
+/**
+ * O que o Hibernate fez durante UMA requisição HTTP: quantos comandos SQL,
+ * quanto tempo no JDBC, quantas entidades montadas e quanto tempo de flush —
+ * mais o momento em que o JSON da resposta começou a ser escrito.
+ *
+ * Fica numa ThreadLocal enquanto a requisição roda (ver MetricasRequisicaoFiltro):
+ * quem conta (ContadorHibernate, ContadorCarregamentos) só soma se houver
+ * uma requisição em andamento na thread. Trabalho em segundo plano
+ * (carga do índice, agregados...) não entra na conta.
+ */
+final class MetricasRequisicao {
+
+    private static final ThreadLocal<MetricasRequisicao> ATUAL = new ThreadLocal<>();
+
+    long comandosSql;
+    long tempoSqlNanos;
+    long entidadesCarregadas;
+    long flushes;
+    long tempoFlushNanos;
+    // System.nanoTime() de quando o Spring começou a escrever o corpo da resposta (0 = não escreveu)
+    long inicioEscritaNanos;
+
+    static MetricasRequisicao iniciar() {
+        MetricasRequisicao metricas = new MetricasRequisicao();
+        ATUAL.set(metricas);
+        return metricas;
+    }
+
+    static void encerrar() {
+        ATUAL.remove();
+    }
+
+    // null fora de uma requisição
+    static MetricasRequisicao atual() {
+        return ATUAL.get();
+    }
+}
@@ -0,0 +1,65 @@
+package com.wnd.wndapi.metricas;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Para cada requisição da API, publica o que aconteceu "por dentro":
+ *
+ *  - wnd.requisicao.sql.comandos          → quantos comandos SQL
+ *  - wnd.requisicao.sql.tempo             → tempo somado no JDBC
+ *  - wnd.requisicao.entidades.carregadas  → entidades montadas pelo Hibernate
+ *  - wnd.requisicao.flush.tempo           → tempo de flush do Hibernate
+ *  - wnd.requisicao.json.tempo            → do início da escrita do corpo até o fim
+ *
+ * Todos com as tags "uri" (padrão da rota, ex: /api/produtos/{id}) e "method",
+ * iguais às do http.server.requests, para cruzar: se GET /api/produtos está
+ * lento, dá para ver se o tempo foi no SQL, na montagem das entidades ou no JSON.
+ */
+class MetricasRequisicaoFiltro extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+
+    MetricasRequisicaoFiltro(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        MetricasRequisicao metricas = MetricasRequisicao.iniciar();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long fim = System.nanoTime();
+            MetricasRequisicao.encerrar();
+            publicar(request, metricas, fim);
+        }
+    }
+
+    private void publicar(HttpServletRequest request, MetricasRequisicao metricas, long fim) {
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("uri", padrao != null ? padrao.toString() : "NAO_MAPEADA",
+                "method", request.getMethod());
+
+        registry.summary("wnd.requisicao.sql.comandos", tags).record(metricas.comandosSql);
+        registry.timer("wnd.requisicao.sql.tempo", tags).record(metricas.tempoSqlNanos, TimeUnit.NANOSECONDS);
+        registry.summary("wnd.requisicao.entidades.carregadas", tags).record(metricas.entidadesCarregadas);
+        if (metricas.flushes > 0) {
+            registry.timer("wnd.requisicao.flush.tempo", tags).record(metricas.tempoFlushNanos, TimeUnit.NANOSECONDS);
+        }
+        if (metricas.inicioEscritaNanos > 0) {
+            registry.timer("wnd.requisicao.json.tempo", tags)
+                    .record(fim - metricas.inicioEscritaNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.wnd.wndapi.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Check;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 /**
  * Classe que representa a entidade Produto.
@@ -13,14 +15,27 @@ import java.math.BigDecimal;
  *  - a estrutura do JSON enviado/recebido pela API
  */
 @Entity
-@Table(name = "produtos")
+@Table(name = "produtos", indexes = {
+        // Índices compostos (coluna, id) usados pela paginação por cursor (keyset):
+        // a listagem ordenada por nome/preço/fabricante caminha direto no índice,
+        // sem precisar ordenar a tabela inteira a cada página.
+        @Index(name = "idx_produtos_nome_id", columnList = "nome, id"),
+        @Index(name = "idx_produtos_preco_id", columnList = "preco, id"),
+        @Index(name = "idx_produtos_fabricante_id", columnList = "fabricante, id"),
+        // Os mesmos índices atendem os filtros da listagem (?fabricante=, ?precoMin=/precoMax=);
+        // este é o do filtro ?estoqueMax= (a coluna nunca é ordenada, só filtrada).
+        @Index(name = "idx_produtos_estoque_id", columnList = "quantidade_estoque, id")
+})
 public class Produto {
 
     //   ===   CAMPO: ID (chave primária da tabela)   ===
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    // ID auto-incrementado pelo banco H2
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "produtos_seq")
+    @SequenceGenerator(name = "produtos_seq", sequenceName = "produtos_seq", allocationSize = 50)
+    // ID gerado por uma SEQUENCE do H2, reservada em blocos de 50 (otimizador "pooled").
+    // Com IDENTITY o Hibernate precisa executar cada INSERT na hora para descobrir o ID,
+    // o que desliga o JDBC batch; com a sequence ele já sabe os IDs e agrupa os INSERTs.
     private Long id;
 
 
@@ -50,8 +65,14 @@ public class Produto {
     //   ===   CAMPO: Quantidade em Estoque   ===
 
     @NotNull(message = "A quantidade é obrigatória.")
-    @Min(value = 1, message = "A quantidade deve ser maior que zero.")
-    // @Min(1) → atende a regra: "estoque deve ser maior que zero"
+    @Positive(message = "A quantidade deve ser maior que zero.")
+    // @Positive → atende a regra: "estoque deve ser maior que zero"
+    //             (vale para o que chega no cadastro/edição)
+    @Check(constraints = "quantidade_estoque >= 0")
+    // No banco a regra é ">= 0": as reservas do checkout podem vender até a
+    // última unidade (ver ProdutoRepository.reservarEstoque).
+    // Por isso @Positive e não @Min(1): o Hibernate transforma @Min em
+    // "check (quantidade_estoque >= 1)" na tabela, e a última unidade nunca sairia.
     private Integer quantidadeEstoque;
 
 
@@ -61,6 +82,14 @@ public class Produto {
     private String fabricante;
 
 
+    //   ===   CAMPO: Versão (controle de alterações)   ===
+
+    @Version
+    // Número que o Hibernate incrementa sozinho a cada UPDATE.
+    // Usado para montar o ETag do GET /api/produtos/{id}: mudou a versão, mudou o ETag.
+    private Long versao;
+
+
     //   ===   CONSTRUTOR PADRÃO (necessário para o JPA funcionar)   ===
 
     public Produto() {
@@ -68,6 +97,34 @@ public class Produto {
     }
 
 
+    //   ===   CÓPIA DO PRODUTO   ===
+    //
+    // Cria um novo objeto com os mesmos valores (fora do controle do Hibernate).
+    // Usado nos eventos de alteração, para quem escuta não ver mudanças posteriores.
+    public Produto copiar() {
+        Produto copia = new Produto();
+        copia.id = id;
+        copia.nome = nome;
+        copia.descricao = descricao;
+        copia.preco = preco;
+        copia.quantidadeEstoque = quantidadeEstoque;
+        copia.fabricante = fabricante;
+        copia.versao = versao;
+        return copia;
+    }
+
+
+    //   ===   PREÇO COMO O BANCO GUARDA   ===
+    //
+    // A coluna é numeric(38,2): 19.999 vira 20.00 no banco. Arredondar antes de
+    // gravar faz a resposta, o ETag e os eventos terem o mesmo preço que a linha.
+    public static final int ESCALA_PRECO = 2;
+
+    public static BigDecimal precoNaEscalaDoBanco(BigDecimal preco) {
+        return preco == null ? null : preco.setScale(ESCALA_PRECO, RoundingMode.HALF_UP);
+    }
+
+
     //   ===   GETTERS E SETTERS (acesso aos atributos)   ===
     // São usados pelo Spring, pelo JPA, pelo Jackson (conversão JSON),
     // e também pelo Service/Controller para manipular os dados.
@@ -137,4 +194,15 @@ public class Produto {
     public void setFabricante(String fabricante) {
         this.fabricante = fabricante;
     }
+
+
+    //   ===   GET/SET: Versão   ===
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
 }
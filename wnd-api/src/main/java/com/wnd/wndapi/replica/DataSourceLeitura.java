@@ -0,0 +1,37 @@
+package com.wnd.wndapi.replica;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * DataSource das transações somente-leitura (@Transactional(readOnly = true)).
+ *
+ * Cada conexão pedida vem de uma réplica escolhida pelo FluxoReplicacao, ou
+ * do primário quando nenhuma réplica serve. Quem decide se a transação é
+ * somente-leitura é o LazyConnectionDataSourceProxy (ver ReplicasConfig): ele
+ * só pede a conexão de verdade no primeiro comando SQL, quando já sabe.
+ */
+class DataSourceLeitura extends AbstractDataSource {
+
+    private final FluxoReplicacao fluxo;
+    private final DataSource primario;
+
+    DataSourceLeitura(FluxoReplicacao fluxo, DataSource primario) {
+        this.fluxo = fluxo;
+        this.primario = primario;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource replica = fluxo.escolher(LeituraConsistenteFiltro.posicaoMinima());
+        return (replica != null ? replica : primario).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String usuario, String senha) throws SQLException {
+        return getConnection();
+    }
+}
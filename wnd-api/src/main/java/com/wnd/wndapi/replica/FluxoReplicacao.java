@@ -0,0 +1,182 @@
+package com.wnd.wndapi.replica;
+
+import com.wnd.wndapi.evento.ProdutoAlteradoEvento;
+import com.wnd.wndapi.model.Produto;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fluxo de alterações do primário para as réplicas de leitura.
+ *
+ * Cada ProdutoAlteradoEvento (depois do commit no primário) recebe uma
+ * posição crescente e vai para a fila de todas as réplicas, que aplicam na
+ * mesma ordem (ver Replica).
+ *
+ * Também é quem escolhe a réplica de cada transação somente-leitura
+ * (ver DataSourceLeitura). Uma réplica só entra na escolha se:
+ *  - já terminou a cópia inicial do primário
+ *  - está no máximo wnd.replicas.atraso-maximo-ms atrás do primário
+ *  - já aplicou a última escrita do próprio cliente (ver LeituraConsistenteFiltro)
+ * Nenhuma réplica serve? A leitura vai para o primário.
+ *
+ * Métricas: wnd.replicas.leituras (tag "destino" = réplica ou primario),
+ * wnd.replicas.atraso e wnd.replicas.pendentes (gauges por réplica, em ReplicasConfig).
+ */
+public class FluxoReplicacao {
+
+    // Exclusões lembradas para descartar alterações atrasadas do mesmo produto
+    private static final int EXCLUSOES_LEMBRADAS = 10_000;
+
+    /**
+     * Uma alteração já com a posição no fluxo.
+     *  - instante: System.nanoTime() de quando chegou (base do atraso das réplicas)
+     *  - produto:  como ficou (null na exclusão)
+     */
+    record Alteracao(long posicao, long instante, long id, ProdutoAlteradoEvento.Tipo tipo, Produto produto) {
+    }
+
+    // Montada uma vez na configuração (ver ReplicasConfig), antes da subida
+    private final List<Replica> replicas = new ArrayList<>();
+    private final List<Counter> leiturasReplica = new ArrayList<>();
+    private final long atrasoMaximoNanos;
+    private final MeterRegistry registry;
+    private final HikariDataSource primario;
+
+    // Identifica esta subida: posições de antes de um restart não valem mais
+    private final long epoca = System.currentTimeMillis();
+
+    // Só muda dentro do synchronized de publicar(): as réplicas recebem na ordem das posições
+    private volatile long posicao;
+
+    // id → versão excluída (só as mais recentes). Dois commits do mesmo produto
+    // podem chegar aqui fora de ordem; uma alteração que chega depois da
+    // exclusão não pode recriar o produto nas réplicas.
+    private final Map<Long, Long> excluidos = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> maisAntigo) {
+            return size() > EXCLUSOES_LEMBRADAS;
+        }
+    };
+
+    private final AtomicInteger proxima = new AtomicInteger();
+    private final Counter leiturasPrimario;
+
+    FluxoReplicacao(HikariDataSource primario, long atrasoMaximoMs, MeterRegistry registry) {
+        this.primario = primario;
+        this.atrasoMaximoNanos = TimeUnit.MILLISECONDS.toNanos(atrasoMaximoMs);
+        this.registry = registry;
+        this.leiturasPrimario = contadorLeituras(registry, "primario");
+    }
+
+    void adicionar(Replica replica) {
+        replicas.add(replica);
+        leiturasReplica.add(contadorLeituras(registry, replica.nome()));
+    }
+
+    private static Counter contadorLeituras(MeterRegistry registry, String destino) {
+        return Counter.builder("wnd.replicas.leituras")
+                .description("Conexões de transações somente-leitura, por destino")
+                .tag("destino", destino)
+                .register(registry);
+    }
+
+
+    //   ===   SUBIDA: cópia inicial das réplicas   ===
+    //
+    // Depois da subida (o diário, se houver, já restaurou o primário).
+    // Até cada réplica terminar a cópia, as leituras vão para o primário.
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        replicas.forEach(Replica::iniciar);
+    }
+
+    // Destruído depois do DataSource da aplicação (e do Hibernate, que depende
+    // dele): o pool do primário pode fechar junto com as réplicas
+    void parar() {
+        replicas.forEach(Replica::parar);
+        primario.close();
+    }
+
+
+    //   ===   ALTERAÇÕES DO PRIMÁRIO → RÉPLICAS   ===
+    //
+    // Depois do commit: o que foi desfeito nunca chega às réplicas.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvento evento) {
+        long instante = System.nanoTime();
+        long publicada;
+        synchronized (this) {
+            if (!descartarAtrasada(evento)) {
+                Alteracao alteracao = new Alteracao(posicao + 1, instante, evento.id(), evento.tipo(),
+                        evento.atual());
+                for (Replica replica : replicas) {
+                    replica.receber(alteracao);
+                }
+                posicao = alteracao.posicao();
+            }
+            publicada = posicao;
+        }
+        // Se a escrita veio de uma requisição, as próximas leituras desse cliente
+        // só vão para réplicas que já tenham chegado até aqui
+        LeituraConsistenteFiltro.aposEscrita(epoca, publicada);
+    }
+
+    private boolean descartarAtrasada(ProdutoAlteradoEvento evento) {
+        if (evento.tipo() == ProdutoAlteradoEvento.Tipo.EXCLUIDO) {
+            long versao = evento.anterior() == null ? Long.MAX_VALUE : evento.anterior().getVersao();
+            excluidos.merge(evento.id(), versao, Math::max);
+            return false;
+        }
+        Long versaoExcluida = excluidos.get(evento.id());
+        return versaoExcluida != null && versaoExcluida >= evento.atual().getVersao();
+    }
+
+    long ultimaPosicao() {
+        return posicao;
+    }
+
+    DataSource primario() {
+        return primario;
+    }
+
+    long epoca() {
+        return epoca;
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+
+    //   ===   ESCOLHA DA RÉPLICA DE UMA LEITURA   ===
+    //
+    // Rodízio entre as réplicas que servem; null = usar o primário.
+    DataSource escolher(long posicaoMinima) {
+        long agora = System.nanoTime();
+        int inicio = Math.floorMod(proxima.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int indice = (inicio + i) % replicas.size();
+            Replica replica = replicas.get(indice);
+            if (replica.pronta()
+                    && replica.posicaoAplicada() >= posicaoMinima
+                    && replica.atrasoNanos(agora) <= atrasoMaximoNanos) {
+                leiturasReplica.get(indice).increment();
+                return replica.dataSource();
+            }
+        }
+        leiturasPrimario.increment();
+        return null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.wnd.wndapi.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * "Ler o que eu mesmo escrevi" com réplicas atrasadas.
+ *
+ * Depois de uma escrita, a resposta leva o cookie wnd-posicao com a posição
+ * dessa escrita no fluxo de replicação (ver FluxoReplicacao). Nas próximas
+ * requisições do mesmo cliente, as leituras só vão para réplicas que já
+ * aplicaram essa posição; se nenhuma chegou lá ainda, vão para o primário.
+ * Sem isso, salvar um produto e reabrir a lista logo em seguida podia
+ * mostrar o produto antigo.
+ *
+ * O cookie dura o atraso máximo permitido das réplicas (+1 s): depois disso,
+ * qualquer réplica que ainda recebe leituras já tem a escrita.
+ *
+ * A posição fica numa ThreadLocal durante a requisição; é o DataSourceLeitura
+ * que consulta (posicaoMinima()) na hora de escolher a conexão.
+ */
+class LeituraConsistenteFiltro extends OncePerRequestFilter {
+
+    static final String COOKIE = "wnd-posicao";
+
+    private static final ThreadLocal<Requisicao> ATUAL = new ThreadLocal<>();
+
+    private final FluxoReplicacao fluxo;
+    private final Duration duracaoCookie;
+
+    LeituraConsistenteFiltro(FluxoReplicacao fluxo, long atrasoMaximoMs) {
+        this.fluxo = fluxo;
+        this.duracaoCookie = Duration.ofMillis(atrasoMaximoMs).plusSeconds(1);
+    }
+
+    // Posição mínima que a réplica precisa ter aplicado, e a resposta onde vai o cookie
+    private static final class Requisicao {
+        long posicaoMinima;
+        HttpServletResponse resposta;
+        Duration duracaoCookie;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Requisicao requisicao = new Requisicao();
+        requisicao.posicaoMinima = posicaoDoCookie(request);
+        requisicao.resposta = response;
+        requisicao.duracaoCookie = duracaoCookie;
+        ATUAL.set(requisicao);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ATUAL.remove();
+        }
+    }
+
+    // "epoca.posicao"; de outra subida (epoca diferente) ou inválido → sem exigência
+    private long posicaoDoCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (!COOKIE.equals(cookie.getName())) {
+                continue;
+            }
+            String[] partes = cookie.getValue().split("\\.");
+            try {
+                if (partes.length == 2 && Long.parseLong(partes[0]) == fluxo.epoca()) {
+                    return Long.parseLong(partes[1]);
+                }
+            } catch (NumberFormatException e) {
+                // cookie adulterado: ignora
+            }
+        }
+        return 0;
+    }
+
+
+    //   ===   CHAMADOS PELO FLUXO E PELO DATASOURCE   ===
+
+    static long posicaoMinima() {
+        Requisicao requisicao = ATUAL.get();
+        return requisicao == null ? 0 : requisicao.posicaoMinima;
+    }
+
+    // Depois do commit de uma escrita, na thread de quem escreveu. Fora de uma
+    // requisição (tarefas em segundo plano), não faz nada.
+    //
+    // setHeader (e não addCookie): uma importação gera milhares de escritas e
+    // a resposta leva um cookie só, o da última.
+    static void aposEscrita(long epoca, long posicao) {
+        Requisicao requisicao = ATUAL.get();
+        if (requisicao == null || posicao <= requisicao.posicaoMinima) {
+            return;
+        }
+        requisicao.posicaoMinima = posicao;
+        if (!requisicao.resposta.isCommitted()) {
+            requisicao.resposta.setHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, epoca + "." + posicao)
+                    .path("/api")
+                    .maxAge(requisicao.duracaoCookie)
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build()
+                    .toString());
+        }
+    }
+}
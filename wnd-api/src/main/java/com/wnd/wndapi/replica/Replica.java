@@ -0,0 +1,314 @@
+package com.wnd.wndapi.replica;
+
+import com.wnd.wndapi.evento.ProdutoAlteradoEvento;
+import com.wnd.wndapi.model.Produto;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Uma réplica de leitura: um H2 local com a tabela produtos, mantido em dia
+ * pelas alterações do primário (ver FluxoReplicacao).
+ *
+ * Uma thread própria aplica as alterações em ordem, em lotes (um MERGE/DELETE
+ * em lote JDBC por transação). Enquanto aplica, a réplica fica atrás do
+ * primário; o atraso é a idade da alteração mais antiga ainda não aplicada.
+ *
+ * Na subida, e sempre que a fila enche (a réplica não estava acompanhando),
+ * a tabela é copiada inteira do primário antes de voltar a aplicar a fila.
+ * Até a cópia terminar, a réplica não recebe leituras.
+ */
+final class Replica {
+
+    private static final Logger log = LoggerFactory.getLogger(Replica.class);
+
+    // Alterações aplicadas por transação na réplica
+    private static final int LOTE_APLICACAO = 500;
+
+    // Linhas copiadas do primário por transação na cópia completa
+    private static final int LOTE_COPIA = 5_000;
+
+    private static final String SELECT_TODOS =
+            "select id, nome, descricao, preco, quantidade_estoque, fabricante, versao from produtos";
+
+    // Só troca a linha se a alteração for mais nova que ela: a cópia completa
+    // pode já ter trazido a mesma alteração (ou uma posterior) que está na fila
+    private static final String MERGE =
+            "merge into produtos p using (values (cast(? as bigint), ?, ?, cast(? as numeric(38,2)),"
+                    + " cast(? as integer), ?, cast(? as bigint)))"
+                    + " v(id, nome, descricao, preco, quantidade_estoque, fabricante, versao) on p.id = v.id"
+                    + " when matched and p.versao < v.versao then update set nome = v.nome, descricao = v.descricao,"
+                    + " preco = v.preco, quantidade_estoque = v.quantidade_estoque, fabricante = v.fabricante,"
+                    + " versao = v.versao"
+                    + " when not matched then insert (id, nome, descricao, preco, quantidade_estoque, fabricante,"
+                    + " versao) values (v.id, v.nome, v.descricao, v.preco, v.quantidade_estoque, v.fabricante,"
+                    + " v.versao)";
+    private static final String DELETE = "delete from produtos where id = ?";
+
+    // Marca na fila: copiar tudo de novo antes de continuar
+    private static final FluxoReplicacao.Alteracao RECOPIAR = new FluxoReplicacao.Alteracao(-1, 0, -1, null, null);
+
+    private final String nome;
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate primario;
+    private final LongSupplier ultimaPosicaoPublicada;
+    private final Consumer<Long> aposAplicar;
+    private final int tamanhoMaximoFila;
+    private final long atrasoSimuladoNanos;
+
+    private final LinkedBlockingQueue<FluxoReplicacao.Alteracao> fila = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean ativa = true;
+
+    // Só recebe leituras depois da primeira cópia completa
+    private volatile boolean pronta;
+
+    // Posição (FluxoReplicacao.Alteracao.posicao) da última alteração aplicada
+    private volatile long posicaoAplicada;
+
+    // Primeira alteração do lote que está sendo aplicado agora (null entre lotes)
+    private volatile FluxoReplicacao.Alteracao emAplicacao;
+
+    // Quantas vezes a fila foi descartada. Uma cópia que terminar depois de um
+    // descarte não deixa a réplica pronta: ela perdeu alterações da fila.
+    private final AtomicLong descartes = new AtomicLong();
+
+    Replica(String nome, HikariDataSource dataSource, DataSource primario, LongSupplier ultimaPosicaoPublicada,
+            Consumer<Long> aposAplicar, int tamanhoMaximoFila, long atrasoSimuladoMs) {
+        this.nome = nome;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.primario = new JdbcTemplate(primario);
+        this.primario.setFetchSize(LOTE_COPIA);
+        this.ultimaPosicaoPublicada = ultimaPosicaoPublicada;
+        this.aposAplicar = aposAplicar;
+        this.tamanhoMaximoFila = tamanhoMaximoFila;
+        this.atrasoSimuladoNanos = TimeUnit.MILLISECONDS.toNanos(atrasoSimuladoMs);
+
+        // Mesmo schema do perfil "rapido": a réplica não passa pelo Hibernate
+        new ResourceDatabasePopulator(new ClassPathResource("db/schema-produtos.sql")).execute(dataSource);
+
+        this.thread = Thread.ofPlatform().name("replica-" + nome).daemon().unstarted(this::aplicar);
+    }
+
+    // Começa pela cópia completa; o que chegar durante a cópia espera na fila
+    void iniciar() {
+        fila.offer(RECOPIAR);
+        thread.start();
+    }
+
+    void parar() {
+        ativa = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dataSource.close();
+    }
+
+
+    //   ===   CHEGADA DE ALTERAÇÕES (thread de quem alterou, depois do commit)   ===
+    //
+    // Nunca espera. Fila cheia: a réplica ficou para trás demais, descarta o
+    // que tinha e recomeça da cópia completa (sai das leituras até lá).
+    void receber(FluxoReplicacao.Alteracao alteracao) {
+        if (fila.size() >= tamanhoMaximoFila) {
+            synchronized (this) {
+                if (fila.size() >= tamanhoMaximoFila) {
+                    log.warn("Réplica {} ficou {} alterações atrás do primário: copiando tudo de novo",
+                            nome, fila.size());
+                    descartarFila();
+                }
+            }
+        }
+        fila.offer(alteracao);
+    }
+
+    private void descartarFila() {
+        descartes.incrementAndGet();
+        pronta = false;
+        fila.clear();
+        fila.offer(RECOPIAR);
+    }
+
+
+    //   ===   SITUAÇÃO (usada para escolher a réplica de cada leitura)   ===
+
+    boolean pronta() {
+        return pronta;
+    }
+
+    long posicaoAplicada() {
+        return posicaoAplicada;
+    }
+
+    // Idade (ns) da alteração mais antiga ainda não aplicada; 0 = em dia
+    long atrasoNanos(long agora) {
+        FluxoReplicacao.Alteracao maisAntiga = emAplicacao;
+        if (maisAntiga == null) {
+            maisAntiga = fila.peek();
+        }
+        if (maisAntiga == null || maisAntiga == RECOPIAR) {
+            return 0;
+        }
+        return Math.max(0, agora - maisAntiga.instante());
+    }
+
+    int pendentes() {
+        return fila.size();
+    }
+
+    String nome() {
+        return nome;
+    }
+
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+
+    //   ===   THREAD DA RÉPLICA   ===
+
+    private void aplicar() {
+        List<FluxoReplicacao.Alteracao> lote = new ArrayList<>(LOTE_APLICACAO);
+        while (ativa) {
+            try {
+                FluxoReplicacao.Alteracao primeira = fila.poll(1, TimeUnit.SECONDS);
+                if (primeira == null) {
+                    continue;
+                }
+                if (primeira == RECOPIAR) {
+                    copiarDoPrimario();
+                    continue;
+                }
+                // Antes de tirar o resto da fila: o atraso não pode "sumir" no meio do caminho
+                emAplicacao = primeira;
+                lote.add(primeira);
+                while (lote.size() < LOTE_APLICACAO && fila.peek() != null && fila.peek() != RECOPIAR) {
+                    lote.add(fila.poll());
+                }
+                esperarAtrasoSimulado(primeira);
+                aplicarLote(lote);
+                // (a cópia completa pode ter deixado a posição mais à frente que o lote)
+                posicaoAplicada = Math.max(posicaoAplicada, lote.get(lote.size() - 1).posicao());
+                for (FluxoReplicacao.Alteracao alteracao : lote) {
+                    if (alteracao.tipo() != ProdutoAlteradoEvento.Tipo.CRIADO) {
+                        aposAplicar.accept(alteracao.id());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Não dá para saber o que a réplica ficou sem: melhor copiar tudo de novo
+                log.error("Falha ao aplicar alterações na réplica {}: copiando tudo de novo", nome, e);
+                synchronized (this) {
+                    descartarFila();
+                }
+            } finally {
+                lote.clear();
+                emAplicacao = null;
+            }
+        }
+    }
+
+    // Merges antes dos deletes: um mesmo produto criado e excluído no mesmo lote
+    // termina excluído. (O contrário, excluir e depois alterar, o FluxoReplicacao
+    // já descartou antes de chegar aqui.)
+    private void aplicarLote(List<FluxoReplicacao.Alteracao> lote) {
+        List<Produto> gravados = new ArrayList<>(lote.size());
+        List<Long> excluidos = new ArrayList<>();
+        for (FluxoReplicacao.Alteracao alteracao : lote) {
+            if (alteracao.tipo() == ProdutoAlteradoEvento.Tipo.EXCLUIDO) {
+                excluidos.add(alteracao.id());
+            } else {
+                gravados.add(alteracao.produto());
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!gravados.isEmpty()) {
+                jdbcTemplate.batchUpdate(MERGE, gravados, gravados.size(), (comando, produto) -> {
+                    comando.setLong(1, produto.getId());
+                    comando.setString(2, produto.getNome());
+                    comando.setString(3, produto.getDescricao());
+                    comando.setBigDecimal(4, produto.getPreco());
+                    comando.setInt(5, produto.getQuantidadeEstoque());
+                    comando.setString(6, produto.getFabricante());
+                    comando.setLong(7, produto.getVersao());
+                });
+            }
+            if (!excluidos.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE, excluidos, excluidos.size(),
+                        (comando, id) -> comando.setLong(1, id));
+            }
+        });
+    }
+
+    // Tabela inteira do primário, em lotes. Tudo que foi publicado antes da
+    // cópia começar já estava commitado, então já vem junto; o que chegar
+    // depois fica na fila e é aplicado em seguida (o MERGE ignora o repetido).
+    private void copiarDoPrimario() {
+        long inicio = System.nanoTime();
+        long descartesAntes = descartes.get();
+        long posicaoInicial = ultimaPosicaoPublicada.getAsLong();
+        jdbcTemplate.update("delete from produtos");
+
+        List<Object[]> lote = new ArrayList<>(LOTE_COPIA);
+        long[] total = {0};
+        primario.query(SELECT_TODOS, linha -> {
+            lote.add(new Object[]{linha.getLong(1), linha.getString(2), linha.getString(3),
+                    linha.getBigDecimal(4), linha.getInt(5), linha.getString(6), linha.getLong(7)});
+            if (lote.size() == LOTE_COPIA) {
+                total[0] += inserir(lote);
+                lote.clear();
+            }
+        });
+        total[0] += inserir(lote);
+
+        posicaoAplicada = posicaoInicial;
+        synchronized (this) {
+            if (descartes.get() != descartesAntes) {
+                return; // a fila foi descartada durante a cópia: já tem outra cópia na fila
+            }
+            pronta = true;
+        }
+        log.info("Réplica {} copiada do primário: {} produtos em {} ms",
+                nome, total[0], (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private int inserir(List<Object[]> linhas) {
+        if (!linhas.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                    "insert into produtos (id, nome, descricao, preco, quantidade_estoque, fabricante, versao)"
+                            + " values (?, ?, ?, ?, ?, ?, ?)", linhas));
+        }
+        return linhas.size();
+    }
+
+    // wnd.replicas.atraso-simulado-ms: réplica "distante", para testar o roteamento
+    private void esperarAtrasoSimulado(FluxoReplicacao.Alteracao alteracao) throws InterruptedException {
+        long espera = alteracao.instante() + atrasoSimuladoNanos - System.nanoTime();
+        if (espera > 0) {
+            TimeUnit.NANOSECONDS.sleep(espera);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.wnd.wndapi.replica;
+
+import com.wnd.wndapi.cache.ProdutoCache;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réplicas de leitura (perfil "replicas").
+ *
+ * Troca o DataSource da aplicação por um que separa:
+ *  - transações somente-leitura (@Transactional(readOnly = true) no
+ *    ProdutoService, exportação...) → uma réplica
+ *  - todo o resto (escritas, DDL, diário, JdbcTemplate sem transação) → primário
+ *
+ * Quem mantém um estado em memória alimentado pelos eventos (ListagemPronta,
+ * CatalogoAgregados, IndiceBuscaProdutos) lê de propósito numa transação de
+ * escrita: uma réplica atrasada não tem alterações cujos eventos já chegaram.
+ *
+ * O primário é o banco de spring.datasource.*; as réplicas são outros H2 em
+ * memória (wnd.replicas.url, com {n} = 1, 2, ...) alimentados pelo
+ * FluxoReplicacao. Os pools usam as mesmas configurações de
+ * spring.datasource.hikari.*.
+ */
+@Configuration
+@ConditionalOnProperty(name = "wnd.replicas.habilitado", havingValue = "true")
+public class ReplicasConfig {
+
+    @Bean(destroyMethod = "parar")
+    FluxoReplicacao fluxoReplicacao(DataSourceProperties propriedades, Environment ambiente,
+                                    ProdutoCache produtoCache, MeterRegistry registry,
+                                    @Value("${wnd.replicas.quantidade:2}") int quantidade,
+                                    @Value("${wnd.replicas.url:jdbc:h2:mem:wnddb-replica-{n}}") String url,
+                                    @Value("${wnd.replicas.atraso-maximo-ms:1000}") long atrasoMaximoMs,
+                                    @Value("${wnd.replicas.tamanho-fila:100000}") int tamanhoFila,
+                                    @Value("${wnd.replicas.atraso-simulado-ms:0}") long atrasoSimuladoMs) {
+        if (quantidade < 1) {
+            throw new IllegalStateException("wnd.replicas.quantidade precisa ser pelo menos 1");
+        }
+        HikariDataSource primario = pool(propriedades, ambiente, "primario", propriedades.determineUrl());
+        FluxoReplicacao fluxo = new FluxoReplicacao(primario, atrasoMaximoMs, registry);
+        for (int n = 1; n <= quantidade; n++) {
+            HikariDataSource dataSource = pool(propriedades, ambiente, "replica-" + n,
+                    url.replace("{n}", String.valueOf(n)));
+            // Depois de aplicar uma alteração na réplica, tira o produto do cache de novo:
+            // uma leitura na réplica antes dela pode ter guardado a versão antiga
+            Replica replica = new Replica("replica-" + n, dataSource, primario, fluxo::ultimaPosicao,
+                    produtoCache::invalidar, tamanhoFila, atrasoSimuladoMs);
+            fluxo.adicionar(replica);
+
+            Gauge.builder("wnd.replicas.atraso", replica,
+                            r -> TimeUnit.NANOSECONDS.toMillis(r.atrasoNanos(System.nanoTime())))
+                    .description("Idade (ms) da alteração mais antiga que a réplica ainda não aplicou")
+                    .baseUnit("milliseconds")
+                    .tag("replica", replica.nome())
+                    .register(registry);
+            Gauge.builder("wnd.replicas.pendentes", replica, Replica::pendentes)
+                    .description("Alterações do primário esperando na fila da réplica")
+                    .tag("replica", replica.nome())
+                    .register(registry);
+        }
+        return fluxo;
+    }
+
+    // Só pede a conexão de verdade no primeiro comando, quando já se sabe se a
+    // transação é somente-leitura (o JpaTransactionManager marca setReadOnly
+    // antes disso) — aí escolhe entre a réplica e o primário.
+    @Bean
+    DataSource dataSource(FluxoReplicacao fluxo) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(fluxo.primario());
+        dataSource.setReadOnlyDataSource(new DataSourceLeitura(fluxo, fluxo.primario()));
+        return dataSource;
+    }
+
+    @Bean
+    FilterRegistrationBean<LeituraConsistenteFiltro> leituraConsistenteFiltro(
+            FluxoReplicacao fluxo, @Value("${wnd.replicas.atraso-maximo-ms:1000}") long atrasoMaximoMs) {
+        FilterRegistrationBean<LeituraConsistenteFiltro> registro =
+                new FilterRegistrationBean<>(new LeituraConsistenteFiltro(fluxo, atrasoMaximoMs));
+        registro.addUrlPatterns("/api/*");
+        // Logo depois do controle de admissão
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registro;
+    }
+
+    private static HikariDataSource pool(DataSourceProperties propriedades, Environment ambiente,
+                                         String nome, String url) {
+        HikariConfig config = new HikariConfig();
+        Binder.get(ambiente).bind("spring.datasource.hikari", Bindable.ofInstance(config));
+        config.setPoolName(nome);
+        config.setJdbcUrl(url);
+        config.setDriverClassName(propriedades.determineDriverClassName());
+        config.setUsername(propriedades.determineUsername());
+        config.setPassword(propriedades.determinePassword());
+        return new HikariDataSource(config);
+    }
+}
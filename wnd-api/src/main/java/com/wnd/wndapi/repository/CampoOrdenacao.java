@@ -0,0 +1,64 @@
+package com.wnd.wndapi.repository;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/**
+ * Campos pelos quais a listagem de produtos pode ser ordenada.
+ *
+ * Cada constante guarda o nome do atributo da entidade Produto e sabe
+ * converter o valor guardado no cursor (texto) de volta para o tipo da coluna.
+ */
+public enum CampoOrdenacao {
+
+    ID("id"),
+    NOME("nome"),
+    PRECO("preco"),
+    FABRICANTE("fabricante");
+
+    // Nome do atributo na entidade Produto (usado nas consultas Criteria)
+    private final String atributo;
+
+    CampoOrdenacao(String atributo) {
+        this.atributo = atributo;
+    }
+
+    public String getAtributo() {
+        return atributo;
+    }
+
+
+    //   ===   CONVERTE O PARÂMETRO ?sort= DA URL   ===
+    //
+    // Aceita "id", "nome", "preco" e "fabricante" (sem diferenciar maiúsculas).
+    // Qualquer outro valor gera IllegalArgumentException → o Controller devolve 400.
+    public static CampoOrdenacao doParametro(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return ID;
+        }
+        for (CampoOrdenacao campo : values()) {
+            if (campo.atributo.equalsIgnoreCase(valor.trim())) {
+                return campo;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Ordenação inválida: use id, nome, preco ou fabricante.");
+    }
+
+
+    //   ===   CONVERTE O VALOR DO CURSOR PARA O TIPO DA COLUNA   ===
+    //
+    // O cursor viaja como texto; aqui transformamos de volta em BigDecimal/String.
+    Comparable<?> converterValor(String texto) {
+        return switch (this) {
+            case ID -> Long.valueOf(texto);
+            case PRECO -> new BigDecimal(texto);
+            case NOME, FABRICANTE -> texto;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return atributo.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,58 @@
+package com.wnd.wndapi.repository;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor da paginação por keyset (?after=...).
+ *
+ * Guarda o ID do último produto entregue e, quando a ordenação não é por ID,
+ * também o valor da coluna ordenada daquele produto. Assim a próxima página
+ * continua exatamente do mesmo ponto, mesmo que o produto âncora tenha sido
+ * excluído nesse meio tempo.
+ *
+ * Formato em texto:
+ *  - ordenação por id  → "42"
+ *  - demais ordenações → "42.<valor em Base64 URL-safe>"
+ *
+ * Um ID puro ("42") também é aceito nas outras ordenações: nesse caso o
+ * repositório busca o valor da coluna do produto âncora no banco.
+ */
+public record CursorProduto(Long id, Comparable<?> valor) {
+
+    //   ===   GERA O TEXTO DO CURSOR A PARTIR DO ÚLTIMO ITEM DA PÁGINA   ===
+    public String codificar() {
+        if (valor == null) {
+            return String.valueOf(id);
+        }
+        String texto = valor instanceof BigDecimal preco ? preco.toPlainString() : valor.toString();
+        return id + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    //   ===   LÊ O TEXTO RECEBIDO EM ?after=   ===
+    //
+    // Devolve null quando não veio cursor (primeira página).
+    // Cursor mal formado gera IllegalArgumentException → HTTP 400.
+    public static CursorProduto decodificar(String texto, CampoOrdenacao campo) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        try {
+            int ponto = texto.indexOf('.');
+            if (ponto < 0) {
+                return new CursorProduto(Long.valueOf(texto.trim()), null);
+            }
+            Long id = Long.valueOf(texto.substring(0, ponto));
+            String valor = new String(
+                    Base64.getUrlDecoder().decode(texto.substring(ponto + 1)),
+                    StandardCharsets.UTF_8);
+            return new CursorProduto(id, campo == CampoOrdenacao.ID ? null : campo.converterValor(valor));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException também é IllegalArgumentException
+            throw new IllegalArgumentException("Cursor inválido.", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.wnd.wndapi.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Filtros opcionais da listagem (GET /api/produtos?fabricante=&precoMin=&precoMax=&estoqueMax=).
+ *
+ * Cada filtro preenchido vira uma condição no WHERE (todas juntas com AND);
+ * null = sem filtro naquele campo. Os limites são inclusivos.
+ *
+ * Cada um tem índice próprio na tabela (ver @Table em Produto), então o banco
+ * encontra as linhas pelo índice em vez de percorrer a tabela inteira:
+ *  - fabricante → idx_produtos_fabricante_id
+ *  - preço      → idx_produtos_preco_id
+ *  - estoque    → idx_produtos_estoque_id
+ */
+public record FiltroProdutos(String fabricante, BigDecimal precoMin, BigDecimal precoMax, Integer estoqueMax) {
+
+    public static final FiltroProdutos NENHUM = new FiltroProdutos(null, null, null, null);
+
+    // Faixa de preço invertida gera IllegalArgumentException → o Controller devolve 400.
+    public FiltroProdutos {
+        if (fabricante != null && fabricante.isBlank()) {
+            fabricante = null;
+        }
+        if (precoMin != null && precoMax != null && precoMin.compareTo(precoMax) > 0) {
+            throw new IllegalArgumentException("Faixa de preço inválida: precoMin maior que precoMax.");
+        }
+    }
+}
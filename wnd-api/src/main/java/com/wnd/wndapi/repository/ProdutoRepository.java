@@ -1,7 +1,15 @@
 package com.wnd.wndapi.repository;
 
 import com.wnd.wndapi.model.Produto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.stream.Stream;
 
 /**
  * Interface que representa o repositório de Produto.
@@ -14,7 +22,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * Não precisamos escrever SQL manual nem implementar nada aqui — o framework
  * gera tudo baseado nos tipos passados na interface.
  */
-public interface ProdutoRepository extends JpaRepository<Produto, Long> {
+public interface ProdutoRepository extends JpaRepository<Produto, Long>, ProdutoRepositoryCustom {
 
     //   ===   SOBRE ESTA INTERFACE   ===
     //
@@ -38,5 +46,55 @@ public interface ProdutoRepository extends JpaRepository<Produto, Long> {
     //
     // Basta declarar aqui dentro e o Spring cria automaticamente.
     //
-    // No nosso CRUD, os métodos padrões já atendem 100% dos requisitos.
+    // Consultas mais elaboradas (como a paginação por cursor da listagem)
+    // ficam em ProdutoRepositoryCustom / ProdutoRepositoryCustomImpl.
+
+
+    //   ===   PERCORRER O CATÁLOGO INTEIRO SEM CARREGAR TUDO NA MEMÓRIA   ===
+    //
+    // Usado pela exportação (GET /api/produtos/export).
+    //
+    // Devolver Stream em vez de List faz o Hibernate usar um cursor "só para frente"
+    // no JDBC: as linhas vão chegando aos poucos (de FETCH_SIZE em FETCH_SIZE).
+    //  • FETCH_SIZE → quantas linhas o driver traz por ida ao banco
+    //  • READ_ONLY  → o Hibernate não guarda cópia para dirty-checking
+    //  • CACHEABLE  → não faz sentido guardar esse resultado em cache
+    //
+    // IMPORTANTE: precisa ser chamado dentro de uma transação e o Stream
+    // precisa ser fechado (try-with-resources) no final.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select p from Produto p order by p.id")
+    Stream<Produto> streamTodosPorId();
+
+
+    //   ===   RESERVA / DEVOLUÇÃO DE ESTOQUE EM UM ÚNICO UPDATE   ===
+    //
+    // Usado no checkout (POST /api/produtos/{id}/estoque/reservar e /liberar).
+    //
+    // Em vez de "ler o produto → subtrair em Java → salvar" (duas requisições
+    // ao mesmo tempo leem o mesmo estoque e uma das baixas se perde), o banco
+    // faz a conta e a checagem no mesmo comando:
+    //
+    //   UPDATE produtos SET quantidade_estoque = quantidade_estoque - ?
+    //   WHERE id = ? AND quantidade_estoque >= ?
+    //
+    // Devolve quantas linhas mudaram: 0 = produto não existe ou estoque insuficiente.
+    // A versão também sobe, então um PUT feito em cima da leitura antiga falha
+    // (controle otimista do @Version) em vez de sobrescrever a reserva.
+    //
+    // clearAutomatically: depois do UPDATE, o próximo findById lê do banco
+    // (e não uma cópia antiga guardada pelo Hibernate).
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Produto p set p.quantidadeEstoque = p.quantidadeEstoque - :quantidade, p.versao = p.versao + 1 "
+            + "where p.id = :id and p.quantidadeEstoque >= :quantidade")
+    int reservarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Produto p set p.quantidadeEstoque = p.quantidadeEstoque + :quantidade, p.versao = p.versao + 1 "
+            + "where p.id = :id")
+    int liberarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
 }
@@ -0,0 +1,100 @@
+package com.wnd.wndapi.repository;
+
+import com.wnd.wndapi.model.Produto;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Consultas de Produto que não dá para expressar só com o nome do método
+ * (Spring Data) e por isso têm implementação própria em
+ * {@link ProdutoRepositoryCustomImpl}.
+ *
+ * O ProdutoRepository estende esta interface, então para o Service
+ * tudo continua sendo "um repositório só".
+ */
+public interface ProdutoRepositoryCustom {
+
+    //   ===   PÁGINA DA LISTAGEM (paginação por cursor / keyset)   ===
+    //
+    // Busca até "limite" produtos ordenados por "campo" (desempate sempre pelo id),
+    // começando logo depois do cursor. Com cursor null, começa do início.
+    // Só entram os produtos que passam no filtro (FiltroProdutos.NENHUM = todos).
+    //
+    // Em vez de OFFSET (que obriga o banco a pular N linhas), usamos
+    // "WHERE (campo, id) > (valorDoCursor, idDoCursor)", que cai direto no índice.
+    List<Produto> buscarPagina(CampoOrdenacao campo, boolean crescente, CursorProduto cursor,
+                               FiltroProdutos filtro, int limite);
+
+
+    //   ===   SÓ ALGUNS CAMPOS (?fields=id,nome,preco)   ===
+    //
+    // Mesma página da consulta acima, mas o SELECT traz só os atributos pedidos
+    // (mais o id e o campo da ordenação, que o cursor precisa) e cada linha
+    // volta como { atributo: valor } — sem montar a entidade Produto.
+    List<Map<String, Object>> buscarPaginaCampos(CampoOrdenacao campo, boolean crescente,
+                                                 CursorProduto cursor, FiltroProdutos filtro, int limite,
+                                                 Collection<String> campos);
+
+    // Um produto por id, só com os atributos pedidos. Vazio = não existe.
+    Optional<Map<String, Object>> buscarCampos(Long id, Collection<String> campos);
+
+
+    //   ===   TOTAIS DO CATÁLOGO POR FABRICANTE (reconciliação dos agregados)   ===
+    //
+    // Uma única passada na tabela: para cada fabricante, quantos produtos,
+    // quanto estoque, qual o valor do inventário (preço × estoque) e quantos
+    // produtos caem em cada faixa de preço.
+    //
+    // "limitesFaixas" são os limites entre as faixas, em ordem crescente:
+    // [10, 50] gera as faixas [0, 10), [10, 50) e [50, ∞).
+    List<TotaisFabricante> somarPorFabricante(List<BigDecimal> limitesFaixas);
+
+    // Uma linha do resultado acima. "porFaixa" tem limitesFaixas.size() + 1 posições.
+    record TotaisFabricante(String fabricante, long produtos, long estoque, BigDecimal valor, long[] porFaixa) {
+    }
+
+
+    //   ===   ALTERAR / EXCLUIR NUM ÚNICO COMANDO   ===
+    //
+    // Um só UPDATE (ou DELETE) por id, sem ler o produto antes. O comando
+    // devolve a linha como ela estava ANTES da alteração (o ProdutoService
+    // precisa dela para o evento); vazio = nenhuma linha foi alterada.
+    //
+    // "campos": atributo do Produto → novo valor (só os que mudam).
+    // Com versaoEsperada, só altera se o produto ainda estiver nessa versão.
+    // A versão sempre sobe 1, como no @Version.
+    Optional<Produto> atualizarCampos(Long id, Map<String, Object> campos, Long versaoEsperada);
+
+    Optional<Produto> excluirPorId(Long id);
+
+
+    //   ===   AJUSTE EM MASSA (POST /api/produtos/ajustes)   ===
+    //
+    // Quantos produtos passam no filtro (para mostrar o progresso do ajuste).
+    long contar(FiltroProdutos filtro);
+
+    // Um lote do ajuste: os próximos "limite" produtos do filtro depois de
+    // "depoisDoId" (em ordem de id) são travados e ajustados num único UPDATE.
+    //
+    // Preço: × fatorPreco (percentual) ou + somaPreco (valor absoluto), arredondado
+    // em 2 casas; estoque: + somaEstoque. null = não mexe naquele campo.
+    // Produto que ficaria com preço abaixo de 0,01 ou estoque negativo fica como está.
+    //
+    // Precisa de uma transação aberta (as linhas ficam travadas até o commit).
+    LoteAjustado ajustarLote(FiltroProdutos filtro, long depoisDoId, int limite,
+                             BigDecimal fatorPreco, BigDecimal somaPreco, Integer somaEstoque);
+
+    /**
+     * Resultado de um lote do ajuste em massa.
+     *  - lidos:      produtos do filtro que entraram no lote (0 = acabou)
+     *  - ultimoId:   maior id do lote (o próximo lote começa depois dele)
+     *  - anteriores: como estavam os produtos alterados (mesma ordem de "atuais")
+     *  - atuais:     como ficaram (os que ficariam inválidos não aparecem)
+     */
+    record LoteAjustado(int lidos, long ultimoId, List<Produto> anteriores, List<Produto> atuais) {
+    }
+}
@@ -0,0 +1,459 @@
+package com.wnd.wndapi.repository;
+
+import com.wnd.wndapi.model.Produto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Implementação das consultas declaradas em {@link ProdutoRepositoryCustom}.
+ *
+ * O Spring Data encontra esta classe pelo nome (interface + "Impl") e junta
+ * os métodos dela ao ProdutoRepository automaticamente.
+ */
+class ProdutoRepositoryCustomImpl implements ProdutoRepositoryCustom {
+
+    // Atributos do Produto que podem ser alterados por atualizarCampos → coluna na tabela
+    private static final Map<String, String> COLUNAS = Map.of(
+            "nome", "nome",
+            "descricao", "descricao",
+            "preco", "preco",
+            "quantidadeEstoque", "quantidade_estoque",
+            "fabricante", "fabricante");
+
+    private static final String COLUNAS_PRODUTO =
+            "id, nome, descricao, preco, quantidade_estoque, fabricante, versao";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Produto> buscarPagina(CampoOrdenacao campo, boolean crescente, CursorProduto cursor,
+                                      FiltroProdutos filtro, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Produto> query = cb.createQuery(Produto.class);
+        Root<Produto> produto = query.from(Produto.class);
+
+        Path<Long> id = produto.get("id");
+        Path<Comparable<Object>> coluna = produto.get(campo.getAtributo());
+        List<Predicate> condicoes = new ArrayList<>();
+
+        //   ===   FILTRO DO CURSOR: "depois do último item entregue"   ===
+        if (cursor != null) {
+            if (campo == CampoOrdenacao.ID) {
+                Expression<Long> idCursor = cursorForaDoIndice(campo, filtro) ? cb.sum(id, 0L) : id;
+                condicoes.add(depoisDe(cb, idCursor, cursor.id(), crescente));
+            } else {
+                Comparable<Object> valor = valorDoCursor(campo, cursor);
+                // (coluna > valor) OR (coluna = valor AND id > idCursor)
+                condicoes.add(cb.or(
+                        depoisDe(cb, coluna, valor, crescente),
+                        cb.and(cb.equal(coluna, valor), depoisDe(cb, id, cursor.id(), crescente))));
+            }
+        }
+
+        //   ===   FILTROS DA LISTAGEM (fabricante, faixa de preço, estoque máximo)   ===
+        if (filtro.fabricante() != null) {
+            condicoes.add(cb.equal(produto.get("fabricante"), filtro.fabricante()));
+        }
+        if (filtro.precoMin() != null) {
+            condicoes.add(cb.greaterThanOrEqualTo(produto.get("preco"), filtro.precoMin()));
+        }
+        if (filtro.precoMax() != null) {
+            condicoes.add(cb.lessThanOrEqualTo(produto.get("preco"), filtro.precoMax()));
+        }
+        if (filtro.estoqueMax() != null) {
+            condicoes.add(cb.lessThanOrEqualTo(produto.get("quantidadeEstoque"), filtro.estoqueMax()));
+        }
+        query.where(condicoes.toArray(Predicate[]::new));
+
+        //   ===   ORDENAÇÃO ESTÁVEL: campo escolhido + id como desempate   ===
+        if (campo == CampoOrdenacao.ID) {
+            query.orderBy(crescente ? cb.asc(id) : cb.desc(id));
+        } else {
+            query.orderBy(
+                    crescente ? cb.asc(coluna) : cb.desc(coluna),
+                    crescente ? cb.asc(id) : cb.desc(id));
+        }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+
+    //   ===   PROJEÇÃO: SÓ AS COLUNAS PEDIDAS   ===
+    //
+    // "select p.id as id, p.nome as nome ..." com resultado em Tuple: o SELECT
+    // leva só essas colunas e o Hibernate devolve os valores soltos — não monta
+    // Produto, não guarda nada no contexto de persistência nem faz cópia para
+    // dirty-checking.
+    //
+    // Aqui o texto é JPQL (e não Criteria) de propósito: o Hibernate guarda o
+    // plano de cada texto de consulta já interpretado (query plan cache), e as
+    // combinações possíveis de campos/ordenação são poucas. Uma Criteria é
+    // interpretada de novo a cada chamada, o que custaria mais alocação do que
+    // a projeção economiza.
+    @Override
+    public List<Map<String, Object>> buscarPaginaCampos(CampoOrdenacao campo, boolean crescente,
+                                                        CursorProduto cursor, FiltroProdutos filtro, int limite,
+                                                        Collection<String> campos) {
+        // O id e a coluna ordenada sempre vêm: o Service monta o cursor com eles
+        Set<String> selecionados = new LinkedHashSet<>(campos);
+        selecionados.add("id");
+        selecionados.add(campo.getAtributo());
+
+        String coluna = "p." + campo.getAtributo();
+        String maior = crescente ? " > " : " < ";
+        String direcao = crescente ? " asc" : " desc";
+
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        if (cursor != null) {
+            where.add(campo == CampoOrdenacao.ID
+                    ? (cursorForaDoIndice(campo, filtro) ? "p.id + 0" : "p.id") + maior + ":id"
+                    : "(" + coluna + maior + ":valor or (" + coluna + " = :valor and p.id" + maior + ":id))");
+        }
+        if (filtro.fabricante() != null) {
+            where.add("p.fabricante = :fabricante");
+        }
+        if (filtro.precoMin() != null) {
+            where.add("p.preco >= :precoMin");
+        }
+        if (filtro.precoMax() != null) {
+            where.add("p.preco <= :precoMax");
+        }
+        if (filtro.estoqueMax() != null) {
+            where.add("p.quantidadeEstoque <= :estoqueMax");
+        }
+
+        StringBuilder jpql = new StringBuilder("select ").append(colunas(selecionados))
+                .append(" from Produto p").append(where);
+        jpql.append(" order by ");
+        if (campo != CampoOrdenacao.ID) {
+            jpql.append(coluna).append(direcao).append(", ");
+        }
+        jpql.append("p.id").append(direcao);
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class)
+                .setMaxResults(limite);
+        if (cursor != null) {
+            query.setParameter("id", cursor.id());
+            if (campo != CampoOrdenacao.ID) {
+                query.setParameter("valor", valorDoCursor(campo, cursor));
+            }
+        }
+        if (filtro.fabricante() != null) {
+            query.setParameter("fabricante", filtro.fabricante());
+        }
+        if (filtro.precoMin() != null) {
+            query.setParameter("precoMin", filtro.precoMin());
+        }
+        if (filtro.precoMax() != null) {
+            query.setParameter("precoMax", filtro.precoMax());
+        }
+        if (filtro.estoqueMax() != null) {
+            query.setParameter("estoqueMax", filtro.estoqueMax());
+        }
+
+        List<Tuple> linhas = query.getResultList();
+        List<Map<String, Object>> itens = new ArrayList<>(linhas.size());
+        for (Tuple linha : linhas) {
+            itens.add(paraMapa(linha, selecionados));
+        }
+        return itens;
+    }
+
+    // Somente-leitura, como o findById (perfil "replicas": vai para uma réplica)
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> buscarCampos(Long id, Collection<String> campos) {
+        List<Tuple> linhas = entityManager.createQuery(
+                        "select " + colunas(campos) + " from Produto p where p.id = :id", Tuple.class)
+                .setParameter("id", id)
+                .getResultList();
+        return linhas.isEmpty() ? Optional.empty() : Optional.of(paraMapa(linhas.get(0), campos));
+    }
+
+    // [id, nome] → "p.id as id, p.nome as nome" (os nomes vêm de uma lista fixa do Service)
+    private static String colunas(Collection<String> campos) {
+        StringJoiner colunas = new StringJoiner(", ");
+        for (String atributo : campos) {
+            colunas.add("p." + atributo + " as " + atributo);
+        }
+        return colunas.toString();
+    }
+
+    // Uma linha → { atributo: valor }, na ordem dos campos (é a ordem do JSON)
+    private static Map<String, Object> paraMapa(Tuple linha, Collection<String> campos) {
+        Map<String, Object> valores = new LinkedHashMap<>(campos.size() * 2);
+        for (String atributo : campos) {
+            valores.put(atributo, linha.get(atributo));
+        }
+        return valores;
+    }
+
+
+    //   ===   ORDENAÇÃO POR ID + FILTRO DE FAIXA (preço / estoque)   ===
+    //
+    // Com "id > :cursor" e ORDER BY id, o H2 prefere andar pela chave primária a
+    // partir do cursor, testando o filtro linha a linha — com um filtro que quase
+    // nada passa, isso é percorrer o resto da tabela. Escrevendo "id + 0 > :cursor"
+    // a condição do cursor deixa de servir para a chave primária e o banco usa o
+    // índice do filtro (como já faz na primeira página, que não tem cursor).
+    //
+    // Com filtro por fabricante não precisa: o índice (fabricante, id) atende
+    // o filtro e o cursor ao mesmo tempo.
+    private static boolean cursorForaDoIndice(CampoOrdenacao campo, FiltroProdutos filtro) {
+        return campo == CampoOrdenacao.ID && filtro.fabricante() == null
+                && (filtro.precoMin() != null || filtro.precoMax() != null || filtro.estoqueMax() != null);
+    }
+
+
+    //   ===   VALOR DA COLUNA NO PONTO DO CURSOR   ===
+    //
+    // Se o cursor já trouxe o valor, usamos ele. Se veio só o ID (?after=42),
+    // buscamos apenas aquela coluna do produto âncora.
+    @SuppressWarnings("unchecked")
+    private Comparable<Object> valorDoCursor(CampoOrdenacao campo, CursorProduto cursor) {
+        if (cursor.valor() != null) {
+            return (Comparable<Object>) cursor.valor();
+        }
+        List<Object> valores = entityManager.createQuery(
+                        "select p." + campo.getAtributo() + " from Produto p where p.id = :id", Object.class)
+                .setParameter("id", cursor.id())
+                .getResultList();
+        if (valores.isEmpty()) {
+            throw new IllegalArgumentException("Cursor inválido: produto " + cursor.id() + " não existe mais.");
+        }
+        return (Comparable<Object>) valores.get(0);
+    }
+
+    @Override
+    public List<TotaisFabricante> somarPorFabricante(List<BigDecimal> limitesFaixas) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Produto> produto = query.from(Produto.class);
+
+        Path<String> fabricante = produto.get("fabricante");
+        Path<BigDecimal> preco = produto.get("preco");
+        Path<Integer> estoque = produto.get("quantidadeEstoque");
+
+        List<Selection<?>> colunas = new ArrayList<>();
+        colunas.add(fabricante);
+        colunas.add(cb.count(produto));
+        colunas.add(cb.sumAsLong(estoque));
+        colunas.add(cb.sum(cb.prod(preco, estoque)));
+
+        //   ===   UMA CONTAGEM POR FAIXA DE PREÇO   ===
+        //
+        // count(case when <na faixa> then id end): o CASE sem ELSE vira null
+        // fora da faixa, e o count ignora nulls. Assim todas as faixas saem
+        // na mesma passada, sem uma consulta por faixa.
+        for (int i = 0; i <= limitesFaixas.size(); i++) {
+            List<Predicate> naFaixa = new ArrayList<>();
+            if (i > 0) {
+                naFaixa.add(cb.greaterThanOrEqualTo(preco, limitesFaixas.get(i - 1)));
+            }
+            if (i < limitesFaixas.size()) {
+                naFaixa.add(cb.lessThan(preco, limitesFaixas.get(i)));
+            }
+            Expression<Long> idNaFaixa = cb.<Long>selectCase()
+                    .when(cb.and(naFaixa.toArray(Predicate[]::new)), produto.<Long>get("id"));
+            colunas.add(cb.count(idNaFaixa));
+        }
+
+        query.multiselect(colunas).groupBy(fabricante);
+
+        List<TotaisFabricante> totais = new ArrayList<>();
+        for (Tuple linha : entityManager.createQuery(query).getResultList()) {
+            long[] porFaixa = new long[limitesFaixas.size() + 1];
+            for (int i = 0; i < porFaixa.length; i++) {
+                porFaixa[i] = linha.get(4 + i, Number.class).longValue();
+            }
+            Number valor = linha.get(3, Number.class);
+            totais.add(new TotaisFabricante(
+                    linha.get(0, String.class),
+                    linha.get(1, Number.class).longValue(),
+                    linha.get(2, Number.class).longValue(),
+                    valor instanceof BigDecimal decimal ? decimal : new BigDecimal(valor.toString()),
+                    porFaixa));
+        }
+        return totais;
+    }
+
+    //   ===   UPDATE / DELETE DEVOLVENDO A LINHA ANTIGA   ===
+    //
+    // "select ... from old table (update ...)" é a "data change delta table" do H2:
+    // o banco executa o UPDATE/DELETE e devolve as linhas afetadas como estavam
+    // antes, tudo num único comando (uma ida ao banco, em vez de SELECT + UPDATE).
+    //
+    // É SQL nativo: o Hibernate não acompanha essas linhas. Quem já tiver o
+    // produto carregado na mesma transação continua vendo a versão antiga.
+    @Override
+    public Optional<Produto> atualizarCampos(Long id, Map<String, Object> campos, Long versaoEsperada) {
+        StringJoiner set = new StringJoiner(", ");
+        campos.keySet().forEach(atributo -> {
+            String coluna = COLUNAS.get(atributo);
+            if (coluna == null) {
+                throw new IllegalArgumentException("Campo não pode ser alterado: " + atributo);
+            }
+            set.add(coluna + " = :" + atributo);
+        });
+        set.add("versao = versao + 1");
+
+        String sql = "select " + COLUNAS_PRODUTO + " from old table (update produtos set " + set
+                + " where id = :id" + (versaoEsperada != null ? " and versao = :versao" : "") + ")";
+        Query query = entityManager.createNativeQuery(sql).setParameter("id", id);
+        campos.forEach(query::setParameter);
+        if (versaoEsperada != null) {
+            query.setParameter("versao", versaoEsperada);
+        }
+        return primeiroProduto(query.getResultList());
+    }
+
+    @Override
+    public Optional<Produto> excluirPorId(Long id) {
+        String sql = "select " + COLUNAS_PRODUTO + " from old table (delete from produtos where id = :id)";
+        return primeiroProduto(entityManager.createNativeQuery(sql).setParameter("id", id).getResultList());
+    }
+
+    //   ===   AJUSTE EM MASSA   ===
+
+    @Override
+    public long contar(FiltroProdutos filtro) {
+        Map<String, Object> parametros = new LinkedHashMap<>();
+        Query query = entityManager.createNativeQuery(
+                "select count(*) from produtos where 1 = 1" + condicoesFiltro(filtro, parametros));
+        parametros.forEach(query::setParameter);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    // Dois comandos por lote, nenhum por produto:
+    //  1. SELECT ... FOR UPDATE: os produtos do lote como estão (e travados, então
+    //     ninguém muda nada entre este SELECT e o UPDATE)
+    //  2. "select ... from final table (update ...)": o UPDATE do lote inteiro,
+    //     devolvendo as linhas como ficaram
+    @Override
+    public LoteAjustado ajustarLote(FiltroProdutos filtro, long depoisDoId, int limite,
+                                    BigDecimal fatorPreco, BigDecimal somaPreco, Integer somaEstoque) {
+        Map<String, Object> parametros = new LinkedHashMap<>();
+        parametros.put("depoisDoId", depoisDoId);
+        Query selecao = entityManager.createNativeQuery("select " + COLUNAS_PRODUTO + " from produtos"
+                + " where id > :depoisDoId" + condicoesFiltro(filtro, parametros)
+                + " order by id limit " + limite + " for update");
+        parametros.forEach(selecao::setParameter);
+        List<Produto> lidos = produtos(selecao.getResultList());
+        if (lidos.isEmpty()) {
+            return new LoteAjustado(0, depoisDoId, List.of(), List.of());
+        }
+
+        String novoPreco = fatorPreco != null ? "cast(preco * :fatorPreco as numeric(38,2))"
+                : somaPreco != null ? "preco + :somaPreco" : "preco";
+        String novoEstoque = somaEstoque != null ? "quantidade_estoque + :somaEstoque" : "quantidade_estoque";
+        Query ajuste = entityManager.createNativeQuery("select " + COLUNAS_PRODUTO + " from final table ("
+                + "update produtos set preco = " + novoPreco + ", quantidade_estoque = " + novoEstoque
+                + ", versao = versao + 1"
+                + " where id in (:ids) and " + novoPreco + " >= 0.01 and " + novoEstoque + " >= 0)");
+        ajuste.setParameter("ids", lidos.stream().map(Produto::getId).toList());
+        if (fatorPreco != null) {
+            ajuste.setParameter("fatorPreco", fatorPreco);
+        } else if (somaPreco != null) {
+            ajuste.setParameter("somaPreco", somaPreco);
+        }
+        if (somaEstoque != null) {
+            ajuste.setParameter("somaEstoque", somaEstoque);
+        }
+        Map<Long, Produto> ajustados = new HashMap<>();
+        for (Produto produto : produtos(ajuste.getResultList())) {
+            ajustados.put(produto.getId(), produto);
+        }
+
+        List<Produto> anteriores = new ArrayList<>(ajustados.size());
+        List<Produto> atuais = new ArrayList<>(ajustados.size());
+        for (Produto anterior : lidos) {
+            Produto atual = ajustados.get(anterior.getId());
+            if (atual != null) {
+                anteriores.add(anterior);
+                atuais.add(atual);
+            }
+        }
+        return new LoteAjustado(lidos.size(), lidos.get(lidos.size() - 1).getId(), anteriores, atuais);
+    }
+
+    // Mesmos filtros da listagem, em SQL nativo (" and ..." para cada filtro preenchido)
+    private static String condicoesFiltro(FiltroProdutos filtro, Map<String, Object> parametros) {
+        StringBuilder condicoes = new StringBuilder();
+        if (filtro.fabricante() != null) {
+            condicoes.append(" and fabricante = :fabricante");
+            parametros.put("fabricante", filtro.fabricante());
+        }
+        if (filtro.precoMin() != null) {
+            condicoes.append(" and preco >= :precoMin");
+            parametros.put("precoMin", filtro.precoMin());
+        }
+        if (filtro.precoMax() != null) {
+            condicoes.append(" and preco <= :precoMax");
+            parametros.put("precoMax", filtro.precoMax());
+        }
+        if (filtro.estoqueMax() != null) {
+            condicoes.append(" and quantidade_estoque <= :estoqueMax");
+            parametros.put("estoqueMax", filtro.estoqueMax());
+        }
+        return condicoes.toString();
+    }
+
+    private static List<Produto> produtos(List<?> linhas) {
+        List<Produto> produtos = new ArrayList<>(linhas.size());
+        for (Object linha : linhas) {
+            produtos.add(produto((Object[]) linha));
+        }
+        return produtos;
+    }
+
+    // Monta um Produto solto (fora do Hibernate) a partir da linha devolvida
+    private static Optional<Produto> primeiroProduto(List<?> linhas) {
+        if (linhas.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(produto((Object[]) linhas.get(0)));
+    }
+
+    private static Produto produto(Object[] linha) {
+        Produto produto = new Produto();
+        produto.setId(((Number) linha[0]).longValue());
+        produto.setNome((String) linha[1]);
+        produto.setDescricao((String) linha[2]);
+        produto.setPreco((BigDecimal) linha[3]);
+        produto.setQuantidadeEstoque(((Number) linha[4]).intValue());
+        produto.setFabricante((String) linha[5]);
+        produto.setVersao(((Number) linha[6]).longValue());
+        return produto;
+    }
+
+    private static <Y extends Comparable<? super Y>> Predicate depoisDe(
+            CriteriaBuilder cb, Expression<? extends Y> coluna, Y valor, boolean crescente) {
+        return crescente ? cb.greaterThan(coluna, valor) : cb.lessThan(coluna, valor);
+    }
+}
@@ -0,0 +1,215 @@
+package com.wnd.wndapi.service;
+
+import com.wnd.wndapi.dto.PedidoAjuste;
+import com.wnd.wndapi.dto.SituacaoAjuste;
+import com.wnd.wndapi.evento.ProdutoAlteradoEvento;
+import com.wnd.wndapi.repository.FiltroProdutos;
+import com.wnd.wndapi.repository.ProdutoRepository;
+import com.wnd.wndapi.repository.ProdutoRepositoryCustom;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ajustes em massa de preço/estoque (POST /api/produtos/ajustes), em segundo plano.
+ *
+ * Reajustar milhares de produtos com um PUT cada leva horas; aqui o ajuste
+ * percorre o filtro em lotes de wnd.ajustes.tamanho-lote produtos (em ordem
+ * de id), cada lote numa transação curta com um único UPDATE (ver
+ * ProdutoRepository.ajustarLote). As transações curtas não seguram o
+ * catálogo inteiro travado: PUTs e reservas de estoque continuam andando
+ * entre um lote e outro.
+ *
+ * Cada produto alterado publica o ProdutoAlteradoEvento de sempre, então
+ * cache, índice de busca, agregados, feed, diário e réplicas acompanham o
+ * ajuste como acompanhariam um PUT.
+ *
+ * Os ajustes rodam um de cada vez (numa thread própria), na ordem em que
+ * chegaram; quem chega enquanto outro roda fica AGUARDANDO. Cancelar para
+ * no fim do lote atual. Os ajustes terminados ficam consultáveis até
+ * saírem do histórico (os wnd.ajustes.historico mais recentes).
+ */
+@Service
+public class AjusteEmMassaService {
+
+    private static final Logger log = LoggerFactory.getLogger(AjusteEmMassaService.class);
+
+    private static final BigDecimal CEM = BigDecimal.valueOf(100);
+
+    private final ProdutoRepository produtoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventos;
+    private final int tamanhoLote;
+    private final int historico;
+
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("ajustes").factory());
+    private final Map<Long, Ajuste> ajustes = new ConcurrentHashMap<>();
+    private final AtomicLong sequencia = new AtomicLong();
+
+    public AjusteEmMassaService(ProdutoRepository produtoRepository,
+                                TransactionTemplate transactionTemplate,
+                                ApplicationEventPublisher eventos,
+                                @Value("${wnd.ajustes.tamanho-lote:500}") int tamanhoLote,
+                                @Value("${wnd.ajustes.historico:100}") int historico) {
+        this.produtoRepository = produtoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventos = eventos;
+        this.tamanhoLote = tamanhoLote;
+        this.historico = historico;
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        ajustes.values().forEach(ajuste -> ajuste.cancelado = true);
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+
+    //   ===   UM AJUSTE (estado mutável, lido pelo GET enquanto roda)   ===
+    private static final class Ajuste {
+        final long id;
+        final PedidoAjuste pedido;
+        final Instant criadoEm = Instant.now();
+        volatile SituacaoAjuste.Estado estado = SituacaoAjuste.Estado.AGUARDANDO;
+        volatile boolean cancelado;
+        volatile long total;
+        volatile long processados;
+        volatile long alterados;
+        volatile long ignorados;
+        volatile String erro;
+        volatile Instant iniciadoEm;
+        volatile Instant concluidoEm;
+
+        Ajuste(long id, PedidoAjuste pedido) {
+            this.id = id;
+            this.pedido = pedido;
+        }
+
+        boolean terminado() {
+            return concluidoEm != null;
+        }
+
+        SituacaoAjuste situacao() {
+            return new SituacaoAjuste(id, estado, total, processados, alterados, ignorados, erro,
+                    criadoEm, iniciadoEm, concluidoEm);
+        }
+    }
+
+
+    //   ===   CRIAR / CONSULTAR / CANCELAR   ===
+
+    public SituacaoAjuste iniciar(PedidoAjuste pedido) {
+        Ajuste ajuste = new Ajuste(sequencia.incrementAndGet(), pedido);
+        ajustes.put(ajuste.id, ajuste);
+        esquecerAntigos();
+        executor.execute(() -> executar(ajuste));
+        return ajuste.situacao();
+    }
+
+    // EntityNotFoundException → 404 (id que nunca existiu ou que já saiu do histórico)
+    public SituacaoAjuste situacao(long id) {
+        return buscar(id).situacao();
+    }
+
+    // Pede o cancelamento: um ajuste que ainda não começou nem começa;
+    // um em andamento para no fim do lote atual. Terminado: nada muda.
+    public SituacaoAjuste cancelar(long id) {
+        Ajuste ajuste = buscar(id);
+        ajuste.cancelado = true;
+        return ajuste.situacao();
+    }
+
+    private Ajuste buscar(long id) {
+        Ajuste ajuste = ajustes.get(id);
+        if (ajuste == null) {
+            throw new EntityNotFoundException("Ajuste não encontrado");
+        }
+        return ajuste;
+    }
+
+    // Só os terminados saem do histórico, os mais antigos primeiro
+    private void esquecerAntigos() {
+        long excedentes = ajustes.size() - historico;
+        if (excedentes <= 0) {
+            return;
+        }
+        ajustes.values().stream()
+                .filter(Ajuste::terminado)
+                .sorted((a, b) -> Long.compare(a.id, b.id))
+                .limit(excedentes)
+                .forEach(ajuste -> ajustes.remove(ajuste.id));
+    }
+
+
+    //   ===   EXECUÇÃO (thread "ajustes")   ===
+
+    private void executar(Ajuste ajuste) {
+        if (ajuste.cancelado) {
+            terminar(ajuste, SituacaoAjuste.Estado.CANCELADO);
+            return;
+        }
+        PedidoAjuste pedido = ajuste.pedido;
+        FiltroProdutos filtro = pedido.filtro();
+        // +7% → × 1.07
+        BigDecimal fatorPreco = pedido.precoPercentual() == null ? null
+                : BigDecimal.ONE.add(pedido.precoPercentual().divide(CEM, MathContext.DECIMAL64));
+
+        ajuste.iniciadoEm = Instant.now();
+        ajuste.estado = SituacaoAjuste.Estado.EXECUTANDO;
+        try {
+            ajuste.total = produtoRepository.contar(filtro);
+            long depoisDoId = 0;
+            boolean acabou = false;
+            while (!acabou && !ajuste.cancelado) {
+                long inicioLote = depoisDoId;
+                ProdutoRepositoryCustom.LoteAjustado lote = transactionTemplate.execute(status -> {
+                    ProdutoRepositoryCustom.LoteAjustado ajustado = produtoRepository.ajustarLote(
+                            filtro, inicioLote, tamanhoLote, fatorPreco, pedido.precoValor(), pedido.estoqueDelta());
+                    // Os ouvintes (cache, índice, agregados...) só reagem depois do commit do lote
+                    for (int i = 0; i < ajustado.atuais().size(); i++) {
+                        eventos.publishEvent(ProdutoAlteradoEvento.atualizado(
+                                ajustado.anteriores().get(i), ajustado.atuais().get(i)));
+                    }
+                    return ajustado;
+                });
+                if (lote == null || lote.lidos() == 0) {
+                    acabou = true;
+                    continue;
+                }
+                depoisDoId = lote.ultimoId();
+                ajuste.processados += lote.lidos();
+                ajuste.alterados += lote.atuais().size();
+                ajuste.ignorados += lote.lidos() - lote.atuais().size();
+            }
+            terminar(ajuste, acabou ? SituacaoAjuste.Estado.CONCLUIDO : SituacaoAjuste.Estado.CANCELADO);
+        } catch (RuntimeException e) {
+            log.error("Ajuste em massa {} falhou depois de {} produtos alterados", ajuste.id, ajuste.alterados, e);
+            ajuste.erro = e.getMessage();
+            terminar(ajuste, SituacaoAjuste.Estado.FALHOU);
+        }
+    }
+
+    private void terminar(Ajuste ajuste, SituacaoAjuste.Estado estado) {
+        ajuste.estado = estado;
+        ajuste.concluidoEm = Instant.now();
+        log.info("Ajuste em massa {} {}: {} alterados, {} ignorados de {} produtos", ajuste.id,
+                estado.name().toLowerCase(), ajuste.alterados, ajuste.ignorados, ajuste.processados);
+    }
+}
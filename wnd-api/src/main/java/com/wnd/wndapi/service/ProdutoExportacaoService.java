@@ -0,0 +1,198 @@
+package com.wnd.wndapi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.ProdutoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Service responsável pela exportação do catálogo completo (dump noturno).
+ *
+ * Diferente da listagem, aqui precisamos de TODOS os produtos — mas sem montar
+ * uma List<Produto> gigante na memória. Por isso:
+ *  - lemos os produtos com um cursor (Stream) do ProdutoRepository
+ *  - escrevemos cada linha direto no OutputStream da resposta HTTP
+ *  - "desanexamos" (detach) cada entidade do Hibernate logo depois de escrever
+ *
+ * Assim o uso de memória fica constante, não importa o tamanho da tabela.
+ */
+@Service
+public class ProdutoExportacaoService {
+
+    //   ===   FORMATOS SUPORTADOS EM ?format=   ===
+    public enum Formato {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv"),
+        // Formatos binários, para os serviços internos:
+        //  - CBOR: sequência de itens CBOR um atrás do outro (RFC 8742)
+        //  - Smile: um cabeçalho e depois os produtos; os nomes dos campos são
+        //    escritos uma vez e depois só referenciados (bem menor que o CBOR)
+        CBOR("application/cbor-seq", "cbor"),
+        SMILE("application/x-jackson-smile", "smile");
+
+        private final String contentType;
+        private final String extensao;
+
+        Formato(String contentType, String extensao) {
+            this.contentType = contentType;
+            this.extensao = extensao;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtensao() {
+            return extensao;
+        }
+
+        // Converte o texto de ?format= (ndjson / csv / cbor / smile). Valor desconhecido → 400 no Controller.
+        public static Formato doParametro(String valor) {
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("Formato inválido: use ndjson, csv, cbor ou smile.");
+            }
+        }
+    }
+
+    private final ProdutoRepository produtoRepository;
+
+    // Writer do Jackson para Produto: um objeto por linha e sem flush a cada objeto
+    // (quem decide quando mandar para a rede é o buffer do Tomcat).
+    private final ObjectWriter produtoWriter;
+
+    // Os mesmos, em CBOR e Smile (ObjectMappers dos conversores de FormatosBinariosConfig)
+    private final ObjectWriter produtoWriterCbor;
+    private final ObjectWriter produtoWriterSmile;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProdutoExportacaoService(ProdutoRepository produtoRepository, ObjectMapper objectMapper,
+                                    MappingJackson2CborHttpMessageConverter conversorCbor,
+                                    MappingJackson2SmileHttpMessageConverter conversorSmile) {
+        this.produtoRepository = produtoRepository;
+        this.produtoWriter = objectMapper.writerFor(Produto.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.produtoWriterCbor = conversorCbor.getObjectMapper().writerFor(Produto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.produtoWriterSmile = conversorSmile.getObjectMapper().writerFor(Produto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+
+    //   ===   EXPORTAR O CATÁLOGO PARA O OUTPUTSTREAM   ===
+    //
+    // Roda dentro de uma transação somente-leitura (o Stream do repository exige).
+    // Devolve quantos produtos foram escritos.
+    @Transactional(readOnly = true)
+    public long exportar(Formato formato, OutputStream saida) throws IOException {
+        try (Stream<Produto> produtos = produtoRepository.streamTodosPorId()) {
+            return switch (formato) {
+                case NDJSON -> escreverNdjson(produtos.iterator(), saida);
+                case CSV -> escreverCsv(produtos.iterator(), saida);
+                case CBOR -> escreverBinario(produtoWriterCbor, produtos.iterator(), saida);
+                case SMILE -> escreverBinario(produtoWriterSmile, produtos.iterator(), saida);
+            };
+        }
+    }
+
+
+    //   ===   NDJSON: um objeto JSON por linha   ===
+    private long escreverNdjson(Iterator<Produto> produtos, OutputStream saida) throws IOException {
+        long total = 0;
+        try (JsonGenerator gerador = produtoWriter.createGenerator(saida)) {
+            // não fecha o OutputStream da resposta; quem cuida dele é o Spring
+            gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (produtos.hasNext()) {
+                Produto produto = produtos.next();
+                // o separador "\n" entre objetos vem do withRootValueSeparator do writer
+                produtoWriter.writeValue(gerador, produto);
+                entityManager.detach(produto);
+                total++;
+            }
+            if (total > 0) {
+                gerador.writeRaw('\n'); // fecha a última linha
+            }
+        }
+        return total;
+    }
+
+
+    //   ===   CBOR / SMILE: um valor por produto, sem separador   ===
+    //
+    // Cada valor binário já diz onde termina, então basta escrever um depois do
+    // outro no mesmo gerador (no Smile é isso que permite reaproveitar os nomes).
+    private long escreverBinario(ObjectWriter writer, Iterator<Produto> produtos, OutputStream saida) throws IOException {
+        long total = 0;
+        try (JsonGenerator gerador = writer.createGenerator(saida)) {
+            gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (produtos.hasNext()) {
+                Produto produto = produtos.next();
+                writer.writeValue(gerador, produto);
+                entityManager.detach(produto);
+                total++;
+            }
+        }
+        return total;
+    }
+
+
+    //   ===   CSV: cabeçalho + uma linha por produto   ===
+    private long escreverCsv(Iterator<Produto> produtos, OutputStream saida) throws IOException {
+        long total = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        writer.write("id,nome,descricao,preco,quantidadeEstoque,fabricante\n");
+        while (produtos.hasNext()) {
+            Produto produto = produtos.next();
+            writer.write(String.valueOf(produto.getId()));
+            writer.write(',');
+            writer.write(campoCsv(produto.getNome()));
+            writer.write(',');
+            writer.write(campoCsv(produto.getDescricao()));
+            writer.write(',');
+            writer.write(produto.getPreco().toPlainString());
+            writer.write(',');
+            writer.write(String.valueOf(produto.getQuantidadeEstoque()));
+            writer.write(',');
+            writer.write(campoCsv(produto.getFabricante()));
+            writer.write('\n');
+            entityManager.detach(produto);
+            total++;
+        }
+        writer.flush();
+        return total;
+    }
+
+    // Coloca o texto entre aspas quando ele tem vírgula, aspas ou quebra de linha (RFC 4180).
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0
+                && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
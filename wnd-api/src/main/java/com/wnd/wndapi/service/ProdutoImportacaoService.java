@@ -0,0 +1,190 @@
+package com.wnd.wndapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.wnd.wndapi.dto.ResultadoImportacao;
+import com.wnd.wndapi.dto.ResultadoImportacao.ErroItem;
+import com.wnd.wndapi.dto.ResultadoImportacao.Interrupcao;
+import com.wnd.wndapi.evento.ProdutoAlteradoEvento;
+import com.wnd.wndapi.model.Produto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service da importação em massa de produtos.
+ *
+ * Recebe um array JSON ([{...}, {...}]) ou NDJSON (um objeto por linha) e:
+ *  1. lê os itens um a um (streaming, sem carregar o arquivo inteiro)
+ *  2. valida cada item com as mesmas regras do @Valid (anotações do Produto)
+ *  3. grava os válidos em lotes, uma transação por lote, usando JDBC batch
+ *
+ * Itens inválidos não impedem a importação dos demais: eles são contados e
+ * devolvidos com a posição do item, a linha do arquivo e as mensagens de erro.
+ * Sintaxe quebrada interrompe a leitura, mas o que veio antes continua gravado.
+ */
+@Service
+public class ProdutoImportacaoService {
+
+    private final ObjectReader produtoReader;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventos;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Quantos itens são validados e gravados por transação
+    private final int tamanhoLote;
+
+    // Limite de erros detalhados na resposta (evita respostas gigantes)
+    private final int maxErrosReportados;
+
+    public ProdutoImportacaoService(ObjectMapper objectMapper,
+                                    Validator validator,
+                                    TransactionTemplate transactionTemplate,
+                                    ApplicationEventPublisher eventos,
+                                    @Value("${wnd.importacao.tamanho-lote:1000}") int tamanhoLote,
+                                    @Value("${wnd.importacao.max-erros-reportados:1000}") int maxErrosReportados) {
+        this.produtoReader = objectMapper.readerFor(Produto.class);
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.eventos = eventos;
+        this.tamanhoLote = tamanhoLote;
+        this.maxErrosReportados = maxErrosReportados;
+    }
+
+
+    //   ===   IMPORTAR PRODUTOS DE UM ARRAY JSON OU NDJSON   ===
+    //
+    // O MappingIterator do Jackson entende os dois formatos:
+    //  - array na raiz: itera pelos elementos
+    //  - vários objetos soltos (NDJSON): itera objeto por objeto
+    //
+    // JSON mal formado (sintaxe quebrada): não dá para continuar lendo com
+    // segurança. O que veio antes é gravado normalmente (inclusive o lote em
+    // andamento) e o resultado diz em que item parou (ver Interrupcao).
+    public ResultadoImportacao importar(InputStream entrada) throws IOException {
+        List<ErroItem> erros = new ArrayList<>();
+        List<Produto> lote = new ArrayList<>(tamanhoLote);
+        long importados = 0;
+        long rejeitados = 0;
+        long item = 0;
+        int linha = 0;
+        // false entre um item e outro: erro de sintaxe aí é no começo do próximo item
+        boolean dentroDoItem = false;
+        Interrupcao interrompida = null;
+
+        try (MappingIterator<Produto> itens = produtoReader.readValues(entrada)) {
+            while (true) {
+                Produto produto;
+                try {
+                    dentroDoItem = false;
+                    if (!itens.hasNextValue()) {
+                        break;
+                    }
+                    item++;
+                    dentroDoItem = true;
+                    // O parser está no "{" do item: a linha onde ele começa no arquivo
+                    linha = itens.getParser().currentTokenLocation().getLineNr();
+                    produto = itens.nextValue();
+                } catch (JsonMappingException e) {
+                    // Item com tipo errado (ex: "preco": "abc"). O iterator pula até
+                    // o fim desse objeto e seguimos para o próximo.
+                    rejeitados++;
+                    registrarErro(erros, item, linha, Map.of("json", e.getOriginalMessage()));
+                    continue;
+                }
+
+                Map<String, String> errosItem = validar(produto);
+                if (!errosItem.isEmpty()) {
+                    rejeitados++;
+                    registrarErro(erros, item, linha, errosItem);
+                    continue;
+                }
+
+                // Importação sempre cria produtos novos: o ID vem da sequence
+                // e a versão começa do zero
+                produto.setId(null);
+                produto.setVersao(null);
+                lote.add(produto);
+
+                if (lote.size() == tamanhoLote) {
+                    importados += gravarLote(lote);
+                    lote.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // Sintaxe inválida: para de ler, mas não descarta nada do que já foi lido
+            int linhaDoErro = e.getLocation() == null ? linha : e.getLocation().getLineNr();
+            interrompida = new Interrupcao(dentroDoItem ? item : item + 1, linhaDoErro, e.getOriginalMessage());
+        }
+
+        if (!lote.isEmpty()) {
+            importados += gravarLote(lote);
+        }
+
+        return new ResultadoImportacao(importados, rejeitados, erros, interrompida);
+    }
+
+
+    //   ===   VALIDAÇÃO DE UM ITEM (mesmas regras do @Valid)   ===
+    //
+    // Devolve "atributo" → "mensagem"; mapa vazio significa item válido.
+    private Map<String, String> validar(Produto produto) {
+        Set<ConstraintViolation<Produto>> violacoes = validator.validate(produto);
+        Map<String, String> erros = new LinkedHashMap<>();
+        for (ConstraintViolation<Produto> v : violacoes) {
+            erros.put(v.getPropertyPath().toString(), v.getMessage());
+        }
+        return erros;
+    }
+
+    private void registrarErro(List<ErroItem> erros, long item, int linha, Map<String, String> errosItem) {
+        if (erros.size() < maxErrosReportados) {
+            erros.add(new ErroItem(item, linha, errosItem));
+        }
+    }
+
+
+    //   ===   GRAVAÇÃO DE UM LOTE EM UMA TRANSAÇÃO   ===
+    //
+    // persist() só registra a entidade; os INSERTs saem agrupados em lotes
+    // JDBC (hibernate.jdbc.batch_size) no flush/commit. Os IDs vêm da
+    // sequence "pooled" do Produto, então o Hibernate não precisa de um
+    // round trip por linha para descobrir o ID gerado.
+    private int gravarLote(List<Produto> lote) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Produto produto : lote) {
+                produto.setPreco(Produto.precoNaEscalaDoBanco(produto.getPreco()));
+                entityManager.persist(produto);
+            }
+            entityManager.flush();
+            // libera as entidades do contexto: a memória não cresce entre lotes
+            entityManager.clear();
+
+            // Avisa quem acompanha o catálogo (um evento por produto, igual ao
+            // cadastro individual). Os ouvintes só reagem depois do commit.
+            for (Produto produto : lote) {
+                eventos.publishEvent(ProdutoAlteradoEvento.criado(produto));
+            }
+        });
+        return lote.size();
+    }
+}
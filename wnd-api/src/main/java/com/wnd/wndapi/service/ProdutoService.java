@@ -1,46 +1,245 @@
 package com.wnd.wndapi.service;
 
+import com.wnd.wndapi.busca.IndiceBuscaProdutos;
+import com.wnd.wndapi.cache.ProdutoCache;
+import com.wnd.wndapi.dto.PaginaProdutos;
+import com.wnd.wndapi.dto.ProdutoCampos;
+import com.wnd.wndapi.dto.ProdutosEmLote;
+import com.wnd.wndapi.dto.ResultadoBusca;
+import com.wnd.wndapi.evento.ProdutoAlteradoEvento;
 import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.CampoOrdenacao;
+import com.wnd.wndapi.repository.CursorProduto;
+import com.wnd.wndapi.repository.FiltroProdutos;
 import com.wnd.wndapi.repository.ProdutoRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Classe responsável por concentrar a lógica de negócio do Produto.
  *
  * O Controller chama este Service para realizar operações como:
- * listar, buscar, salvar, atualizar e excluir.
+ * listar (paginado), buscar, salvar, atualizar e excluir.
  *
  * O Service, por sua vez, conversa diretamente com o ProdutoRepository,
  * que acessa o banco de dados.
  */
+// Cada método público vira um timer "wnd.produto.service" (tags class/method) em /actuator/metrics
+@Timed("wnd.produto.service")
 @Service
 public class ProdutoService {
 
+    // Campos que o PUT troca (e que o PATCH pode trocar): todos menos id e versão
+    public static final Set<String> CAMPOS_EDITAVEIS =
+            Set.of("nome", "descricao", "preco", "quantidadeEstoque", "fabricante");
+
     //   ===   DEPENDÊNCIA: ProdutoRepository   ===
     //
     // O repository é quem realmente acessa o banco de dados.
     // O service apenas coordena as operações e aplica regras de negócio.
     private final ProdutoRepository produtoRepository;
 
+    //   ===   DEPENDÊNCIA: ProdutoCache   ===
+    //
+    // Cache em memória dos produtos buscados por ID (tela de edição).
+    private final ProdutoCache produtoCache;
+
+    //   ===   DEPENDÊNCIA: ApplicationEventPublisher   ===
+    //
+    // Publica um ProdutoAlteradoEvento a cada criação/alteração/exclusão.
+    // Estruturas em memória (ex: índice de busca) escutam esse evento.
+    private final ApplicationEventPublisher eventos;
+
+    //   ===   DEPENDÊNCIA: IndiceBuscaProdutos   ===
+    //
+    // Índice invertido em memória usado pela busca textual.
+    private final IndiceBuscaProdutos indiceBusca;
+
 
     //   ===   CONSTRUTOR PARA INJEÇÃO DE DEPENDÊNCIA   ===
     //
-    // O Spring passa automaticamente uma instância de ProdutoRepository aqui.
-    public ProdutoService(ProdutoRepository produtoRepository) {
+    // O Spring passa automaticamente as instâncias aqui.
+    public ProdutoService(ProdutoRepository produtoRepository,
+                          ProdutoCache produtoCache,
+                          ApplicationEventPublisher eventos,
+                          IndiceBuscaProdutos indiceBusca) {
         this.produtoRepository = produtoRepository;
+        this.produtoCache = produtoCache;
+        this.eventos = eventos;
+        this.indiceBusca = indiceBusca;
     }
 
 
-    //   ===   LISTAR TODOS OS PRODUTOS   ===
+    //   ===   LIMITES DA PAGINAÇÃO   ===
+    //
+    // Tamanho padrão da página e o máximo que um cliente pode pedir em ?limit=.
+    // Nenhuma requisição da listagem carrega a tabela inteira.
+    public static final int LIMITE_PADRAO = 20;
+    public static final int LIMITE_MAXIMO = 100;
+
+
+    //   ===   LISTAR PRODUTOS (UMA PÁGINA POR VEZ)   ===
     //
     // Chamado pelo Controller no GET /api/produtos.
-    // Aqui apenas devolvemos todos os produtos cadastrados no banco.
-    public List<Produto> listarTodos() {
-        // findAll() é fornecido automaticamente pelo JpaRepository.
-        return produtoRepository.findAll();
+    // Devolve só uma página, ordenada pelo campo pedido, começando depois do cursor,
+    // só com os produtos que passam no filtro (fabricante, faixa de preço, estoque).
+    //
+    // Buscamos "limite + 1" itens: se vier o item extra, sabemos que existe
+    // próxima página e montamos o cursor a partir do último item entregue.
+    //
+    // readOnly: com o perfil "replicas", as leituras vão para uma réplica (ver ReplicasConfig).
+    @Transactional(readOnly = true)
+    public PaginaProdutos<Produto> listarPagina(String after, Integer limite, String sort, String direcao,
+                                                FiltroProdutos filtro) {
+        ParametrosPagina parametros = ParametrosPagina.ler(after, limite, sort, direcao);
+        int tamanho = parametros.tamanho();
+
+        List<Produto> produtos = produtoRepository.buscarPagina(
+                parametros.campo(), parametros.crescente(), parametros.cursor(), filtro, tamanho + 1);
+
+        if (produtos.size() <= tamanho) {
+            return new PaginaProdutos<>(produtos, null);
+        }
+
+        List<Produto> pagina = produtos.subList(0, tamanho);
+        return new PaginaProdutos<>(pagina, cursorDepoisDe(pagina.get(tamanho - 1), parametros.campo()).codificar());
+    }
+
+
+    //   ===   LISTAR SÓ ALGUNS CAMPOS (?fields=id,nome,preco)   ===
+    //
+    // Mesma página do listarPagina, mas o banco devolve só as colunas pedidas
+    // e cada item vira { campo: valor } — nada de Produto completo (a descrição,
+    // que é o campo mais pesado, só vem se for pedida).
+    //
+    // O repositório sempre traz o id e a coluna da ordenação (o cursor precisa
+    // deles); o que não foi pedido sai do item antes de responder.
+    @Transactional(readOnly = true)
+    public PaginaProdutos<Map<String, Object>> listarPaginaCampos(String after, Integer limite, String sort,
+                                                                  String direcao, FiltroProdutos filtro,
+                                                                  String fields) {
+        ParametrosPagina parametros = ParametrosPagina.ler(after, limite, sort, direcao);
+        Set<String> campos = camposDoParametro(fields);
+        int tamanho = parametros.tamanho();
+        String atributoOrdenacao = parametros.campo().getAtributo();
+
+        List<Map<String, Object>> itens = produtoRepository.buscarPaginaCampos(
+                parametros.campo(), parametros.crescente(), parametros.cursor(), filtro, tamanho + 1, campos);
+
+        String proximoCursor = null;
+        if (itens.size() > tamanho) {
+            itens = itens.subList(0, tamanho);
+            Map<String, Object> ultimo = itens.get(tamanho - 1);
+            Comparable<?> valor = parametros.campo() == CampoOrdenacao.ID
+                    ? null : (Comparable<?>) ultimo.get(atributoOrdenacao);
+            proximoCursor = new CursorProduto((Long) ultimo.get("id"), valor).codificar();
+        }
+        if (!campos.contains(atributoOrdenacao)) {
+            itens.forEach(item -> item.remove(atributoOrdenacao));
+        }
+        return new PaginaProdutos<>(itens, proximoCursor);
+    }
+
+
+    //   ===   CAMPOS QUE PODEM SER PEDIDOS EM ?fields=   ===
+    //
+    // Na ordem em que aparecem no JSON do Produto completo.
+    public static final List<String> CAMPOS_CONSULTAVEIS =
+            List.of("id", "nome", "descricao", "preco", "quantidadeEstoque", "fabricante", "versao");
+
+    // "nome, preco" → [id, nome, preco]. O id vem sempre (é o que identifica o item).
+    // Campo desconhecido gera IllegalArgumentException → o Controller devolve 400.
+    public static Set<String> camposDoParametro(String fields) {
+        Set<String> pedidos = new HashSet<>();
+        for (String campo : fields.split(",")) {
+            String nome = campo.trim();
+            if (nome.isEmpty()) {
+                continue;
+            }
+            if (!CAMPOS_CONSULTAVEIS.contains(nome)) {
+                throw new IllegalArgumentException(
+                        "Campo inválido em fields: " + nome + ". Use " + String.join(", ", CAMPOS_CONSULTAVEIS) + ".");
+            }
+            pedidos.add(nome);
+        }
+        Set<String> campos = new LinkedHashSet<>();
+        for (String campo : CAMPOS_CONSULTAVEIS) {
+            if (campo.equals("id") || pedidos.contains(campo)) {
+                campos.add(campo);
+            }
+        }
+        return campos;
+    }
+
+
+    //   ===   PARÂMETROS DA LISTAGEM (?after, ?limit, ?sort, ?dir) JÁ CONFERIDOS   ===
+    private record ParametrosPagina(CampoOrdenacao campo, boolean crescente, int tamanho, CursorProduto cursor) {
+
+        static ParametrosPagina ler(String after, Integer limite, String sort, String direcao) {
+            CampoOrdenacao campo = CampoOrdenacao.doParametro(sort);
+            if (direcao != null && !direcao.equalsIgnoreCase("asc") && !direcao.equalsIgnoreCase("desc")) {
+                throw new IllegalArgumentException("Direção inválida: use asc ou desc.");
+            }
+            boolean crescente = direcao == null || direcao.equalsIgnoreCase("asc");
+            int tamanho = limite == null ? LIMITE_PADRAO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+            return new ParametrosPagina(campo, crescente, tamanho, CursorProduto.decodificar(after, campo));
+        }
+    }
+
+
+    //   ===   LIMITES DA BUSCA TEXTUAL   ===
+    //
+    // O offset é limitado para a busca não ter que ranquear resultados demais.
+    public static final int BUSCA_OFFSET_MAXIMO = 1000;
+
+
+    //   ===   BUSCA TEXTUAL (nome, descrição e fabricante)   ===
+    //
+    // Chamado pelo Controller no GET /api/produtos/search?q=...
+    // Quem encontra e ordena os produtos é o índice em memória; do banco só
+    // buscamos os produtos da página (uma consulta por ID IN (...)).
+    @Transactional(readOnly = true)
+    public ResultadoBusca buscarTexto(String consulta, Integer offset, Integer limite) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new IllegalArgumentException("Informe o texto da busca em ?q=.");
+        }
+        if (!indiceBusca.estaPronto()) {
+            throw new IllegalStateException("Índice de busca ainda está sendo carregado.");
+        }
+        int inicio = offset == null ? 0 : Math.max(0, Math.min(offset, BUSCA_OFFSET_MAXIMO));
+        int tamanho = limite == null ? LIMITE_PADRAO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+
+        IndiceBuscaProdutos.ResultadoIndice resultado = indiceBusca.buscar(consulta, inicio, tamanho);
+
+        // findAllById não garante a ordem: reorganizamos pela ordem de relevância.
+        Map<Long, Produto> porId = new HashMap<>();
+        for (Produto produto : produtoRepository.findAllById(resultado.ids())) {
+            porId.put(produto.getId(), produto);
+        }
+        List<Produto> itens = new ArrayList<>(resultado.ids().size());
+        for (Long id : resultado.ids()) {
+            Produto produto = porId.get(id);
+            if (produto != null) {
+                itens.add(produto);
+            }
+        }
+
+        int fim = inicio + resultado.ids().size();
+        Integer proximoOffset = fim < resultado.total() && fim <= BUSCA_OFFSET_MAXIMO ? fim : null;
+        return new ResultadoBusca(resultado.total(), itens, proximoOffset);
     }
 
 
@@ -48,14 +247,134 @@ public class ProdutoService {
     //
     // Usado na tela de edição, quando o usuário clica em “Alterar”.
     // O Controller chama este método antes de preencher os campos do formulário.
+    //
+    // Sem @Transactional aqui: no acerto de cache não há banco nenhum. O
+    // findById já roda numa transação somente-leitura própria (vai para uma
+    // réplica no perfil "replicas").
     public Produto buscarPorId(Long id) {
 
+        // 1️⃣ Primeiro olhamos o cache: se o produto está lá, nem vamos ao banco.
+        Produto emCache = produtoCache.buscar(id);
+        if (emCache != null) {
+            return emCache;
+        }
+
+        // 2️⃣ Não estava no cache: buscamos no banco.
         // findById(id) retorna um Optional<Produto>.
         // orElseThrow() lança uma exceção caso o produto não exista.
-        return produtoRepository.findById(id)
+        long marca = produtoCache.marcarLeitura();
+        Produto produto = produtoRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Produto não encontrado"));
 
         // Se cair na exceção, o Controller captura e devolve HTTP 404.
+
+        // 3️⃣ Guardamos no cache para as próximas buscas.
+        produtoCache.guardarSeAtual(produto, marca);
+        return produto;
+    }
+
+
+    //   ===   BUSCAR VÁRIOS PRODUTOS POR ID (GET/POST /api/produtos/batch)   ===
+    //
+    // Para quem precisa de dezenas de produtos de uma vez (ex: o serviço de
+    // pedidos): uma requisição só em vez de uma por produto.
+    //
+    // Os que estão no cache saem dele; os outros vêm do banco com
+    // "where id in (...)", em blocos de IDS_POR_CONSULTA (uma consulta por
+    // bloco, não uma por produto). Como no buscarPorId, sem @Transactional:
+    // cada consulta roda na transação somente-leitura do repository.
+    public static final int IDS_POR_LOTE_MAXIMO = 500;
+    public static final int IDS_POR_CONSULTA = 100;
+
+    public ProdutosEmLote buscarPorIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um id.");
+        }
+        // Id repetido é buscado (e devolvido) uma vez só
+        Set<Long> pedidos = new LinkedHashSet<>(ids);
+        if (pedidos.contains(null)) {
+            throw new IllegalArgumentException("Id inválido: null.");
+        }
+        if (pedidos.size() > IDS_POR_LOTE_MAXIMO) {
+            throw new IllegalArgumentException("No máximo " + IDS_POR_LOTE_MAXIMO + " ids por lote.");
+        }
+
+        Map<Long, Produto> encontrados = new HashMap<>();
+        List<Long> faltando = new ArrayList<>();
+        for (Long id : pedidos) {
+            Produto emCache = produtoCache.buscar(id);
+            if (emCache != null) {
+                encontrados.put(id, emCache);
+            } else {
+                faltando.add(id);
+            }
+        }
+
+        long marca = produtoCache.marcarLeitura();
+        for (int inicio = 0; inicio < faltando.size(); inicio += IDS_POR_CONSULTA) {
+            List<Long> bloco = faltando.subList(inicio, Math.min(inicio + IDS_POR_CONSULTA, faltando.size()));
+            for (Produto produto : produtoRepository.findAllById(bloco)) {
+                encontrados.put(produto.getId(), produto);
+                produtoCache.guardarSeAtual(produto, marca);
+            }
+        }
+
+        // findAllById não garante a ordem: montamos a resposta na ordem do pedido
+        List<Produto> itens = new ArrayList<>(encontrados.size());
+        List<Long> naoEncontrados = new ArrayList<>();
+        for (Long id : pedidos) {
+            Produto produto = encontrados.get(id);
+            if (produto != null) {
+                itens.add(produto);
+            } else {
+                naoEncontrados.add(id);
+            }
+        }
+        return new ProdutosEmLote(itens, naoEncontrados);
+    }
+
+
+    //   ===   BUSCAR SÓ ALGUNS CAMPOS DE UM PRODUTO (?fields=)   ===
+    //
+    // Se o produto completo já está no cache, os campos saem dele (sem banco).
+    // Senão, o SELECT traz só as colunas pedidas; o resultado parcial não vai
+    // para o cache (lá só ficam produtos completos).
+    //
+    // A versão sempre é lida, porque o ETag é montado com ela; se não foi
+    // pedida, sai do mapa antes de responder.
+    // (Como no buscarPorId, a transação somente-leitura é a do repository.)
+    public ProdutoCampos buscarCamposPorId(Long id, String fields) {
+        Set<String> campos = camposDoParametro(fields);
+        Set<String> lidos = new LinkedHashSet<>(campos);
+        lidos.add("versao");
+
+        Map<String, Object> valores;
+        Produto emCache = produtoCache.buscar(id);
+        if (emCache != null) {
+            valores = new LinkedHashMap<>();
+            for (String campo : lidos) {
+                valores.put(campo, valorDoCampo(emCache, campo));
+            }
+        } else {
+            valores = produtoRepository.buscarCampos(id, lidos)
+                    .orElseThrow(() -> new EntityNotFoundException("Produto não encontrado"));
+        }
+
+        String etag = ProdutoCache.etag(id, (Long) valores.get("versao"));
+        if (!campos.contains("versao")) {
+            valores.remove("versao");
+        }
+        return new ProdutoCampos(valores, etag);
+    }
+
+
+    //   ===   ETAG DO PRODUTO, SE ESTIVER EM CACHE   ===
+    //
+    // Usado no GET condicional (If-None-Match): se o ETag em cache bate com o
+    // do navegador, o Controller responde 304 sem banco e sem gerar JSON.
+    // Devolve null quando o produto não está em cache.
+    public String etagEmCache(Long id) {
+        return produtoCache.etagEmCache(id);
     }
 
 
@@ -63,51 +382,180 @@ public class ProdutoService {
     //
     // Chamado pelo Controller no POST /api/produtos.
     // Recebe o objeto já validado e manda gravar no banco.
+    //
+    // @Transactional: o INSERT e o evento fazem parte da mesma transação; quem
+    // escuta o evento (cache, índice, agregados...) só reage depois do commit.
+    @Transactional
     public Produto salvar(Produto produto) {
+        produto.setPreco(Produto.precoNaEscalaDoBanco(produto.getPreco()));
         // save() insere um novo registro ou atualiza se já tiver ID.
-        return produtoRepository.save(produto);
+        Produto salvo = produtoRepository.save(produto);
+
+        // Avisa quem acompanha o catálogo (índice de busca, agregados etc.).
+        eventos.publishEvent(ProdutoAlteradoEvento.criado(salvo));
+        return salvo;
     }
 
 
     //   ===   ATUALIZAR PRODUTO EXISTENTE   ===
     //
     // Chamado pelo Controller no PUT /api/produtos/{id}.
-    // Primeiro buscamos o produto existente. Depois atualizamos campo por campo.
-    public Produto atualizar(Long id, Produto dadosAtualizados) {
+    // Troca todos os campos editáveis (nome, descrição, preço, estoque, fabricante).
+    //
+    // versaoEsperada: a versão que o cliente leu (If-Match do PUT ou "versao" no JSON).
+    // Se o produto mudou desde então (outro PUT, uma reserva de estoque...),
+    // lança OptimisticLockingFailureException em vez de sobrescrever a mudança.
+    // Com null, atualiza qualquer que seja a versão atual (o Controller não
+    // deixa um PUT chegar aqui sem versão: 428, ver ProdutoController.atualizar).
+    @Transactional
+    public Produto atualizar(Long id, Produto dadosAtualizados, Long versaoEsperada) {
+        return atualizarCampos(id, dadosAtualizados, CAMPOS_EDITAVEIS, versaoEsperada);
+    }
 
-        // 1️⃣ Buscar o produto existente no banco.
-        // Se não existir, lançar EntityNotFoundException.
-        Produto existente = produtoRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Produto não encontrado"));
 
-        // 2️⃣ Atualizar manualmente cada campo do produto existente
-        //    com os novos valores enviados pelo front.
-        existente.setNome(dadosAtualizados.getNome());
-        existente.setDescricao(dadosAtualizados.getDescricao());
-        existente.setPreco(dadosAtualizados.getPreco());
-        existente.setQuantidadeEstoque(dadosAtualizados.getQuantidadeEstoque());
-        existente.setFabricante(dadosAtualizados.getFabricante());
+    //   ===   ATUALIZAÇÃO PARCIAL (PATCH)   ===
+    //
+    // Chamado pelo Controller no PATCH /api/produtos/{id}.
+    // Só os "campos" listados são alterados (com os valores de "alteracoes");
+    // os demais ficam como estão no banco.
+    @Transactional
+    public Produto atualizarParcial(Long id, Produto alteracoes, Set<String> campos, Long versaoEsperada) {
+        return atualizarCampos(id, alteracoes, campos, versaoEsperada);
+    }
+
+    // Um único UPDATE ... WHERE id = ? (ver ProdutoRepository.atualizarCampos),
+    // sem ler o produto antes. O banco devolve a linha como estava, e o produto
+    // novo é montado aqui: linha antiga + campos alterados + versão + 1.
+    //
+    // O preço vai já na escala da coluna: o que o banco grava é exatamente o
+    // valor do produto novo (sem isso, 19.999 voltaria na resposta e nos eventos
+    // enquanto a linha guarda 20.00).
+    private Produto atualizarCampos(Long id, Produto alteracoes, Set<String> campos, Long versaoEsperada) {
+        alteracoes.setPreco(Produto.precoNaEscalaDoBanco(alteracoes.getPreco()));
+        Map<String, Object> valores = new LinkedHashMap<>();
+        for (String campo : campos) {
+            valores.put(campo, valorDoCampo(alteracoes, campo));
+        }
+
+        // Nenhuma linha alterada: ou o produto não existe, ou está em outra versão
+        Produto anterior = produtoRepository.atualizarCampos(id, valores, versaoEsperada)
+                .orElseThrow(() -> naoAtualizado(id));
+
+        Produto atual = anterior.copiar();
+        atual.setNome(campos.contains("nome") ? alteracoes.getNome() : anterior.getNome());
+        atual.setDescricao(campos.contains("descricao") ? alteracoes.getDescricao() : anterior.getDescricao());
+        atual.setPreco(campos.contains("preco") ? alteracoes.getPreco() : anterior.getPreco());
+        atual.setQuantidadeEstoque(campos.contains("quantidadeEstoque")
+                ? alteracoes.getQuantidadeEstoque() : anterior.getQuantidadeEstoque());
+        atual.setFabricante(campos.contains("fabricante") ? alteracoes.getFabricante() : anterior.getFabricante());
+        atual.setVersao(anterior.getVersao() + 1);
+
+        // Avisar quem acompanha o catálogo. Depois do commit, o ProdutoCache
+        // tira a versão antiga do cache e o índice/agregados se atualizam.
+        eventos.publishEvent(ProdutoAlteradoEvento.atualizado(anterior, atual));
+        return atual;
+    }
+
+    // Valor de um atributo pelo nome (PATCH e ?fields= com o produto em cache)
+    private static Object valorDoCampo(Produto produto, String campo) {
+        return switch (campo) {
+            case "id" -> produto.getId();
+            case "nome" -> produto.getNome();
+            case "descricao" -> produto.getDescricao();
+            case "preco" -> produto.getPreco();
+            case "quantidadeEstoque" -> produto.getQuantidadeEstoque();
+            case "fabricante" -> produto.getFabricante();
+            case "versao" -> produto.getVersao();
+            default -> throw new IllegalArgumentException("Campo desconhecido: " + campo);
+        };
+    }
+
+    // Só no caminho de erro (UPDATE não alterou nada) o produto é lido, para
+    // diferenciar "não existe" (404) de "mudou de versão" (409/412).
+    private RuntimeException naoAtualizado(Long id) {
+        return produtoRepository.findById(id)
+                .<RuntimeException>map(atual -> new OptimisticLockingFailureException(
+                        "O produto foi alterado por outra operação (versão atual: " + atual.getVersao() + ")."))
+                .orElseGet(() -> new EntityNotFoundException("Produto não encontrado"));
+    }
+
+
+    //   ===   RESERVAR / LIBERAR ESTOQUE (checkout)   ===
+    //
+    // Um único UPDATE condicional faz a baixa (ver ProdutoRepository.reservarEstoque):
+    // muitas reservas ao mesmo tempo no mesmo produto nunca vendem além do estoque
+    // e nenhuma baixa se perde.
+    //
+    // Lança:
+    //  - IllegalArgumentException  → quantidade menor que 1
+    //  - EntityNotFoundException   → produto não existe
+    //  - IllegalStateException     → estoque insuficiente (nada é alterado)
+    @Transactional
+    public Produto reservarEstoque(Long id, int quantidade) {
+        validarQuantidade(quantidade);
+        if (produtoRepository.reservarEstoque(id, quantidade) == 0) {
+            Produto produto = produtoRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("Produto não encontrado"));
+            throw new IllegalStateException("Estoque insuficiente: disponível "
+                    + produto.getQuantidadeEstoque() + ", pedido " + quantidade + ".");
+        }
+        return depoisDaMovimentacao(id, -quantidade);
+    }
 
-        // 3️⃣ Salvar o produto atualizado no banco.
-        return produtoRepository.save(existente);
+    // Devolve ao estoque uma quantidade reservada antes (carrinho abandonado, pedido cancelado...).
+    @Transactional
+    public Produto liberarEstoque(Long id, int quantidade) {
+        validarQuantidade(quantidade);
+        if (produtoRepository.liberarEstoque(id, quantidade) == 0) {
+            throw new EntityNotFoundException("Produto não encontrado");
+        }
+        return depoisDaMovimentacao(id, quantidade);
     }
 
+    private static void validarQuantidade(int quantidade) {
+        if (quantidade < 1) {
+            throw new IllegalArgumentException("A quantidade deve ser maior que zero.");
+        }
+    }
+
+    // Lê o produto já alterado (a linha continua travada pelo UPDATE até o commit,
+    // então ninguém muda nada entre o UPDATE e esta leitura) e publica o evento.
+    private Produto depoisDaMovimentacao(Long id, int diferenca) {
+        Produto atual = produtoRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Produto não encontrado"));
+
+        Produto anterior = atual.copiar();
+        anterior.setQuantidadeEstoque(atual.getQuantidadeEstoque() - diferenca);
+        anterior.setVersao(atual.getVersao() - 1);
+
+        eventos.publishEvent(ProdutoAlteradoEvento.atualizado(anterior, atual));
+        return atual;
+    }
 
     //   ===   EXCLUIR PRODUTO   ===
     //
     // Chamado pelo Controller no DELETE /api/produtos/{id}.
+    // Um único DELETE ... WHERE id = ?: se nenhuma linha saiu, o produto não
+    // existia (EntityNotFoundException → 404). O banco devolve a linha
+    // excluída, e os agregados usam o preço/estoque/fabricante que saíram do catálogo.
+    @Transactional
     public void excluir(Long id) {
-        // deleteById() remove o registro da tabela.
-        // Se o ID não existir, o Controller já terá tratado antes.
-        produtoRepository.deleteById(id);
+        Produto excluido = produtoRepository.excluirPorId(id)
+                .orElseThrow(() -> new EntityNotFoundException("Produto não encontrado"));
+
+        // Avisar quem acompanha o catálogo (o cache tira o produto depois do commit).
+        eventos.publishEvent(ProdutoAlteradoEvento.excluido(id, excluido));
     }
 
 
-    //   ===   CHECAR SE O PRODUTO EXISTE PELO ID   ===
-    //
-    // Usado antes de excluir, para evitar erro caso o ID não exista.
-    public boolean existePorId(Long id) {
-        // existsById() verifica diretamente no banco.
-        return produtoRepository.existsById(id);
+    //   ===   MONTA O CURSOR A PARTIR DO ÚLTIMO PRODUTO DA PÁGINA   ===
+    private CursorProduto cursorDepoisDe(Produto ultimo, CampoOrdenacao campo) {
+        Comparable<?> valor = switch (campo) {
+            case ID -> null;
+            case NOME -> ultimo.getNome();
+            case PRECO -> ultimo.getPreco();
+            case FABRICANTE -> ultimo.getFabricante();
+        };
+        return new CursorProduto(ultimo.getId(), valor);
     }
 }
@@ -0,0 +1,26 @@
+-- Schema do catálogo, usado no perfil "rapido" (ver application-rapido.properties).
+--
+-- Nos outros perfis o Hibernate cria/atualiza a tabela sozinho (ddl-auto=update),
+-- comparando o mapeamento com o banco a cada subida. No "rapido" este script cria
+-- tudo direto e o Hibernate só confere (ddl-auto=validate): se alguém mudar a
+-- entidade Produto e esquecer deste arquivo, a aplicação não sobe.
+--
+-- Gerado a partir do mapeamento (jakarta.persistence.schema-generation.scripts.*).
+
+create sequence produtos_seq start with 1 increment by 50;
+
+create table produtos (
+    preco numeric(38,2) not null,
+    quantidade_estoque integer not null check (quantidade_estoque >= 0),
+    id bigint not null,
+    versao bigint,
+    descricao varchar(255) not null,
+    fabricante varchar(255) not null,
+    nome varchar(255) not null,
+    primary key (id)
+);
+
+create index idx_produtos_nome_id on produtos (nome, id);
+create index idx_produtos_preco_id on produtos (preco, id);
+create index idx_produtos_fabricante_id on produtos (fabricante, id);
+create index idx_produtos_estoque_id on produtos (quantidade_estoque, id);
@@ -32,6 +32,11 @@ document.addEventListener("DOMContentLoaded", () => {
   const params = new URLSearchParams(location.search);
   const id = params.get("id"); // aqui pegamos o valor de "id"
 
+  // ETag do produto como ele foi carregado (ex: "15-3" = produto 15, versão 3).
+  // Vai no PUT como If-Match: se alguém alterou o produto nesse meio tempo
+  // (outra edição, uma reserva de estoque...), o back responde 412 em vez de sobrescrever.
+  let etagCarregado = null;
+
   //   ===   FUNÇÃO: limparMensagens   ===
   //
   // Apaga todas as mensagens que estiverem dentro da div de mensagens.
@@ -131,6 +136,8 @@ document.addEventListener("DOMContentLoaded", () => {
         if (!resp.ok) {
           throw new Error("Erro ao buscar produto. Código: " + resp.status);
         }
+        // Guarda a versão carregada para o If-Match do PUT
+        etagCarregado = resp.headers.get("ETag");
         // Se deu tudo certo, transforma o JSON da resposta em objeto JavaScript
         return resp.json();
       })
@@ -195,14 +202,32 @@ document.addEventListener("DOMContentLoaded", () => {
       //       → chama produtoRepository.save(existente)
       //
       // A validação @Valid também roda no Controller na entrada deste método.
+      const headers = {
+        "Content-Type": "application/json" // informando que o corpo é JSON
+      };
+      if (etagCarregado) {
+        headers["If-Match"] = etagCarregado; // só grava se o produto ainda estiver na versão carregada
+      }
       const resp = await fetch(`${API_BASE}/produtos/${id}`, {
         method: "PUT",
-        headers: {
-          "Content-Type": "application/json" // informando que o corpo é JSON
-        },
+        headers,
         body: JSON.stringify(produtoAtualizado) // enviando o produto atualizado para o back-end
       });
 
+      //   ===   PRODUTO ALTERADO POR OUTRA OPERAÇÃO (HTTP 412 / 409)   ===
+      //
+      // Alguém mudou o produto depois que esta tela o carregou. Nada foi gravado:
+      // recarregamos os dados atuais para a pessoa revisar e salvar de novo.
+      if (resp.status === 412 || resp.status === 409) {
+        mostrarMensagem(
+          "Este produto foi alterado enquanto você editava. Os dados atuais foram recarregados; revise e salve de novo.",
+          "error",
+          true
+        );
+        carregarProduto();
+        return;
+      }
+
       //   ===   TRATAMENTO DE ERRO DE VALIDAÇÃO (HTTP 400)   ===
       if (resp.status === 400) {
         // Esperamos que, em caso de erro de validação, o back retorne um JSON
@@ -23,6 +23,14 @@ document.addEventListener("DOMContentLoaded", () => {
   // Botão "Cancelar" dentro do modal
   const btnCancelarExcluir = document.getElementById("btnCancelarExcluir");
 
+  //   ===   ELEMENTOS DA PAGINAÇÃO / ORDENAÇÃO   ===
+
+  // Botão "Carregar mais" (aparece enquanto houver próxima página)
+  const btnCarregarMais = document.getElementById("btnCarregarMais");
+
+  // Select com a ordenação escolhida (valor no formato "campo:direcao")
+  const selectOrdenacao = document.getElementById("ordenacao");
+
   // Variável para guardar temporariamente o ID do produto que o usuário quer excluir
   let idParaExcluir = null;
 
@@ -79,159 +87,260 @@ document.addEventListener("DOMContentLoaded", () => {
   }
 
 
+  //   ===   ESTADO DA PAGINAÇÃO   ===
+  //
+  // A API devolve os produtos em páginas (GET /api/produtos?after=...&limit=...).
+  // Guardamos aqui o cursor da próxima página e a ordenação escolhida.
+  const TAMANHO_PAGINA = 20;
+
+  // Só os campos que o card usa (a versão do produto não aparece na lista)
+  const CAMPOS_CARD = "id,nome,fabricante,preco,quantidadeEstoque,descricao";
+  let proximoCursor = null;   // "proximoCursor" devolvido pela última página
+  let carregando = false;     // evita pedir a mesma página duas vezes
+
+
+  //   ===   FUNÇÃO: montarUrlPagina   ===
+  //
+  // Monta a URL da listagem com ordenação, limite, os campos que o card
+  // mostra (?fields=) e (se houver) o cursor.
+  // Ex: /api/produtos?sort=nome&dir=asc&limit=20&fields=...&after=42.TWFvdXNl
+  //
+  // A primeira página na ordem padrão (ID) vai só com ?limit=: é a página
+  // pronta do back-end (ListagemPronta), com ETag — o navegador revalida e
+  // recebe 304 quando nada mudou. Ela traz o produto completo (com a versão),
+  // o card só ignora o campo a mais.
+  function montarUrlPagina(cursor) {
+    if (!cursor && selectOrdenacao.value === "id:asc") {
+      return "/api/produtos?limit=" + TAMANHO_PAGINA;
+    }
+    const [sort, dir] = selectOrdenacao.value.split(":");
+    const params = new URLSearchParams({
+      sort,
+      dir,
+      limit: TAMANHO_PAGINA,
+      fields: CAMPOS_CARD,
+    });
+    if (cursor) {
+      params.set("after", cursor);
+    }
+    return "/api/produtos?" + params.toString();
+  }
+
+
+  //   ===   FUNÇÃO: criarCard   ===
+  //
+  // Monta o <article> de um produto com os botões "Alterar" e "Excluir".
+  function criarCard(p) {
+    const card = document.createElement("article");
+    card.classList.add("produto-card");
+    card.setAttribute("data-id", p.id);
+
+    const precoFormatado = formatarPreco(p.preco);
+
+    // Regra visual do "Estoque baixo": se quantidade <= 3
+    const estoqueBaixo =
+      p.quantidadeEstoque != null && p.quantidadeEstoque <= 3;
+
+    //   ===   HTML DO CARD DE CADA PRODUTO   ===
+    //
+    // Aqui mostramos:
+    //  - ID
+    //  - Nome
+    //  - Fabricante
+    //  - Preço (formatado)
+    //  - Quantidade + badge "Estoque baixo" quando se aplica
+    //  - Descrição
+    //  - Botões Alterar / Excluir (com data-id para referência)
+    card.innerHTML = `
+      <div class="produto-header">
+        <span class="produto-id">ID ${p.id}</span>
+        <h3 class="produto-nome">${p.nome}</h3>
+      </div>
+
+      <div class="produto-linha">
+        <span class="produto-label">Fabricante:</span>
+        <span class="produto-valor">${p.fabricante}</span>
+      </div>
+
+      <div class="produto-linha">
+        <span class="produto-label">Preço:</span>
+        <span class="produto-valor">R$ ${precoFormatado}</span>
+      </div>
+
+      <div class="produto-linha">
+        <span class="produto-label">Quantidade:</span>
+        <span class="produto-valor">
+          ${p.quantidadeEstoque}
+          ${
+            estoqueBaixo
+              ? '<button class="badge-low-inline">Estoque baixo</button>'
+              : ""
+          }
+        </span>
+      </div>
+
+      <div class="produto-linha">
+        <span class="produto-label">Descrição:</span>
+        <span class="produto-valor produto-valor-descricao">
+          ${p.descricao}
+        </span>
+      </div>
+
+      <div class="produto-acoes">
+        <button class="btn btn-table btn-edit" data-id="${p.id}">
+          Alterar
+        </button>
+        <button class="btn btn-table btn-delete" data-id="${p.id}">
+          Excluir
+        </button>
+      </div>
+    `;
+
+    return card;
+  }
+
+
   //   ===   FUNÇÃO: carregarProdutos   ===
   //
   // Essa função é responsável por:
-  //  1. Buscar os produtos no back-end (GET /api/produtos)
-  //  2. Montar um card para cada produto
-  //  3. Configurar os botões de "Alterar" e "Excluir"
+  //  1. Buscar UMA página de produtos no back-end (GET /api/produtos?...)
+  //  2. Montar um card para cada produto da página
+  //  3. Guardar o cursor da próxima página e mostrar/esconder o "Carregar mais"
+  //
+  //  - reiniciar = true  → limpa a lista e busca a primeira página
+  //  - reiniciar = false → acrescenta a próxima página no fim da lista
   //
   // Fluxo back-end:
   //   - Controller: ProdutoController.listar()
-  //   - Service: ProdutoService.listarTodos()
-  //   - Repository: ProdutoRepository.findAll()
-  function carregarProdutos() {
-    limparMensagens();
-    listaDiv.innerHTML = "<p>Carregando produtos...</p>";
+  //   - Service: ProdutoService.listarPagina()
+  //   - Repository: ProdutoRepository.buscarPagina() (keyset, sem ler a tabela toda)
+  function carregarProdutos(reiniciar = true) {
+    if (carregando) return;
+    carregando = true;
+
+    if (reiniciar) {
+      limparMensagens();
+      proximoCursor = null;
+      listaDiv.innerHTML = "<p>Carregando produtos...</p>";
+    }
 
     //   ===   CHAMADA AO BACK: GET /api/produtos   ===
-    fetch("/api/produtos")
+    fetch(montarUrlPagina(reiniciar ? null : proximoCursor))
       .then((resp) => {
         if (!resp.ok) {
           // se deu algum erro (500, 404, etc.)
           throw new Error("Erro ao buscar produtos. Código: " + resp.status);
         }
-        return resp.json(); // converte JSON em array de objetos
+        return resp.json(); // converte JSON em { itens, proximoCursor }
       })
-      .then((produtos) => {
-        // Se não vier array ou estiver vazio, mostra mensagem amigável
-        if (!Array.isArray(produtos) || produtos.length === 0) {
-          listaDiv.innerHTML = "<p>Nenhum produto cadastrado.</p>";
-          return;
+      .then((pagina) => {
+        const produtos = pagina.itens || [];
+
+        if (reiniciar) {
+          // Limpa o "Carregando..." da primeira página
+          listaDiv.innerHTML = "";
         }
 
-        // Limpa qualquer conteúdo anterior
-        listaDiv.innerHTML = "";
+        // Se a primeira página veio vazia, mostra mensagem amigável
+        if (reiniciar && produtos.length === 0) {
+          listaDiv.innerHTML = "<p>Nenhum produto cadastrado.</p>";
+        }
 
         // Para cada produto vindo do back-end, montamos um "card" na tela
-        produtos.forEach((p) => {
-          const card = document.createElement("article");
-          card.classList.add("produto-card");
-
-          const precoFormatado = formatarPreco(p.preco);
-
-          // Regra visual do "Estoque baixo": se quantidade <= 3
-          const estoqueBaixo =
-            p.quantidadeEstoque != null && p.quantidadeEstoque <= 3;
-
-          //   ===   HTML DO CARD DE CADA PRODUTO   ===
-          //
-          // Aqui mostramos:
-          //  - ID
-          //  - Nome
-          //  - Fabricante
-          //  - Preço (formatado)
-          //  - Quantidade + badge "Estoque baixo" quando se aplica
-          //  - Descrição
-          //  - Botões Alterar / Excluir (com data-id para referência)
-          card.innerHTML = `
-            <div class="produto-header">
-              <span class="produto-id">ID ${p.id}</span>
-              <h3 class="produto-nome">${p.nome}</h3>
-            </div>
-
-            <div class="produto-linha">
-              <span class="produto-label">Fabricante:</span>
-              <span class="produto-valor">${p.fabricante}</span>
-            </div>
-
-            <div class="produto-linha">
-              <span class="produto-label">Preço:</span>
-              <span class="produto-valor">R$ ${precoFormatado}</span>
-            </div>
-
-            <div class="produto-linha">
-              <span class="produto-label">Quantidade:</span>
-              <span class="produto-valor">
-                ${p.quantidadeEstoque}
-                ${
-                  estoqueBaixo
-                    ? '<button class="badge-low-inline">Estoque baixo</button>'
-                    : ""
-                }
-              </span>
-            </div>
-
-            <div class="produto-linha">
-              <span class="produto-label">Descrição:</span>
-              <span class="produto-valor produto-valor-descricao">
-                ${p.descricao}
-              </span>
-            </div>
-
-            <div class="produto-acoes">
-              <button class="btn btn-table btn-edit" data-id="${p.id}">
-                Alterar
-              </button>
-              <button class="btn btn-table btn-delete" data-id="${p.id}">
-                Excluir
-              </button>
-            </div>
-          `;
-
-          // adiciona o card pronto na área de listagem
-          listaDiv.appendChild(card);
-        });
-
-        // Depois de criar todos os cards, ligamos os cliques dos botões
-        configurarBotoes();
+        produtos.forEach((p) => listaDiv.appendChild(criarCard(p)));
+
+        // Guarda o cursor; sem cursor significa que chegamos ao fim da lista
+        proximoCursor = pagina.proximoCursor;
+        btnCarregarMais.classList.toggle("hidden", !proximoCursor);
       })
       .catch((erro) => {
         console.error(erro);
-        listaDiv.innerHTML =
-          "<p>Erro ao carregar a lista de produtos.</p>";
+        if (reiniciar) {
+          listaDiv.innerHTML =
+            "<p>Erro ao carregar a lista de produtos.</p>";
+        }
         mostrarMensagem(
           "Erro ao carregar a lista de produtos. Tente novamente.",
           "error"
         );
+      })
+      .finally(() => {
+        carregando = false;
       });
   }
 
 
-  //   ===   FUNÇÃO: configurarBotoes   ===
+  //   ===   CLIQUES NOS BOTÕES DOS CARDS   ===
   //
-  // Liga os eventos de clique dos botões "Alterar" e "Excluir" de cada card.
-  //
-  // Esse método é chamado depois que os cards são criados dinamicamente.
-  function configurarBotoes() {
-    //   — Botão EXCLUIR: abre o modal de confirmação —
-    document.querySelectorAll(".btn-delete").forEach((btn) => {
-      btn.addEventListener("click", (e) => {
-        const id = e.target.getAttribute("data-id"); // pega o ID armazenado no atributo data-id
-        if (!id) return;
+  // Em vez de ligar um evento em cada botão (os cards vão sendo acrescentados
+  // página a página), escutamos os cliques na própria lista e vemos qual
+  // botão foi clicado ("delegação de eventos").
+  listaDiv.addEventListener("click", (e) => {
+    const id = e.target.getAttribute("data-id"); // pega o ID armazenado no atributo data-id
+    if (!id) return;
 
-        // Chama a função que abre o modal, passando o ID do produto
-        abrirModalExcluir(id);
-      });
-    });
+    //   — Botão EXCLUIR: abre o modal de confirmação —
+    if (e.target.classList.contains("btn-delete")) {
+      // Chama a função que abre o modal, passando o ID do produto
+      abrirModalExcluir(id);
+      return;
+    }
 
     //   — Botão ALTERAR: vai para a página de edição com o ID na URL —
-    document.querySelectorAll(".btn-edit").forEach((btn) => {
-      btn.addEventListener("click", (e) => {
-        const id = e.target.getAttribute("data-id");
-        if (!id) return;
-
-        // Redireciona para a página de edição, passando o ID como parâmetro
-        //
-        // Fluxo:
-        //  1. HTML: lista-produtos.html com botão Alterar
-        //  2. Clique → window.location.href = editar-produto.html?id={id}
-        //  3. Em editar-produto.js, pegamos esse id da URL
-        //  4. editar-produto.js faz GET /api/produtos/{id} para preencher o formulário
-        //  5. Depois manda PUT /api/produtos/{id} ao salvar
-        window.location.href = `editar-produto.html?id=${id}`;
-      });
-    });
+    if (e.target.classList.contains("btn-edit")) {
+      // Redireciona para a página de edição, passando o ID como parâmetro
+      //
+      // Fluxo:
+      //  1. HTML: lista-produtos.html com botão Alterar
+      //  2. Clique → window.location.href = editar-produto.html?id={id}
+      //  3. Em editar-produto.js, pegamos esse id da URL
+      //  4. editar-produto.js faz GET /api/produtos/{id} para preencher o formulário
+      //  5. Depois manda PUT /api/produtos/{id} ao salvar
+      window.location.href = `editar-produto.html?id=${id}`;
+    }
+  });
+
+
+  //   ===   EVENTO: Botão CARREGAR MAIS   ===
+  //
+  // Busca a próxima página a partir do cursor guardado.
+  btnCarregarMais.addEventListener("click", () => {
+    carregarProdutos(false);
+  });
+
+
+  //   ===   ROLAGEM INFINITA   ===
+  //
+  // Quando o botão "Carregar mais" aparece na tela (usuário rolou até o fim),
+  // já buscamos a próxima página automaticamente.
+  if ("IntersectionObserver" in window) {
+    new IntersectionObserver((entradas) => {
+      if (entradas.some((e) => e.isIntersecting) && proximoCursor) {
+        carregarProdutos(false);
+      }
+    }).observe(btnCarregarMais);
+  }
+
+
+  //   ===   EVENTO: troca da ordenação   ===
+  //
+  // Mudou a ordenação → recomeça a lista da primeira página.
+  selectOrdenacao.addEventListener("change", () => {
+    carregarProdutos(true);
+  });
+
+
+  //   ===   FUNÇÃO: removerCard   ===
+  //
+  // Remove da tela o card do produto com o ID informado (se estiver carregado).
+  function removerCard(id) {
+    const card = listaDiv.querySelector(`.produto-card[data-id="${id}"]`);
+    if (card) {
+      card.remove();
+    }
+    if (!listaDiv.querySelector(".produto-card") && !proximoCursor) {
+      listaDiv.innerHTML = "<p>Nenhum produto cadastrado.</p>";
+    }
   }
 
 
@@ -251,7 +360,7 @@ document.addEventListener("DOMContentLoaded", () => {
   //  1. Lemos o idParaExcluir
   //  2. Fazemos DELETE /api/produtos/{id}
   //  3. Back-end exclui pelo Repository.deleteById(id)
-  //  4. Se der certo, recarregamos a lista
+  //  4. Se der certo, removemos só o card excluído (sem recarregar a lista inteira)
   btnConfirmarExcluir.addEventListener("click", async () => {
     if (!idParaExcluir) return; // se não tiver ID, não faz nada
 
@@ -269,7 +378,7 @@ document.addEventListener("DOMContentLoaded", () => {
       // HTTP 204 = No Content → sucesso na exclusão
       if (resp.status === 204) {
         mostrarMensagem("Produto excluído com sucesso!", "success");
-        carregarProdutos(); // recarrega a lista, agora sem o produto excluído
+        removerCard(idParaExcluir); // tira da tela só o produto excluído
       } else if (resp.status === 404) {
         // Caso o produto já não exista mais no banco
         mostrarMensagem("Produto não encontrado para exclusão.", "error");
@@ -294,19 +403,78 @@ document.addEventListener("DOMContentLoaded", () => {
   });
 
 
+  //   ===   ALTERAÇÕES EM TEMPO REAL (GET /api/produtos/stream)   ===
+  //
+  // O back-end avisa cada criação/alteração/exclusão por Server-Sent Events
+  // (FeedProdutos). Em vez de buscar a lista de novo, mexemos só no card
+  // daquele produto:
+  //  - ATUALIZADO → troca o card (se ele estiver carregado na tela)
+  //  - EXCLUIDO   → remove o card
+  //  - CRIADO     → só entra na tela quando a posição dele é óbvia: ordenando
+  //                 por ID, vai para o fim (se o fim já foi carregado). Nas
+  //                 outras ordenações ele aparece ao paginar/recarregar.
+  //
+  // Se a conexão cair (ou o servidor desconectar porque ficamos para trás),
+  // o EventSource reconecta sozinho. Eventos podem ter sido perdidos nesse
+  // meio-tempo, então ao reconectar a lista é recarregada do zero.
+  function acompanharAlteracoes() {
+    if (!("EventSource" in window)) return;
+
+    const feed = new EventSource("/api/produtos/stream");
+    let jaConectou = false;
+
+    feed.addEventListener("conectado", () => {
+      if (jaConectou) {
+        carregarProdutos(true);
+      }
+      jaConectou = true;
+    });
+
+    feed.addEventListener("produto", (e) => {
+      const evento = JSON.parse(e.data); // { tipo, id, produto }
+
+      if (evento.tipo === "EXCLUIDO") {
+        removerCard(evento.id);
+        return;
+      }
+
+      const atual = listaDiv.querySelector(
+        `.produto-card[data-id="${evento.id}"]`
+      );
+      if (atual) {
+        atual.replaceWith(criarCard(evento.produto));
+        return;
+      }
+
+      if (
+        evento.tipo === "CRIADO" &&
+        selectOrdenacao.value === "id:asc" &&
+        !proximoCursor &&
+        !carregando
+      ) {
+        // Tira o "Nenhum produto cadastrado." se a lista estava vazia
+        if (!listaDiv.querySelector(".produto-card")) listaDiv.innerHTML = "";
+        listaDiv.appendChild(criarCard(evento.produto));
+      }
+    });
+  }
+
+
   //   ===   INICIALIZAÇÃO DA TELA: CARREGAR LISTA   ===
   //
   // Assim que a página lista-produtos.html carrega, essa função é chamada
-  // para buscar todos os produtos no back-end e montar os cards.
+  // para buscar a primeira página de produtos no back-end e montar os cards.
   //
   // Fluxo geral dessa tela:
   //   1. HTML abre lista-produtos.html
   //   2. JS chama carregarProdutos()
-  //   3. carregarProdutos → GET /api/produtos
-  //   4. Controller.listar() → Service.listarTodos() → Repository.findAll()
-  //   5. Resposta (lista de produtos) volta em JSON
-  //   6. JS monta os cards
+  //   3. carregarProdutos → GET /api/produtos?sort=...&limit=20
+  //   4. Controller.listar() → Service.listarPagina() → Repository.buscarPagina()
+  //   5. Resposta ({ itens, proximoCursor }) volta em JSON
+  //   6. JS monta os cards; "Carregar mais"/rolagem pede ?after={proximoCursor}
   //   7. Botão "Alterar" → editar-produto.html?id={id}
   //   8. Botão "Excluir" → abre modal → DELETE /api/produtos/{id}
+  //   9. Alterações feitas em outras abas/usuários chegam por /api/produtos/stream
   carregarProdutos();
+  acompanharAlteracoes();
 });
@@ -0,0 +1,54 @@
+package com.wnd.wndapi;
+
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.ProdutoRepository;
+import com.wnd.wndapi.service.ProdutoService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Perfil "rapido": o schema vem de db/schema-produtos.sql e o Hibernate só
+ * confere (ddl-auto=validate). Se a entidade Produto mudar sem o script,
+ * a subida falha aqui. Junto com o diário, confere também que a restauração
+ * continua acontecendo na subida mesmo com a inicialização preguiçosa.
+ */
+class PerfilRapidoTests {
+
+	@TempDir
+	Path diretorio;
+
+	@Test
+	void sobeComSchemaDoScriptERestauraODiario() {
+		Long id;
+		try (ConfigurableApplicationContext app = subir()) {
+			id = app.getBean(ProdutoService.class).salvar(novoProduto("Ventilador", 4)).getId();
+		}
+
+		try (ConfigurableApplicationContext app = subir()) {
+			assertThat(app.getBean(ProdutoRepository.class).findById(id))
+					.get()
+					.extracting(Produto::getNome)
+					.isEqualTo("Ventilador");
+		}
+	}
+
+	private ConfigurableApplicationContext subir() {
+		return new SpringApplicationBuilder(WndApiApplication.class)
+				.web(WebApplicationType.NONE)
+				// Como argumentos (e não .properties(), que perde para o application.properties)
+				.run(
+						"--spring.profiles.active=rapido,persistente",
+						"--spring.datasource.url=jdbc:h2:mem:rapido-" + UUID.randomUUID(),
+						"--wnd.diario.diretorio=" + diretorio,
+						"--spring.main.banner-mode=off");
+	}
+}
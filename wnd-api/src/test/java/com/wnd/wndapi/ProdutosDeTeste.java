@@ -0,0 +1,41 @@
+package com.wnd.wndapi;
+
+import com.wnd.wndapi.model.Produto;
+
+import java.math.BigDecimal;
+
+/**
+ * Produtos novos (sem id) para os testes gravarem.
+ *
+ * Cada teste só informa o que importa para ele (nome, preço, estoque,
+ * fabricante); o resto vem com valores válidos para a validação do Produto.
+ */
+public final class ProdutosDeTeste {
+
+	public static final String FABRICANTE = "Fabricante Teste";
+
+	private ProdutosDeTeste() {
+	}
+
+	public static Produto novoProduto() {
+		return novoProduto("Produto de teste");
+	}
+
+	public static Produto novoProduto(String nome) {
+		return novoProduto(nome, 10);
+	}
+
+	public static Produto novoProduto(String nome, int estoque) {
+		return novoProduto(nome, "10.00", estoque, FABRICANTE);
+	}
+
+	public static Produto novoProduto(String nome, String preco, int estoque, String fabricante) {
+		Produto produto = new Produto();
+		produto.setNome(nome);
+		produto.setDescricao("Produto usado nos testes automatizados");
+		produto.setPreco(new BigDecimal(preco));
+		produto.setQuantidadeEstoque(estoque);
+		produto.setFabricante(fabricante);
+		return produto;
+	}
+}
@@ -0,0 +1,62 @@
+package com.wnd.wndapi.admissao;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * O filtro registrado pelo AdmissaoConfig em /api/*: sem nenhuma vaga e sem
+ * fila, toda escrita (inclusive importação) dá 429 e toda leitura 503, com
+ * Retry-After.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:admissao",
+		"wnd.admissao.retry-after-s=2",
+		"wnd.admissao.leitura.limite-minimo=0",
+		"wnd.admissao.leitura.limite-maximo=0",
+		"wnd.admissao.leitura.fila-maxima=0",
+		"wnd.admissao.escrita.limite-minimo=0",
+		"wnd.admissao.escrita.limite-maximo=0",
+		"wnd.admissao.escrita.fila-maxima=0",
+		"wnd.admissao.lote.limite=0",
+		"wnd.admissao.lote.fila-maxima=0"
+})
+@AutoConfigureMockMvc
+class AdmissaoHttpTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void semVagaEscritaDa429ELeituraDa503() throws Exception {
+		mockMvc.perform(post("/api/produtos").contentType(MediaType.APPLICATION_JSON).content("{}"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+				.andExpect(jsonPath("$.erros.Admissão").exists());
+
+		mockMvc.perform(post("/api/produtos/importar").contentType("application/x-ndjson").content("{}"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+
+		mockMvc.perform(get("/api/produtos"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+				.andExpect(jsonPath("$.erros.Admissão").exists());
+	}
+
+	@Test
+	void foraDeApiNaoPassaPeloControle() throws Exception {
+		mockMvc.perform(get("/actuator/health"))
+				.andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER));
+	}
+}
@@ -0,0 +1,151 @@
+package com.wnd.wndapi.admissao;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compartimento e ControleAdmissaoFiltro sem Spring: limite fixo (mínimo =
+ * máximo) para que as vagas não mudem no meio do teste.
+ */
+class ControleAdmissaoTests {
+
+	@Test
+	void semVagaEComFilaCheiaRecusaNaHora() {
+		Compartimento compartimento = compartimento("teste", 2, 0, 0);
+
+		Compartimento.Entrada primeira = compartimento.entrar();
+		Compartimento.Entrada segunda = compartimento.entrar();
+		assertThat(primeira.admitida()).isTrue();
+		assertThat(segunda.admitida()).isTrue();
+		assertThat(segunda.emAndamento()).isEqualTo(2);
+
+		Compartimento.Entrada terceira = compartimento.entrar();
+		assertThat(terceira.admitida()).isFalse();
+		assertThat(terceira.recusa()).isEqualTo(Compartimento.Recusa.FILA_CHEIA);
+
+		compartimento.sair(primeira, TimeUnit.MILLISECONDS.toNanos(1));
+		assertThat(compartimento.emAndamento()).isEqualTo(1);
+		assertThat(compartimento.entrar().admitida()).isTrue();
+	}
+
+	@Test
+	void esperaEsgotadaRecusaQuemEstavaNaFila() {
+		Compartimento compartimento = compartimento("teste", 1, 1, 20);
+		compartimento.entrar();
+
+		long inicio = System.nanoTime();
+		Compartimento.Entrada entrada = compartimento.entrar();
+		assertThat(entrada.admitida()).isFalse();
+		assertThat(entrada.semVaga()).isTrue();
+		assertThat(entrada.recusa()).isEqualTo(Compartimento.Recusa.ESPERA_ESGOTADA);
+		assertThat(System.nanoTime() - inicio).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+		assertThat(compartimento.esperando()).isZero();
+	}
+
+	@Test
+	void vagaLiberadaAdmiteQuemEstavaEsperando() throws Exception {
+		Compartimento compartimento = compartimento("teste", 1, 1, 10_000);
+		Compartimento.Entrada ocupando = compartimento.entrar();
+
+		CompletableFuture<Compartimento.Entrada> esperando = CompletableFuture.supplyAsync(compartimento::entrar);
+		while (compartimento.esperando() == 0) {
+			Thread.onSpinWait();
+		}
+		compartimento.sair(ocupando, TimeUnit.MILLISECONDS.toNanos(1));
+
+		Compartimento.Entrada entrada = esperando.get(5, TimeUnit.SECONDS);
+		assertThat(entrada.admitida()).isTrue();
+		assertThat(entrada.semVaga()).isTrue();
+		assertThat(entrada.filaAoChegar()).isZero();
+	}
+
+	@Test
+	void escritaSemVagaDa429ELeituraDa503ComRetryAfter() throws Exception {
+		Compartimento leitura = compartimento("leitura", 1, 0, 0);
+		Compartimento escrita = compartimento("escrita", 1, 0, 0);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ControleAdmissaoFiltro filtro = new ControleAdmissaoFiltro(leitura, escrita,
+				compartimento("lote", 1, 0, 0), 3, registry);
+		leitura.entrar();
+		escrita.entrar();
+
+		MockHttpServletResponse put = filtrar(filtro, "PUT", "/api/produtos/1");
+		assertThat(put.getStatus()).isEqualTo(429);
+		assertThat(put.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+		assertThat(put.getContentAsString()).contains("\"erros\"", "Admissão");
+
+		MockHttpServletResponse get = filtrar(filtro, "GET", "/api/produtos");
+		assertThat(get.getStatus()).isEqualTo(503);
+		assertThat(get.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+
+		// POST /batch só consulta: conta como leitura
+		assertThat(filtrar(filtro, "POST", "/api/produtos/batch").getStatus()).isEqualTo(503);
+		assertThat(filtrar(filtro, "POST", "/api/produtos").getStatus()).isEqualTo(429);
+
+		assertThat(registry.get("wnd.admissao.recusadas").tag("tipo", "escrita").counter().count()).isEqualTo(2);
+		assertThat(registry.get("wnd.admissao.recusadas").tag("tipo", "leitura").counter().count()).isEqualTo(2);
+	}
+
+	@Test
+	void requisicaoAdmitidaPassaELiberaAVaga() throws Exception {
+		Compartimento leitura = compartimento("leitura", 1, 0, 0);
+		ControleAdmissaoFiltro filtro = new ControleAdmissaoFiltro(leitura, compartimento("escrita", 1, 0, 0),
+				compartimento("lote", 1, 0, 0), 1, new SimpleMeterRegistry());
+
+		MockHttpServletResponse resposta = filtrar(filtro, "GET", "/api/produtos");
+		assertThat(resposta.getStatus()).isEqualTo(200);
+		assertThat(resposta.getHeader(HttpHeaders.RETRY_AFTER)).isNull();
+		assertThat(leitura.emAndamento()).isZero();
+	}
+
+	@Test
+	void importacaoEAjustesUsamOCompartimentoDeLote() throws Exception {
+		Compartimento escrita = compartimento("escrita", 1, 0, 0);
+		Compartimento lote = compartimento("lote", 1, 0, 0);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ControleAdmissaoFiltro filtro = new ControleAdmissaoFiltro(compartimento("leitura", 1, 0, 0), escrita, lote,
+				1, registry);
+
+		// Durante a importação a vaga ocupada é a do lote: a escrita não vê a requisição
+		int[] ocupadas = new int[2];
+		MockHttpServletResponse importacao = new MockHttpServletResponse();
+		filtro.doFilter(new MockHttpServletRequest("POST", "/api/produtos/importar"), importacao,
+				(requisicao, resposta) -> {
+					ocupadas[0] = escrita.emAndamento();
+					ocupadas[1] = lote.emAndamento();
+				});
+		assertThat(importacao.getStatus()).isEqualTo(200);
+		assertThat(ocupadas).containsExactly(0, 1);
+
+		// Lote cheio: importação e ajustes dão 429, e as escritas comuns seguem passando
+		lote.entrar();
+		assertThat(filtrar(filtro, "POST", "/api/produtos/importar").getStatus()).isEqualTo(429);
+		assertThat(filtrar(filtro, "POST", "/api/produtos/ajustes").getStatus()).isEqualTo(429);
+		assertThat(filtrar(filtro, "PUT", "/api/produtos/1").getStatus()).isEqualTo(200);
+		// GET /ajustes/{id} (andamento) é leitura
+		assertThat(filtrar(filtro, "GET", "/api/produtos/ajustes/abc").getStatus()).isEqualTo(200);
+
+		assertThat(registry.get("wnd.admissao.recusadas").tag("tipo", "lote").tag("motivo", "fila_cheia").counter().count()).isEqualTo(2);
+		assertThat(registry.get("wnd.admissao.recusadas").tag("tipo", "escrita").counter().count()).isZero();
+	}
+
+	private static Compartimento compartimento(String nome, int vagas, int filaMaxima, long esperaMaximaMs) {
+		return new Compartimento(nome, new LimiteAdaptativo(vagas, vagas, vagas, 2.0), filaMaxima, esperaMaximaMs);
+	}
+
+	private static MockHttpServletResponse filtrar(ControleAdmissaoFiltro filtro, String metodo, String uri)
+			throws Exception {
+		MockHttpServletResponse resposta = new MockHttpServletResponse();
+		filtro.doFilter(new MockHttpServletRequest(metodo, uri), resposta, new MockFilterChain());
+		return resposta;
+	}
+}
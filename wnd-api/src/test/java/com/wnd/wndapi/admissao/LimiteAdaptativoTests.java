@@ -0,0 +1,86 @@
+package com.wnd.wndapi.admissao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * LimiteAdaptativo sem Spring: cada "janela" é um lote de requisições com a
+ * mesma latência, do tamanho que o limite pede para recalcular.
+ */
+class LimiteAdaptativoTests {
+
+	@Test
+	void latenciaEstavelComLimiteEmUsoCresceAteOMaximo() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(10, 2, 40, 2.0);
+
+		// Suavizado: menos de uma vaga por janela no começo
+		for (int i = 0; i < 3; i++) {
+			janela(limite, 1, limite.atual());
+		}
+		assertThat(limite.atual()).isGreaterThan(10);
+
+		for (int i = 0; i < 100; i++) {
+			janela(limite, 1, limite.atual());
+		}
+		assertThat(limite.atual()).isEqualTo(40);
+	}
+
+	@Test
+	void latenciaSubindoReduzOLimiteEVoltaDepoisDoPico() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(20, 2, 40, 2.0);
+		for (int i = 0; i < 5; i++) {
+			janela(limite, 1, limite.atual());
+		}
+		int antesDoPico = limite.atual();
+
+		// Latência 10x maior (fila no banco): cai a cada janela
+		int anterior = antesDoPico;
+		for (int i = 0; i < 3; i++) {
+			janela(limite, 10, limite.atual());
+			assertThat(limite.atual()).isLessThan(anterior);
+			anterior = limite.atual();
+		}
+
+		// Passado o pico, volta a crescer
+		for (int i = 0; i < 100; i++) {
+			janela(limite, 1, limite.atual());
+		}
+		assertThat(limite.atual()).isGreaterThanOrEqualTo(antesDoPico);
+	}
+
+	@Test
+	void latenciaAltaNaoPassaDoMinimo() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(20, 15, 40, 2.0);
+		janela(limite, 1, limite.atual());
+		for (int i = 0; i < 6; i++) {
+			janela(limite, 10, limite.atual());
+		}
+		assertThat(limite.atual()).isEqualTo(15);
+	}
+
+	@Test
+	void poucoMovimentoNaoMudaOLimite() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(20, 2, 40, 2.0);
+		for (int i = 0; i < 20; i++) {
+			janela(limite, 1, 3);
+		}
+		assertThat(limite.atual()).isEqualTo(20);
+	}
+
+	@Test
+	void limiteInicialFicaEntreMinimoEMaximo() {
+		assertThat(new LimiteAdaptativo(500, 2, 40, 2.0).atual()).isEqualTo(40);
+		assertThat(new LimiteAdaptativo(0, 2, 40, 2.0).atual()).isEqualTo(2);
+	}
+
+	// Exatamente as amostras que fecham uma janela (pelo menos 10, ou o limite)
+	private static void janela(LimiteAdaptativo limite, long latenciaMs, int emAndamento) {
+		int amostras = Math.max(10, limite.atual());
+		for (int i = 0; i < amostras; i++) {
+			limite.registrar(TimeUnit.MILLISECONDS.toNanos(latenciaMs), emAndamento);
+		}
+	}
+}
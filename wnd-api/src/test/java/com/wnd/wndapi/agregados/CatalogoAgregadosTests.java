@@ -0,0 +1,151 @@
+package com.wnd.wndapi.agregados;
+
+import com.wnd.wndapi.dto.ResumoCatalogo;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Totais em memória do CatalogoAgregados: os deltas de cada alteração entram
+ * só depois do commit (rollback não conta), a reconciliação não mexe em nada
+ * com transação em andamento e corrige o que divergiu do banco.
+ *
+ * Banco próprio: os totais gerais somam a tabela inteira.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:agregados")
+class CatalogoAgregadosTests {
+
+	@Autowired
+	private CatalogoAgregados agregados;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void esperarCarga() throws InterruptedException {
+		// A carga inicial roda em segundo plano depois da subida
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (true) {
+			try {
+				agregados.resumo();
+				return;
+			} catch (IllegalStateException e) {
+				assertThat(System.nanoTime()).as("carga dos agregados").isLessThan(limite);
+				TimeUnit.MILLISECONDS.sleep(20);
+			}
+		}
+	}
+
+	@Test
+	void totaisAcompanhamCriarAtualizarExcluirEIgnoramRollback() {
+		String fabricante = "Fabricante Deltas";
+		ResumoCatalogo antes = agregados.resumo();
+
+		Produto barato = produtoService.salvar(novoProduto("Coador", "5.00", 4, fabricante));
+		Produto medio = produtoService.salvar(novoProduto("Moedor", "60.00", 2, fabricante));
+		assertThat(doFabricante(fabricante)).isEqualTo(new ResumoCatalogo.Fabricante(
+				fabricante, 2, 6, new BigDecimal("140.00")));
+		ResumoCatalogo depoisDeCriar = agregados.resumo();
+		assertThat(depoisDeCriar.totalProdutos()).isEqualTo(antes.totalProdutos() + 2);
+		assertThat(depoisDeCriar.estoqueTotal()).isEqualTo(antes.estoqueTotal() + 6);
+		assertThat(depoisDeCriar.valorInventario())
+				.isEqualByComparingTo(antes.valorInventario().add(new BigDecimal("140.00")));
+		assertThat(faixa(depoisDeCriar, 0) - faixa(antes, 0)).isEqualTo(1);   // [0, 10)
+		assertThat(faixa(depoisDeCriar, 2) - faixa(antes, 2)).isEqualTo(1);   // [50, 100)
+
+		// Atualizar: sai o produto anterior, entra o atual (muda de faixa também)
+		Produto alterado = novoProduto("Coador", "12.00", 10, fabricante);
+		produtoService.atualizar(barato.getId(), alterado, 0L);
+		assertThat(doFabricante(fabricante)).isEqualTo(new ResumoCatalogo.Fabricante(
+				fabricante, 2, 12, new BigDecimal("240.00")));
+		assertThat(faixa(agregados.resumo(), 0)).isEqualTo(faixa(antes, 0));
+		assertThat(faixa(agregados.resumo(), 1) - faixa(antes, 1)).isEqualTo(1);   // [10, 50)
+
+		// Rollback: os eventos foram publicados, mas o delta é descartado.
+		// Enquanto a transação está aberta, a reconciliação não substitui nada.
+		transactionTemplate.executeWithoutResult(status -> {
+			produtoService.salvar(novoProduto("Desfeito", "999.00", 50, fabricante));
+			produtoService.excluir(medio.getId());
+			assertThat(agregados.reconciliar()).isFalse();
+			status.setRollbackOnly();
+		});
+		assertThat(doFabricante(fabricante)).isEqualTo(new ResumoCatalogo.Fabricante(
+				fabricante, 2, 12, new BigDecimal("240.00")));
+
+		// Excluir: o último produto do fabricante some da lista
+		produtoService.excluir(medio.getId());
+		produtoService.excluir(barato.getId());
+		ResumoCatalogo depoisDeExcluir = agregados.resumo();
+		assertThat(depoisDeExcluir.porFabricante())
+				.extracting(ResumoCatalogo.Fabricante::fabricante)
+				.doesNotContain(fabricante);
+		assertThat(depoisDeExcluir.totalProdutos()).isEqualTo(antes.totalProdutos());
+		assertThat(depoisDeExcluir.estoqueTotal()).isEqualTo(antes.estoqueTotal());
+		assertThat(depoisDeExcluir.valorInventario()).isEqualByComparingTo(antes.valorInventario());
+		assertThat(depoisDeExcluir.faixasPreco()).isEqualTo(antes.faixasPreco());
+
+		// Os deltas batem com o banco: a reconciliação não tem o que corrigir
+		assertThat(agregados.reconciliar()).isTrue();
+		assertThat(agregados.resumo().totalProdutos()).isEqualTo(depoisDeExcluir.totalProdutos());
+		assertThat(agregados.resumo().valorInventario()).isEqualByComparingTo(depoisDeExcluir.valorInventario());
+	}
+
+	@Test
+	void reconciliacaoCorrigeODesvioFeitoDiretoNoBanco() {
+		String fabricante = "Fabricante Desvio";
+		Produto produto = produtoService.salvar(novoProduto("Chaleira", "20.00", 3, fabricante));
+		assertThat(doFabricante(fabricante)).isEqualTo(new ResumoCatalogo.Fabricante(
+				fabricante, 1, 3, new BigDecimal("60.00")));
+
+		// Alteração sem passar pelo ProdutoService: nenhum evento, a memória fica para trás
+		jdbcTemplate.update("update produtos set quantidade_estoque = 8, preco = 150.00 where id = ?",
+				produto.getId());
+		jdbcTemplate.update("insert into produtos (id, nome, descricao, preco, quantidade_estoque, fabricante, versao) "
+				+ "values (next value for produtos_seq, 'Bule', 'Inserido direto no banco', 1.00, 1, ?, 0)", fabricante);
+		assertThat(doFabricante(fabricante).estoque()).isEqualTo(3);
+
+		assertThat(agregados.reconciliar()).isTrue();
+
+		ResumoCatalogo depois = agregados.resumo();
+		assertThat(doFabricante(fabricante)).isEqualTo(new ResumoCatalogo.Fabricante(
+				fabricante, 2, 9, new BigDecimal("1201.00")));
+		assertThat(depois.ultimaReconciliacao()).isNotNull();
+		// Os totais gerais e as faixas ficam iguais a uma soma nova do banco
+		assertThat(depois.totalProdutos())
+				.isEqualTo(jdbcTemplate.queryForObject("select count(*) from produtos", Long.class));
+		assertThat(depois.estoqueTotal())
+				.isEqualTo(jdbcTemplate.queryForObject("select sum(quantidade_estoque) from produtos", Long.class));
+		assertThat(depois.valorInventario()).isEqualByComparingTo(jdbcTemplate.queryForObject(
+				"select sum(preco * quantidade_estoque) from produtos", BigDecimal.class));
+		assertThat(faixa(depois, 3)).isEqualTo(jdbcTemplate.queryForObject(
+				"select count(*) from produtos where preco >= 100 and preco < 500", Long.class));
+	}
+
+	private ResumoCatalogo.Fabricante doFabricante(String fabricante) {
+		return agregados.resumo().porFabricante().stream()
+				.filter(totais -> totais.fabricante().equals(fabricante))
+				.findFirst()
+				.orElseThrow();
+	}
+
+	private static long faixa(ResumoCatalogo resumo, int indice) {
+		return resumo.faixasPreco().get(indice).produtos();
+	}
+}
@@ -0,0 +1,222 @@
+package com.wnd.wndapi.benchmark;
+
+import com.wnd.wndapi.WndApiApplication;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.ProdutoRepository;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark: threads de plataforma × threads virtuais com o banco lento.
+ *
+ * Sobe a aplicação duas vezes no mesmo JVM (perfil "banco-lento", e depois
+ * "banco-lento" + "threads-virtuais"), dispara muitas requisições ao mesmo
+ * tempo em GET /api/produtos e compara vazão e latência.
+ *
+ * Não roda no "mvn test" normal (tag "benchmark"). Para rodar:
+ *
+ *   mvn test -Pbenchmark
+ *   mvn test -Pbenchmark -Dbench.concorrencia=2000 -Dbench.latencia-ms=300 -Dbench.duracao-s=30
+ *
+ * Durante a medição das threads virtuais, um JFR em memória conta os eventos
+ * jdk.VirtualThreadPinned (thread virtual presa à thread do sistema enquanto
+ * espera): no caminho do JDBC não pode haver nenhum.
+ */
+@Tag("benchmark")
+class ThreadsVirtuaisBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(ThreadsVirtuaisBenchmarkTests.class);
+
+	// Clientes simultâneos (cada um faz uma requisição atrás da outra)
+	private static final int CONCORRENCIA = Integer.getInteger("bench.concorrencia", 1000);
+	// Espera simulada em cada comando SQL
+	private static final long LATENCIA_MS = Long.getLong("bench.latencia-ms", 300);
+	// Conexões no pool: maior que o limite de threads do Tomcat (200), senão o
+	// gargalo seria o pool nos dois modos e a comparação não mostraria nada
+	private static final int POOL = Integer.getInteger("bench.pool", 600);
+	private static final int AQUECIMENTO_S = Integer.getInteger("bench.aquecimento-s", 5);
+	private static final int DURACAO_S = Integer.getInteger("bench.duracao-s", 15);
+	private static final int PRODUTOS = 2000;
+
+	@Test
+	void compararThreadsDePlataformaEVirtuais() throws Exception {
+		Resultado plataforma = medir(false);
+		Resultado virtuais = medir(true);
+
+		log.info("""
+
+				  banco: {} ms por comando | pool: {} conexões | {} clientes | {} s medidos
+				  modo         req/s     p50 ms   p99 ms   máx ms   erros   fixações JDBC
+				  {}
+				  {}""",
+				LATENCIA_MS, POOL, CONCORRENCIA, DURACAO_S, plataforma.linha(), virtuais.linha());
+
+		assertThat(plataforma.erros()).isZero();
+		assertThat(virtuais.erros()).isZero();
+		assertThat(virtuais.fixacoesJdbc()).isZero();
+	}
+
+	private Resultado medir(boolean threadsVirtuais) throws Exception {
+		String modo = threadsVirtuais ? "virtuais" : "plataforma";
+		List<String> perfis = new ArrayList<>(List.of("banco-lento"));
+		if (threadsVirtuais) {
+			perfis.add("threads-virtuais");
+		}
+
+		ConfigurableApplicationContext app = new SpringApplicationBuilder(WndApiApplication.class)
+				.profiles(perfis.toArray(String[]::new))
+				// Como argumentos (e não .properties(), que perde para o application.properties)
+				.run(
+						"--server.port=0",
+						"--server.tomcat.accept-count=" + CONCORRENCIA,
+						"--spring.datasource.url=jdbc:h2:mem:benchmark-" + modo,
+						"--spring.datasource.hikari.maximum-pool-size=" + POOL,
+						"--spring.datasource.hikari.connection-timeout=60000",
+						"--spring.jpa.show-sql=false",
+						"--spring.jpa.properties.hibernate.format_sql=false",
+						"--wnd.banco.latencia-simulada-ms=" + LATENCIA_MS,
+						// Aqui se mede o modelo de threads: sem 503 do controle de admissão
+						"--wnd.admissao.habilitado=false",
+						"--spring.main.banner-mode=off");
+
+		// Conta as fixações (pinning) cujo stack passa pelo JDBC
+		AtomicLong fixacoesJdbc = new AtomicLong();
+		try (RecordingStream jfr = new RecordingStream();
+			 HttpClient http = HttpClient.newBuilder()
+					 .executor(Executors.newVirtualThreadPerTaskExecutor())
+					 .connectTimeout(Duration.ofSeconds(30))
+					 .build()) {
+			jfr.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(LATENCIA_MS / 2)).withStackTrace();
+			jfr.onEvent("jdk.VirtualThreadPinned", evento -> {
+				if (evento.getStackTrace() != null && evento.getStackTrace().getFrames().stream()
+						.map(RecordedFrame::getMethod)
+						.anyMatch(m -> m.getType().getName().startsWith("java.sql")
+								|| m.getType().getName().contains("jdbc"))) {
+					fixacoesJdbc.incrementAndGet();
+				}
+			});
+			jfr.startAsync();
+
+			semear(app.getBean(ProdutoRepository.class));
+			String base = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/api/produtos";
+
+			disparar(http, base, Duration.ofSeconds(AQUECIMENTO_S));
+			Carga carga = disparar(http, base, Duration.ofSeconds(DURACAO_S));
+			return carga.resultado(modo, fixacoesJdbc.get());
+		} finally {
+			app.close();
+		}
+	}
+
+	private void semear(ProdutoRepository repositorio) {
+		List<Produto> produtos = new ArrayList<>(PRODUTOS);
+		for (int i = 0; i < PRODUTOS; i++) {
+			Produto produto = new Produto();
+			produto.setNome("Produto " + i);
+			produto.setDescricao("Produto usado no benchmark de threads");
+			produto.setPreco(BigDecimal.valueOf(10 + i % 500));
+			produto.setQuantidadeEstoque(1 + i % 50);
+			produto.setFabricante("Fabricante " + i % 20);
+			produtos.add(produto);
+		}
+		repositorio.saveAll(produtos);
+	}
+
+	// Cada cliente (thread virtual) pede páginas a partir de um ponto aleatório até o tempo acabar.
+	private Carga disparar(HttpClient http, String base, Duration duracao) throws Exception {
+		long fim = System.nanoTime() + duracao.toNanos();
+		Carga carga = new Carga(duracao);
+		try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<long[]>> latencias = new ArrayList<>();
+			for (int i = 0; i < CONCORRENCIA; i++) {
+				latencias.add(clientes.submit(() -> {
+					long[] medidas = new long[64];
+					int n = 0;
+					while (System.nanoTime() < fim) {
+						long inicio = System.nanoTime();
+						int after = ThreadLocalRandom.current().nextInt(PRODUTOS);
+						try {
+							HttpResponse<Void> resposta = http.send(
+									HttpRequest.newBuilder(URI.create(base + "?limit=20&after=" + after)).GET().build(),
+									HttpResponse.BodyHandlers.discarding());
+							if (resposta.statusCode() != 200) {
+								carga.erros.incrementAndGet();
+								continue;
+							}
+						} catch (Exception e) {
+							carga.erros.incrementAndGet();
+							continue;
+						}
+						if (n == medidas.length) {
+							medidas = Arrays.copyOf(medidas, n * 2);
+						}
+						medidas[n++] = System.nanoTime() - inicio;
+					}
+					return Arrays.copyOf(medidas, n);
+				}));
+			}
+			for (Future<long[]> futuro : latencias) {
+				carga.latencias.add(futuro.get());
+			}
+		}
+		return carga;
+	}
+
+	private static final class Carga {
+		final Duration duracao;
+		final AtomicLong erros = new AtomicLong();
+		final List<long[]> latencias = new ArrayList<>();
+
+		Carga(Duration duracao) {
+			this.duracao = duracao;
+		}
+
+		Resultado resultado(String modo, long fixacoesJdbc) {
+			long[] todas = latencias.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+			double porSegundo = todas.length / (double) duracao.toSeconds();
+			return new Resultado(modo, porSegundo,
+					percentil(todas, 0.50), percentil(todas, 0.99),
+					todas.length == 0 ? 0 : todas[todas.length - 1] / 1_000_000,
+					erros.get(), fixacoesJdbc);
+		}
+
+		private static long percentil(long[] ordenadas, double p) {
+			if (ordenadas.length == 0) {
+				return 0;
+			}
+			return ordenadas[(int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1)] / 1_000_000;
+		}
+	}
+
+	private record Resultado(String modo, double porSegundo, long p50, long p99, long maximo,
+							 long erros, long fixacoesJdbc) {
+
+		String linha() {
+			return String.format("%-10s %8.0f %9d %8d %8d %7d %15d",
+					modo, porSegundo, p50, p99, maximo, erros, fixacoesJdbc);
+		}
+	}
+}
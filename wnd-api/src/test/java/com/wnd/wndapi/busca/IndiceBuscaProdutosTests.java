@@ -0,0 +1,118 @@
+package com.wnd.wndapi.busca;
+
+import com.wnd.wndapi.evento.ProdutoAlteradoEvento;
+import com.wnd.wndapi.model.Produto;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Índice de busca sozinho, sem Spring: os eventos do ProdutoService são
+ * entregues direto no aoAlterarProduto.
+ */
+class IndiceBuscaProdutosTests {
+
+	private final IndiceBuscaProdutos indice = new IndiceBuscaProdutos(null, null, null);
+
+	@Test
+	void ordenaPorCampoETermoExatoAntesDoPrefixo() {
+		indexar(1, "Cafe torrado", "Marca Um", "Pacote de meio quilo");
+		indexar(2, "Moedor manual", "Cafe Brasil", "Pacote de meio quilo");
+		indexar(3, "Filtro de papel", "Marca Um", "Para cafe coado");
+		indexar(4, "Cafeteira italiana", "Marca Um", "Pacote de meio quilo");
+		indexar(5, "Chaleira", "Marca Um", "Pacote de meio quilo");
+
+		// nome > prefixo no nome ("cafeteira", mais raro) > fabricante > descrição
+		assertThat(indice.buscar("café", 0, 10).ids()).containsExactly(1L, 4L, 2L, 3L);
+		// AND: os dois termos no mesmo produto
+		assertThat(indice.buscar("cafe marca", 0, 10).ids()).containsExactly(1L, 4L, 3L);
+		assertThat(indice.buscar("cafe chaleira", 0, 10).total()).isZero();
+	}
+
+	@Test
+	void prefixoEncontraTodosOsTermosQueComecamComEle() {
+		// 200 termos diferentes com o mesmo prefixo, um por produto
+		for (int i = 0; i < 200; i++) {
+			indexar(i + 1, "Kit" + i, "Marca Um", "Pacote de meio quilo");
+		}
+
+		IndiceBuscaProdutos.ResultadoIndice resultado = indice.buscar("kit", 0, 1000);
+		assertThat(resultado.total()).isEqualTo(200);
+		assertThat(resultado.ids()).containsExactlyInAnyOrderElementsOf(
+				LongStream.rangeClosed(1, 200).boxed().toList());
+		assertThat(indice.buscar("kit", 190, 20).ids()).hasSize(10);
+	}
+
+	@Test
+	void compactacaoTiraExcluidosERenumeraDocumentos() {
+		int produtos = 40_000;
+		for (int i = 1; i <= produtos; i++) {
+			indexar(i, "Produto " + i, "Marca " + (i % 10), i % 100 == 0 ? "Edicao rara" : "Edicao comum");
+		}
+		// Cada atualização de texto gera um documento novo; o antigo fica excluído
+		indexar(100, "Produto 100 revisado", "Marca 0", "Edicao rara");
+
+		// A atualização do 100 + 9.999 exclusões = 10.000 documentos excluídos:
+		// chega no mínimo e passa de 25% do índice → compacta na última
+		int vivos = produtos - 9_999;
+		for (long id = 1; id <= 9_999; id++) {
+			indice.aoAlterarProduto(ProdutoAlteradoEvento.excluido(id, null));
+		}
+
+		assertThat(indice.estatisticas())
+				.containsEntry("produtos", vivos)
+				.containsEntry("documentos", vivos)
+				.containsEntry("documentosExcluidosPendentes", 0);
+
+		// Nenhum excluído volta; os raros que sobraram continuam na ordem certa
+		IndiceBuscaProdutos.ResultadoIndice raros = indice.buscar("rara", 0, 1000);
+		assertThat(raros.total()).isEqualTo(301);
+		assertThat(raros.ids()).allMatch(id -> id >= 10_000 && id % 100 == 0);
+		assertThat(raros.ids()).isSorted();
+		assertThat(indice.buscar("revisado", 0, 10).total()).isZero();
+		assertThat(indice.buscar("produto 39999", 0, 10).ids()).containsExactly(39999L);
+
+		// Os números renumerados continuam valendo para alterações novas
+		indexar(39999, "Produto renomeado", "Marca 9", "Edicao comum");
+		indexar(produtos + 1, "Produto 40001", "Marca 1", "Edicao rara");
+		assertThat(indice.buscar("renomeado", 0, 10).ids()).containsExactly(39999L);
+		assertThat(indice.buscar("39999", 0, 10).total()).isZero();
+		assertThat(indice.buscar("rara", 0, 1000).ids()).hasSize(302).contains(produtos + 1L);
+	}
+
+	@Test
+	void cargaQueFalhaTentaDeNovoAteFicarPronta() {
+		// Executor na mesma thread: iniciarCarga só volta quando a carga termina
+		int[] tentativas = {0};
+		IndiceBuscaProdutos indice = new IndiceBuscaProdutos(null, null, Runnable::run) {
+			@Override
+			long carregar() {
+				if (++tentativas[0] == 1) {
+					throw new IllegalStateException("banco fora do ar");
+				}
+				Produto produto = novoProduto("Cafeteira", "10.00", 1, "Marca Um");
+				produto.setId(1L);
+				aoAlterarProduto(ProdutoAlteradoEvento.criado(produto));
+				return 1;
+			}
+		};
+		assertThat(indice.estaPronto()).isFalse();
+
+		indice.iniciarCarga();
+
+		assertThat(tentativas[0]).isEqualTo(2);
+		assertThat(indice.estaPronto()).isTrue();
+		assertThat(indice.buscar("cafeteira", 0, 10).ids()).containsExactly(1L);
+	}
+
+	private void indexar(long id, String nome, String fabricante, String descricao) {
+		Produto produto = novoProduto(nome, "10.00", 1, fabricante);
+		produto.setId(id);
+		produto.setDescricao(descricao);
+		produto.setVersao(0L);
+		indice.aoAlterarProduto(ProdutoAlteradoEvento.criado(produto));
+	}
+}
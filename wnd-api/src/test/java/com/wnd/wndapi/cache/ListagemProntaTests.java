@@ -0,0 +1,134 @@
+package com.wnd.wndapi.cache;
+
+import com.jayway.jsonpath.JsonPath;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.FiltroProdutos;
+import com.wnd.wndapi.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Primeira página pronta (ListagemPronta): tem que sair igual à do listar()
+ * normal, antes e depois de cada tipo de alteração.
+ *
+ * Banco próprio: outros contextos de teste no mesmo JVM usam o wnddb e
+ * escrevem nele sem passar pelos eventos deste contexto.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:listagem-pronta")
+@AutoConfigureMockMvc
+class ListagemProntaTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@BeforeEach
+	void semear() {
+		while (produtoService.listarPagina(null, 100, null, null, FiltroProdutos.NENHUM).itens().size() < 30) {
+			produtoService.salvar(novoProduto("Produto da listagem", "10.00", 10, "Fabricante da listagem"));
+		}
+	}
+
+	@Test
+	void acompanhaAsAlteracoesERespondeNaoModificado() throws Exception {
+		String etag = conferirIgualAoListar("?limit=25");
+		mockMvc.perform(get("/api/produtos?limit=25").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+
+		// Alteração dentro da página
+		Produto primeiro = produtoService.listarPagina(null, 1, null, null, FiltroProdutos.NENHUM).itens().get(0);
+		produtoService.atualizar(primeiro.getId(), novoProduto("Produto da listagem", "77.70", 10, "Fabricante da listagem"), null);
+		String depoisDaAlteracao = conferirIgualAoListar("?limit=25");
+		assertThat(depoisDaAlteracao).isNotEqualTo(etag);
+		mockMvc.perform(get("/api/produtos?limit=25").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+
+		// Exclusão dentro da página e criação depois do fim dela
+		produtoService.excluir(primeiro.getId());
+		conferirIgualAoListar("?limit=25");
+		produtoService.salvar(novoProduto("Produto da listagem", "5.00", 10, "Fabricante da listagem"));
+		conferirIgualAoListar("?limit=25");
+		conferirIgualAoListar("");
+	}
+
+	@Test
+	void mandaGzipParaQuemAceita() throws Exception {
+		MvcResult comprimida = mockMvc.perform(get("/api/produtos?limit=30")
+						.header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andReturn();
+		MvcResult normal = mockMvc.perform(get("/api/produtos?limit=30").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+				.andReturn();
+
+		assertThat(descomprimir(comprimida.getResponse().getContentAsByteArray()))
+				.isEqualTo(normal.getResponse().getContentAsByteArray());
+		assertThat(comprimida.getResponse().getHeader(HttpHeaders.ETAG))
+				.isNotEqualTo(normal.getResponse().getHeader(HttpHeaders.ETAG));
+	}
+
+	@Test
+	void telaDeListagemUsaAPaginaProntaNaPrimeiraPagina() throws Exception {
+		// As URLs que o lista-produtos.js (montarUrlPagina) monta na ordem padrão
+		MvcResult primeira = mockMvc.perform(get("/api/produtos?limit=20"))
+				.andExpect(status().isOk())
+				.andReturn();
+		String etag = primeira.getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).startsWith("\"lista-");
+		mockMvc.perform(get("/api/produtos?limit=20").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+
+		String cursor = JsonPath.read(primeira.getResponse().getContentAsString(), "$.proximoCursor");
+		List<Integer> idsPrimeira = JsonPath.read(primeira.getResponse().getContentAsString(), "$.itens[*].id");
+		MvcResult segunda = mockMvc.perform(get("/api/produtos?sort=id&dir=asc&limit=20"
+						+ "&fields=id,nome,fabricante,preco,quantidadeEstoque,descricao&after=" + cursor))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.ETAG))
+				.andReturn();
+		List<Integer> idsSegunda = JsonPath.read(segunda.getResponse().getContentAsString(), "$.itens[*].id");
+
+		// A segunda página continua exatamente de onde a pronta parou
+		assertThat(idsPrimeira).hasSize(20);
+		assertThat(idsSegunda).isNotEmpty();
+		assertThat(idsSegunda.get(0)).isGreaterThan(idsPrimeira.get(19));
+	}
+
+	// Compara com o listar() de sempre (?sort=id não passa pela página pronta); devolve o ETag
+	private String conferirIgualAoListar(String parametros) throws Exception {
+		MvcResult pronta = mockMvc.perform(get("/api/produtos" + parametros)).andExpect(status().isOk()).andReturn();
+		String separador = parametros.isEmpty() ? "?" : "&";
+		MvcResult consultada = mockMvc.perform(get("/api/produtos" + parametros + separador + "sort=id"))
+				.andExpect(status().isOk()).andReturn();
+
+		assertThat(pronta.getResponse().getContentAsString())
+				.isEqualTo(consultada.getResponse().getContentAsString());
+		return pronta.getResponse().getHeader(HttpHeaders.ETAG);
+	}
+
+	private static byte[] descomprimir(byte[] gzip) throws IOException {
+		try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+			return entrada.readAllBytes();
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.wnd.wndapi.cache;
+
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.service.ProdutoService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cache de produtos por ID (ProdutoCache): ETag / 304, invalidação depois de
+ * cada alteração e a proteção contra guardar uma leitura velha.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProdutoCacheTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@Autowired
+	private ProdutoCache produtoCache;
+
+	@Test
+	void etagIgualRespondeNaoModificadoAteOProdutoMudar() throws Exception {
+		long id = produtoService.salvar(novoProduto("Cafeteira")).getId();
+		String etag = "\"" + id + "-0\"";
+
+		mockMvc.perform(get("/api/produtos/{id}", id))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+		// Agora em cache: o 304 sai sem consultar o banco
+		assertThat(produtoCache.etagEmCache(id)).isEqualTo(etag);
+		mockMvc.perform(get("/api/produtos/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+
+		produtoService.atualizar(id, novoProduto("Cafeteira Elétrica"), null);
+
+		mockMvc.perform(get("/api/produtos/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-1\""))
+				.andExpect(jsonPath("$.nome").value("Cafeteira Elétrica"));
+	}
+
+	@Test
+	void alteracaoEExclusaoTiramOProdutoDoCache() {
+		long id = produtoService.salvar(novoProduto("Chaleira")).getId();
+		produtoService.buscarPorId(id);
+		assertThat(produtoCache.buscar(id)).isNotNull();
+
+		produtoService.atualizar(id, novoProduto("Chaleira Inox"), null);
+		assertThat(produtoCache.buscar(id)).isNull();
+		assertThat(produtoService.buscarPorId(id).getNome()).isEqualTo("Chaleira Inox");
+		assertThat(produtoCache.buscar(id).getNome()).isEqualTo("Chaleira Inox");
+
+		produtoService.excluir(id);
+		assertThat(produtoCache.buscar(id)).isNull();
+		assertThatThrownBy(() -> produtoService.buscarPorId(id)).isInstanceOf(EntityNotFoundException.class);
+	}
+
+	@Test
+	void leituraQueCruzouUmaInvalidacaoNaoEGuardada() {
+		ProdutoCache cache = new ProdutoCache(100);
+		Produto lidoAntes = novoProduto("Versão antiga");
+		lidoAntes.setId(1L);
+		lidoAntes.setVersao(0L);
+
+		// Leitura começa, um UPDATE invalida o produto, a leitura termina com a versão velha
+		long marca = cache.marcarLeitura();
+		cache.invalidar(1L);
+		cache.guardarSeAtual(lidoAntes, marca);
+		assertThat(cache.buscar(1L)).isNull();
+
+		// Sem invalidação no meio, guarda normalmente
+		long novaMarca = cache.marcarLeitura();
+		cache.guardarSeAtual(lidoAntes, novaMarca);
+		assertThat(cache.buscar(1L)).isSameAs(lidoAntes);
+	}
+
+	@Test
+	void invalidacaoAoMesmoTempoQueOGuardarNuncaDeixaAVersaoVelha() throws Exception {
+		ProdutoCache cache = new ProdutoCache(100);
+		Produto lidoAntes = novoProduto("Versão antiga");
+		lidoAntes.setId(1L);
+		lidoAntes.setVersao(0L);
+
+		// Em cada rodada a leitura já marcou e o UPDATE invalida enquanto ela guarda:
+		// seja qual for a ordem das duas threads, o produto não pode sobrar no cache
+		CyclicBarrier largada = new CyclicBarrier(2);
+		for (int rodada = 0; rodada < 20_000; rodada++) {
+			long marca = cache.marcarLeitura();
+			CompletableFuture<Void> invalidacao = CompletableFuture.runAsync(() -> {
+				aguardar(largada);
+				cache.invalidar(1L);
+			});
+			aguardar(largada);
+			cache.guardarSeAtual(lidoAntes, marca);
+			invalidacao.get();
+
+			assertThat(cache.buscar(1L)).as("rodada %d", rodada).isNull();
+		}
+	}
+
+	private static void aguardar(CyclicBarrier barreira) {
+		try {
+			barreira.await();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package com.wnd.wndapi.controller;
+
+import com.wnd.wndapi.evento.ProdutoAlteradoEvento;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.service.ProdutoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PATCH /api/produtos/{id} (JSON Merge Patch): só os campos enviados mudam,
+ * null é recusado (todos os campos são obrigatórios) e a versão funciona
+ * como no PUT (corpo → 409, If-Match → 412).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@RecordApplicationEvents
+class AtualizacaoParcialTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@Autowired
+	private ApplicationEvents eventos;
+
+	@Test
+	void campoAusenteContinuaECampoEnviadoMuda() throws Exception {
+		long id = produtoService.salvar(novoProduto("Cafeteira", "10.00", 5, "Fabricante Patch")).getId();
+
+		mockMvc.perform(mergePatch(id, "{\"preco\": 19.90}"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-1\""))
+				.andExpect(jsonPath("$.preco").value(19.90))
+				.andExpect(jsonPath("$.nome").value("Cafeteira"))
+				.andExpect(jsonPath("$.quantidadeEstoque").value(5))
+				.andExpect(jsonPath("$.fabricante").value("Fabricante Patch"));
+
+		Produto gravado = produtoService.buscarPorId(id);
+		assertThat(gravado.getPreco()).isEqualByComparingTo("19.90");
+		assertThat(gravado.getNome()).isEqualTo("Cafeteira");
+	}
+
+	@Test
+	void nullECampoDesconhecidoSaoRecusadosSemAlterarNada() throws Exception {
+		long id = produtoService.salvar(novoProduto("Chaleira")).getId();
+
+		// null em merge patch = remover o campo; todos os campos são obrigatórios
+		mockMvc.perform(mergePatch(id, "{\"nome\": null, \"preco\": 30}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.erros.Nome").value("O nome do produto é obrigatório."));
+		mockMvc.perform(mergePatch(id, "{\"cor\": \"azul\"}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.erros.cor").value("Campo desconhecido."));
+
+		Produto gravado = produtoService.buscarPorId(id);
+		assertThat(gravado.getNome()).isEqualTo("Chaleira");
+		assertThat(gravado.getPreco()).isEqualByComparingTo("10.00");
+		assertThat(gravado.getVersao()).isZero();
+	}
+
+	@Test
+	void produtoQueNaoExisteDa404() throws Exception {
+		mockMvc.perform(mergePatch(999_999_999L, "{\"preco\": 5}"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void versaoDesatualizadaNoCorpoDa409ENoIfMatchDa412() throws Exception {
+		long id = produtoService.salvar(novoProduto("Torradeira")).getId();
+		mockMvc.perform(mergePatch(id, "{\"preco\": 11}")).andExpect(status().isOk());
+
+		// O cliente ainda tem a versão 0
+		mockMvc.perform(mergePatch(id, "{\"preco\": 12, \"versao\": 0}"))
+				.andExpect(status().isConflict())
+				.andExpect(jsonPath("$.erros.Versão").exists());
+		mockMvc.perform(mergePatch(id, "{\"preco\": 12}").header(HttpHeaders.IF_MATCH, "\"" + id + "-0\""))
+				.andExpect(status().isPreconditionFailed());
+		assertThat(produtoService.buscarPorId(id).getPreco()).isEqualByComparingTo("11");
+
+		// Com a versão atual passa
+		mockMvc.perform(mergePatch(id, "{\"preco\": 12}").header(HttpHeaders.IF_MATCH, "\"" + id + "-1\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-2\""));
+	}
+
+	@Test
+	void precoComMaisCasasVoltaComoOBancoGuardou() throws Exception {
+		long id = produtoService.salvar(novoProduto("Liquidificador", "10.004", 5, "Fabricante Patch")).getId();
+		assertThat(produtoService.buscarPorId(id).getPreco()).isEqualByComparingTo("10.00");
+
+		// numeric(38,2): 19.999 fica 20.00 no banco, e é isso que a resposta e o evento levam
+		mockMvc.perform(mergePatch(id, "{\"preco\": 19.999}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.preco").value(20.00));
+		mockMvc.perform(put("/api/produtos/{id}", id).contentType(MediaType.APPLICATION_JSON)
+						.header(HttpHeaders.IF_MATCH, "\"" + id + "-1\"")
+						.content("{\"nome\": \"Liquidificador\", \"descricao\": \"Produto usado nos testes\", "
+								+ "\"preco\": 7.125, \"quantidadeEstoque\": 5, \"fabricante\": \"Fabricante Patch\"}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.preco").value(7.13));
+
+		assertThat(eventos.stream(ProdutoAlteradoEvento.class)
+				.filter(evento -> evento.id().equals(id))
+				.map(evento -> evento.atual().getPreco().toPlainString()))
+				.containsExactly("10.00", "20.00", "7.13");
+		assertThat(produtoService.buscarPorId(id).getPreco()).isEqualTo(new BigDecimal("7.13"));
+	}
+
+	private static MockHttpServletRequestBuilder mergePatch(long id, String corpo) {
+		return patch("/api/produtos/{id}", id).contentType("application/merge-patch+json").content(corpo);
+	}
+}
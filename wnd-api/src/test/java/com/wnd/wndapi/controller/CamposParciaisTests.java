@@ -0,0 +1,128 @@
+package com.wnd.wndapi.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wnd.wndapi.service.ProdutoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ?fields= na listagem e no GET por id: só os campos pedidos (mais o id),
+ * na ordem do JSON do Produto; campo desconhecido → 400.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CamposParciaisTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void listagemTrazSoOsCamposPedidos() throws Exception {
+		String fabricante = "Fabricante " + UUID.randomUUID();
+		for (int i = 0; i < 3; i++) {
+			produtoService.salvar(novoProduto("Produto " + i, (10 + i) + ".00", 1, fabricante));
+		}
+
+		JsonNode pagina = json(mockMvc.perform(get("/api/produtos")
+						.param("fabricante", fabricante).param("fields", "preco, nome").param("limit", "2"))
+				.andExpect(status().isOk())
+				.andReturn());
+		assertThat(pagina.get("itens")).hasSize(2);
+		assertThat(campos(pagina.get("itens").get(0))).containsExactly("id", "nome", "preco");
+		assertThat(pagina.get("proximoCursor").isTextual()).isTrue();
+
+		// Ordenado por preço sem pedir o preço: a coluna vem do banco (cursor) mas sai do item
+		JsonNode porPreco = json(mockMvc.perform(get("/api/produtos")
+						.param("fabricante", fabricante).param("fields", "nome").param("sort", "preco").param("limit", "2"))
+				.andExpect(status().isOk())
+				.andReturn());
+		assertThat(campos(porPreco.get("itens").get(0))).containsExactly("id", "nome");
+
+		JsonNode segunda = json(mockMvc.perform(get("/api/produtos")
+						.param("fabricante", fabricante).param("fields", "nome").param("sort", "preco").param("limit", "2")
+						.param("after", porPreco.get("proximoCursor").asText()))
+				.andExpect(status().isOk())
+				.andReturn());
+		assertThat(segunda.get("itens").get(0).get("nome").asText()).isEqualTo("Produto 2");
+		assertThat(segunda.get("proximoCursor").isNull()).isTrue();
+	}
+
+	@Test
+	void porIdTrazSoOsCamposPedidosComETag() throws Exception {
+		long id = produtoService.salvar(novoProduto("Cafeteira")).getId();
+
+		// Fora do cache (SELECT só das colunas) e depois em cache (sai do produto guardado)
+		for (int vez = 0; vez < 2; vez++) {
+			JsonNode produto = json(mockMvc.perform(get("/api/produtos/{id}", id).param("fields", "nome"))
+					.andExpect(status().isOk())
+					.andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-0\""))
+					.andReturn());
+			assertThat(campos(produto)).containsExactly("id", "nome");
+			produtoService.buscarPorId(id);
+		}
+
+		JsonNode comVersao = json(mockMvc.perform(get("/api/produtos/{id}", id).param("fields", "versao,preco"))
+				.andExpect(status().isOk())
+				.andReturn());
+		assertThat(campos(comVersao)).containsExactly("id", "preco", "versao");
+	}
+
+	@Test
+	void campoDesconhecidoDa400() throws Exception {
+		long id = produtoService.salvar(novoProduto("Chaleira")).getId();
+
+		mockMvc.perform(get("/api/produtos").param("fields", "nome,cor"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.erros.Paginação").value(containsString("cor")));
+		mockMvc.perform(get("/api/produtos/{id}", id).param("fields", "cor"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.erros.Campos").value(containsString("cor")));
+	}
+
+	@Test
+	void campoDesconhecidoDa400MesmoComETagQueConfere() throws Exception {
+		long id = produtoService.salvar(novoProduto("Torradeira")).getId();
+		produtoService.buscarPorId(id);  // em cache: o ETag confere sem ir ao banco
+
+		mockMvc.perform(get("/api/produtos/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"" + id + "-0\""))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get("/api/produtos/{id}", id).param("fields", "bogus")
+						.header(HttpHeaders.IF_NONE_MATCH, "\"" + id + "-0\""))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.erros.Campos").value(containsString("bogus")));
+	}
+
+	private JsonNode json(MvcResult resultado) throws Exception {
+		return objectMapper.readTree(resultado.getResponse().getContentAsString());
+	}
+
+	private static List<String> campos(JsonNode item) {
+		List<String> nomes = new ArrayList<>();
+		item.fieldNames().forEachRemaining(nomes::add);
+		return nomes;
+	}
+}
@@ -0,0 +1,102 @@
+package com.wnd.wndapi.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.service.ProdutoService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/produtos/export: o CSV segue a RFC 4180 (aspas em volta do campo
+ * com vírgula, aspas ou quebra de linha; aspas dobradas dentro dele), o
+ * NDJSON tem exatamente um produto por linha e formato desconhecido é 400.
+ *
+ * Banco próprio: a exportação traz a tabela inteira.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:exportacao")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ExportacaoTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private Produto simples;
+	private Produto especial;
+
+	@BeforeAll
+	void cadastrarProdutos() {
+		simples = produtoService.salvar(novoProduto("Chaleira", "25.50", 3, "Arno"));
+		Produto produto = novoProduto("Cafeteira, \"italiana\"", "10.00", 1, "Mondial");
+		produto.setDescricao("Linha um\nLinha dois, com vírgula\r\nfim");
+		especial = produtoService.salvar(produto);
+	}
+
+	@Test
+	void csvColocaEntreAspasVirgulaAspasEQuebraDeLinhaENdjsonUmPorLinha() throws Exception {
+		MockHttpServletResponse csv = exportar("csv");
+		assertThat(csv.getContentType()).startsWith("text/csv");
+		assertThat(csv.getHeader(HttpHeaders.CONTENT_DISPOSITION)).contains("produtos.csv");
+		assertThat(csv.getContentAsString(StandardCharsets.UTF_8)).isEqualTo(
+				"id,nome,descricao,preco,quantidadeEstoque,fabricante\n"
+						+ simples.getId() + ",Chaleira,Produto usado nos testes automatizados,25.50,3,Arno\n"
+						+ especial.getId() + ",\"Cafeteira, \"\"italiana\"\"\","
+						+ "\"Linha um\nLinha dois, com vírgula\r\nfim\",10.00,1,Mondial\n");
+
+		// NDJSON: a quebra de linha da descrição vai escapada, então cada linha é um produto inteiro
+		MockHttpServletResponse ndjson = exportar("ndjson");
+		assertThat(ndjson.getContentType()).startsWith("application/x-ndjson");
+		String corpo = ndjson.getContentAsString(StandardCharsets.UTF_8);
+		assertThat(corpo).endsWith("\n");
+		List<String> linhas = corpo.lines().toList();
+		assertThat(linhas).hasSize(2);
+		JsonNode primeira = objectMapper.readTree(linhas.get(0));
+		JsonNode segunda = objectMapper.readTree(linhas.get(1));
+		assertThat(primeira.get("id").asLong()).isEqualTo(simples.getId());
+		assertThat(segunda.get("nome").asText()).isEqualTo("Cafeteira, \"italiana\"");
+		assertThat(segunda.get("descricao").asText()).isEqualTo("Linha um\nLinha dois, com vírgula\r\nfim");
+	}
+
+	@Test
+	void formatoDesconhecidoDa400() throws Exception {
+		mockMvc.perform(get("/api/produtos/export").param("format", "xml"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.erros.Parâmetro").value("Formato inválido: use ndjson, csv, cbor ou smile."));
+	}
+
+	// O corpo é um StreamingResponseBody: a escrita acontece no despacho assíncrono
+	private MockHttpServletResponse exportar(String formato) throws Exception {
+		MvcResult inicio = mockMvc.perform(get("/api/produtos/export").param("format", formato))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(inicio))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+	}
+}
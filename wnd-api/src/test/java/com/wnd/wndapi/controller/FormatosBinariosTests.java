@@ -0,0 +1,130 @@
+package com.wnd.wndapi.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.service.ProdutoService;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Negociação de conteúdo (FormatosBinariosConfig) no GET/POST/PUT de um
+ * produto: JSON, CBOR e Smile, escolhidos pelo Accept (resposta) e pelo
+ * Content-Type (corpo enviado).
+ *
+ * Cada formato tem o seu ETag e a resposta leva "Vary: Accept": um cache
+ * intermediário nunca entrega os bytes de um formato a quem pediu outro.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class FormatosBinariosTests {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final ObjectMapper CBOR = new ObjectMapper(new CBORFactory());
+	private static final ObjectMapper SMILE = new ObjectMapper(new SmileFactory());
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@ParameterizedTest
+	@ValueSource(strings = {"application/json", "application/cbor", "application/x-jackson-smile"})
+	void respostaNoFormatoDoAcceptComETagDoFormato(String formato) throws Exception {
+		long id = produtoService.salvar(novoProduto("Cafeteira " + formato)).getId();
+		String etag = etagEsperado(id, 0, formato);
+
+		MockHttpServletResponse resposta = mockMvc.perform(get("/api/produtos/{id}", id).accept(formato))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+		assertThat(MediaType.parseMediaType(resposta.getContentType()).isCompatibleWith(MediaType.valueOf(formato)))
+				.isTrue();
+		assertThat(resposta.getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+		assertThat(resposta.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+		JsonNode produto = leitor(formato).readTree(resposta.getContentAsByteArray());
+		assertThat(produto.get("nome").asText()).isEqualTo("Cafeteira " + formato);
+		assertThat(produto.get("preco").decimalValue()).isEqualByComparingTo("10.00");
+
+		// Com ?fields= também
+		MockHttpServletResponse parcial = mockMvc.perform(get("/api/produtos/{id}", id)
+						.param("fields", "nome").accept(formato))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+		assertThat(parcial.getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+		assertThat(leitor(formato).readTree(parcial.getContentAsByteArray()).get("nome").asText())
+				.isEqualTo("Cafeteira " + formato);
+
+		// O ETag do formato confere (304, fora e dentro do cache); o de outro formato não
+		for (int vez = 0; vez < 2; vez++) {
+			MockHttpServletResponse naoModificado = mockMvc.perform(get("/api/produtos/{id}", id)
+							.accept(formato).header(HttpHeaders.IF_NONE_MATCH, etag))
+					.andExpect(status().isNotModified())
+					.andReturn().getResponse();
+			assertThat(naoModificado.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+			produtoService.buscarPorId(id);
+		}
+		String outroFormato = formato.equals("application/json") ? "application/cbor" : "application/json";
+		mockMvc.perform(get("/api/produtos/{id}", id)
+						.accept(outroFormato).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"application/json", "application/cbor", "application/x-jackson-smile"})
+	void corpoEnviadoNoFormatoDoContentType(String formato) throws Exception {
+		ObjectMapper mapper = leitor(formato);
+		Produto novo = novoProduto("Chaleira " + formato, "25.50", 3, "Fabricante Formatos");
+
+		MockHttpServletResponse criado = mockMvc.perform(post("/api/produtos")
+						.contentType(formato).accept(formato).content(mapper.writeValueAsBytes(novo)))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse();
+		long id = mapper.readTree(criado.getContentAsByteArray()).get("id").asLong();
+		Produto gravado = produtoService.buscarPorId(id);
+		assertThat(gravado.getNome()).isEqualTo("Chaleira " + formato);
+		assertThat(gravado.getPreco()).isEqualByComparingTo("25.50");
+
+		// PUT no mesmo formato, com o ETag que o GET desse formato devolveu
+		String etag = mockMvc.perform(get("/api/produtos/{id}", id).accept(formato))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		novo.setQuantidadeEstoque(7);
+		mockMvc.perform(put("/api/produtos/{id}", id)
+						.contentType(formato).accept(formato).header(HttpHeaders.IF_MATCH, etag)
+						.content(mapper.writeValueAsBytes(novo)))
+				.andExpect(status().isOk());
+		assertThat(produtoService.buscarPorId(id).getQuantidadeEstoque()).isEqualTo(7);
+	}
+
+	private static String etagEsperado(long id, long versao, String formato) {
+		return switch (formato) {
+			case "application/cbor" -> "\"" + id + "-" + versao + "+cbor\"";
+			case "application/x-jackson-smile" -> "\"" + id + "-" + versao + "+x-jackson-smile\"";
+			default -> "\"" + id + "-" + versao + "\"";
+		};
+	}
+
+	private static ObjectMapper leitor(String formato) {
+		return switch (formato) {
+			case "application/cbor" -> CBOR;
+			case "application/x-jackson-smile" -> SMILE;
+			default -> JSON;
+		};
+	}
+}
@@ -0,0 +1,173 @@
+package com.wnd.wndapi.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.CampoOrdenacao;
+import com.wnd.wndapi.service.ProdutoService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Paginação por cursor (keyset) no GET /api/produtos: percorrer todas as
+ * páginas, em cada ordenação e direção, entrega cada produto uma vez só e na
+ * ordem certa — inclusive com muitos empates na coluna ordenada, que o id
+ * desempata.
+ *
+ * Banco próprio: a caminhada compara com TODOS os produtos da tabela.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:paginacao")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PaginacaoCursorTests {
+
+	// Poucos valores distintos por coluna: quase toda fronteira de página cai num empate
+	private static final String[] NOMES = {"Cafeteira", "Chaleira", "Liquidificador", "Torradeira", "Batedeira"};
+	private static final String[] PRECOS = {"19.90", "5.00", "120.00", "5.00"};
+	private static final String[] FABRICANTES = {"Arno", "Mondial", "Britania"};
+	private static final int PRODUTOS = 57;
+	private static final int TAMANHO_PAGINA = 7;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final List<Produto> produtos = new ArrayList<>();
+
+	@BeforeAll
+	void cadastrarProdutos() {
+		for (int i = 0; i < PRODUTOS; i++) {
+			produtos.add(produtoService.salvar(novoProduto(NOMES[i % NOMES.length], PRECOS[i % PRECOS.length], 1,
+					FABRICANTES[i % FABRICANTES.length])));
+		}
+	}
+
+	@Test
+	void todasAsPaginasSemRepetirNemPularEmCadaOrdenacao() throws Exception {
+		for (CampoOrdenacao campo : CampoOrdenacao.values()) {
+			for (boolean crescente : new boolean[]{true, false}) {
+				String dir = crescente ? "asc" : "desc";
+				List<Long> recebidos = percorrer(campo.getAtributo(), dir);
+
+				assertThat(recebidos)
+						.as("sort=%s dir=%s", campo.getAtributo(), dir)
+						.doesNotHaveDuplicates()
+						.containsExactlyElementsOf(esperados(campo, crescente));
+			}
+		}
+	}
+
+	@Test
+	void empateNaFronteiraDaPaginaContinuaPeloId() throws Exception {
+		// 57 produtos, só 3 fabricantes: cada fabricante ocupa ~19 itens seguidos,
+		// então a página de 7 termina no meio de um empate
+		JsonNode primeira = pagina(listar("fabricante", "asc"));
+		JsonNode segunda = pagina(listar("fabricante", "asc")
+				.param("after", primeira.get("proximoCursor").asText()));
+
+		JsonNode ultimoDaPrimeira = primeira.get("itens").get(TAMANHO_PAGINA - 1);
+		JsonNode primeiroDaSegunda = segunda.get("itens").get(0);
+		assertThat(primeiroDaSegunda.get("fabricante").asText())
+				.isEqualTo(ultimoDaPrimeira.get("fabricante").asText());
+		assertThat(primeiroDaSegunda.get("id").asLong()).isGreaterThan(ultimoDaPrimeira.get("id").asLong());
+	}
+
+	@Test
+	void idPuroComoCursorNasOutrasOrdenacoes() throws Exception {
+		// "after=<id>" sem o valor da coluna: o repositório busca o valor do produto âncora
+		List<Long> porPreco = esperados(CampoOrdenacao.PRECO, true);
+		Long ancora = porPreco.get(10);
+
+		JsonNode pagina = pagina(listar("preco", "asc").param("after", String.valueOf(ancora)));
+		List<Long> ids = new ArrayList<>();
+		pagina.get("itens").forEach(item -> ids.add(item.get("id").asLong()));
+		assertThat(ids).containsExactlyElementsOf(porPreco.subList(11, 11 + TAMANHO_PAGINA));
+	}
+
+	@Test
+	void cursorMalFormadoDa400() throws Exception {
+		String[][] casos = {
+				{"id", "abc"},
+				{"nome", "12.@@@"},                              // Base64 inválido
+				{"nome", "x." + base64("Cafeteira")},            // id não numérico
+				{"preco", "5." + base64("barato")},              // valor não é um preço
+		};
+		for (String[] caso : casos) {
+			mockMvc.perform(listar(caso[0], "asc").param("after", caso[1]))
+					.andExpect(status().isBadRequest())
+					.andExpect(jsonPath("$.erros.Paginação").value("Cursor inválido."));
+		}
+	}
+
+	private List<Long> percorrer(String sort, String dir) throws Exception {
+		List<Long> ids = new ArrayList<>();
+		String cursor = null;
+		int paginas = 0;
+		do {
+			MockHttpServletRequestBuilder requisicao = listar(sort, dir);
+			if (cursor != null) {
+				requisicao.param("after", cursor);
+			}
+			JsonNode pagina = pagina(requisicao);
+			pagina.get("itens").forEach(item -> ids.add(item.get("id").asLong()));
+			cursor = pagina.get("proximoCursor").isNull() ? null : pagina.get("proximoCursor").asText();
+			assertThat(++paginas).as("páginas demais em sort=%s dir=%s", sort, dir).isLessThanOrEqualTo(PRODUTOS);
+		} while (cursor != null);
+		return ids;
+	}
+
+	// A ordem que o banco deve seguir: coluna e depois id, os dois na mesma direção
+	private List<Long> esperados(CampoOrdenacao campo, boolean crescente) {
+		Comparator<Produto> porColuna = switch (campo) {
+			case ID -> Comparator.comparing(Produto::getId);
+			case NOME -> Comparator.comparing(Produto::getNome);
+			case PRECO -> Comparator.comparing(Produto::getPreco);
+			case FABRICANTE -> Comparator.comparing(Produto::getFabricante);
+		};
+		Comparator<Produto> ordem = porColuna.thenComparing(Produto::getId);
+		return produtos.stream()
+				.sorted(crescente ? ordem : ordem.reversed())
+				.map(Produto::getId)
+				.toList();
+	}
+
+	private static MockHttpServletRequestBuilder listar(String sort, String dir) {
+		return get("/api/produtos")
+				.param("sort", sort)
+				.param("dir", dir)
+				.param("limit", String.valueOf(TAMANHO_PAGINA));
+	}
+
+	private JsonNode pagina(MockHttpServletRequestBuilder requisicao) throws Exception {
+		return objectMapper.readTree(mockMvc.perform(requisicao)
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+	}
+
+	private static String base64(String texto) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+	}
+}
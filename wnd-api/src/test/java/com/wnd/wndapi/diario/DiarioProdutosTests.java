@@ -0,0 +1,189 @@
+package com.wnd.wndapi.diario;
+
+import com.wnd.wndapi.WndApiApplication;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.ProdutoRepository;
+import com.wnd.wndapi.service.ProdutoService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Diário de alterações: o que foi gravado antes de fechar a aplicação
+ * tem que voltar igual quando ela sobe de novo (com um H2 em memória novo).
+ */
+class DiarioProdutosTests {
+
+	@TempDir
+	Path diretorio;
+
+	@Test
+	void reinicioRestauraSnapshotEFinalDoDiario() throws Exception {
+		Long alterado;
+		Long reservado;
+		Long excluido;
+		Long criadoDepoisDoSnapshot;
+		try (ConfigurableApplicationContext app = subir()) {
+			ProdutoService service = app.getBean(ProdutoService.class);
+			alterado = service.salvar(novoProduto("Cafeteira", 10)).getId();
+			reservado = service.salvar(novoProduto("Chaleira", 8)).getId();
+			excluido = service.salvar(novoProduto("Torradeira", 3)).getId();
+
+			// Parte das alterações fica no snapshot, parte só no diário
+			app.getBean(DiarioProdutos.class).gravarSnapshot();
+
+			Produto dados = novoProduto("Cafeteira Elétrica", 12);
+			dados.setPreco(new BigDecimal("199.90"));
+			service.atualizar(alterado, dados, null);
+			service.reservarEstoque(reservado, 5);
+			service.excluir(excluido);
+			criadoDepoisDoSnapshot = service.salvar(novoProduto("Liquidificador", 7)).getId();
+		}
+
+		try (ConfigurableApplicationContext app = subir()) {
+			ProdutoRepository repositorio = app.getBean(ProdutoRepository.class);
+
+			Produto cafeteira = repositorio.findById(alterado).orElseThrow();
+			assertThat(cafeteira.getNome()).isEqualTo("Cafeteira Elétrica");
+			assertThat(cafeteira.getPreco()).isEqualByComparingTo("199.90");
+			assertThat(cafeteira.getQuantidadeEstoque()).isEqualTo(12);
+			assertThat(cafeteira.getVersao()).isEqualTo(1);
+
+			assertThat(repositorio.findById(reservado).orElseThrow().getQuantidadeEstoque()).isEqualTo(3);
+			assertThat(repositorio.findById(excluido)).isEmpty();
+			assertThat(repositorio.findById(criadoDepoisDoSnapshot)).isPresent();
+			assertThat(repositorio.count()).isEqualTo(3);
+
+			// A sequence continua depois dos IDs restaurados
+			Long novo = app.getBean(ProdutoService.class).salvar(novoProduto("Batedeira", 1)).getId();
+			assertThat(novo).isGreaterThan(criadoDepoisDoSnapshot);
+		}
+	}
+
+	@Test
+	void finalIncompletoDoDiarioEDescartado() throws Exception {
+		Long id;
+		try (ConfigurableApplicationContext app = subir()) {
+			id = app.getBean(ProdutoService.class).salvar(novoProduto("Cafeteira", 10)).getId();
+		}
+
+		// Simula uma queda no meio da escrita: meio registro no fim do segmento
+		Path segmento = ultimoSegmento();
+		long tamanhoValido = Files.size(segmento);
+		byte[] registro = FormatoDiario.gravado(novoProdutoComId(id + 1));
+		Files.write(segmento, Arrays.copyOf(registro, registro.length / 2), StandardOpenOption.APPEND);
+
+		try (ConfigurableApplicationContext app = subir()) {
+			assertThat(app.getBean(ProdutoRepository.class).findAll())
+					.extracting(Produto::getId)
+					.containsExactly(id);
+			assertThat(Files.size(segmento)).isEqualTo(tamanhoValido);
+		}
+	}
+
+	@Test
+	void falhaDeGravacaoParaODiarioSemTravarQuemEscreve() throws Exception {
+		List<FileChannel> canais = new CopyOnWriteArrayList<>();
+		GravadorDiario gravador = new GravadorDiario(diretorio, 1, Long.MAX_VALUE, 0, guardandoCanais(canais));
+		gravador.enfileirar(FormatoDiario.gravado(novoProdutoComId(1L)));
+		esperar(() -> gravador.registrosGravados() == 1);
+		assertThat(gravador.falha()).isNull();
+
+		// Canal fechado por baixo: a próxima escrita falha
+		canais.get(0).close();
+		gravador.enfileirar(FormatoDiario.gravado(novoProdutoComId(2L)));
+		esperar(() -> gravador.falha() != null);
+		assertThat(gravador.falha()).isInstanceOf(IOException.class);
+
+		// Mais que a capacidade da fila: ninguém fica preso no put()
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			for (long id = 3; id <= 100_002; id++) {
+				gravador.enfileirar(FormatoDiario.gravado(novoProdutoComId(id)));
+			}
+		});
+		assertThat(gravador.rotacionar()).failsWithin(Duration.ofSeconds(5));
+		assertTimeoutPreemptively(Duration.ofSeconds(5), gravador::encerrar);
+		assertThat(gravador.registrosGravados()).isEqualTo(1);
+		assertThat(gravador.registrosPerdidos()).isEqualTo(100_001);
+	}
+
+	@Test
+	void fimNoLoteQueFalhouEncerraMesmoAssim() throws Exception {
+		List<FileChannel> canais = new CopyOnWriteArrayList<>();
+		// Janela longa: o registro e o Fim caem no mesmo lote
+		GravadorDiario gravador = new GravadorDiario(diretorio, 1, Long.MAX_VALUE,
+				Duration.ofMillis(200).toNanos(), guardandoCanais(canais));
+		canais.get(0).close();
+
+		gravador.enfileirar(FormatoDiario.gravado(novoProdutoComId(1L)));
+		assertTimeoutPreemptively(Duration.ofSeconds(5), gravador::encerrar);
+		assertThat(gravador.falha()).isNotNull();
+		assertThat(gravador.registrosPerdidos()).isEqualTo(1);
+	}
+
+	// Abre os segmentos normalmente, mas guarda os canais para o teste fechar por baixo
+	private static GravadorDiario.AbridorCanal guardandoCanais(List<FileChannel> canais) {
+		return arquivo -> {
+			FileChannel canal = FileChannel.open(arquivo,
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			canais.add(canal);
+			return canal;
+		};
+	}
+
+	private static void esperar(BooleanSupplier condicao) throws InterruptedException {
+		long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!condicao.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("tempo esgotado").isLessThan(limite);
+			Thread.sleep(10);
+		}
+	}
+
+	private ConfigurableApplicationContext subir() {
+		return new SpringApplicationBuilder(WndApiApplication.class)
+				.web(WebApplicationType.NONE)
+				// Como argumentos (e não .properties(), que perde para o application.properties)
+				.run(
+						"--spring.datasource.url=jdbc:h2:mem:diario-" + UUID.randomUUID(),
+						"--wnd.diario.habilitado=true",
+						"--wnd.diario.diretorio=" + diretorio,
+						"--spring.main.banner-mode=off");
+	}
+
+	private Path ultimoSegmento() throws IOException {
+		try (Stream<Path> arquivos = Files.list(diretorio)) {
+			List<Path> segmentos = arquivos
+					.filter(arquivo -> arquivo.getFileName().toString().startsWith("diario-"))
+					.sorted()
+					.toList();
+			return segmentos.get(segmentos.size() - 1);
+		}
+	}
+
+	private static Produto novoProdutoComId(Long id) {
+		Produto produto = novoProduto("Fantasma", 1);
+		produto.setId(id);
+		produto.setVersao(0L);
+		return produto;
+	}
+}
@@ -0,0 +1,111 @@
+package com.wnd.wndapi.feed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wnd.wndapi.service.ProdutoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Feed SSE com vários assinantes ao mesmo tempo, por HTTP de verdade:
+ * cada um recebe exatamente um evento bem formado por alteração.
+ *
+ * (O mesmo evento vai para a fila de todos; se algo mutável fosse dividido
+ * entre as threads dos assinantes, os últimos receberiam "data:" repetido.)
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "wnd.feed.ping-ms=600000")
+class FeedProdutosTests {
+
+	private static final int ASSINANTES = 3;
+
+	@LocalServerPort
+	private int porta;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@Autowired
+	private FeedProdutos feed;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void cadaAssinanteRecebeUmEventoBemFormadoPorAlteracao() throws Exception {
+		HttpClient http = HttpClient.newHttpClient();
+		try {
+			verificar(http);
+		} finally {
+			// Fecha as conexões do feed (senão ficariam abertas até o fim do JVM)
+			http.shutdownNow();
+		}
+	}
+
+	private void verificar(HttpClient http) throws Exception {
+		List<BlockingQueue<List<String>>> assinantes = new ArrayList<>();
+		for (int i = 0; i < ASSINANTES; i++) {
+			assinantes.add(assinar(http));
+		}
+		for (BlockingQueue<List<String>> eventos : assinantes) {
+			assertThat(proximo(eventos).get(0)).isEqualTo("event:conectado");
+		}
+		assertThat(feed.assinantes()).isEqualTo(ASSINANTES);
+
+		long primeiro = produtoService.salvar(novoProduto("Primeiro do feed")).getId();
+		long segundo = produtoService.salvar(novoProduto("Segundo do feed")).getId();
+
+		for (BlockingQueue<List<String>> eventos : assinantes) {
+			for (long id : List.of(primeiro, segundo)) {
+				List<String> linhas = proximo(eventos);
+				assertThat(linhas).hasSize(3);
+				assertThat(linhas.get(0)).startsWith("id:");
+				assertThat(linhas.get(1)).isEqualTo("event:produto");
+				assertThat(linhas.get(2)).startsWith("data:");
+				assertThat(objectMapper.readTree(linhas.get(2).substring(5)).get("id").asLong()).isEqualTo(id);
+			}
+			// Nada além dos dois eventos
+			assertThat(eventos.poll(300, TimeUnit.MILLISECONDS)).isNull();
+		}
+	}
+
+	// Abre a conexão e separa o fluxo em eventos (linhas até a linha vazia)
+	private BlockingQueue<List<String>> assinar(HttpClient http) {
+		BlockingQueue<List<String>> eventos = new LinkedBlockingQueue<>();
+		HttpRequest pedido = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/api/produtos/stream"))
+				.header("Accept", "text/event-stream")
+				.build();
+		http.sendAsync(pedido, HttpResponse.BodyHandlers.ofLines()).thenAccept(resposta -> {
+			List<String> atual = new ArrayList<>();
+			resposta.body().forEach(linha -> {
+				if (linha.isEmpty()) {
+					eventos.add(atual.isEmpty() ? List.of() : List.copyOf(atual));
+					atual.clear();
+				} else {
+					atual.add(linha);
+				}
+			});
+		});
+		return eventos;
+	}
+
+	private static List<String> proximo(BlockingQueue<List<String>> eventos) throws InterruptedException {
+		List<String> evento = eventos.poll(10, TimeUnit.SECONDS);
+		assertThat(evento).as("evento não chegou").isNotNull();
+		return evento;
+	}
+}
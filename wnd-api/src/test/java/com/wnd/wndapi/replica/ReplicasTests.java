@@ -0,0 +1,149 @@
+package com.wnd.wndapi.replica;
+
+import com.jayway.jsonpath.JsonPath;
+import com.wnd.wndapi.agregados.CatalogoAgregados;
+import com.wnd.wndapi.dto.ResumoCatalogo;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Perfil "replicas" com dois H2 locais como réplicas.
+ *
+ * As réplicas aplicam as alterações com um atraso simulado de alguns
+ * segundos, para dar tempo de ver a diferença entre quem acabou de
+ * escrever (lê do primário, pelo cookie wnd-posicao) e os outros clientes
+ * (leem da réplica, que ainda não tem a escrita).
+ */
+@SpringBootTest(properties = {
+		"wnd.replicas.habilitado=true",
+		"wnd.replicas.quantidade=2",
+		"spring.datasource.url=jdbc:h2:mem:replicas-primario",
+		"wnd.replicas.url=jdbc:h2:mem:replicas-teste-{n}",
+		"wnd.replicas.atraso-simulado-ms=3000",
+		"wnd.replicas.atraso-maximo-ms=60000"})
+@AutoConfigureMockMvc
+class ReplicasTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private FluxoReplicacao fluxo;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private CatalogoAgregados catalogoAgregados;
+
+	@BeforeEach
+	void esperarCopiaInicial() throws InterruptedException {
+		esperar(() -> fluxo.replicas().stream().allMatch(Replica::pronta));
+	}
+
+	@Test
+	void transacaoSomenteLeituraVaiParaUmaReplica() {
+		assertThat(bancoDaTransacao(true)).startsWithIgnoringCase("replicas-teste-");
+		assertThat(bancoDaTransacao(false)).isEqualToIgnoringCase("replicas-primario");
+	}
+
+	@Test
+	void quemEscreveuLeDoPrimarioEnquantoAsReplicasNaoChegam() throws Exception {
+		MvcResult criado = mockMvc.perform(post("/api/produtos")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"nome": "Umidificador", "descricao": "Produto do teste de réplicas",
+								 "preco": 199.90, "quantidadeEstoque": 3, "fabricante": "Fabricante Teste"}
+								"""))
+				.andExpect(status().isCreated())
+				.andReturn();
+		long id = ((Number) JsonPath.read(criado.getResponse().getContentAsString(), "$.id")).longValue();
+		String cookie = criado.getResponse().getHeader(HttpHeaders.SET_COOKIE);
+		assertThat(cookie).startsWith(LeituraConsistenteFiltro.COOKIE + "=" + fluxo.epoca() + ".");
+
+		// Outro cliente (sem o cookie): lê da réplica, que ainda não aplicou a criação
+		mockMvc.perform(get("/api/produtos/" + id)).andExpect(status().isNotFound());
+
+		// Quem criou: a leitura vai para o primário
+		String valor = cookie.substring(cookie.indexOf('=') + 1, cookie.indexOf(';'));
+		mockMvc.perform(get("/api/produtos/" + id).cookie(new Cookie(
+						LeituraConsistenteFiltro.COOKIE, valor)))
+				.andExpect(status().isOk());
+
+		// Depois do atraso, as duas réplicas têm o produto
+		esperar(() -> fluxo.replicas().stream().allMatch(r -> r.posicaoAplicada() >= fluxo.ultimaPosicao()));
+		for (Replica replica : fluxo.replicas()) {
+			assertThat(new JdbcTemplate(replica.dataSource())
+					.queryForObject("select nome from produtos where id = ?", String.class, id))
+					.isEqualTo("Umidificador");
+		}
+	}
+
+	@Test
+	void reconciliacaoDosAgregadosNaoLeDaReplicaAtrasada() throws Exception {
+		esperar(() -> {
+			try {
+				return catalogoAgregados.resumo() != null;
+			} catch (IllegalStateException carregando) {
+				return false;
+			}
+		});
+		String fabricante = "Fabricante " + UUID.randomUUID();
+		mockMvc.perform(post("/api/produtos")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"nome\": \"Desumidificador\", \"descricao\": \"Produto do teste de réplicas\", "
+								+ "\"preco\": 10, \"quantidadeEstoque\": 4, \"fabricante\": \"" + fabricante + "\"}"))
+				.andExpect(status().isCreated());
+
+		// As réplicas ainda não têm o produto (atraso de 3 s); a reconciliação
+		// lendo delas apagaria dos totais o que o delta acabou de somar
+		Instant antes = Instant.now();
+		catalogoAgregados.reconciliarPeriodicamente();
+
+		ResumoCatalogo resumo = catalogoAgregados.resumo();
+		assertThat(resumo.ultimaReconciliacao()).isAfterOrEqualTo(antes);
+		assertThat(resumo.porFabricante())
+				.filteredOn(linha -> linha.fabricante().equals(fabricante))
+				.singleElement()
+				.satisfies(linha -> assertThat(linha.estoque()).isEqualTo(4));
+	}
+
+	// Nome do banco H2 de onde veio a conexão da transação
+	private String bancoDaTransacao(boolean somenteLeitura) {
+		TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+		transacao.setReadOnly(somenteLeitura);
+		return transacao.execute(status -> jdbcTemplate.queryForObject("select database()", String.class));
+	}
+
+	private static void esperar(BooleanSupplier condicao) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (!condicao.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("tempo esgotado").isLessThan(limite);
+			TimeUnit.MILLISECONDS.sleep(50);
+		}
+	}
+}
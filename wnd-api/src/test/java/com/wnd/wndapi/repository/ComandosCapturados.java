@@ -0,0 +1,21 @@
+package com.wnd.wndapi.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Guarda o SQL que o Hibernate gera (hibernate.session_factory.statement_inspector),
+ * para o teste conferir o plano de execução de cada comando.
+ */
+public class ComandosCapturados implements StatementInspector {
+
+	static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+	@Override
+	public String inspect(String sql) {
+		SQL.add(sql);
+		return sql;
+	}
+}
@@ -0,0 +1,152 @@
+package com.wnd.wndapi.repository;
+
+import com.wnd.wndapi.WndApiApplication;
+import com.wnd.wndapi.service.ProdutoService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Filtros da listagem: o plano de execução (EXPLAIN do H2) de cada consulta
+ * tem que usar um dos índices da tabela, nunca percorrer a tabela inteira.
+ *
+ * O SQL conferido é o que o Hibernate realmente gerou (ComandosCapturados),
+ * com e sem ?fields=, com e sem cursor, em cada ordenação.
+ */
+class FiltroProdutosPlanoTests {
+
+	private static ConfigurableApplicationContext app;
+	private static ProdutoService service;
+
+	@BeforeAll
+	static void subir() {
+		app = new SpringApplicationBuilder(WndApiApplication.class)
+				.web(WebApplicationType.NONE)
+				// Como argumentos (e não .properties(), que perde para o application.properties)
+				.run(
+						"--spring.datasource.url=jdbc:h2:mem:plano-" + UUID.randomUUID(),
+						"--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+								+ ComandosCapturados.class.getName(),
+						"--spring.main.banner-mode=off");
+		service = app.getBean(ProdutoService.class);
+
+		// Catálogo com volume suficiente para o otimizador do H2 ter estatísticas
+		List<Object[]> linhas = new ArrayList<>();
+		for (int i = 0; i < 20_000; i++) {
+			linhas.add(new Object[]{(long) i + 1, "Produto " + i, "Descrição do produto " + i,
+					BigDecimal.valueOf(1 + i % 500), i % 100, "Fabricante " + i % 200});
+		}
+		JdbcTemplate jdbc = app.getBean(JdbcTemplate.class);
+		jdbc.batchUpdate("insert into produtos (id, nome, descricao, preco, quantidade_estoque, fabricante, versao) "
+				+ "values (?, ?, ?, ?, ?, ?, 0)", linhas);
+		jdbc.execute("analyze");
+	}
+
+	@AfterAll
+	static void descer() {
+		app.close();
+	}
+
+	@Test
+	void filtroPorFabricanteUsaIndice() throws Exception {
+		FiltroProdutos filtro = new FiltroProdutos("Fabricante 7", null, null, null);
+		conferirPlanos(filtro, "IDX_PRODUTOS_FABRICANTE_ID");
+		assertThat(service.listarPagina(null, 100, null, null, filtro).itens())
+				.allSatisfy(produto -> assertThat(produto.getFabricante()).isEqualTo("Fabricante 7"))
+				.hasSize(100);
+	}
+
+	@Test
+	void filtroPorFaixaDePrecoUsaIndice() throws Exception {
+		FiltroProdutos filtro = new FiltroProdutos(null, new BigDecimal("10"), new BigDecimal("12"), null);
+		conferirPlanos(filtro, "IDX_PRODUTOS_PRECO_ID");
+		assertThat(service.listarPagina(null, 100, "preco", "desc", filtro).itens())
+				.allSatisfy(produto -> assertThat(produto.getPreco()).isBetween(new BigDecimal("10"), new BigDecimal("12")))
+				.first().satisfies(produto -> assertThat(produto.getPreco()).isEqualByComparingTo("12"));
+	}
+
+	@Test
+	void filtroPorEstoqueUsaIndice() throws Exception {
+		FiltroProdutos filtro = new FiltroProdutos(null, null, null, 1);
+		conferirPlanos(filtro, "IDX_PRODUTOS_ESTOQUE_ID");
+		assertThat(service.listarPaginaCampos(null, 100, null, null, filtro, "quantidadeEstoque").itens())
+				.allSatisfy(item -> assertThat((Integer) item.get("quantidadeEstoque")).isLessThanOrEqualTo(1));
+	}
+
+	@Test
+	void filtrosCombinadosUsamIndice() throws Exception {
+		FiltroProdutos filtro = new FiltroProdutos("Fabricante 7", new BigDecimal("100"), new BigDecimal("250"), 10);
+		conferirPlanos(filtro, "IDX_PRODUTOS_");
+		assertThat(service.listarPagina(null, 100, null, null, filtro).itens())
+				.isNotEmpty()
+				.allSatisfy(produto -> {
+					assertThat(produto.getFabricante()).isEqualTo("Fabricante 7");
+					assertThat(produto.getPreco()).isBetween(new BigDecimal("100"), new BigDecimal("250"));
+					assertThat(produto.getQuantidadeEstoque()).isLessThanOrEqualTo(10);
+				});
+	}
+
+	// Roda a listagem em todas as ordenações (com e sem cursor, entidade e ?fields=)
+	// e confere o plano de cada SELECT em produtos que o Hibernate gerou.
+	private void conferirPlanos(FiltroProdutos filtro, String indiceEsperado) throws Exception {
+		for (String sort : List.of("id", "nome", "preco", "fabricante")) {
+			for (String dir : List.of("asc", "desc")) {
+				String cursor = sort.equals("id") ? "5000" : "5000." + "UHJvZHV0byA1MDAw";
+				List<Consumer<String>> chamadas = List.of(
+						after -> service.listarPagina(after, 20, sort, dir, filtro),
+						after -> service.listarPaginaCampos(after, 20, sort, dir, filtro, "nome,preco"));
+				for (Consumer<String> chamada : chamadas) {
+					for (String after : new String[]{null, sort.equals("nome") ? cursor : "5000"}) {
+						ComandosCapturados.SQL.clear();
+						chamada.accept(after);
+						List<String> consultas = ComandosCapturados.SQL.stream()
+								// só a consulta da página (a do produto âncora do cursor vai pela chave primária)
+								.filter(sql -> sql.startsWith("select") && sql.contains("order by"))
+								.toList();
+						assertThat(consultas).isNotEmpty();
+						for (String sql : consultas) {
+							String plano = explicar(sql);
+							assertThat(plano)
+									.as("plano de %s %s (after=%s):%n%s", sort, dir, after, plano)
+									.doesNotContainIgnoringCase("tableScan")
+									.containsIgnoringCase(indiceEsperado);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	// EXPLAIN do comando preparado; o H2 escolhe o índice sem olhar os valores,
+	// então os parâmetros podem ir nulos.
+	private String explicar(String sql) throws Exception {
+		try (Connection conexao = app.getBean(DataSource.class).getConnection();
+			 PreparedStatement explain = conexao.prepareStatement("explain " + sql)) {
+			ParameterMetaData parametros = explain.getParameterMetaData();
+			for (int i = 1; i <= parametros.getParameterCount(); i++) {
+				explain.setNull(i, parametros.getParameterType(i));
+			}
+			try (ResultSet plano = explain.executeQuery()) {
+				plano.next();
+				return plano.getString(1);
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.wnd.wndapi.service;
+
+import com.wnd.wndapi.dto.PedidoAjuste;
+import com.wnd.wndapi.dto.SituacaoAjuste;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.ProdutoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ajuste em massa: lotes pequenos (wnd.ajustes.tamanho-lote=3) para o ajuste
+ * passar por vários lotes mesmo com poucos produtos.
+ */
+@SpringBootTest(properties = "wnd.ajustes.tamanho-lote=3")
+class AjusteEmMassaTests {
+
+	@Autowired
+	private AjusteEmMassaService ajusteService;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Test
+	void reajustaSoOsProdutosDoFabricanteEmVariosLotes() throws Exception {
+		String fabricante = "Fabricante " + UUID.randomUUID();
+		List<Long> doFabricante = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			doFabricante.add(produtoService.salvar(novoProduto("Produto do ajuste", "10.00", 5, fabricante)).getId());
+		}
+		Long deOutro = produtoService.salvar(novoProduto("Produto do ajuste", "10.00", 5, "Outro " + UUID.randomUUID())).getId();
+
+		// Coloca um dos produtos no cache: depois do ajuste ele não pode continuar com o preço antigo
+		produtoService.buscarPorId(doFabricante.get(0));
+
+		SituacaoAjuste situacao = esperarTerminar(ajusteService.iniciar(
+				new PedidoAjuste(fabricante, null, null, null, new BigDecimal("7"), null, null)));
+
+		assertThat(situacao.estado()).isEqualTo(SituacaoAjuste.Estado.CONCLUIDO);
+		assertThat(situacao.total()).isEqualTo(8);
+		assertThat(situacao.alterados()).isEqualTo(8);
+		for (Long id : doFabricante) {
+			Produto produto = produtoService.buscarPorId(id);
+			assertThat(produto.getPreco()).isEqualByComparingTo("10.70");
+			assertThat(produto.getVersao()).isEqualTo(1);
+		}
+		assertThat(produtoService.buscarPorId(deOutro).getPreco()).isEqualByComparingTo("10.00");
+	}
+
+	@Test
+	void produtoQueFicariaComEstoqueNegativoNaoMuda() throws Exception {
+		String fabricante = "Fabricante " + UUID.randomUUID();
+		Long pouco = produtoService.salvar(novoProduto("Produto do ajuste", "10.00", 2, fabricante)).getId();
+		Long bastante = produtoService.salvar(novoProduto("Produto do ajuste", "10.00", 50, fabricante)).getId();
+
+		SituacaoAjuste situacao = esperarTerminar(ajusteService.iniciar(
+				new PedidoAjuste(fabricante, null, null, null, null, null, -5)));
+
+		assertThat(situacao.alterados()).isEqualTo(1);
+		assertThat(situacao.ignorados()).isEqualTo(1);
+		assertThat(produtoRepository.findById(pouco).orElseThrow().getQuantidadeEstoque()).isEqualTo(2);
+		assertThat(produtoRepository.findById(bastante).orElseThrow().getQuantidadeEstoque()).isEqualTo(45);
+	}
+
+	@Test
+	void pedidoSemAjusteEhRecusado() {
+		assertThatThrownBy(() -> new PedidoAjuste("X", null, null, null, null, null, null))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new PedidoAjuste("X", null, null, null, BigDecimal.ONE, BigDecimal.ONE, null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private SituacaoAjuste esperarTerminar(SituacaoAjuste inicial) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		SituacaoAjuste situacao = inicial;
+		while (situacao.concluidoEm() == null) {
+			assertThat(System.nanoTime()).as("tempo esgotado").isLessThan(limite);
+			TimeUnit.MILLISECONDS.sleep(20);
+			situacao = ajusteService.situacao(inicial.id());
+		}
+		return situacao;
+	}
+}
@@ -0,0 +1,106 @@
+package com.wnd.wndapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Busca de vários produtos por id (GET/POST /api/produtos/batch).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class BuscaEmLoteTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@Test
+	void devolveNaOrdemDoPedidoESeparaOsQueNaoExistem() throws Exception {
+		long a = produtoService.salvar(novoProduto("Primeiro")).getId();
+		long b = produtoService.salvar(novoProduto("Segundo")).getId();
+		long c = produtoService.salvar(novoProduto("Terceiro")).getId();
+		// Um deles já no cache: o lote mistura cache e banco
+		produtoService.buscarPorId(b);
+
+		mockMvc.perform(get("/api/produtos/batch").param("ids", c + ", 999999999," + a + "," + b + "," + c))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.itens.length()").value(3))
+				.andExpect(jsonPath("$.itens[0].id").value(c))
+				.andExpect(jsonPath("$.itens[1].id").value(a))
+				.andExpect(jsonPath("$.itens[2].id").value(b))
+				.andExpect(jsonPath("$.naoEncontrados[0]").value(999999999));
+
+		mockMvc.perform(post("/api/produtos/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[" + b + ", " + a + "]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.itens[0].nome").value("Segundo"))
+				.andExpect(jsonPath("$.itens[1].nome").value("Primeiro"))
+				.andExpect(jsonPath("$.naoEncontrados.length()").value(0));
+	}
+
+	@Test
+	void recusaLoteVazioInvalidoOuGrandeDemais() throws Exception {
+		mockMvc.perform(get("/api/produtos/batch"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/produtos/batch").param("ids", "1,abc"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.erros.Lote").value("Id inválido: abc."));
+
+		String demais = LongStream.rangeClosed(1, ProdutoService.IDS_POR_LOTE_MAXIMO + 1)
+				.mapToObj(String::valueOf)
+				.collect(Collectors.joining(","));
+		mockMvc.perform(get("/api/produtos/batch").param("ids", demais))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/api/produtos/batch").contentType(MediaType.APPLICATION_JSON).content("[" + demais + "]"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.erros.Lote").value("No máximo " + ProdutoService.IDS_POR_LOTE_MAXIMO + " ids por lote."));
+		mockMvc.perform(post("/api/produtos/batch").contentType(MediaType.APPLICATION_JSON).content("{\"ids\": [1]}"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/api/produtos/batch").contentType(MediaType.APPLICATION_JSON).content("[1, null]"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.erros.Lote").value("Id inválido: null."));
+	}
+
+	@Test
+	void limiteContaIdsDistintosNoGetENoPost() throws Exception {
+		long id = produtoService.salvar(novoProduto("Repetido")).getId();
+		String repetidos = LongStream.range(0, ProdutoService.IDS_POR_LOTE_MAXIMO * 2)
+				.mapToObj(i -> String.valueOf(id))
+				.collect(Collectors.joining(","));
+
+		mockMvc.perform(get("/api/produtos/batch").param("ids", repetidos))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.itens.length()").value(1));
+		mockMvc.perform(post("/api/produtos/batch").contentType(MediaType.APPLICATION_JSON).content("[" + repetidos + "]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.itens.length()").value(1));
+	}
+
+	@Test
+	void corpoGrandeDemaisParaDeSerLidoNoLimite() throws Exception {
+		// Depois do limite vem lixo: se o corpo fosse lido inteiro, o erro seria de JSON
+		String demais = LongStream.rangeClosed(1, ProdutoService.IDS_POR_LOTE_MAXIMO + 1)
+				.mapToObj(String::valueOf)
+				.collect(Collectors.joining(","));
+		mockMvc.perform(post("/api/produtos/batch").contentType(MediaType.APPLICATION_JSON)
+						.content("[" + demais + ", isto nao e json"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.erros.Lote").value("No máximo " + ProdutoService.IDS_POR_LOTE_MAXIMO + " ids por lote."));
+	}
+}
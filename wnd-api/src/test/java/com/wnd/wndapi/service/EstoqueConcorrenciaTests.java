@@ -0,0 +1,184 @@
+package com.wnd.wndapi.service;
+
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.ProdutoRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.wnd.wndapi.ProdutosDeTeste.novoProduto;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reserva de estoque sob concorrência: muitas threads disputando o mesmo
+ * produto ("SKU quente") nunca podem vender além do estoque nem perder baixas.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class EstoqueConcorrenciaTests {
+
+	private static final Logger log = LoggerFactory.getLogger(EstoqueConcorrenciaTests.class);
+
+	private static final int THREADS = 32;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@Autowired
+	private ProdutoRepository produtoRepository;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void reservasConcorrentesNuncaVendemAlemDoEstoque() throws Exception {
+		int estoqueInicial = 1000;
+		Long id = produtoService.salvar(novoProduto("Produto concorrido", estoqueInicial)).getId();
+
+		AtomicInteger reservadas = new AtomicInteger();
+		AtomicInteger recusadas = new AtomicInteger();
+
+		// Cada thread reserva 1 unidade por vez até ouvir "estoque insuficiente".
+		long duracao = emParalelo(() -> {
+			while (true) {
+				try {
+					produtoService.reservarEstoque(id, 1);
+					reservadas.incrementAndGet();
+				} catch (IllegalStateException e) {
+					recusadas.incrementAndGet();
+					return;
+				}
+			}
+		});
+
+		log.info("{} reservas em {} threads: {} ms ({} reservas/s)", reservadas.get(), THREADS,
+				TimeUnit.NANOSECONDS.toMillis(duracao), reservadas.get() * 1_000_000_000L / duracao);
+
+		assertThat(reservadas.get()).isEqualTo(estoqueInicial);
+		assertThat(recusadas.get()).isEqualTo(THREADS);
+		assertThat(estoqueNoBanco(id)).isZero();
+	}
+
+	@Test
+	void reservarELiberarAoMesmoTempoNaoPerdeBaixas() throws Exception {
+		int estoqueInicial = 100;
+		int rodadas = 20;
+		Long id = produtoService.salvar(novoProduto("Produto concorrido", estoqueInicial)).getId();
+
+		// Cada thread reserva 2 e devolve 2, várias vezes: no fim o estoque volta ao inicial.
+		emParalelo(() -> {
+			for (int i = 0; i < rodadas; i++) {
+				produtoService.reservarEstoque(id, 2);
+				produtoService.liberarEstoque(id, 2);
+			}
+		});
+
+		assertThat(estoqueNoBanco(id)).isEqualTo(estoqueInicial);
+	}
+
+	@Test
+	void putComVersaoAntigaNaoSobrescreveReserva() {
+		Produto produto = produtoService.salvar(novoProduto("Produto concorrido", 10));
+		Long versaoLida = produto.getVersao();
+
+		produtoService.reservarEstoque(produto.getId(), 3);
+
+		// PUT montado em cima da leitura anterior à reserva (estoque 10)
+		Produto edicao = novoProduto("Produto concorrido", 10);
+		edicao.setNome("Nome alterado");
+		assertThatThrownBy(() -> produtoService.atualizar(produto.getId(), edicao, versaoLida))
+				.isInstanceOf(OptimisticLockingFailureException.class);
+
+		assertThat(estoqueNoBanco(produto.getId())).isEqualTo(7);
+	}
+
+	@Test
+	void putSemVersaoNaoApagaReserva() throws Exception {
+		Long id = produtoService.salvar(novoProduto("Produto concorrido", 10)).getId();
+		produtoService.reservarEstoque(id, 3);
+
+		// Formulário montado antes da reserva (estoque 10), sem If-Match nem "versao"
+		String corpo = "{\"nome\": \"Nome alterado\", \"descricao\": \"Produto usado nos testes\", "
+				+ "\"preco\": 10.00, \"quantidadeEstoque\": 10, \"fabricante\": \"Fabricante Teste\"}";
+		mockMvc.perform(put("/api/produtos/{id}", id).contentType(MediaType.APPLICATION_JSON).content(corpo))
+				.andExpect(status().isPreconditionRequired())
+				.andExpect(jsonPath("$.erros.Versão").exists());
+		mockMvc.perform(patch("/api/produtos/{id}", id).contentType("application/merge-patch+json")
+						.content("{\"quantidadeEstoque\": 10}"))
+				.andExpect(status().isPreconditionRequired());
+
+		assertThat(estoqueNoBanco(id)).isEqualTo(7);
+		assertThat(produtoService.buscarPorId(id).getNome()).isEqualTo("Produto concorrido");
+
+		// Patch sem versão que não mexe no estoque continua valendo
+		mockMvc.perform(patch("/api/produtos/{id}", id).contentType("application/merge-patch+json")
+						.content("{\"nome\": \"Nome alterado\"}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.quantidadeEstoque").value(7));
+
+		// Com a versão atual o PUT passa
+		mockMvc.perform(put("/api/produtos/{id}", id).contentType(MediaType.APPLICATION_JSON).content(corpo)
+						.header(HttpHeaders.IF_MATCH, "\"" + id + "-2\""))
+				.andExpect(status().isOk());
+		assertThat(estoqueNoBanco(id)).isEqualTo(10);
+	}
+
+	@Test
+	void reservaMaiorQueEstoqueNaoAltera() {
+		Long id = produtoService.salvar(novoProduto("Produto concorrido", 5)).getId();
+
+		assertThatThrownBy(() -> produtoService.reservarEstoque(id, 6))
+				.isInstanceOf(IllegalStateException.class);
+
+		assertThat(estoqueNoBanco(id)).isEqualTo(5);
+	}
+
+	// Roda a tarefa em THREADS threads ao mesmo tempo e devolve a duração (ns).
+	private long emParalelo(Runnable tarefa) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch largada = new CountDownLatch(1);
+		try {
+			List<Future<?>> futuros = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futuros.add(pool.submit(() -> {
+					largada.await();
+					tarefa.run();
+					return null;
+				}));
+			}
+			long inicio = System.nanoTime();
+			largada.countDown();
+			for (Future<?> futuro : futuros) {
+				futuro.get(60, TimeUnit.SECONDS);
+			}
+			return System.nanoTime() - inicio;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private int estoqueNoBanco(Long id) {
+		return produtoRepository.findById(id).orElseThrow().getQuantidadeEstoque();
+	}
+}
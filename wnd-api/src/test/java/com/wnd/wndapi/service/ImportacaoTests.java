@@ -0,0 +1,184 @@
+package com.wnd.wndapi.service;
+
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.FiltroProdutos;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Importação em massa (POST /api/produtos/importar): itens válidos, inválidos
+ * e com tipo errado misturados, em array JSON e em NDJSON.
+ *
+ * Banco próprio: a conta da sequence não pode ter escritas de outros testes no meio.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:importacao",
+		"wnd.importacao.tamanho-lote=50"})
+@AutoConfigureMockMvc
+class ImportacaoTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ProdutoService produtoService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void arrayJsonComItensMisturados() throws Exception {
+		String fabricante = "Fabricante " + UUID.randomUUID();
+		// Um item por linha depois do "[": o item N começa na linha N + 1
+		String corpo = "[\n"
+				+ valido("Cafeteira", fabricante) + ",\n"
+				+ precoZero(fabricante) + ",\n"
+				+ precoComTipoErrado(fabricante) + ",\n"
+				+ valido("Chaleira", fabricante) + "\n"
+				+ "]";
+
+		mockMvc.perform(post("/api/produtos/importar").contentType(MediaType.APPLICATION_JSON).content(corpo))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.importados").value(2))
+				.andExpect(jsonPath("$.rejeitados").value(2))
+				.andExpect(jsonPath("$.erros.length()").value(2))
+				.andExpect(jsonPath("$.erros[0].item").value(2))
+				.andExpect(jsonPath("$.erros[0].linha").value(3))
+				.andExpect(jsonPath("$.erros[0].erros.Preço").value("O preço deve ser maior que zero."))
+				.andExpect(jsonPath("$.erros[1].item").value(3))
+				.andExpect(jsonPath("$.erros[1].linha").value(4))
+				.andExpect(jsonPath("$.erros[1].erros.JSON").exists());
+
+		assertThat(importados(fabricante)).containsExactly("Cafeteira", "Chaleira");
+	}
+
+	@Test
+	void ndjsonComItensMisturados() throws Exception {
+		String fabricante = "Fabricante " + UUID.randomUUID();
+		String corpo = precoZero(fabricante) + "\n"
+				+ valido("Cafeteira", fabricante) + "\n"
+				+ valido("Chaleira", fabricante) + "\n"
+				+ precoComTipoErrado(fabricante) + "\n";
+
+		mockMvc.perform(post("/api/produtos/importar").contentType("application/x-ndjson").content(corpo))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.importados").value(2))
+				.andExpect(jsonPath("$.rejeitados").value(2))
+				.andExpect(jsonPath("$.erros[0].item").value(1))
+				.andExpect(jsonPath("$.erros[0].linha").value(1))
+				.andExpect(jsonPath("$.erros[0].erros.Preço").exists())
+				.andExpect(jsonPath("$.erros[1].item").value(4))
+				.andExpect(jsonPath("$.erros[1].linha").value(4))
+				.andExpect(jsonPath("$.erros[1].erros.JSON").exists());
+
+		assertThat(importados(fabricante)).containsExactly("Cafeteira", "Chaleira");
+	}
+
+	@Test
+	void idsVemDaSequenceEmBlocos() throws Exception {
+		String fabricante = "Fabricante " + UUID.randomUUID();
+		StringJoiner corpo = new StringJoiner("\n");
+		for (int i = 0; i < 120; i++) {
+			// O id do arquivo é ignorado: importação sempre cria produtos novos
+			corpo.add(valido("Produto " + i, fabricante).replace("{", "{\"id\": 1, "));
+			if (i % 40 == 0) {
+				corpo.add(precoZero(fabricante));
+			}
+		}
+
+		long antes = valorDaSequence();
+		mockMvc.perform(post("/api/produtos/importar").contentType("application/x-ndjson").content(corpo.toString()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.importados").value(120))
+				.andExpect(jsonPath("$.rejeitados").value(3));
+
+		// allocationSize = 50: 120 produtos custam 3 chamadas à sequence, não 120
+		assertThat((valorDaSequence() - antes) / 50).isBetween(1L, 3L);
+		assertThat(produtoService.listarPagina(null, 100, null, null,
+				new FiltroProdutos(fabricante, null, null, null)).itens())
+				.extracting(Produto::getId)
+				.doesNotContain(1L)
+				.doesNotHaveDuplicates();
+	}
+
+	@Test
+	void sintaxeQuebradaNoMeioGuardaOQueVeioAntesEDizOndeParou() throws Exception {
+		String fabricante = "Fabricante " + UUID.randomUUID();
+		StringJoiner corpo = new StringJoiner("\n");
+		// 2 lotes cheios de 50 + 20 no lote em andamento quando a sintaxe quebra
+		for (int i = 0; i < 120; i++) {
+			corpo.add(valido("Produto " + i, fabricante));
+		}
+		corpo.add(precoZero(fabricante));
+		corpo.add("{\"nome\": \"Quebrado\",, }");
+		corpo.add(valido("Depois do erro", fabricante));
+
+		mockMvc.perform(post("/api/produtos/importar").contentType("application/x-ndjson").content(corpo.toString()))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.importados").value(120))
+				.andExpect(jsonPath("$.rejeitados").value(1))
+				.andExpect(jsonPath("$.erros[0].item").value(121))
+				.andExpect(jsonPath("$.interrompida.item").value(122))
+				.andExpect(jsonPath("$.interrompida.linha").value(122))
+				.andExpect(jsonPath("$.interrompida.mensagem").exists());
+
+		// Os 120 válidos (inclusive os 20 do lote em andamento), nada depois do item quebrado
+		assertThat(jdbcTemplate.queryForList("select nome from produtos where fabricante = ? order by id",
+				String.class, fabricante))
+				.hasSize(120)
+				.endsWith("Produto 119");
+	}
+
+	@Test
+	void sintaxeQuebradaEntreItensApontaParaOProximoItem() throws Exception {
+		String fabricante = "Fabricante " + UUID.randomUUID();
+		String corpo = "[\n" + valido("Cafeteira", fabricante) + ",\nabc\n]";
+
+		mockMvc.perform(post("/api/produtos/importar").contentType(MediaType.APPLICATION_JSON).content(corpo))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.importados").value(1))
+				.andExpect(jsonPath("$.interrompida.item").value(2))
+				.andExpect(jsonPath("$.interrompida.linha").value(3));
+
+		assertThat(importados(fabricante)).containsExactly("Cafeteira");
+	}
+
+	private List<String> importados(String fabricante) {
+		return produtoService.listarPagina(null, 100, null, null, new FiltroProdutos(fabricante, null, null, null))
+				.itens().stream()
+				.map(Produto::getNome)
+				.toList();
+	}
+
+	private long valorDaSequence() {
+		return jdbcTemplate.queryForObject(
+				"select base_value from information_schema.sequences where sequence_name = 'PRODUTOS_SEQ'", Long.class);
+	}
+
+	private static String valido(String nome, String fabricante) {
+		return "{\"nome\": \"" + nome + "\", \"descricao\": \"Produto importado no teste\", \"preco\": 10.5, "
+				+ "\"quantidadeEstoque\": 3, \"fabricante\": \"" + fabricante + "\"}";
+	}
+
+	private static String precoZero(String fabricante) {
+		return valido("Preço zero", fabricante).replace("10.5", "0");
+	}
+
+	private static String precoComTipoErrado(String fabricante) {
+		return valido("Preço errado", fabricante).replace("10.5", "\"abc\"");
+	}
+}
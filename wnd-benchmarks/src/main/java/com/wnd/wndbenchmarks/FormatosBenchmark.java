@@ -0,0 +1,84 @@
+package com.wnd.wndbenchmarks;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.wnd.wndapi.model.Produto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON × CBOR × Smile (negociação de conteúdo da API), com e sem gzip.
+ *
+ * Mede o tempo de gerar e de ler uma lista de produtos em cada formato.
+ * O tamanho de cada resposta não é tempo, então é impresso na saída do
+ * fork ("bytes: ...") ao preparar o benchmark.
+ *
+ * Os ObjectMappers saem do mesmo builder que o Spring usa, trocando só a
+ * fábrica (como em FormatosBinariosConfig).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatosBenchmark {
+
+    // 100 = página máxima da listagem; 10000 = pedaço grande do catálogo
+    @Param({"100", "10000"})
+    public int tamanho;
+
+    @Param({"json", "cbor", "smile"})
+    public String formato;
+
+    private ObjectMapper objectMapper;
+    private JavaType tipoLista;
+
+    private List<Produto> lista;
+    private byte[] serializado;
+
+    @Setup
+    public void preparar() throws Exception {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        objectMapper = switch (formato) {
+            case "json" -> builder.build();
+            case "cbor" -> builder.factory(new CBORFactory()).build();
+            case "smile" -> builder.factory(new SmileFactory()).build();
+            default -> throw new IllegalArgumentException(formato);
+        };
+        tipoLista = objectMapper.getTypeFactory().constructCollectionType(List.class, Produto.class);
+
+        lista = Produtos.lista(tamanho);
+        serializado = objectMapper.writeValueAsBytes(lista);
+        System.out.printf("bytes: %s %d produtos = %d (gzip: %d)%n",
+                formato, tamanho, serializado.length, serializarComGzip().length);
+    }
+
+    @Benchmark
+    public byte[] serializar() throws Exception {
+        return objectMapper.writeValueAsBytes(lista);
+    }
+
+    // O que o Tomcat faz com server.compression ligado
+    @Benchmark
+    public byte[] serializarComGzip() throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            objectMapper.writeValue(gzip, lista);
+        }
+        return saida.toByteArray();
+    }
+
+    @Benchmark
+    public List<Produto> desserializar() throws Exception {
+        return objectMapper.readValue(serializado, tipoLista);
+    }
+}
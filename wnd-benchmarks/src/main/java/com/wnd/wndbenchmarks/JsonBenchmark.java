@@ -0,0 +1,69 @@
+package com.wnd.wndbenchmarks;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wnd.wndapi.model.Produto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão JSON de Produto e de List&lt;Produto&gt; nos dois sentidos,
+ * como acontece nas respostas e nos corpos de POST/PUT da API.
+ *
+ * O ObjectMapper é montado pelo mesmo builder que o Spring usa
+ * (Jackson2ObjectMapperBuilder), com as mesmas configurações padrão.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    // 1 = GET /{id}; 20 e 100 = páginas da listagem; 1000 = lote de importação
+    @Param({"1", "20", "100", "1000"})
+    public int tamanho;
+
+    private ObjectMapper objectMapper;
+    private JavaType tipoLista;
+
+    private Produto produto;
+    private List<Produto> lista;
+    private byte[] produtoJson;
+    private byte[] listaJson;
+
+    @Setup
+    public void preparar() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        tipoLista = objectMapper.getTypeFactory().constructCollectionType(List.class, Produto.class);
+
+        lista = Produtos.lista(tamanho);
+        produto = lista.get(0);
+        produtoJson = objectMapper.writeValueAsBytes(produto);
+        listaJson = objectMapper.writeValueAsBytes(lista);
+    }
+
+    @Benchmark
+    public byte[] serializarProduto() throws Exception {
+        return objectMapper.writeValueAsBytes(produto);
+    }
+
+    @Benchmark
+    public Produto desserializarProduto() throws Exception {
+        return objectMapper.readValue(produtoJson, Produto.class);
+    }
+
+    @Benchmark
+    public byte[] serializarLista() throws Exception {
+        return objectMapper.writeValueAsBytes(lista);
+    }
+
+    @Benchmark
+    public List<Produto> desserializarLista() throws Exception {
+        return objectMapper.readValue(listaJson, tipoLista);
+    }
+}
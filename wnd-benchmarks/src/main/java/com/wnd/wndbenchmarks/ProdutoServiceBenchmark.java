@@ -0,0 +1,160 @@
+package com.wnd.wndbenchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wnd.wndapi.WndApiApplication;
+import com.wnd.wndapi.agregados.CatalogoAgregados;
+import com.wnd.wndapi.busca.IndiceBuscaProdutos;
+import com.wnd.wndapi.dto.PaginaProdutos;
+import com.wnd.wndapi.dto.ResultadoBusca;
+import com.wnd.wndapi.model.Produto;
+import com.wnd.wndapi.repository.FiltroProdutos;
+import com.wnd.wndapi.repository.ProdutoRepository;
+import com.wnd.wndapi.service.ProdutoImportacaoService;
+import com.wnd.wndapi.service.ProdutoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métodos de CRUD do ProdutoService contra o H2 em memória, com o contexto
+ * Spring completo (transações, eventos, cache, índice de busca, agregados),
+ * só sem o servidor web.
+ *
+ * O catálogo começa com PRODUTOS itens, importados pelo mesmo caminho do
+ * POST /api/produtos/importar. Os benchmarks de escrita mantêm o tamanho
+ * estável (salvar + excluir; atualizar só troca o preço).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+// Aquecimento longo: as escritas só estabilizam depois de ~1 min (JIT, cargas em segundo plano)
+@Warmup(iterations = 12, time = 5)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ProdutoServiceBenchmark {
+
+    private static final int PRODUTOS = 10_000;
+
+    private ConfigurableApplicationContext contexto;
+    private ProdutoService produtoService;
+    private Long[] ids;
+
+    @Setup(Level.Trial)
+    public void subir() throws Exception {
+        contexto = new SpringApplicationBuilder(WndApiApplication.class)
+                .web(WebApplicationType.NONE)
+                // Como argumentos (e não .properties(), que perde para o application.properties)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:jmh",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        produtoService = contexto.getBean(ProdutoService.class);
+
+        // NDJSON em memória → mesma importação em lotes da API
+        ObjectMapper objectMapper = contexto.getBean(ObjectMapper.class);
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        for (int i = 0; i < PRODUTOS; i++) {
+            ndjson.write(objectMapper.writeValueAsBytes(Produtos.valido(i)));
+            ndjson.write('\n');
+        }
+        contexto.getBean(ProdutoImportacaoService.class).importar(new ByteArrayInputStream(ndjson.toByteArray()));
+
+        ids = contexto.getBean(ProdutoRepository.class).findAll().stream()
+                .map(Produto::getId)
+                .toArray(Long[]::new);
+
+        // Espera as cargas em segundo plano (índice de busca, agregados) terminarem,
+        // senão as primeiras medições disputam CPU com elas.
+        IndiceBuscaProdutos indice = contexto.getBean(IndiceBuscaProdutos.class);
+        CatalogoAgregados agregados = contexto.getBean(CatalogoAgregados.class);
+        while (!indice.estaPronto() || !agregadosProntos(agregados)) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+    }
+
+    private static boolean agregadosProntos(CatalogoAgregados agregados) {
+        try {
+            agregados.resumo();
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void descer() {
+        contexto.close();
+    }
+
+    private Long idAleatorio() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    // Depois do aquecimento, quase tudo vem do cache (tamanho padrão 10.000)
+    @Benchmark
+    public Produto buscarPorId() {
+        return produtoService.buscarPorId(idAleatorio());
+    }
+
+    @Benchmark
+    public PaginaProdutos<Produto> listarPagina() {
+        return produtoService.listarPagina(String.valueOf(idAleatorio()), 20, null, null, FiltroProdutos.NENHUM);
+    }
+
+    @Benchmark
+    public PaginaProdutos<Produto> listarPaginaPorNome() {
+        return produtoService.listarPagina(String.valueOf(idAleatorio()), 20, "nome", "asc", FiltroProdutos.NENHUM);
+    }
+
+    // ?fields=: SELECT só de id, nome e preço, sem montar Produto
+    @Benchmark
+    public PaginaProdutos<Map<String, Object>> listarPaginaCampos() {
+        return produtoService.listarPaginaCampos(String.valueOf(idAleatorio()), 20, null, null,
+                FiltroProdutos.NENHUM, "id,nome,preco");
+    }
+
+    // Busca textual: "cafe" só casa por prefixo ("cafeteira") e em todo o catálogo
+    @Benchmark
+    public ResultadoBusca buscarTextoPrefixo() {
+        return produtoService.buscarTexto("cafe", 0, 20);
+    }
+
+    // Dois termos: o número raro limita os candidatos, o prefixo só soma neles
+    @Benchmark
+    public ResultadoBusca buscarTextoDoisTermos() {
+        return produtoService.buscarTexto("elet " + ThreadLocalRandom.current().nextInt(PRODUTOS), 0, 20);
+    }
+
+    @Benchmark
+    public Produto atualizar() {
+        Produto dados = Produtos.valido(ThreadLocalRandom.current().nextInt(1000));
+        dados.setPreco(BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 1000)));
+        return produtoService.atualizar(idAleatorio(), dados, null);
+    }
+
+    // PATCH { "preco": ... }: um único UPDATE só da coluna preço
+    @Benchmark
+    public Produto atualizarParcial() {
+        Produto alteracoes = new Produto();
+        alteracoes.setPreco(BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 1000)));
+        return produtoService.atualizarParcial(idAleatorio(), alteracoes, Set.of("preco"), null);
+    }
+
+    @Benchmark
+    public Long salvarEExcluir() {
+        Produto salvo = produtoService.salvar(Produtos.valido(ThreadLocalRandom.current().nextInt(1000)));
+        produtoService.excluir(salvo.getId());
+        return salvo.getId();
+    }
+}
@@ -0,0 +1,47 @@
+package com.wnd.wndbenchmarks;
+
+import com.wnd.wndapi.model.Produto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Produtos de exemplo usados pelos benchmarks (sempre os mesmos valores,
+ * para os resultados serem comparáveis entre execuções).
+ */
+final class Produtos {
+
+    private Produtos() {
+    }
+
+    static Produto valido(int i) {
+        Produto produto = new Produto();
+        produto.setNome("Cafeteira elétrica " + i);
+        produto.setDescricao("Cafeteira com jarra de vidro, 30 xícaras, modelo " + i);
+        produto.setPreco(new BigDecimal("199.90").add(BigDecimal.valueOf(i % 100)));
+        produto.setQuantidadeEstoque(1 + i % 50);
+        produto.setFabricante("Fabricante " + (i % 20));
+        return produto;
+    }
+
+    // Quebra três regras de uma vez: nome vazio, descrição curta e preço zero
+    static Produto invalido(int i) {
+        Produto produto = valido(i);
+        produto.setNome(" ");
+        produto.setDescricao("curta");
+        produto.setPreco(BigDecimal.ZERO);
+        return produto;
+    }
+
+    static List<Produto> lista(int tamanho) {
+        List<Produto> produtos = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            Produto produto = valido(i);
+            produto.setId((long) i + 1);
+            produto.setVersao(0L);
+            produtos.add(produto);
+        }
+        return produtos;
+    }
+}
@@ -0,0 +1,55 @@
+package com.wnd.wndbenchmarks;
+
+import com.wnd.wndapi.model.Produto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation de Produto — o mesmo trabalho que o @Valid faz em
+ * ProdutoController.criar/atualizar antes de chegar no Service.
+ *
+ * O Spring usa o mesmo Hibernate Validator por baixo (LocalValidatorFactoryBean).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidacaoBenchmark {
+
+    private ValidatorFactory fabrica;
+    private Validator validator;
+    private Produto valido;
+    private Produto invalido;
+
+    @Setup
+    public void preparar() {
+        fabrica = Validation.buildDefaultValidatorFactory();
+        validator = fabrica.getValidator();
+        valido = Produtos.valido(1);
+        invalido = Produtos.invalido(1);
+    }
+
+    @TearDown
+    public void encerrar() {
+        fabrica.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Produto>> validarProdutoValido() {
+        return validator.validate(valido);
+    }
+
+    // Caminho mais caro: monta as mensagens de erro (interpolação) de cada violação
+    @Benchmark
+    public Set<ConstraintViolation<Produto>> validarProdutoInvalido() {
+        return validator.validate(invalido);
+    }
+}
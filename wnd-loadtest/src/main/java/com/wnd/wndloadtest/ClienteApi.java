@@ -0,0 +1,310 @@
+package com.wnd.wndloadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * As chamadas HTTP de cada operação, do mesmo jeito que o front as faz.
+ *
+ * Também guarda o que o "usuário" já viu: os IDs existentes (para abrir,
+ * salvar e excluir produtos que existem de verdade) e os produtos abertos
+ * na tela de edição com o ETag carregado (para o PUT com If-Match).
+ */
+final class ClienteApi implements AutoCloseable {
+
+    // Mesmos campos que lista-produtos.js pede (CAMPOS_CARD)
+    private static final String CAMPOS_CARD = "id,nome,fabricante,preco,quantidadeEstoque,descricao";
+    private static final String[] ORDENACOES = {"id:asc", "nome:asc", "preco:asc", "preco:desc", "fabricante:asc"};
+    private static final int MAXIMO_ABERTOS = 1000;
+
+    enum Resultado {
+        OK,
+        // 404/409/412: outro "usuário" excluiu ou alterou antes (faz parte do uso normal)
+        CONFLITO,
+        // 429/503: recusada pelo controle de admissão da API (resposta rápida, com Retry-After)
+        RECUSADA,
+        ERRO
+    }
+
+    // Produto aberto na tela de edição, como editar-produto.js guarda
+    private record Aberto(long id, ObjectNode produto, String etag) {
+    }
+
+    private final URI base;
+    private final HttpClient http;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final IdsConhecidos ids = new IdsConhecidos();
+    private final ConcurrentLinkedQueue<Aberto> abertos = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger quantidadeAbertos = new AtomicInteger();
+    private final AtomicInteger criados = new AtomicInteger();
+
+    ClienteApi(URI base) {
+        this.base = base;
+        this.http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+
+    //   ===   PREPARAÇÃO: CATÁLOGO COM O TAMANHO PEDIDO   ===
+
+    // Lê os IDs existentes (exportação NDJSON) e importa o que faltar para chegar a "produtos"
+    int prepararCatalogo(int produtos) throws IOException, InterruptedException {
+        carregarIds();
+        int faltam = produtos - ids.tamanho();
+        if (faltam > 0) {
+            StringBuilder ndjson = new StringBuilder(faltam * 128);
+            for (int i = 0; i < faltam; i++) {
+                ndjson.append(objectMapper.writeValueAsString(novoProduto("Carga " + i))).append('\n');
+            }
+            HttpResponse<String> resposta = http.send(HttpRequest.newBuilder(base.resolve("/api/produtos/importar"))
+                            .header("Content-Type", "application/x-ndjson")
+                            .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                            .timeout(Duration.ofMinutes(10))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (resposta.statusCode() != 200) {
+                throw new IllegalStateException("Importação falhou (" + resposta.statusCode() + "): " + resposta.body());
+            }
+            carregarIds();
+        }
+        return ids.tamanho();
+    }
+
+    private void carregarIds() throws IOException, InterruptedException {
+        HttpResponse<InputStream> resposta = http.send(
+                HttpRequest.newBuilder(base.resolve("/api/produtos/export?format=ndjson")).build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (resposta.statusCode() != 200) {
+            throw new IllegalStateException("Exportação falhou (" + resposta.statusCode()
+                    + "). A API está rodando em " + base + "?");
+        }
+        List<Long> lidos = new ArrayList<>();
+        try (BufferedReader linhas = new BufferedReader(
+                new InputStreamReader(resposta.body(), StandardCharsets.UTF_8))) {
+            String linha;
+            while ((linha = linhas.readLine()) != null) {
+                if (!linha.isBlank()) {
+                    lidos.add(objectMapper.readTree(linha).get("id").asLong());
+                }
+            }
+        }
+        ids.substituir(lidos);
+    }
+
+
+    //   ===   OPERAÇÕES (chamadas pelas threads do gerador)   ===
+
+    Resultado executar(Operacao operacao) {
+        try {
+            return switch (operacao) {
+                case LISTAR -> listar();
+                case ABRIR -> abrir();
+                case SALVAR -> salvar();
+                case CRIAR -> criar();
+                case EXCLUIR -> excluir();
+            };
+        } catch (IOException e) {
+            return Resultado.ERRO;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Resultado.ERRO;
+        }
+    }
+
+    private Resultado listar() throws IOException, InterruptedException {
+        String[] ordenacao = ORDENACOES[ThreadLocalRandom.current().nextInt(ORDENACOES.length)].split(":");
+        HttpResponse<byte[]> resposta = enviar(HttpRequest.newBuilder(base.resolve(
+                "/api/produtos?sort=" + ordenacao[0] + "&dir=" + ordenacao[1] + "&limit=20&fields=" + CAMPOS_CARD)));
+        return resposta.statusCode() == 200 ? Resultado.OK : falha(resposta.statusCode());
+    }
+
+    private Resultado abrir() throws IOException, InterruptedException {
+        Long id = ids.sortear();
+        if (id == null) {
+            return Resultado.CONFLITO;
+        }
+        HttpResponse<byte[]> resposta = enviar(HttpRequest.newBuilder(base.resolve("/api/produtos/" + id)));
+        if (resposta.statusCode() == 404) {
+            return Resultado.CONFLITO;
+        }
+        if (resposta.statusCode() != 200) {
+            return falha(resposta.statusCode());
+        }
+        guardarAberto(id, resposta);
+        return Resultado.OK;
+    }
+
+    // Salva um produto aberto antes (se não houver nenhum, abre um agora, como o usuário faria)
+    private Resultado salvar() throws IOException, InterruptedException {
+        Aberto aberto = abertos.poll();
+        if (aberto == null) {
+            Resultado abriu = abrir();
+            if (abriu != Resultado.OK) {
+                return abriu;
+            }
+            aberto = abertos.poll();
+            if (aberto == null) {
+                return Resultado.CONFLITO;
+            }
+        }
+        quantidadeAbertos.decrementAndGet();
+
+        // Usuário mexeu no preço (±10%)
+        ObjectNode produto = aberto.produto();
+        BigDecimal preco = produto.get("preco").decimalValue()
+                .multiply(BigDecimal.valueOf(0.9 + ThreadLocalRandom.current().nextDouble(0.2)))
+                .max(new BigDecimal("0.01"))
+                .setScale(2, RoundingMode.HALF_UP);
+        produto.put("preco", preco);
+
+        HttpRequest.Builder pedido = HttpRequest.newBuilder(base.resolve("/api/produtos/" + aberto.id()))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(produto)));
+        if (aberto.etag() != null) {
+            pedido.header("If-Match", aberto.etag());
+        }
+        int status = enviar(pedido).statusCode();
+        if (status == 200) {
+            return Resultado.OK;
+        }
+        return status == 404 || status == 409 || status == 412 ? Resultado.CONFLITO : falha(status);
+    }
+
+    private Resultado criar() throws IOException, InterruptedException {
+        HttpResponse<byte[]> resposta = enviar(HttpRequest.newBuilder(base.resolve("/api/produtos"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        objectMapper.writeValueAsBytes(novoProduto("Novo " + criados.incrementAndGet())))));
+        if (resposta.statusCode() != 201 && resposta.statusCode() != 200) {
+            return falha(resposta.statusCode());
+        }
+        ids.adicionar(objectMapper.readTree(resposta.body()).get("id").asLong());
+        return Resultado.OK;
+    }
+
+    private Resultado excluir() throws IOException, InterruptedException {
+        Long id = ids.retirar();
+        if (id == null) {
+            return Resultado.CONFLITO;
+        }
+        int status = enviar(HttpRequest.newBuilder(base.resolve("/api/produtos/" + id)).DELETE()).statusCode();
+        if (status == 204) {
+            return Resultado.OK;
+        }
+        if (status == 404) {
+            return Resultado.CONFLITO;
+        }
+        ids.adicionar(id); // não foi excluído: continua existindo
+        return falha(status);
+    }
+
+    // Status que não é sucesso nem conflito: recusa da admissão ou erro
+    private static Resultado falha(int status) {
+        return status == 429 || status == 503 ? Resultado.RECUSADA : Resultado.ERRO;
+    }
+
+    private HttpResponse<byte[]> enviar(HttpRequest.Builder pedido) throws IOException, InterruptedException {
+        return http.send(pedido.timeout(Duration.ofSeconds(60)).build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private void guardarAberto(long id, HttpResponse<byte[]> resposta) throws IOException {
+        // Fila limitada: se ninguém salvar, os mais antigos são "fechados"
+        if (quantidadeAbertos.incrementAndGet() > MAXIMO_ABERTOS) {
+            if (abertos.poll() != null) {
+                quantidadeAbertos.decrementAndGet();
+            }
+        }
+        JsonNode produto = objectMapper.readTree(resposta.body());
+        abertos.add(new Aberto(id, (ObjectNode) produto, resposta.headers().firstValue("ETag").orElse(null)));
+    }
+
+    private Map<String, Object> novoProduto(String nome) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        Map<String, Object> produto = new HashMap<>();
+        produto.put("nome", nome);
+        produto.put("descricao", "Produto criado pelo teste de carga");
+        produto.put("preco", BigDecimal.valueOf(aleatorio.nextInt(100, 100_000), 2));
+        produto.put("quantidadeEstoque", aleatorio.nextInt(1, 500));
+        produto.put("fabricante", "Fabricante " + aleatorio.nextInt(50));
+        return produto;
+    }
+
+    @Override
+    public void close() {
+        http.close();
+    }
+
+
+    //   ===   IDS EXISTENTES (sorteio e retirada em O(1))   ===
+
+    private static final class IdsConhecidos {
+
+        private final List<Long> lista = new ArrayList<>();
+        private final Map<Long, Integer> posicao = new HashMap<>();
+
+        synchronized void substituir(List<Long> novos) {
+            lista.clear();
+            posicao.clear();
+            novos.forEach(this::adicionarSemTrava);
+        }
+
+        synchronized void adicionar(long id) {
+            adicionarSemTrava(id);
+        }
+
+        synchronized int tamanho() {
+            return lista.size();
+        }
+
+        synchronized Long sortear() {
+            return lista.isEmpty() ? null : lista.get(ThreadLocalRandom.current().nextInt(lista.size()));
+        }
+
+        // Sorteia e tira da lista (o último vai para o lugar do retirado)
+        synchronized Long retirar() {
+            if (lista.isEmpty()) {
+                return null;
+            }
+            int indice = ThreadLocalRandom.current().nextInt(lista.size());
+            Long id = lista.get(indice);
+            Long ultimo = lista.removeLast();
+            if (indice < lista.size()) {
+                lista.set(indice, ultimo);
+                posicao.put(ultimo, indice);
+            }
+            posicao.remove(id);
+            return id;
+        }
+
+        private void adicionarSemTrava(long id) {
+            if (posicao.putIfAbsent(id, lista.size()) == null) {
+                lista.add(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.wnd.wndloadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Parâmetros da carga, lidos das propriedades do sistema (-Dcarga.*).
+ *
+ * Os padrões ficam no pom.xml do módulo; os daqui só valem quando a classe
+ * é chamada direto (java -cp ... com.wnd.wndloadtest.TesteCarga).
+ */
+record Configuracao(
+        URI url,
+        int taxa,
+        int aquecimentoSegundos,
+        int duracaoSegundos,
+        int produtos,
+        Map<Operacao, Integer> mix,
+        int maximoPendentes,
+        long semente,
+        Path baseline,
+        boolean salvarBaseline,
+        double toleranciaPct,
+        Path resultado
+) {
+
+    static Configuracao dasPropriedades() {
+        return new Configuracao(
+                URI.create(System.getProperty("carga.url", "http://localhost:8080")),
+                Integer.getInteger("carga.taxa", 200),
+                Integer.getInteger("carga.aquecimento-s", 10),
+                Integer.getInteger("carga.duracao-s", 60),
+                Integer.getInteger("carga.produtos", 5000),
+                lerMix(System.getProperty("carga.mix", "listar:50,abrir:25,salvar:15,criar:5,excluir:5")),
+                Integer.getInteger("carga.max-pendentes", 5000),
+                // Mesma semente = mesma sequência de operações em todas as execuções
+                Long.getLong("carga.semente", 42L),
+                Path.of(System.getProperty("carga.baseline", "baseline-carga.json")),
+                Boolean.getBoolean("carga.salvar-baseline"),
+                Double.parseDouble(System.getProperty("carga.tolerancia-pct", "10")),
+                Path.of(System.getProperty("carga.resultado", "carga-resultado.json")));
+    }
+
+    // "listar:50,abrir:25,..." → pesos por operação (as que não aparecem ficam de fora)
+    static Map<Operacao, Integer> lerMix(String texto) {
+        Map<Operacao, Integer> mix = new EnumMap<>(Operacao.class);
+        for (String parte : texto.split(",")) {
+            if (parte.isBlank()) {
+                continue;
+            }
+            String[] nomeEPeso = parte.trim().split(":");
+            if (nomeEPeso.length != 2) {
+                throw new IllegalArgumentException("Item inválido em carga.mix (use operacao:peso): " + parte);
+            }
+            int peso = Integer.parseInt(nomeEPeso[1].trim());
+            if (peso < 0) {
+                throw new IllegalArgumentException("Peso negativo em carga.mix: " + parte);
+            }
+            if (peso > 0) {
+                mix.put(Operacao.doNome(nomeEPeso[0].trim()), peso);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("carga.mix não tem nenhuma operação com peso > 0");
+        }
+        return mix;
+    }
+}
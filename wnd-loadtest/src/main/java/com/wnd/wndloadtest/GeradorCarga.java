@@ -0,0 +1,130 @@
+package com.wnd.wndloadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dispara as operações num ritmo fixo (carga.taxa por segundo), sem esperar
+ * as respostas: é o "modelo aberto" — usuários chegam no ritmo deles, não
+ * quando a API termina de atender o anterior.
+ *
+ * Sem "omissão coordenada": a requisição i tem um horário marcado
+ * (início + i × intervalo) e a latência é contada A PARTIR DESSE HORÁRIO,
+ * não de quando ela conseguiu sair. Se a API (ou o próprio gerador) travar
+ * por 2 s, as requisições que deveriam ter saído nesse tempo aparecem com
+ * os 2 s de espera no histograma, como o usuário sentiria.
+ *
+ * Cada requisição roda numa thread virtual. Acima de carga.max-pendentes
+ * em andamento, as novas são descartadas em vez de acumular memória sem fim
+ * com a API parada. A descartada não some da medição: entra no histograma
+ * com a espera do horário marcado até o fim da execução, e o Relatorio
+ * marca a execução (não vale como baseline nem passa na comparação).
+ */
+final class GeradorCarga {
+
+    private final ClienteApi cliente;
+    private final Configuracao configuracao;
+    private final Operacao[] roleta;
+
+    private final Map<Operacao, Medicao> medicoes = new EnumMap<>(Operacao.class);
+    private final AtomicInteger pendentes = new AtomicInteger();
+    private volatile int maximoPendentes;
+    private long atrasoMaximoNanos;
+
+    GeradorCarga(ClienteApi cliente, Configuracao configuracao) {
+        this.cliente = cliente;
+        this.configuracao = configuracao;
+        this.roleta = montarRoleta(configuracao.mix());
+        for (Operacao operacao : configuracao.mix().keySet()) {
+            medicoes.put(operacao, new Medicao());
+        }
+    }
+
+    // Cada operação aparece "peso" vezes: sortear uma posição = sortear pelo mix
+    private static Operacao[] montarRoleta(Map<Operacao, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        Operacao[] roleta = new Operacao[total];
+        int posicao = 0;
+        for (Map.Entry<Operacao, Integer> entrada : mix.entrySet()) {
+            for (int i = 0; i < entrada.getValue(); i++) {
+                roleta[posicao++] = entrada.getKey();
+            }
+        }
+        return roleta;
+    }
+
+    /**
+     * Aquecimento (não medido) + medição. Devolve o resumo por operação.
+     */
+    Map<Operacao, Medicao.Resumo> rodar() throws InterruptedException {
+        long intervaloNanos = TimeUnit.SECONDS.toNanos(1) / configuracao.taxa();
+        long inicio = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long inicioMedicao = inicio + TimeUnit.SECONDS.toNanos(configuracao.aquecimentoSegundos());
+        long fim = inicioMedicao + TimeUnit.SECONDS.toNanos(configuracao.duracaoSegundos());
+        Random sorteio = new Random(configuracao.semente());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long previsto = inicio + i * intervaloNanos;
+                if (previsto >= fim) {
+                    break;
+                }
+                esperarAte(previsto);
+                atrasoMaximoNanos = Math.max(atrasoMaximoNanos, System.nanoTime() - previsto);
+
+                Operacao operacao = roleta[sorteio.nextInt(roleta.length)];
+                Medicao medicao = previsto >= inicioMedicao ? medicoes.get(operacao) : null;
+
+                int emAndamento = pendentes.incrementAndGet();
+                if (emAndamento > configuracao.maximoPendentes()) {
+                    pendentes.decrementAndGet();
+                    if (medicao != null) {
+                        medicao.descartar(fim - previsto);
+                    }
+                    continue;
+                }
+                maximoPendentes = Math.max(maximoPendentes, emAndamento);
+
+                executor.execute(() -> {
+                    try {
+                        ClienteApi.Resultado resultado = cliente.executar(operacao);
+                        if (medicao != null) {
+                            medicao.registrar(resultado, System.nanoTime() - previsto);
+                        }
+                    } finally {
+                        pendentes.decrementAndGet();
+                    }
+                });
+            }
+            // O close() do executor espera as que ainda estão em andamento
+        }
+
+        double segundos = configuracao.duracaoSegundos();
+        Map<Operacao, Medicao.Resumo> resumos = new EnumMap<>(Operacao.class);
+        medicoes.forEach((operacao, medicao) -> resumos.put(operacao, medicao.resumir(segundos)));
+        return resumos;
+    }
+
+    // Maior número de requisições em andamento ao mesmo tempo
+    int maximoPendentes() {
+        return maximoPendentes;
+    }
+
+    // Maior atraso do próprio gerador em relação ao horário marcado (se for alto, o gerador é o gargalo)
+    double atrasoMaximoMs() {
+        return atrasoMaximoNanos / 1_000_000.0;
+    }
+
+    private static void esperarAte(long instante) {
+        long falta;
+        while ((falta = instante - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(falta);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.wnd.wndloadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latências e contagens de UMA operação durante a medição.
+ *
+ * A latência é em microssegundos, com 3 dígitos significativos, e conta a
+ * partir do instante em que a requisição DEVERIA ter saído (ver GeradorCarga).
+ * As descartadas também entram nos percentis (ver descartar()).
+ */
+final class Medicao {
+
+    private final Histogram latencias = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(5), 3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder conflitos = new LongAdder();
+    private final LongAdder recusadas = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+
+    void registrar(ClienteApi.Resultado resultado, long latenciaNanos) {
+        registrarLatencia(latenciaNanos);
+        switch (resultado) {
+            case OK -> ok.increment();
+            case CONFLITO -> conflitos.increment();
+            case RECUSADA -> recusadas.increment();
+            case ERRO -> erros.increment();
+        }
+    }
+
+    // Não chegou a sair: o gerador já tinha requisições demais em andamento.
+    // Entra no histograma mesmo assim, com a espera do horário marcado até o
+    // fim da execução (o mínimo que o usuário teria esperado): tirar essas do
+    // histograma esconderia justamente os piores momentos da API.
+    void descartar(long esperaNanos) {
+        registrarLatencia(esperaNanos);
+        descartadas.increment();
+    }
+
+    private void registrarLatencia(long latenciaNanos) {
+        // Acima do limite do histograma fica no limite (não derruba a medição)
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(latenciaNanos), latencias.getHighestTrackableValue());
+        latencias.recordValue(micros);
+    }
+
+    Resumo resumir(double segundos) {
+        return new Resumo(
+                (ok.sum() + conflitos.sum()) / segundos,
+                ms(latencias.getValueAtPercentile(50)),
+                ms(latencias.getValueAtPercentile(90)),
+                ms(latencias.getValueAtPercentile(99)),
+                ms(latencias.getValueAtPercentile(99.9)),
+                ms(latencias.getMaxValue()),
+                ok.sum(), conflitos.sum(), recusadas.sum(), erros.sum(), descartadas.sum());
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * O que vai para o relatório e para o JSON do baseline.
+     * vazao = respostas por segundo (OK + conflitos; recusas e erros não contam).
+     */
+    record Resumo(double vazao, double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maximoMs,
+                  long ok, long conflitos, long recusadas, long erros, long descartadas) {
+    }
+}
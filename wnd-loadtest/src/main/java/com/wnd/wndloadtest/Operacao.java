@@ -0,0 +1,41 @@
+package com.wnd.wndloadtest;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * O que cada tela do front (pasta static/ da API) faz na API.
+ */
+enum Operacao {
+
+    // lista-produtos.js: primeira página (20 cards, ?fields= do card, ordenação sorteada)
+    LISTAR("listar"),
+    // editar-produto.js ao abrir: GET /api/produtos/{id} (guarda o ETag)
+    ABRIR("abrir"),
+    // editar-produto.js ao salvar: PUT /api/produtos/{id} com If-Match do ETag carregado
+    SALVAR("salvar"),
+    // cadastro-produto.js: POST /api/produtos
+    CRIAR("criar"),
+    // lista-produtos.js, modal de exclusão: DELETE /api/produtos/{id}
+    EXCLUIR("excluir");
+
+    private final String nome;
+
+    Operacao(String nome) {
+        this.nome = nome;
+    }
+
+    String nome() {
+        return nome;
+    }
+
+    static Operacao doNome(String nome) {
+        for (Operacao operacao : values()) {
+            if (operacao.nome.equalsIgnoreCase(nome)) {
+                return operacao;
+            }
+        }
+        throw new IllegalArgumentException("Operação desconhecida: " + nome + " (use "
+                + Arrays.stream(values()).map(Operacao::nome).collect(Collectors.joining(", ")) + ")");
+    }
+}
@@ -0,0 +1,134 @@
+package com.wnd.wndloadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tabela do resultado, gravação em JSON e comparação com o baseline.
+ *
+ * O baseline é um resultado anterior gravado com -Dcarga.salvar-baseline=true.
+ * Na comparação, uma operação "regrediu" quando p50 ou p99 pioraram, ou a
+ * vazão caiu, mais que carga.tolerancia-pct em relação a ele, ou quando
+ * teve requisições descartadas. Só faz sentido
+ * comparar execuções com a mesma taxa, mix e catálogo (a tabela avisa se não forem).
+ */
+final class Relatorio {
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Uma execução completa, como fica no arquivo.
+     */
+    record Execucao(String data, String url, int taxa, int duracaoSegundos, int produtos, String mix,
+                    Map<String, Medicao.Resumo> operacoes) {
+
+        static Execucao de(Configuracao configuracao, Map<Operacao, Medicao.Resumo> resumos) {
+            Map<String, Medicao.Resumo> operacoes = new LinkedHashMap<>();
+            resumos.forEach((operacao, resumo) -> operacoes.put(operacao.nome(), resumo));
+            StringBuilder mix = new StringBuilder();
+            configuracao.mix().forEach((operacao, peso) ->
+                    mix.append(mix.isEmpty() ? "" : ",").append(operacao.nome()).append(':').append(peso));
+            return new Execucao(Instant.now().toString(), configuracao.url().toString(), configuracao.taxa(),
+                    configuracao.duracaoSegundos(), configuracao.produtos(), mix.toString(), operacoes);
+        }
+
+        boolean comparavelCom(Execucao outra) {
+            return taxa == outra.taxa && produtos == outra.produtos && mix.equals(outra.mix);
+        }
+    }
+
+    static void imprimir(Execucao execucao, int maximoPendentes, double atrasoGeradorMs) {
+        StringBuilder saida = new StringBuilder();
+        saida.append(String.format(Locale.ROOT, "%n  %d req/s por %d s | catálogo: %d produtos | mix: %s%n",
+                execucao.taxa(), execucao.duracaoSegundos(), execucao.produtos(), execucao.mix()));
+        saida.append(String.format(Locale.ROOT,
+                "  %-8s %9s %9s %9s %9s %9s %9s %8s %9s %9s %6s %10s%n",
+                "operação", "resp/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "máx ms",
+                "ok", "conflitos", "recusadas", "erros", "descartes"));
+        execucao.operacoes().forEach((nome, r) -> saida.append(String.format(Locale.ROOT,
+                "  %-8s %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %8d %9d %9d %6d %10d%n",
+                nome, r.vazao(), r.p50Ms(), r.p90Ms(), r.p99Ms(), r.p999Ms(), r.maximoMs(),
+                r.ok(), r.conflitos(), r.recusadas(), r.erros(), r.descartadas())));
+        saida.append(String.format(Locale.ROOT,
+                "  máximo em andamento: %d | maior atraso do gerador: %.2f ms%n", maximoPendentes, atrasoGeradorMs));
+        long descartadas = descartadas(execucao);
+        if (descartadas > 0) {
+            saida.append(String.format(Locale.ROOT,
+                    "  ATENÇÃO: %d requisições descartadas (carga.max-pendentes). Elas entram nos percentis com a%n"
+                            + "  espera até o fim da execução; a API não aguentou esta taxa e a execução não vale como baseline.%n",
+                    descartadas));
+        }
+        System.out.print(saida);
+    }
+
+    // Requisições que não chegaram a sair, somando todas as operações
+    static long descartadas(Execucao execucao) {
+        return execucao.operacoes().values().stream().mapToLong(Medicao.Resumo::descartadas).sum();
+    }
+
+    static void gravar(Execucao execucao, Path arquivo) throws IOException {
+        Path pasta = arquivo.toAbsolutePath().getParent();
+        if (pasta != null) {
+            Files.createDirectories(pasta);
+        }
+        JSON.writeValue(arquivo.toFile(), execucao);
+    }
+
+    static Execucao ler(Path arquivo) throws IOException {
+        return JSON.readValue(arquivo.toFile(), Execucao.class);
+    }
+
+    /**
+     * Imprime a diferença para o baseline e devolve true se alguma operação regrediu.
+     */
+    static boolean comparar(Execucao atual, Execucao baseline, double toleranciaPct) {
+        StringBuilder saida = new StringBuilder();
+        saida.append(String.format(Locale.ROOT, "%n  comparação com o baseline de %s (tolerância %.0f%%)%n",
+                baseline.data(), toleranciaPct));
+        if (!atual.comparavelCom(baseline)) {
+            saida.append(String.format(Locale.ROOT,
+                    "  ATENÇÃO: baseline com outra configuração (%d req/s, %d produtos, mix %s)%n",
+                    baseline.taxa(), baseline.produtos(), baseline.mix()));
+        }
+        saida.append(String.format(Locale.ROOT, "  %-8s %12s %12s %12s%n", "operação", "Δ resp/s", "Δ p50", "Δ p99"));
+
+        boolean regrediu = false;
+        for (Map.Entry<String, Medicao.Resumo> entrada : atual.operacoes().entrySet()) {
+            Medicao.Resumo antes = baseline.operacoes().get(entrada.getKey());
+            if (antes == null) {
+                continue;
+            }
+            Medicao.Resumo agora = entrada.getValue();
+            double vazao = variacao(antes.vazao(), agora.vazao());
+            double p50 = variacao(antes.p50Ms(), agora.p50Ms());
+            double p99 = variacao(antes.p99Ms(), agora.p99Ms());
+            // Latência subir é piora; vazão cair é piora; qualquer descarte também
+            boolean piorou = p50 > toleranciaPct || p99 > toleranciaPct || -vazao > toleranciaPct
+                    || agora.descartadas() > 0;
+            regrediu |= piorou;
+            saida.append(String.format(Locale.ROOT, "  %-8s %+11.1f%% %+11.1f%% %+11.1f%%%s%n",
+                    entrada.getKey(), vazao, p50, p99,
+                    !piorou ? "" : agora.descartadas() > 0 ? "   REGRESSÃO (descartes)" : "   REGRESSÃO"));
+        }
+        System.out.print(saida);
+        return regrediu;
+    }
+
+    private static double variacao(double antes, double agora) {
+        if (antes == 0) {
+            return 0;
+        }
+        return (agora - antes) / antes * 100;
+    }
+
+    private Relatorio() {
+    }
+}
@@ -0,0 +1,66 @@
+package com.wnd.wndloadtest;
+
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * Teste de carga da API em execução, imitando o uso das telas do front:
+ * listar, abrir para edição, salvar (PUT com If-Match), cadastrar e excluir,
+ * na proporção de carga.mix e no ritmo fixo de carga.taxa req/s.
+ *
+ * Tudo local: a API roda à parte (mvn spring-boot:run em wnd-api, H2 em
+ * memória) e este processo só faz HTTP em carga.url. Para rodar:
+ *
+ *   mvn -Pcarga -pl wnd-loadtest verify
+ *   mvn -Pcarga -pl wnd-loadtest verify -Dcarga.taxa=500 -Dcarga.produtos=200000
+ *   mvn -Pcarga -pl wnd-loadtest verify -Dcarga.salvar-baseline=true
+ *
+ * Passos:
+ *  1. prepara o catálogo (importa produtos até ter carga.produtos)
+ *  2. aquecimento (carga.aquecimento-s, não medido) e medição (carga.duracao-s)
+ *  3. imprime p50/p90/p99/p99.9/máx e resp/s por operação e grava em carga.resultado
+ *  4. compara com o baseline (se existir); regressão ou descartes → código de saída 2
+ */
+public final class TesteCarga {
+
+    public static void main(String[] args) throws Exception {
+        Configuracao configuracao = Configuracao.dasPropriedades();
+
+        try (ClienteApi cliente = new ClienteApi(configuracao.url())) {
+            int produtos = cliente.prepararCatalogo(configuracao.produtos());
+            System.out.printf("Catálogo com %d produtos em %s. Aquecendo por %d s, medindo por %d s a %d req/s...%n",
+                    produtos, configuracao.url(), configuracao.aquecimentoSegundos(),
+                    configuracao.duracaoSegundos(), configuracao.taxa());
+
+            GeradorCarga gerador = new GeradorCarga(cliente, configuracao);
+            Map<Operacao, Medicao.Resumo> resumos = gerador.rodar();
+
+            Relatorio.Execucao execucao = Relatorio.Execucao.de(configuracao, resumos);
+            Relatorio.imprimir(execucao, gerador.maximoPendentes(), gerador.atrasoMaximoMs());
+            Relatorio.gravar(execucao, configuracao.resultado());
+            System.out.printf("%nResultado gravado em %s%n", configuracao.resultado());
+
+            if (configuracao.salvarBaseline()) {
+                if (Relatorio.descartadas(execucao) > 0) {
+                    // Percentis de uma execução que descartou requisições não servem de referência
+                    System.out.printf("Baseline NÃO gravado: houve requisições descartadas%n");
+                    System.exit(2);
+                }
+                Relatorio.gravar(execucao, configuracao.baseline());
+                System.out.printf("Baseline gravado em %s%n", configuracao.baseline());
+            } else if (Files.exists(configuracao.baseline())) {
+                boolean regrediu = Relatorio.comparar(execucao, Relatorio.ler(configuracao.baseline()),
+                        configuracao.toleranciaPct());
+                if (regrediu) {
+                    System.exit(2);
+                }
+            } else {
+                System.out.printf("Sem baseline em %s (grave um com -Dcarga.salvar-baseline=true)%n",
+                        configuracao.baseline());
+            }
+        }
+    }
+
+    private TesteCarga() {
+    }
+}
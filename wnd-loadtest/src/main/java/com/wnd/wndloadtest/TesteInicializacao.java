@@ -0,0 +1,207 @@
+package com.wnd.wndloadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+
+/**
+ * Benchmark de subida da API: quanto tempo do "java ..." até o primeiro
+ * GET /api/produtos com 200, e quanta memória (RSS) o processo usa nesse momento.
+ *
+ * Compara, com o mesmo jar (wnd-api/target/*-exec.jar):
+ *  - padrao          → java -jar, sem perfil (como hoje)
+ *  - rapido          → perfil "rapido" (lazy init, sem Swagger/console, schema validado)
+ *  - rapido+cds      → idem, com o jar extraído e um arquivo CDS das classes da JVM
+ *  - rapido+cds+aot  → idem, com as classes do Spring AOT (só se o jar foi gerado com -Prapido)
+ *
+ * O arquivo CDS é criado antes das medições por uma "subida de treino"
+ * (-XX:ArchiveClassesAtExit com -Dspring.context.exit=onRefresh), como
+ * recomenda a documentação do Spring Boot.
+ *
+ * Para rodar (a API NÃO deve estar rodando, cada medição sobe a sua):
+ *
+ *   mvn -pl wnd-api package -DskipTests -Prapido
+ *   mvn -Pinicializacao -pl wnd-loadtest verify
+ *   mvn -Pinicializacao -pl wnd-loadtest verify -Dinicio.repeticoes=5
+ *
+ * O RSS vem de /proc/{pid}/status (só no Linux; nos outros sistemas sai "n/d").
+ */
+public final class TesteInicializacao {
+
+    private static final Duration TEMPO_MAXIMO = Duration.ofMinutes(3);
+
+    private record Variante(String nome, List<String> opcoesJvm, boolean extraido, List<String> argumentos) {
+    }
+
+    private record Medida(long milissegundos, long rssKb) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(System.getProperty("inicio.jar",
+                "../wnd-api/target/wnd-api-0.0.1-SNAPSHOT-exec.jar")).toAbsolutePath().normalize();
+        Path pasta = Path.of(System.getProperty("inicio.pasta", "target/inicializacao")).toAbsolutePath();
+        int repeticoes = Integer.getInteger("inicio.repeticoes", 3);
+        if (!Files.exists(jar)) {
+            throw new IllegalStateException("Jar da API não encontrado: " + jar
+                    + " (gere com: mvn -pl wnd-api package -DskipTests -Prapido)");
+        }
+        Files.createDirectories(pasta);
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        // Jar extraído (o CDS não funciona com os jars aninhados do jar executável)
+        Path extraido = pasta.resolve("extraido");
+        executar(pasta.resolve("extracao.log"), java, "-Djarmode=tools", "-jar", jar.toString(),
+                "extract", "--destination", extraido.toString(), "--force");
+        Path jarExtraido = extraido.resolve(jar.getFileName());
+
+        List<String> rapido = List.of("--spring.profiles.active=rapido");
+        List<Variante> variantes = new ArrayList<>();
+        variantes.add(new Variante("padrao", List.of(), false, List.of()));
+        variantes.add(new Variante("rapido", List.of(), false, rapido));
+        variantes.add(new Variante("rapido+cds",
+                List.of("-XX:SharedArchiveFile=" + criarArquivoCds(java, jarExtraido, pasta, "rapido", List.of())),
+                true, rapido));
+        if (temClassesAot(jar)) {
+            List<String> aot = List.of("-Dspring.aot.enabled=true");
+            List<String> opcoes = new ArrayList<>(aot);
+            opcoes.add("-XX:SharedArchiveFile=" + criarArquivoCds(java, jarExtraido, pasta, "rapido-aot", aot));
+            variantes.add(new Variante("rapido+cds+aot", opcoes, true, rapido));
+        } else {
+            System.out.println("Jar sem classes do Spring AOT (gere com -Prapido): variante rapido+cds+aot pulada");
+        }
+
+        StringBuilder saida = new StringBuilder(String.format(Locale.ROOT,
+                "%n  subida até o primeiro GET /api/produtos = 200 (mediana de %d; mín–máx)%n"
+                        + "  %-16s %10s %17s %10s%n", repeticoes, "variante", "ms", "mín–máx ms", "RSS MB"));
+        long referencia = 0;
+        for (Variante variante : variantes) {
+            List<Medida> medidas = new ArrayList<>();
+            for (int i = 0; i < repeticoes; i++) {
+                medidas.add(medir(java, variante, variante.extraido() ? jarExtraido : jar,
+                        pasta.resolve(variante.nome() + "-" + i + ".log")));
+            }
+            long[] tempos = medidas.stream().mapToLong(Medida::milissegundos).sorted().toArray();
+            long[] rss = medidas.stream().mapToLong(Medida::rssKb).sorted().toArray();
+            long mediana = tempos[tempos.length / 2];
+            if (referencia == 0) {
+                referencia = mediana;
+            }
+            long rssMediano = rss[rss.length / 2];
+            saida.append(String.format(Locale.ROOT, "  %-16s %10d %8d–%-8d %10s   %+.0f%%%n",
+                    variante.nome(), mediana, tempos[0], tempos[tempos.length - 1],
+                    rssMediano > 0 ? String.format(Locale.ROOT, "%.0f", rssMediano / 1024.0) : "n/d",
+                    (mediana - referencia) * 100.0 / referencia));
+        }
+        System.out.print(saida);
+    }
+
+    // Uma subida: dispara o processo, espera o primeiro 200, lê o RSS e encerra
+    private static Medida medir(String java, Variante variante, Path jar, Path log) throws Exception {
+        int porta;
+        try (ServerSocket livre = new ServerSocket(0)) {
+            porta = livre.getLocalPort();
+        }
+        List<String> comando = new ArrayList<>();
+        comando.add(java);
+        comando.addAll(variante.opcoesJvm());
+        comando.addAll(List.of("-jar", jar.toString(), "--server.port=" + porta));
+        comando.addAll(variante.argumentos());
+
+        HttpRequest pedido = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/api/produtos"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        try (HttpClient http = HttpClient.newHttpClient()) {
+            long inicio = System.nanoTime();
+            Process processo = new ProcessBuilder(comando).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+            try {
+                long limite = inicio + TEMPO_MAXIMO.toNanos();
+                while (true) {
+                    if (!processo.isAlive()) {
+                        throw new IllegalStateException(variante.nome() + ": a API parou antes de responder (ver " + log + ")");
+                    }
+                    if (System.nanoTime() > limite) {
+                        throw new IllegalStateException(variante.nome() + ": sem resposta em " + TEMPO_MAXIMO);
+                    }
+                    try {
+                        if (http.send(pedido, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                            break;
+                        }
+                    } catch (IOException ainda) {
+                        // Tomcat ainda não está escutando
+                    }
+                    Thread.sleep(10);
+                }
+                long milissegundos = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+                return new Medida(milissegundos, rssKb(processo.pid()));
+            } finally {
+                processo.destroy();
+                if (!processo.waitFor(30, TimeUnit.SECONDS)) {
+                    processo.destroyForcibly().waitFor();
+                }
+            }
+        }
+    }
+
+    // Subida de treino: o contexto do Spring sobe e a JVM sai, gravando as classes carregadas
+    private static Path criarArquivoCds(String java, Path jar, Path pasta, String nome, List<String> opcoes)
+            throws Exception {
+        Path arquivo = pasta.resolve(nome + ".jsa");
+        Files.deleteIfExists(arquivo);
+        List<String> comando = new ArrayList<>(List.of(java, "-XX:ArchiveClassesAtExit=" + arquivo,
+                "-Dspring.context.exit=onRefresh"));
+        comando.addAll(opcoes);
+        comando.addAll(List.of("-jar", jar.toString(), "--server.port=0", "--spring.profiles.active=rapido"));
+        executar(pasta.resolve(nome + "-treino.log"), comando.toArray(String[]::new));
+        if (!Files.exists(arquivo)) {
+            throw new IllegalStateException("Arquivo CDS não foi criado: " + arquivo);
+        }
+        return arquivo;
+    }
+
+    private static boolean temClassesAot(Path jar) throws IOException {
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            return zip.getEntry("BOOT-INF/classes/com/wnd/wndapi/WndApiApplication__ApplicationContextInitializer.class") != null;
+        }
+    }
+
+    private static void executar(Path log, String... comando) throws Exception {
+        Process processo = new ProcessBuilder(comando).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        if (!processo.waitFor(TEMPO_MAXIMO.toSeconds(), TimeUnit.SECONDS)) {
+            processo.destroyForcibly();
+            throw new IllegalStateException("Tempo esgotado: " + String.join(" ", comando));
+        }
+        if (processo.exitValue() != 0) {
+            throw new IllegalStateException("Falhou (" + processo.exitValue() + "): "
+                    + String.join(" ", Arrays.asList(comando)) + " (ver " + log + ")");
+        }
+    }
+
+    // VmRSS de /proc/{pid}/status, em KB (0 se não der para ler)
+    private static long rssKb(long pid) {
+        try {
+            for (String linha : Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status"))) {
+                if (linha.startsWith("VmRSS:")) {
+                    return Long.parseLong(linha.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // fora do Linux
+        }
+        return 0;
+    }
+
+    private TesteInicializacao() {
+    }
+}